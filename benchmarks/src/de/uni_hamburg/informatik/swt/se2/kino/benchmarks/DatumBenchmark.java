@@ -0,0 +1,72 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+
+/**
+ * Misst Datumsarithmetik und -vergleiche, wie sie das Kino bei jedem Zugriff
+ * auf einen Tagesplan ausführt. Solange Datum keine gemeinsamen Sperren
+ * verwendet, wächst der Durchsatz mit der Anzahl der Threads.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatumBenchmark
+{
+    @Param({ "365" })
+    public int tage;
+
+    private Datum _erster;
+    private Datum[] _tage;
+    private int _index;
+
+    @Setup
+    public void erzeugeTage()
+    {
+        _erster = Kinogenerator.ERSTER_TAG;
+        _tage = new Datum[tage + 1];
+        for (int i = 0; i <= tage; i++)
+        {
+            _tage[i] = _erster.plus(i);
+        }
+    }
+
+    private int naechster()
+    {
+        int index = _index;
+        _index = index + 1 == tage ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public Datum plus()
+    {
+        return _erster.plus(naechster());
+    }
+
+    @Benchmark
+    public int compareTo()
+    {
+        int index = naechster();
+        return _tage[index].compareTo(_tage[index + 1]);
+    }
+}
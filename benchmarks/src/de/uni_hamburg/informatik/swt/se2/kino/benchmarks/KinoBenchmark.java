@@ -0,0 +1,103 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Tagesplan;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Misst das Nachschlagen von Tagesplänen im Kino und das Durchlaufen der
+ * Vorstellungen eines Tagesplans. Jeder Thread geht reihum durch alle Tage.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KinoBenchmark
+{
+    @Param({ "20x25" })
+    public String saalgroesse;
+
+    @Param({ "10", "100", "1000" })
+    public int vorstellungenProTag;
+
+    @Param({ "20" })
+    public int saele;
+
+    @Param({ "90" })
+    public int tage;
+
+    private Kino _kino;
+    private Datum[] _tage;
+    private Tagesplan[] _tagesplaene;
+
+    @Setup
+    public void erzeugeKino()
+    {
+        _kino = new Kinogenerator(saele, saalgroesse, vorstellungenProTag,
+                tage).erzeugeKino();
+        _tage = new Datum[tage];
+        _tagesplaene = new Tagesplan[tage];
+        for (int i = 0; i < tage; i++)
+        {
+            // Neue Exemplare, damit nicht nur Identitätsvergleiche gemessen
+            // werden
+            Datum tag = Kinogenerator.ERSTER_TAG.plus(i);
+            _tage[i] = new Datum(tag.getTag(), tag.getMonat(), tag.getJahr());
+            _tagesplaene[i] = _kino.getTagesplan(tag);
+        }
+    }
+
+    /**
+     * Der Tag, bei dem ein Thread gerade ist.
+     */
+    @State(Scope.Thread)
+    public static class Zeiger
+    {
+        int _index;
+
+        int naechster(int anzahl)
+        {
+            int index = _index;
+            _index = index + 1 == anzahl ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public Tagesplan getTagesplan(Zeiger zeiger)
+    {
+        return _kino.getTagesplan(_tage[zeiger.naechster(tage)]);
+    }
+
+    @Benchmark
+    public int getVorstellungen(Zeiger zeiger)
+    {
+        int summe = 0;
+        for (Vorstellung vorstellung : _tagesplaene[zeiger.naechster(tage)]
+                .getVorstellungen())
+        {
+            summe += vorstellung.getPreis();
+        }
+        return summe;
+    }
+}
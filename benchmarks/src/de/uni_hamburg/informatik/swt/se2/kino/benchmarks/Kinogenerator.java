@@ -0,0 +1,135 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Erzeugt synthetische Kinos beliebiger Größe für Benchmarks. Die
+ * Vorstellungen eines Tages werden reihum auf die Säle verteilt und in jedem
+ * Saal lückenlos zwischen 8 und 24 Uhr hintereinander gelegt, sodass sie sich
+ * nie überschneiden. Gleiche Parameter ergeben immer dasselbe Kino.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Kinogenerator
+{
+    private static final int ERSTE_MINUTE = 8 * 60;
+    private static final int LETZTE_MINUTE = 24 * 60 - 1;
+
+    /**
+     * Der erste Tag, an dem die erzeugten Kinos Vorstellungen haben.
+     */
+    public static final Datum ERSTER_TAG = new Datum(1, 1, 2012);
+
+    private final int _anzahlSaele;
+    private final int _reihen;
+    private final int _sitzeProReihe;
+    private final int _vorstellungenProTag;
+    private final int _anzahlTage;
+
+    /**
+     * Initialisiert einen Generator.
+     * 
+     * @param anzahlSaele die Anzahl der Kinosäle.
+     * @param saalgroesse die Größe jedes Saals als "Reihen x Sitze", etwa
+     *            "20x25".
+     * @param vorstellungenProTag die Anzahl der Vorstellungen pro Tag über
+     *            alle Säle.
+     * @param anzahlTage die Anzahl der Tage ab {@link #ERSTER_TAG}.
+     * 
+     * @require anzahlSaele > 0
+     * @require vorstellungenProTag > 0
+     * @require vorstellungenProTag <= anzahlSaele * 400
+     * @require anzahlTage > 0
+     */
+    public Kinogenerator(int anzahlSaele, String saalgroesse,
+            int vorstellungenProTag, int anzahlTage)
+    {
+        assert anzahlSaele > 0 : "Vorbedingung verletzt: anzahlSaele > 0";
+        assert vorstellungenProTag > 0 : "Vorbedingung verletzt: vorstellungenProTag > 0";
+        assert vorstellungenProTag <= anzahlSaele * 400 : "Vorbedingung verletzt: vorstellungenProTag <= anzahlSaele * 400";
+        assert anzahlTage > 0 : "Vorbedingung verletzt: anzahlTage > 0";
+
+        String[] teile = saalgroesse.split("x");
+        _anzahlSaele = anzahlSaele;
+        _reihen = Integer.parseInt(teile[0]);
+        _sitzeProReihe = Integer.parseInt(teile[1]);
+        _vorstellungenProTag = vorstellungenProTag;
+        _anzahlTage = anzahlTage;
+    }
+
+    /**
+     * Erzeugt einen einzelnen Saal in der eingestellten Größe.
+     */
+    public Kinosaal erzeugeSaal(String name)
+    {
+        return new Kinosaal(name, _reihen, _sitzeProReihe);
+    }
+
+    /**
+     * Erzeugt eine Vorstellung in einem eigenen Saal der eingestellten
+     * Größe.
+     */
+    public Vorstellung erzeugeVorstellung()
+    {
+        return new Vorstellung(erzeugeSaal("Saal"), new Film("Film", 120,
+                FSK.FSK12, false), new Uhrzeit(20, 0), new Uhrzeit(22, 0),
+                ERSTER_TAG, 900);
+    }
+
+    /**
+     * Erzeugt das Kino.
+     * 
+     * @ensure result != null
+     */
+    public Kino erzeugeKino()
+    {
+        Kinosaal[] saele = new Kinosaal[_anzahlSaele];
+        for (int i = 0; i < saele.length; i++)
+        {
+            saele[i] = erzeugeSaal("Saal " + (i + 1));
+        }
+        Film[] filme = new Film[10];
+        for (int i = 0; i < filme.length; i++)
+        {
+            filme[i] = new Film("Film " + (i + 1), 90 + 5 * i, FSK.values()[i
+                    % FSK.values().length], i % 3 == 0);
+        }
+
+        // Vorstellungen pro Saal und daraus die Länge eines Zeitfensters
+        int proSaal = (_vorstellungenProTag + _anzahlSaele - 1) / _anzahlSaele;
+        int fenster = (LETZTE_MINUTE - ERSTE_MINUTE) / proSaal;
+
+        List<Vorstellung> vorstellungen = new ArrayList<Vorstellung>();
+        Datum tag = ERSTER_TAG;
+        for (int t = 0; t < _anzahlTage; t++)
+        {
+            for (int v = 0; v < _vorstellungenProTag; v++)
+            {
+                Kinosaal saal = saele[v % _anzahlSaele];
+                int anfang = ERSTE_MINUTE + (v / _anzahlSaele) * fenster;
+                int ende = anfang + Math.max(1, fenster - 1);
+                vorstellungen.add(new Vorstellung(saal, filme[v
+                        % filme.length], uhrzeit(anfang), uhrzeit(ende), tag,
+                        500 + 100 * (v % 6)));
+            }
+            tag = tag.naechsterTag();
+        }
+        return new Kino(saele, vorstellungen
+                .toArray(new Vorstellung[vorstellungen.size()]));
+    }
+
+    private static Uhrzeit uhrzeit(int minute)
+    {
+        return new Uhrzeit(minute / 60, minute % 60);
+    }
+}
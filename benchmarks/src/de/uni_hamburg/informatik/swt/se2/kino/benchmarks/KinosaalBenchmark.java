@@ -0,0 +1,56 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+
+/**
+ * Misst das Durchlaufen aller Plätze eines Kinosaals, wie es etwa der
+ * Platzplan beim Aufbau tut.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KinosaalBenchmark
+{
+    @Param({ "10x16", "20x25", "50x100" })
+    public String saalgroesse;
+
+    private Kinosaal _saal;
+
+    @Setup
+    public void erzeugeSaal()
+    {
+        _saal = new Kinogenerator(1, saalgroesse, 1, 1).erzeugeSaal("Saal");
+    }
+
+    @Benchmark
+    public int getPlaetze()
+    {
+        int summe = 0;
+        for (Platz platz : _saal.getPlaetze())
+        {
+            summe += platz.getSitz();
+        }
+        return summe;
+    }
+}
@@ -0,0 +1,46 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Führt die JMH-Benchmarks nacheinander mit verschiedenen Thread-Anzahlen aus
+ * und schreibt die Ergebnisse jeder Anzahl als CSV-Datei (jmh-threads-N.csv),
+ * damit sich die Skalierung über die Kerne vergleichen lässt.
+ * 
+ * Aufruf: java -cp benchmarks.jar ...Messreihe [Thread-Anzahlen] [Muster],
+ * etwa "1,2,4 Vorstellung". Standard sind 1 Thread und so viele Threads, wie
+ * es Kerne gibt, für alle Benchmarks.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Messreihe
+{
+    /**
+     * Die Main-Methode.
+     * 
+     * @param args die Thread-Anzahlen, durch Kommas getrennt, und ein
+     *            regulärer Ausdruck für die Namen der Benchmarks.
+     */
+    public static void main(String[] args) throws RunnerException
+    {
+        int kerne = Runtime.getRuntime().availableProcessors();
+        String anzahlen = args.length > 0 ? args[0] : (kerne > 1 ? "1,"
+                + kerne : "1");
+        String muster = args.length > 1 ? args[1] : "";
+
+        for (String anzahl : anzahlen.split(","))
+        {
+            int threads = Integer.parseInt(anzahl.trim());
+            Options optionen = new OptionsBuilder().include(muster)
+                    .exclude(Messreihe.class.getSimpleName())
+                    .threads(threads).resultFormat(ResultFormatType.CSV)
+                    .result("jmh-threads-" + threads + ".csv").build();
+            new Runner(optionen).run();
+        }
+    }
+}
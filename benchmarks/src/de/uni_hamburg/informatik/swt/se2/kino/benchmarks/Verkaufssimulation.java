@@ -0,0 +1,590 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Simuliert viele Verkäuferinnen und Verkäufer (Kassen und Webshop), die
+ * gleichzeitig Karten für dieselben Vorstellungen eines erzeugten Kinos
+ * verkaufen und stornieren, etwa am Abend einer Premiere.
+ * 
+ * Jeder simulierte Verkäufer wählt eine Vorstellung (mit dem eingestellten
+ * Anteil die Premiere, sonst eine zufällige), wählt eine Gruppe von Plätzen
+ * nach der eingestellten Verteilung und versucht, sie mit
+ * {@link Vorstellung#verkaufeFallsFrei(Set)} zu kaufen. Mit dem eingestellten
+ * Anteil storniert er danach einen seiner früheren Verkäufe, damit die Säle
+ * nicht volllaufen. Gemessen werden Durchsatz, Latenz-Perzentile der Verkaufs-
+ * und Stornierungsaufrufe und der Anteil der Konflikte.
+ * 
+ * Zur Prüfung führt die Simulation ein eigenes Platzbuch: Jeder erfolgreiche
+ * Verkauf zählt die Besitzer seiner Plätze hoch, jede Stornierung herunter.
+ * Ein Platz mit zwei Besitzern ist ein Doppelverkauf. Am Ende werden das
+ * Platzbuch, {@link Vorstellung#getAnzahlVerkauftePlaetze()} und die
+ * Auslastungen des Kinos verglichen; jede Abweichung wird gemeldet und führt
+ * zum Exit-Code 1.
+ * 
+ * Aufruf: java Verkaufssimulation [name=wert ...], zum Beispiel
+ * 
+ * <pre>
+ * java Verkaufssimulation verkaeufer=200 threads=virtuell verteilung=beste
+ * </pre>
+ * 
+ * Parameter (Standardwerte in Klammern): verkaeufer (Anzahl der Kerne * 4),
+ * threads (plattform; virtuell erfordert Java 21), verteilung (mitte; gleich,
+ * mitte oder beste), gruppe (2, die größte Gruppengröße), premiere (0.9,
+ * Anteil der Käufe für die Premiere), storno (0.3), dauer (5 Sekunden), saele
+ * (8), tage (7), reihen (20), sitze (25).
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Verkaufssimulation
+{
+    private static final Uhrzeit[] ANFANGSZEITEN = { new Uhrzeit(14, 0),
+            new Uhrzeit(17, 0), new Uhrzeit(20, 0), new Uhrzeit(23, 0) };
+
+    private final int _verkaeufer;
+    private final boolean _virtuell;
+    private final String _verteilung;
+    private final int _gruppe;
+    private final double _premiere;
+    private final double _storno;
+    private final long _dauer;
+
+    private final Kino _kino;
+    private final List<Datum> _tage;
+    private final Vorstellung[] _vorstellungen;
+    private final int _premierenIndex;
+
+    // Das Platzbuch: die Anzahl der Besitzer jedes Platzes jeder Vorstellung
+    private final AtomicIntegerArray[] _besitzer;
+    private final AtomicLong _doppelverkaeufe;
+    private final AtomicLong _fehlstornierungen;
+
+    /**
+     * Die Main-Methode.
+     * 
+     * @param args die Parameter als name=wert.
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        Map<String, String> parameter = new HashMap<String, String>();
+        for (String arg : args)
+        {
+            int trenner = arg.indexOf('=');
+            if (trenner < 0)
+            {
+                System.err.println("Parameter ohne Wert: " + arg);
+                System.exit(2);
+            }
+            parameter.put(arg.substring(0, trenner), arg.substring(trenner + 1));
+        }
+        Verkaufssimulation simulation = new Verkaufssimulation(parameter);
+        boolean korrekt = simulation.fuehreAus();
+        System.exit(korrekt ? 0 : 1);
+    }
+
+    /**
+     * Erzeugt die Simulation und das Kino, gegen das sie läuft.
+     */
+    Verkaufssimulation(Map<String, String> parameter)
+    {
+        int kerne = Runtime.getRuntime().availableProcessors();
+        _verkaeufer = ganzzahl(parameter, "verkaeufer", kerne * 4);
+        _virtuell = text(parameter, "threads", "plattform").equals("virtuell");
+        _verteilung = text(parameter, "verteilung", "mitte");
+        _gruppe = ganzzahl(parameter, "gruppe", 2);
+        _premiere = zahl(parameter, "premiere", 0.9);
+        _storno = zahl(parameter, "storno", 0.3);
+        _dauer = (long) (zahl(parameter, "dauer", 5) * 1000);
+        int anzahlSaele = ganzzahl(parameter, "saele", 8);
+        int anzahlTage = ganzzahl(parameter, "tage", 7);
+        int reihen = ganzzahl(parameter, "reihen", 20);
+        int sitze = ganzzahl(parameter, "sitze", 25);
+        if (!_verteilung.equals("gleich") && !_verteilung.equals("mitte")
+                && !_verteilung.equals("beste"))
+        {
+            throw new IllegalArgumentException("Unbekannte Verteilung: "
+                    + _verteilung);
+        }
+
+        Kinosaal[] saele = new Kinosaal[anzahlSaele];
+        for (int i = 0; i < saele.length; i++)
+        {
+            saele[i] = new Kinosaal("Saal " + (i + 1), reihen, sitze);
+        }
+        Film film = new Film("Premiere", 150, FSK.FSK12, false);
+        _tage = new ArrayList<Datum>();
+        List<Vorstellung> vorstellungen = new ArrayList<Vorstellung>();
+        Datum tag = Datum.heute();
+        for (int t = 0; t < anzahlTage; t++)
+        {
+            _tage.add(tag);
+            for (Kinosaal saal : saele)
+            {
+                for (Uhrzeit anfang : ANFANGSZEITEN)
+                {
+                    Uhrzeit ende = new Uhrzeit(
+                            (anfang.getStunden() + 2) % 24, 30);
+                    vorstellungen.add(new Vorstellung(saal, film, anfang,
+                            ende, tag, 900));
+                }
+            }
+            tag = tag.naechsterTag();
+        }
+        _vorstellungen = vorstellungen.toArray(new Vorstellung[vorstellungen
+                .size()]);
+        _kino = new Kino(saele, _vorstellungen);
+        // Die Premiere: die Abendvorstellung im ersten Saal am ersten Tag
+        _premierenIndex = 2;
+
+        _besitzer = new AtomicIntegerArray[_vorstellungen.length];
+        for (int i = 0; i < _besitzer.length; i++)
+        {
+            _besitzer[i] = new AtomicIntegerArray(reihen * sitze);
+        }
+        _doppelverkaeufe = new AtomicLong();
+        _fehlstornierungen = new AtomicLong();
+    }
+
+    /**
+     * Führt die Simulation aus, gibt den Bericht aus und prüft den Endstand.
+     * 
+     * @return true, falls es weder Doppelverkäufe noch Abweichungen gab.
+     */
+    boolean fuehreAus() throws InterruptedException
+    {
+        System.out.printf("%d Verkäufer (%s), Verteilung %s, Gruppen bis %d, "
+                + "Premiere %.0f%%, Storno %.0f%%, %d Vorstellungen%n",
+                _verkaeufer, _virtuell ? "virtuelle Threads"
+                        : "Plattform-Threads", _verteilung, _gruppe,
+                _premiere * 100, _storno * 100, _vorstellungen.length);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch ende = new CountDownLatch(_verkaeufer);
+        final Verkaeufer[] verkaeufer = new Verkaeufer[_verkaeufer];
+        final long[] schluss = new long[1];
+        for (int i = 0; i < verkaeufer.length; i++)
+        {
+            final Verkaeufer v = new Verkaeufer();
+            verkaeufer[i] = v;
+            starteThread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        v.arbeite(schluss[0]);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally
+                    {
+                        ende.countDown();
+                    }
+                }
+            });
+        }
+        long anfang = System.nanoTime();
+        schluss[0] = anfang + _dauer * 1000000;
+        start.countDown();
+        ende.await();
+        double sekunden = (System.nanoTime() - anfang) / 1e9;
+
+        Latenzen verkaufLatenz = new Latenzen();
+        Latenzen stornoLatenz = new Latenzen();
+        long verkauft = 0;
+        long konflikte = 0;
+        long ausverkauft = 0;
+        long storniert = 0;
+        for (Verkaeufer v : verkaeufer)
+        {
+            verkaufLatenz.fuegeHinzu(v._verkaufLatenz);
+            stornoLatenz.fuegeHinzu(v._stornoLatenz);
+            verkauft += v._verkauft;
+            konflikte += v._konflikte;
+            ausverkauft += v._ausverkauft;
+            storniert += v._storniert;
+        }
+        long versuche = verkauft + konflikte;
+        System.out.printf("Dauer %.1f s: %.0f Verkaufsversuche/s, %.0f "
+                + "Verkäufe/s, %.0f Stornierungen/s%n", sekunden, versuche
+                / sekunden, verkauft / sekunden, storniert / sekunden);
+        System.out.printf("Konfliktrate %.2f%% (%d von %d Versuchen), %d-mal "
+                + "keine passenden Plätze%n", versuche == 0 ? 0.0
+                : 100.0 * konflikte / versuche, konflikte, versuche,
+                ausverkauft);
+        System.out.println("Latenz in µs    p50     p90     p99   p99.9     max");
+        verkaufLatenz.drucke("Verkauf     ");
+        stornoLatenz.drucke("Stornierung ");
+        return pruefe();
+    }
+
+    /**
+     * Startet einen Plattform-Thread oder, falls eingestellt und verfügbar,
+     * einen virtuellen Thread. Virtuelle Threads werden per Reflection
+     * erzeugt, da das Projekt für Java 11 übersetzt wird; ohne Java 21 ist
+     * die Einstellung daher ein Fehler.
+     */
+    private void starteThread(Runnable aufgabe)
+    {
+        if (_virtuell)
+        {
+            try
+            {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(
+                        null);
+                Class.forName("java.lang.Thread$Builder")
+                        .getMethod("start", Runnable.class)
+                        .invoke(builder, aufgabe);
+                return;
+            }
+            catch (ReflectiveOperationException e)
+            {
+                throw new IllegalStateException(
+                        "Virtuelle Threads erfordern Java 21", e);
+            }
+        }
+        Thread thread = new Thread(aufgabe, "Verkaeufer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Vergleicht Platzbuch, Vorstellungen und Auslastungen und gibt die
+     * Abweichungen aus.
+     */
+    private boolean pruefe()
+    {
+        long platzabweichungen = 0;
+        long zaehlerabweichung = 0;
+        long summeBuch = 0;
+        for (int i = 0; i < _vorstellungen.length; i++)
+        {
+            Vorstellung vorstellung = _vorstellungen[i];
+            Kinosaal saal = vorstellung.getKinosaal();
+            AtomicIntegerArray besitzer = _besitzer[i];
+            int imBuch = 0;
+            for (int nummer = 0; nummer < besitzer.length(); nummer++)
+            {
+                int anzahl = besitzer.get(nummer);
+                imBuch += anzahl;
+                boolean verkauft = vorstellung.istPlatzVerkauft(saal
+                        .getPlatz(nummer));
+                if (anzahl != (verkauft ? 1 : 0))
+                {
+                    platzabweichungen++;
+                }
+            }
+            summeBuch += imBuch;
+            zaehlerabweichung += Math.abs(vorstellung
+                    .getAnzahlVerkauftePlaetze() - imBuch);
+        }
+        long summeAuslastung = 0;
+        for (Datum tag : _tage)
+        {
+            summeAuslastung += _kino.getAuslastung(tag)
+                    .getAnzahlVerkaufterPlaetze();
+        }
+        long auslastungsabweichung = Math.abs(summeAuslastung - summeBuch);
+
+        System.out.printf("Premiere: %d von %d Plätzen verkauft, insgesamt %d "
+                + "Plätze verkauft%n", _vorstellungen[_premierenIndex]
+                .getAnzahlVerkauftePlaetze(), _vorstellungen[_premierenIndex]
+                .getKinosaal().getAnzahlPlaetze(), summeBuch);
+        System.out.printf("Doppelverkäufe %d, Fehlstornierungen %d, "
+                + "abweichende Plätze %d, Zählerabweichung %d, "
+                + "Auslastungsabweichung %d%n", _doppelverkaeufe.get(),
+                _fehlstornierungen.get(), platzabweichungen, zaehlerabweichung,
+                auslastungsabweichung);
+        boolean korrekt = _doppelverkaeufe.get() == 0
+                && _fehlstornierungen.get() == 0 && platzabweichungen == 0
+                && zaehlerabweichung == 0 && auslastungsabweichung == 0;
+        System.out.println(korrekt ? "Endstand korrekt" : "FEHLER im Endstand");
+        return korrekt;
+    }
+
+    /**
+     * Ein simulierter Verkäufer. Die Zähler und Latenzen gehören allein
+     * seinem Thread und werden erst nach dessen Ende gelesen.
+     */
+    private class Verkaeufer
+    {
+        private final ArrayDeque<Verkauf> _eigeneVerkaeufe = new ArrayDeque<Verkauf>();
+        private final Latenzen _verkaufLatenz = new Latenzen();
+        private final Latenzen _stornoLatenz = new Latenzen();
+        private long _verkauft;
+        private long _konflikte;
+        private long _ausverkauft;
+        private long _storniert;
+
+        void arbeite(long schluss)
+        {
+            ThreadLocalRandom zufall = ThreadLocalRandom.current();
+            while (System.nanoTime() < schluss)
+            {
+                int index = zufall.nextDouble() < _premiere ? _premierenIndex
+                        : zufall.nextInt(_vorstellungen.length);
+                Vorstellung vorstellung = _vorstellungen[index];
+                PlatzMenge plaetze = waehlePlaetze(vorstellung, zufall);
+                if (plaetze.isEmpty())
+                {
+                    _ausverkauft++;
+                    storniere();
+                    continue;
+                }
+
+                long anfang = System.nanoTime();
+                boolean erfolg = vorstellung.verkaufeFallsFrei(plaetze) == null;
+                _verkaufLatenz.erfasse(System.nanoTime() - anfang);
+                if (erfolg)
+                {
+                    _verkauft++;
+                    buche(index, plaetze, 1);
+                    _eigeneVerkaeufe.add(new Verkauf(index, plaetze));
+                }
+                else
+                {
+                    _konflikte++;
+                }
+                if (zufall.nextDouble() < _storno)
+                {
+                    storniere();
+                }
+            }
+        }
+
+        /**
+         * Storniert einen zufälligen früheren Verkauf dieses Verkäufers.
+         */
+        private void storniere()
+        {
+            Verkauf verkauf = ThreadLocalRandom.current().nextBoolean() ? _eigeneVerkaeufe
+                    .pollFirst() : _eigeneVerkaeufe.pollLast();
+            if (verkauf == null)
+            {
+                return;
+            }
+            Vorstellung vorstellung = _vorstellungen[verkauf._index];
+            // Erst aus dem Buch nehmen, damit ein gleichzeitiger Verkauf der
+            // freigegebenen Plätze nicht als Doppelverkauf erscheint.
+            buche(verkauf._index, verkauf._plaetze, -1);
+            long anfang = System.nanoTime();
+            boolean erfolg = vorstellung
+                    .storniereFallsVerkauft(verkauf._plaetze) == null;
+            _stornoLatenz.erfasse(System.nanoTime() - anfang);
+            if (erfolg)
+            {
+                _storniert++;
+            }
+            else
+            {
+                // Die eigenen Plätze waren nicht mehr verkauft
+                _fehlstornierungen.incrementAndGet();
+                buche(verkauf._index, verkauf._plaetze, 1);
+            }
+        }
+
+        /**
+         * Wählt die Plätze eines Verkaufsversuchs nach der eingestellten
+         * Verteilung.
+         */
+        private PlatzMenge waehlePlaetze(Vorstellung vorstellung,
+                ThreadLocalRandom zufall)
+        {
+            Kinosaal saal = vorstellung.getKinosaal();
+            int anzahl = 1 + zufall.nextInt(_gruppe);
+            PlatzMenge plaetze = new PlatzMenge(saal);
+            if (_verteilung.equals("beste"))
+            {
+                plaetze.addAll(vorstellung.sucheBestePlaetze(anzahl, true));
+                return plaetze;
+            }
+            int reihen = saal.getAnzahlReihen();
+            int sitze = saal.getAnzahlSitzeProReihe();
+            anzahl = Math.min(anzahl, sitze);
+            int reihe;
+            int sitz;
+            if (_verteilung.equals("mitte"))
+            {
+                reihe = begrenze((int) Math.round(reihen / 2.0
+                        + zufall.nextGaussian() * reihen / 6.0), reihen);
+                sitz = begrenze((int) Math.round((sitze - anzahl) / 2.0
+                        + zufall.nextGaussian() * sitze / 6.0), sitze - anzahl
+                        + 1);
+            }
+            else
+            {
+                reihe = zufall.nextInt(reihen);
+                sitz = zufall.nextInt(sitze - anzahl + 1);
+            }
+            for (int i = 0; i < anzahl; i++)
+            {
+                plaetze.add(saal.getPlatz(reihe, sitz + i));
+            }
+            return plaetze;
+        }
+    }
+
+    /**
+     * Trägt die Plätze im Platzbuch ein (+1) oder aus (-1).
+     */
+    private void buche(int index, PlatzMenge plaetze, int delta)
+    {
+        AtomicIntegerArray besitzer = _besitzer[index];
+        Kinosaal saal = _vorstellungen[index].getKinosaal();
+        for (Platz platz : plaetze)
+        {
+            if (besitzer.addAndGet(saal.getPlatznummer(platz), delta) > 1)
+            {
+                _doppelverkaeufe.incrementAndGet();
+            }
+        }
+    }
+
+    private static int begrenze(int wert, int grenze)
+    {
+        return Math.max(0, Math.min(grenze - 1, wert));
+    }
+
+    /**
+     * Ein erfolgreicher Verkauf eines Verkäufers.
+     */
+    private static class Verkauf
+    {
+        private final int _index;
+        private final PlatzMenge _plaetze;
+
+        Verkauf(int index, PlatzMenge plaetze)
+        {
+            _index = index;
+            _plaetze = plaetze;
+        }
+    }
+
+    /**
+     * Ein Histogramm von Latenzen mit logarithmischen Klassen: 16 Klassen je
+     * Zweierpotenz, also höchstens etwa 6 % Abweichung vom gemessenen Wert.
+     */
+    private static class Latenzen
+    {
+        private static final int UNTERTEILUNG = 4;
+        private final long[] _klassen = new long[64 << UNTERTEILUNG];
+        private long _anzahl;
+        private long _maximum;
+
+        void erfasse(long nanos)
+        {
+            _klassen[klasse(Math.max(1, nanos))]++;
+            _anzahl++;
+            _maximum = Math.max(_maximum, nanos);
+        }
+
+        void fuegeHinzu(Latenzen andere)
+        {
+            for (int i = 0; i < _klassen.length; i++)
+            {
+                _klassen[i] += andere._klassen[i];
+            }
+            _anzahl += andere._anzahl;
+            _maximum = Math.max(_maximum, andere._maximum);
+        }
+
+        /**
+         * Gibt die Obergrenze der Klasse zurück, in die das angegebene
+         * Perzentil fällt.
+         */
+        long perzentil(double anteil)
+        {
+            long rang = (long) Math.ceil(anteil * _anzahl);
+            long gezaehlt = 0;
+            for (int i = 0; i < _klassen.length; i++)
+            {
+                gezaehlt += _klassen[i];
+                if (gezaehlt >= rang && gezaehlt > 0)
+                {
+                    return Math.min(obergrenze(i), _maximum);
+                }
+            }
+            return _maximum;
+        }
+
+        void drucke(String name)
+        {
+            if (_anzahl == 0)
+            {
+                System.out.println(name + "      -");
+                return;
+            }
+            System.out.printf("%s %7.1f %7.1f %7.1f %7.1f %7.1f%n", name,
+                    perzentil(0.5) / 1e3, perzentil(0.9) / 1e3,
+                    perzentil(0.99) / 1e3, perzentil(0.999) / 1e3,
+                    _maximum / 1e3);
+        }
+
+        private static int klasse(long wert)
+        {
+            int exponent = 63 - Long.numberOfLeadingZeros(wert);
+            if (exponent < UNTERTEILUNG)
+            {
+                return (int) wert;
+            }
+            int mantisse = (int) (wert >>> (exponent - UNTERTEILUNG))
+                    & ((1 << UNTERTEILUNG) - 1);
+            return ((exponent - UNTERTEILUNG + 1) << UNTERTEILUNG) + mantisse;
+        }
+
+        private static long obergrenze(int klasse)
+        {
+            if (klasse < (1 << UNTERTEILUNG))
+            {
+                return klasse;
+            }
+            int exponent = (klasse >>> UNTERTEILUNG) + UNTERTEILUNG - 1;
+            long mantisse = klasse & ((1 << UNTERTEILUNG) - 1);
+            return ((1L << UNTERTEILUNG | mantisse) + 1 << (exponent - UNTERTEILUNG)) - 1;
+        }
+    }
+
+    private static String text(Map<String, String> parameter, String name,
+            String standard)
+    {
+        String wert = parameter.get(name);
+        return wert != null ? wert : standard;
+    }
+
+    private static int ganzzahl(Map<String, String> parameter, String name,
+            int standard)
+    {
+        return Integer.parseInt(text(parameter, name, String.valueOf(standard)));
+    }
+
+    private static double zahl(Map<String, String> parameter, String name,
+            double standard)
+    {
+        return Double.parseDouble(text(parameter, name, String
+                .valueOf(standard)));
+    }
+}
@@ -0,0 +1,102 @@
+package de.uni_hamburg.informatik.swt.se2.kino.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Misst Verkauf und Verkaufbarkeitsprüfung einer Vorstellung. Alle Threads
+ * arbeiten auf derselben Vorstellung, aber jeder mit einer eigenen Gruppe von
+ * vier Plätzen, sodass sie sich nur die Belegung teilen und keine Konflikte
+ * entstehen. Die Plätze werden als {@link PlatzMenge} (wortweise Maske) oder
+ * als HashSet (Platz für Platz) übergeben.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VorstellungBenchmark
+{
+    private static final int GRUPPE = 4;
+
+    @Param({ "10x16", "20x25", "50x100" })
+    public String saalgroesse;
+
+    @Param({ "PlatzMenge", "HashSet" })
+    public String menge;
+
+    private Vorstellung _vorstellung;
+    private AtomicInteger _naechsterThread;
+
+    @Setup(Level.Iteration)
+    public void erzeugeVorstellung()
+    {
+        _vorstellung = new Kinogenerator(1, saalgroesse, 1, 1)
+                .erzeugeVorstellung();
+        _naechsterThread = new AtomicInteger();
+    }
+
+    /**
+     * Die Plätze eines Threads.
+     */
+    @State(Scope.Thread)
+    public static class Verkaeufer
+    {
+        Set<Platz> _gruppe;
+
+        @Setup(Level.Iteration)
+        public void waehleGruppe(VorstellungBenchmark benchmark)
+        {
+            Kinosaal saal = benchmark._vorstellung.getKinosaal();
+            int thread = benchmark._naechsterThread.getAndIncrement();
+            int reihe = thread % saal.getAnzahlReihen();
+            int sitz = thread / saal.getAnzahlReihen() * GRUPPE;
+            _gruppe = benchmark.menge.equals("HashSet") ? new HashSet<Platz>()
+                    : new PlatzMenge(saal);
+            for (int i = 0; i < GRUPPE; i++)
+            {
+                _gruppe.add(saal.getPlatz(reihe, sitz + i));
+            }
+        }
+    }
+
+    /**
+     * Verkauft die Gruppe und storniert sie wieder.
+     */
+    @Benchmark
+    public void verkaufePlaetze(Verkaeufer verkaeufer)
+    {
+        _vorstellung.verkaufePlaetze(verkaeufer._gruppe);
+        _vorstellung.stornierePlaetze(verkaeufer._gruppe);
+    }
+
+    @Benchmark
+    public boolean sindVerkaufbar(Verkaeufer verkaeufer)
+    {
+        return _vorstellung.sindVerkaufbar(verkaeufer._gruppe);
+    }
+}
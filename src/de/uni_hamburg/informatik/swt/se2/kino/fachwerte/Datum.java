@@ -1,8 +1,5 @@
 package de.uni_hamburg.informatik.swt.se2.kino.fachwerte;
 
-import java.util.Calendar;
-import java.util.TimeZone;
-
 /**
  * Ein Kalenderdatum, bestehend aus Tag, Monat und Jahr.
  * 
@@ -10,6 +7,11 @@ import java.util.TimeZone;
  * Datum zu ermitteln und zu überprüfen, ob drei Ganzzahlen ein gültiges Datum
  * bilden.
  * 
+ * Intern merkt sich jedes Datum zusätzlich seine Tagesnummer seit dem
+ * 1.1.1970 (Epochentag) im gregorianischen Kalender. Vergleiche und
+ * Datumsarithmetik rechnen nur mit dieser Ganzzahl; es gibt keine
+ * gemeinsamen veränderlichen Zustände und damit auch keine Sperren.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
@@ -17,21 +19,17 @@ public final class Datum implements Comparable<Datum>
 {
     private static final long MILLISECONDS_PER_DAY = 1000 * 60 * 60 * 24;
 
+    // Tage vom 1.3.0000 bis zum 1.1.1970 und Tage in 400 Jahren.
+    private static final int TAGE_BIS_EPOCHE = 719468;
+    private static final int TAGE_PRO_ZYKLUS = 146097;
+
+    // Größtes Jahr, dessen Epochentage noch in einen int passen.
+    private static final int MAX_JAHR = 999999;
+
     private final int _jahr;
     private final int _monat;
     private final int _tag;
-
-    // Für Gültigkeitsprüfungen und Datumsarithmetik wird intern ein Objekt vom
-    // Typ Calendar verwendet.
-    private static final Calendar CALENDAR = Calendar.getInstance();
-
-    // "Static initializer", initialisiert Klassenvariablen nach der Erzeugung
-    // des Klassenobjekts.
-    static
-    {
-        CALENDAR.setLenient(false);
-        CALENDAR.setTimeZone(TimeZone.getTimeZone("GMT"));
-    }
+    private final int _epochentag;
 
     /**
      * Wählt ein Datum aus (tag, monat, jahr).
@@ -53,6 +51,50 @@ public final class Datum implements Comparable<Datum>
         _tag = tag;
         _monat = monat;
         _jahr = jahr;
+        _epochentag = epochentag(tag, monat, jahr);
+    }
+
+    /**
+     * Liefert das Datum mit dem angegebenen Epochentag zurück.
+     * 
+     * @param epochentag die Anzahl der Tage seit dem 1.1.1970.
+     * 
+     * @require das Datum liegt im Jahr 1 oder später
+     * @ensure result.getEpochentag() == epochentag
+     */
+    public static Datum ausEpochentag(int epochentag)
+    {
+        // Umrechnung nach H. Hinnant, "chrono-Compatible Low-Level Date
+        // Algorithms": Jahre beginnen hier am 1. März, sodass der Schalttag
+        // am Ende des Jahres liegt.
+        int tage = epochentag + TAGE_BIS_EPOCHE;
+        int zyklus = (tage >= 0 ? tage : tage - TAGE_PRO_ZYKLUS + 1)
+                / TAGE_PRO_ZYKLUS;
+        int tagImZyklus = tage - zyklus * TAGE_PRO_ZYKLUS;
+        int jahrImZyklus = (tagImZyklus - tagImZyklus / 1460 + tagImZyklus
+                / 36524 - tagImZyklus / 146096) / 365;
+        int tagImJahr = tagImZyklus
+                - (365 * jahrImZyklus + jahrImZyklus / 4 - jahrImZyklus / 100);
+        int monatAbMaerz = (5 * tagImJahr + 2) / 153;
+        int tag = tagImJahr - (153 * monatAbMaerz + 2) / 5 + 1;
+        int monat = monatAbMaerz < 10 ? monatAbMaerz + 3 : monatAbMaerz - 9;
+        int jahr = jahrImZyklus + zyklus * 400 + (monat <= 2 ? 1 : 0);
+        return new Datum(tag, monat, jahr);
+    }
+
+    /**
+     * Berechnet den Epochentag zu einem gültigen Datum.
+     */
+    private static int epochentag(int tag, int monat, int jahr)
+    {
+        int jahrAbMaerz = monat <= 2 ? jahr - 1 : jahr;
+        int zyklus = (jahrAbMaerz >= 0 ? jahrAbMaerz : jahrAbMaerz - 399) / 400;
+        int jahrImZyklus = jahrAbMaerz - zyklus * 400;
+        int tagImJahr = (153 * (monat > 2 ? monat - 3 : monat + 9) + 2) / 5
+                + tag - 1;
+        int tagImZyklus = jahrImZyklus * 365 + jahrImZyklus / 4 - jahrImZyklus
+                / 100 + tagImJahr;
+        return zyklus * TAGE_PRO_ZYKLUS + tagImZyklus - TAGE_BIS_EPOCHE;
     }
 
     /**
@@ -62,16 +104,8 @@ public final class Datum implements Comparable<Datum>
      */
     public static Datum heute()
     {
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.setTimeInMillis(System.currentTimeMillis());
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+        return ausEpochentag((int) (System.currentTimeMillis()
+                / MILLISECONDS_PER_DAY));
     }
 
     /**
@@ -85,19 +119,30 @@ public final class Datum implements Comparable<Datum>
      */
     public static boolean istGueltig(int tag, int monat, int jahr)
     {
-        boolean gueltig = ((monat >= 1) && (monat <= 12));
-        if (gueltig)
+        return (jahr >= 1) && (jahr <= MAX_JAHR) && (monat >= 1)
+                && (monat <= 12) && (tag >= 1)
+                && (tag <= tageImMonat(monat, jahr));
+    }
+
+    /**
+     * Gibt die Anzahl der Tage im angegebenen Monat zurück.
+     */
+    private static int tageImMonat(int monat, int jahr)
+    {
+        switch (monat)
         {
-            synchronized (CALENDAR)
-            {
-                CALENDAR.clear();
-                CALENDAR.set(Calendar.YEAR, jahr);
-                CALENDAR.set(Calendar.MONTH, monat - 1);
-                gueltig = ((tag >= 1) && (tag <= CALENDAR
-                        .getActualMaximum(Calendar.DAY_OF_MONTH)));
-            }
+        case 2:
+            boolean schaltjahr = (jahr % 4 == 0)
+                    && ((jahr % 100 != 0) || (jahr % 400 == 0));
+            return schaltjahr ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
         }
-        return gueltig;
     }
 
     /**
@@ -111,7 +156,7 @@ public final class Datum implements Comparable<Datum>
     @Override
     public int compareTo(Datum datum)
     {
-        return tageSeit(datum);
+        return _epochentag - datum._epochentag;
     }
 
     @Override
@@ -121,9 +166,7 @@ public final class Datum implements Comparable<Datum>
         if (o instanceof Datum)
         {
             Datum vergleichsdatum = (Datum) o;
-            result = ((getTag() == vergleichsdatum.getTag())
-                    && (getMonat() == vergleichsdatum.getMonat()) && (getJahr() == vergleichsdatum
-                    .getJahr()));
+            result = (_epochentag == vergleichsdatum._epochentag);
         }
         return result;
     }
@@ -131,8 +174,17 @@ public final class Datum implements Comparable<Datum>
     @Override
     public int hashCode()
     {
-        // Hash-Code ist ca. die Anzahl der Tage seit dem Jahr 0
-        return getJahr() * 365 + getMonat() * 31 + getTag();
+        // Der Epochentag ist für jedes Datum eindeutig
+        return _epochentag;
+    }
+
+    /**
+     * Gibt die Anzahl der Tage seit dem 1.1.1970 zurück. Für Tage davor ist
+     * der Wert negativ.
+     */
+    public int getEpochentag()
+    {
+        return _epochentag;
     }
 
     /**
@@ -172,17 +224,8 @@ public final class Datum implements Comparable<Datum>
     public Datum minus(int tage)
     {
         assert tage >= 0 : "Vorbedingung verletzt: tage >= 0";
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            CALENDAR.add(Calendar.DAY_OF_MONTH, -tage);
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+
+        return ausEpochentag(_epochentag - tage);
     }
 
     /**
@@ -198,17 +241,8 @@ public final class Datum implements Comparable<Datum>
     public Datum plus(int tage)
     {
         assert tage >= 0 : "Vorbedingung verletzt: tage >= 0";
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            CALENDAR.add(Calendar.DAY_OF_MONTH, tage);
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+
+        return ausEpochentag(_epochentag + tage);
     }
 
     /**
@@ -243,24 +277,7 @@ public final class Datum implements Comparable<Datum>
     {
         assert startDatum != null : "Vorbedingung verletzt: startDatum != null";
 
-        long startMillis = startDatum.inMillisekunden();
-        long endMillis = this.inMillisekunden();
-
-        return (int) ((endMillis - startMillis) / MILLISECONDS_PER_DAY);
-    }
-
-    /**
-     * Gibt dieses Datum in Millisekunden zurück.
-     */
-    private long inMillisekunden()
-    {
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            long endMillis = CALENDAR.getTimeInMillis();
-            return endMillis;
-        }
+        return _epochentag - startDatum._epochentag;
     }
 
     /**
@@ -110,6 +110,42 @@ public class DatumTest
         assertTrue(Datum.istGueltig(1, 12, 2006));
     }
 
+    @Test
+    public void testeSchaltjahre()
+    {
+        assertTrue(Datum.istGueltig(29, 2, 2012));
+        assertTrue(Datum.istGueltig(29, 2, 2000));
+        assertFalse(Datum.istGueltig(29, 2, 1900));
+        assertFalse(Datum.istGueltig(29, 2, 2011));
+        assertFalse(Datum.istGueltig(31, 4, 2012));
+        assertEquals(new Datum(1, 3, 2012), new Datum(28, 2, 2012).plus(2));
+        assertEquals(new Datum(1, 3, 2011), new Datum(28, 2, 2011).plus(1));
+    }
+
+    @Test
+    public void testeEpochentag()
+    {
+        assertEquals(0, new Datum(1, 1, 1970).getEpochentag());
+        assertEquals(-1, new Datum(31, 12, 1969).getEpochentag());
+        assertEquals(15480, new Datum(20, 5, 2012).getEpochentag());
+        assertEquals(new Datum(20, 5, 2012), Datum.ausEpochentag(15480));
+
+        // Jeder Tag von 1600 bis 2400 hat genau den Nachfolger des Vortags
+        Datum datum = new Datum(1, 1, 1600);
+        int epochentag = datum.getEpochentag();
+        while (datum.getJahr() < 2400)
+        {
+            Datum morgen = datum.naechsterTag();
+            assertEquals(epochentag + 1, morgen.getEpochentag());
+            assertEquals(datum, Datum.ausEpochentag(epochentag));
+            assertTrue(morgen.getTag() == datum.getTag() + 1
+                    || morgen.getTag() == 1);
+            assertTrue(datum.compareTo(morgen) < 0);
+            datum = morgen;
+            epochentag++;
+        }
+    }
+
     @Test
     public void testHeute()
     {
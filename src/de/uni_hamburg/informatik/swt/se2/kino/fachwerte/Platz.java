@@ -4,11 +4,31 @@ package de.uni_hamburg.informatik.swt.se2.kino.fachwerte;
  * Eine Sitzplatzangabe in einem Kinosaal. Der Platz setzt sich zusammen aus der
  * Reihe und dem Sitz in dieser Reihe.
  * 
+ * Plätze sind unveränderlich. Statt neue Plätze zu erzeugen, sollten sie mit
+ * {@link #get(int, int)} erfragt werden: Für die Reihen und Sitze üblicher
+ * Kinosäle liefert diese Methode stets dasselbe Exemplar, sodass wiederholtes
+ * Aufbauen von Platzplänen nichts allokiert.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
 public final class Platz
 {
+    /**
+     * Die größte mögliche Reihe und der größte mögliche Sitz. Beide passen in
+     * 16 Bit, sodass der Hashcode eines Platzes eindeutig ist.
+     */
+    public static final int MAX_REIHE = 0xFFFF;
+    public static final int MAX_SITZ = 0xFFFF;
+
+    // Zwischengespeicherte Plätze für die ersten Reihen und Sitze, Index =
+    // Reihe * CACHE_SITZE + Sitz. Einträge werden bei Bedarf angelegt; da
+    // Plätze unveränderlich sind, schadet es nicht, wenn zwei Threads
+    // gleichzeitig denselben Eintrag anlegen.
+    private static final int CACHE_REIHEN = 128;
+    private static final int CACHE_SITZE = 128;
+    private static final Platz[] CACHE = new Platz[CACHE_REIHEN * CACHE_SITZE];
+
     private final int _reihe;
     private final int _sitz;
 
@@ -20,16 +40,53 @@ public final class Platz
      * 
      * @require reihe >=0
      * @require sitz >= 0
+     * @require reihe <= MAX_REIHE
+     * @require sitz <= MAX_SITZ
      */
     public Platz(int reihe, int sitz)
     {
         assert reihe >= 0 : "Vorbedingung verletzt: reihe <=0";
         assert sitz >= 0 : "Vorbedingung verletzt: sitz <=0";
+        assert reihe <= MAX_REIHE : "Vorbedingung verletzt: reihe <= MAX_REIHE";
+        assert sitz <= MAX_SITZ : "Vorbedingung verletzt: sitz <= MAX_SITZ";
 
         _reihe = reihe;
         _sitz = sitz;
     }
 
+    /**
+     * Gibt den Platz mit der angegebenen Reihe und dem angegebenen Sitz zurück.
+     * Für häufig verwendete Plätze wird ein bereits vorhandenes Exemplar
+     * zurückgegeben.
+     * 
+     * @param reihe die Sitzreihe.
+     * @param sitz die Nummer des Sitzes in seiner Sitzreihe.
+     * 
+     * @require reihe >=0
+     * @require sitz >= 0
+     * @require reihe <= MAX_REIHE
+     * @require sitz <= MAX_SITZ
+     * 
+     * @ensure result.getReihe() == reihe
+     * @ensure result.getSitz() == sitz
+     */
+    public static Platz get(int reihe, int sitz)
+    {
+        if (reihe >= 0 && reihe < CACHE_REIHEN && sitz >= 0
+                && sitz < CACHE_SITZE)
+        {
+            int index = reihe * CACHE_SITZE + sitz;
+            Platz platz = CACHE[index];
+            if (platz == null)
+            {
+                platz = new Platz(reihe, sitz);
+                CACHE[index] = platz;
+            }
+            return platz;
+        }
+        return new Platz(reihe, sitz);
+    }
+
     /**
      * Gibt die Sitzreihe zurueck, in der sich dieser Platz befindet.
      */
@@ -62,7 +119,9 @@ public final class Platz
     @Override
     public int hashCode()
     {
-        return 1000 * getReihe() + getSitz();
+        // Reihe und Sitz belegen je 16 Bit: verschiedene Plätze haben
+        // verschiedene Hashcodes.
+        return (_reihe << 16) | _sitz;
     }
 
     @Override
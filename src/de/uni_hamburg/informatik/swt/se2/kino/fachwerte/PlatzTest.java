@@ -2,6 +2,7 @@ package de.uni_hamburg.informatik.swt.se2.kino.fachwerte;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -38,4 +39,21 @@ public class PlatzTest
         assertFalse(p1.equals(p3));
         assertFalse(p1.equals(p4));
     }
+
+    @Test
+    public void testeHashCodeOhneKollisionen()
+    {
+        // Früher kollidierten 1-0 und 0-1000
+        assertFalse(new Platz(1, 0).hashCode() == new Platz(0, 1000).hashCode());
+        assertFalse(new Platz(Platz.MAX_REIHE, 0).hashCode() == new Platz(0,
+                Platz.MAX_SITZ).hashCode());
+    }
+
+    @Test
+    public void testeGetLiefertDasselbeExemplar()
+    {
+        assertSame(Platz.get(3, 7), Platz.get(3, 7));
+        assertEquals(new Platz(3, 7), Platz.get(3, 7));
+        assertEquals(new Platz(500, 2000), Platz.get(500, 2000));
+    }
 }
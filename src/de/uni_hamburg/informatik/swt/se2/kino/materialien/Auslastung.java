@@ -0,0 +1,98 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Die Auslastung einer Menge von Vorstellungen, etwa aller Vorstellungen eines
+ * Films, eines Kinosaals oder eines Tages: wie viele Plätze es gibt, wie viele
+ * davon verkauft sind und welcher Umsatz damit erzielt wurde.
+ * 
+ * Die Zähler werden bei jedem Verkauf und jeder Stornierung fortgeschrieben,
+ * sodass das Lesen nie über Vorstellungen iterieren muss. Sie sind auf mehrere
+ * Zellen verteilt (LongAdder), damit gleichzeitige Verkäufe sich nicht
+ * gegenseitig ausbremsen. Während Verkäufe laufen, sind die gelesenen Werte
+ * Momentaufnahmen, die nicht notwendig zueinander passen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Auslastung
+{
+    private final LongAdder _plaetze;
+    private final LongAdder _verkauftePlaetze;
+    private final LongAdder _umsatz;
+
+    /**
+     * Initialisiert eine leere Auslastung.
+     */
+    Auslastung()
+    {
+        _plaetze = new LongAdder();
+        _verkauftePlaetze = new LongAdder();
+        _umsatz = new LongAdder();
+    }
+
+    /**
+     * Gibt die Anzahl der Plätze aller erfassten Vorstellungen zurück.
+     * 
+     * @ensure result >= 0
+     */
+    public long getAnzahlPlaetze()
+    {
+        return _plaetze.sum();
+    }
+
+    /**
+     * Gibt die Anzahl der verkauften Plätze zurück.
+     */
+    public long getAnzahlVerkaufterPlaetze()
+    {
+        return _verkauftePlaetze.sum();
+    }
+
+    /**
+     * Gibt den Umsatz in Eurocent zurück.
+     */
+    public long getUmsatz()
+    {
+        return _umsatz.sum();
+    }
+
+    /**
+     * Gibt den Anteil der verkauften Plätze an allen Plätzen zurück, oder 0,
+     * falls es keine Plätze gibt.
+     * 
+     * @ensure result >= 0
+     */
+    public double getAnteilVerkaufterPlaetze()
+    {
+        long plaetze = getAnzahlPlaetze();
+        return plaetze == 0 ? 0 : (double) getAnzahlVerkaufterPlaetze()
+                / plaetze;
+    }
+
+    /**
+     * Erfasst weitere Plätze, etwa die einer neuen Vorstellung.
+     */
+    void addierePlaetze(int anzahl)
+    {
+        _plaetze.add(anzahl);
+    }
+
+    /**
+     * Erfasst verkaufte (positive Anzahl) oder stornierte (negative Anzahl)
+     * Plätze zum angegebenen Preis.
+     */
+    void addiereVerkauf(int anzahl, int preis)
+    {
+        _verkauftePlaetze.add(anzahl);
+        _umsatz.add((long) anzahl * preis);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Auslastung: " + getAnzahlVerkaufterPlaetze() + "/"
+                + getAnzahlPlaetze() + ", Umsatz " + getUmsatz();
+    }
+}
@@ -0,0 +1,25 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.EventListener;
+
+/**
+ * Interface eines Listeners, der über Änderungen der verkauften Plätze einer
+ * Vorstellung informiert wird.
+ * 
+ * @see Vorstellung#abonniere(BelegungsListener, java.util.concurrent.Executor)
+ * @see Kino#abonniere(BelegungsListener, java.util.concurrent.Executor)
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface BelegungsListener extends EventListener
+{
+    /**
+     * Wird aufgerufen, wenn sich die verkauften Plätze einer Vorstellung
+     * geändert haben. Der Aufruf erfolgt auf dem Executor, der beim Abonnieren
+     * angegeben wurde.
+     * 
+     * @param aenderung die zusammengefassten Änderungen.
+     */
+    void belegungGeaendert(Belegungsaenderung aenderung);
+}
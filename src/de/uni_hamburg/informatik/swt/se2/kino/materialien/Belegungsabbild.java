@@ -0,0 +1,248 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Ein Abbild der verkauften Plätze aller Vorstellungen eines Kinos in einer
+ * Datei, die beim Öffnen in den Speicher eingeblendet wird (memory-mapped).
+ * Die Belegungen werden nicht auf den Heap kopiert: Vorstellungen lesen ihre
+ * Plätze direkt aus der Einblendung, bis sie zum ersten Mal geändert werden.
+ * Das Öffnen kostet damit kaum mehr als das Einblenden der Datei.
+ * 
+ * Aufbau der Datei: Kennung (4 Byte), Anzahl der Vorstellungen (4 Byte), danach
+ * ein nach Vorstellungs-ID sortiertes Verzeichnis mit je ID (8 Byte),
+ * Wort-Position (4 Byte), Anzahl der Wörter (4 Byte), Anzahl der Reihen
+ * (4 Byte) und Sitze pro Reihe (4 Byte) des Kinosaals, danach die Wörter
+ * aller Belegungen (je 8 Byte). Eine Belegung wird nur für einen Saal mit
+ * denselben Reihen und Sitzen verwendet, da die Bits sonst anderen Plätzen
+ * zugeordnet würden.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Belegungsabbild
+{
+    /**
+     * Die Kennung am Anfang jeder Abbild-Datei.
+     */
+    static final int KENNUNG = 0x4B424132;
+
+    private static final int KOPF_LAENGE = 8;
+    private static final int EINTRAG_LAENGE = 24;
+
+    private final MappedByteBuffer _puffer;
+    private final int _anzahl;
+    private final int _datenAnfang;
+
+    /**
+     * Blendet das Abbild aus der angegebenen Datei ein.
+     */
+    private Belegungsabbild(MappedByteBuffer puffer)
+    {
+        _puffer = puffer;
+        _anzahl = puffer.getInt(4);
+        _datenAnfang = KOPF_LAENGE + _anzahl * EINTRAG_LAENGE;
+    }
+
+    /**
+     * Öffnet das Abbild in der angegebenen Datei.
+     * 
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht gelesen werden kann oder kein
+     *             Belegungsabbild ist.
+     * 
+     * @require datei != null
+     * @ensure result != null
+     */
+    static Belegungsabbild oeffne(File datei) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        RandomAccessFile zugriff = new RandomAccessFile(datei, "r");
+        try
+        {
+            FileChannel kanal = zugriff.getChannel();
+            MappedByteBuffer puffer = kanal.map(FileChannel.MapMode.READ_ONLY,
+                    0, kanal.size());
+            if (puffer.capacity() < KOPF_LAENGE || puffer.getInt(0) != KENNUNG)
+            {
+                throw new IOException("Kein Belegungsabbild: " + datei);
+            }
+            return new Belegungsabbild(puffer);
+        }
+        finally
+        {
+            // Die Einblendung bleibt auch nach dem Schließen der Datei gültig.
+            zugriff.close();
+        }
+    }
+
+    /**
+     * Gibt die Wörter der Belegung zu der angegebenen Vorstellungs-ID zurück,
+     * ohne sie zu kopieren.
+     * 
+     * @param id die Vorstellungs-ID.
+     * @param kinosaal der Kinosaal der Vorstellung.
+     * 
+     * @return die Wörter oder <code>null</code>, falls das Abbild keine
+     *         Belegung für die ID enthält oder sie für einen Saal mit anderen
+     *         Reihen oder Sitzen geschrieben wurde.
+     * 
+     * @require kinosaal != null
+     */
+    LongBuffer gibBelegung(long id, Kinosaal kinosaal)
+    {
+        assert kinosaal != null : "Vorbedingung verletzt: kinosaal != null";
+
+        int anzahlWoerter = Platzbelegung.anzahlWoerter(kinosaal
+            .getAnzahlPlaetze());
+        int links = 0;
+        int rechts = _anzahl - 1;
+        while (links <= rechts)
+        {
+            int mitte = (links + rechts) >>> 1;
+            int eintrag = KOPF_LAENGE + mitte * EINTRAG_LAENGE;
+            long mitteId = _puffer.getLong(eintrag);
+            if (mitteId < id)
+            {
+                links = mitte + 1;
+            }
+            else if (mitteId > id)
+            {
+                rechts = mitte - 1;
+            }
+            else
+            {
+                int position = _puffer.getInt(eintrag + 8);
+                if (_puffer.getInt(eintrag + 12) != anzahlWoerter
+                        || _puffer.getInt(eintrag + 16) != kinosaal
+                            .getAnzahlReihen()
+                        || _puffer.getInt(eintrag + 20) != kinosaal
+                            .getAnzahlSitzeProReihe())
+                {
+                    return null;
+                }
+                ByteBuffer kopie = _puffer.duplicate();
+                kopie.position(_datenAnfang + position * 8);
+                kopie.limit(_datenAnfang + (position + anzahlWoerter) * 8);
+                return kopie.slice().asLongBuffer();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schreibt ein Abbild der verkauften Plätze der angegebenen Vorstellungen
+     * in die Datei. Das Abbild wird zunächst in eine temporäre Datei
+     * geschrieben, auf die Platte gebracht und dann atomar umbenannt, sodass
+     * die Datei stets ein vollständiges Abbild enthält. Kehrt die Methode
+     * zurück, ist auch die Umbenennung im Verzeichnis dauerhaft gespeichert;
+     * erst danach darf das Verkaufsjournal geleert werden.
+     * 
+     * @param vorstellungen die Vorstellungen, sortiert nach ihrer ID.
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht geschrieben werden kann.
+     * 
+     * @require vorstellungen != null
+     * @require datei != null
+     */
+    static void schreibe(SortedMap<Long, Vorstellung> vorstellungen, File datei)
+            throws IOException
+    {
+        assert vorstellungen != null : "Vorbedingung verletzt: vorstellungen != null";
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        int anzahl = vorstellungen.size();
+        long anzahlWoerter = 0;
+        for (Vorstellung vorstellung : vorstellungen.values())
+        {
+            anzahlWoerter += vorstellung.getVerkauft().anzahlWoerter();
+        }
+        int datenAnfang = KOPF_LAENGE + anzahl * EINTRAG_LAENGE;
+
+        File temp = new File(datei.getPath() + ".tmp");
+        RandomAccessFile zugriff = new RandomAccessFile(temp, "rw");
+        try
+        {
+            zugriff.setLength(0);
+            FileChannel kanal = zugriff.getChannel();
+            MappedByteBuffer puffer = kanal.map(
+                    FileChannel.MapMode.READ_WRITE, 0, datenAnfang
+                            + anzahlWoerter * 8);
+            puffer.putInt(KENNUNG);
+            puffer.putInt(anzahl);
+            int position = 0;
+            int eintrag = KOPF_LAENGE;
+            for (Map.Entry<Long, Vorstellung> e : vorstellungen.entrySet())
+            {
+                Platzbelegung verkauft = e.getValue().getVerkauft();
+                Kinosaal kinosaal = e.getValue().getKinosaal();
+                int woerter = verkauft.anzahlWoerter();
+                puffer.putLong(eintrag, e.getKey());
+                puffer.putInt(eintrag + 8, position);
+                puffer.putInt(eintrag + 12, woerter);
+                puffer.putInt(eintrag + 16, kinosaal.getAnzahlReihen());
+                puffer.putInt(eintrag + 20, kinosaal.getAnzahlSitzeProReihe());
+                for (int i = 0; i < woerter; i++)
+                {
+                    puffer.putLong(datenAnfang + (position + i) * 8,
+                            verkauft.wort(i));
+                }
+                position += woerter;
+                eintrag += EINTRAG_LAENGE;
+            }
+            puffer.force();
+            kanal.force(true);
+        }
+        finally
+        {
+            zugriff.close();
+        }
+        Files.move(temp.toPath(), datei.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        synchronisiereVerzeichnis(datei.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Bringt die Einträge des angegebenen Verzeichnisses auf die Platte, damit
+     * eine Umbenennung darin einen Absturz übersteht. Auf Plattformen, die
+     * Verzeichnisse nicht öffnen können (Windows), ist das nicht nötig und
+     * wird übersprungen.
+     */
+    private static void synchronisiereVerzeichnis(File verzeichnis)
+            throws IOException
+    {
+        FileChannel kanal;
+        try
+        {
+            kanal = FileChannel.open(verzeichnis.toPath(),
+                    StandardOpenOption.READ);
+        }
+        catch (IOException e)
+        {
+            return;
+        }
+        try
+        {
+            kanal.force(true);
+        }
+        finally
+        {
+            kanal.close();
+        }
+    }
+}
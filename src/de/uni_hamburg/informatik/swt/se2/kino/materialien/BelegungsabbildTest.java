@@ -0,0 +1,134 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.DATUM;
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.erzeugeKino;
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.gibVorstellung;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+public class BelegungsabbildTest
+{
+    @Rule
+    public TemporaryFolder _ordner = new TemporaryFolder();
+
+    private File _datei;
+
+    @Before
+    public void setUp()
+    {
+        _datei = new File(_ordner.getRoot(), "kino.abbild");
+    }
+
+    @Test
+    public void testeAbbildWirdAusDerEinblendungGelesen() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(0, 0));
+        plaetze.add(new Platz(2, 13));
+        plaetze.add(new Platz(19, 24));
+        gibVorstellung(kino, DATUM, 1).verkaufePlaetze(plaetze);
+        gibVorstellung(kino, DATUM.naechsterTag(), 0).verkaufePlatz(
+                new Platz(9, 15));
+        kino.schreibeBelegungsabbild(_datei);
+
+        Kino neuesKino = erzeugeKino();
+        neuesKino.oeffneBelegungsabbild(_datei);
+
+        Vorstellung v = gibVorstellung(neuesKino, DATUM, 1);
+        assertTrue(v.getVerkauft().istEingeblendet());
+        assertEquals(3, v.getAnzahlVerkauftePlaetze());
+        assertTrue(v.sindStornierbar(plaetze));
+        assertFalse(v.istPlatzVerkauft(new Platz(2, 12)));
+        assertEquals(0, gibVorstellung(neuesKino, DATUM, 0)
+                .getAnzahlVerkauftePlaetze());
+        assertTrue(gibVorstellung(neuesKino, DATUM.naechsterTag(), 0)
+                .istPlatzVerkauft(new Platz(9, 15)));
+    }
+
+    @Test
+    public void testeAenderungNachDemEinblenden() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Vorstellung v = gibVorstellung(kino, DATUM, 0);
+        v.verkaufePlatz(new Platz(4, 4));
+        kino.schreibeBelegungsabbild(_datei);
+
+        Kino neuesKino = erzeugeKino();
+        neuesKino.oeffneBelegungsabbild(_datei);
+        Vorstellung w = gibVorstellung(neuesKino, DATUM, 0);
+        assertTrue(w.getVerkauft().istEingeblendet());
+        w.verkaufePlatz(new Platz(4, 5));
+        assertFalse(w.getVerkauft().istEingeblendet());
+        w.stornierePlatz(new Platz(4, 4));
+
+        assertFalse(w.istPlatzVerkauft(new Platz(4, 4)));
+        assertTrue(w.istPlatzVerkauft(new Platz(4, 5)));
+
+        // Die Datei selbst bleibt unverändert
+        Kino drittesKino = erzeugeKino();
+        drittesKino.oeffneBelegungsabbild(_datei);
+        Vorstellung x = gibVorstellung(drittesKino, DATUM, 0);
+        assertTrue(x.istPlatzVerkauft(new Platz(4, 4)));
+        assertFalse(x.istPlatzVerkauft(new Platz(4, 5)));
+    }
+
+    @Test
+    public void testeUnpassendeVorstellungenWerdenIgnoriert()
+            throws IOException
+    {
+        Kino kino = erzeugeKino();
+        gibVorstellung(kino, DATUM.naechsterTag(), 0).verkaufePlatz(
+                new Platz(0, 0));
+        kino.schreibeBelegungsabbild(_datei);
+
+        // Der zweite Saal ist inzwischen größer geworden
+        Kino neuesKino = erzeugeKino(30);
+        neuesKino.oeffneBelegungsabbild(_datei);
+        assertFalse(gibVorstellung(neuesKino, DATUM.naechsterTag(), 0)
+                .istPlatzVerkauft(new Platz(0, 0)));
+        assertNull(Belegungsabbild.oeffne(_datei).gibBelegung(0,
+                new Kinosaal("Saal 3", 1, 1)));
+    }
+
+    @Test
+    public void testeSaalMitGleicherWortzahlWirdIgnoriert() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        gibVorstellung(kino, DATUM.naechsterTag(), 0).verkaufePlatz(
+                new Platz(9, 15));
+        kino.schreibeBelegungsabbild(_datei);
+
+        // 11 statt 10 Reihen belegen ebenfalls drei Wörter, die Bits gehörten
+        // aber zu anderen Plätzen.
+        Kino neuesKino = erzeugeKino(11);
+        neuesKino.oeffneBelegungsabbild(_datei);
+        Vorstellung v = gibVorstellung(neuesKino, DATUM.naechsterTag(), 0);
+        assertFalse(v.getVerkauft().istEingeblendet());
+        assertEquals(0, v.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test(expected = IOException.class)
+    public void testeKeinAbbild() throws IOException
+    {
+        FileOutputStream aus = new FileOutputStream(_datei);
+        aus.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        aus.close();
+        Belegungsabbild.oeffne(_datei);
+    }
+}
@@ -0,0 +1,92 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Ein Abonnement von Belegungsänderungen einer oder mehrerer Vorstellungen.
+ * Nach {@link #kuendige()} wird der Listener nicht mehr benachrichtigt.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Belegungsabonnement
+{
+    private final BelegungsListener _listener;
+    private final Executor _executor;
+    private volatile boolean _gekuendigt;
+    // Die Beobachtungen, bei denen dieses Abonnement eingetragen ist. Wird nur
+    // unter der Sperre des Verteilers verändert.
+    private final List<Belegungsverteiler.Beobachtung> _beobachtungen;
+    private final Belegungsverteiler _verteiler;
+
+    /**
+     * Initialisiert ein Abonnement.
+     */
+    Belegungsabonnement(Belegungsverteiler verteiler,
+            BelegungsListener listener, Executor executor)
+    {
+        _verteiler = verteiler;
+        _listener = listener;
+        _executor = executor;
+        _beobachtungen = new ArrayList<Belegungsverteiler.Beobachtung>();
+    }
+
+    /**
+     * Beendet das Abonnement. Bereits an den Executor übergebene
+     * Benachrichtigungen werden nicht mehr ausgeliefert.
+     */
+    public void kuendige()
+    {
+        _gekuendigt = true;
+        _verteiler.kuendige(this);
+    }
+
+    /**
+     * Prüft, ob das Abonnement gekündigt ist.
+     */
+    public boolean istGekuendigt()
+    {
+        return _gekuendigt;
+    }
+
+    /**
+     * Trägt dieses Abonnement zusätzlich bei der angegebenen Vorstellung ein.
+     */
+    void beobachte(Vorstellung vorstellung)
+    {
+        _verteiler.trageEin(this, vorstellung);
+    }
+
+    /**
+     * Übergibt die Änderung dem Executor, der den Listener benachrichtigt.
+     */
+    void liefere(final Belegungsaenderung aenderung)
+    {
+        if (_gekuendigt)
+        {
+            return;
+        }
+        _executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (!_gekuendigt)
+                {
+                    _listener.belegungGeaendert(aenderung);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gibt die Beobachtungen zurück, bei denen dieses Abonnement eingetragen
+     * ist.
+     */
+    List<Belegungsverteiler.Beobachtung> getBeobachtungen()
+    {
+        return _beobachtungen;
+    }
+}
@@ -0,0 +1,92 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+/**
+ * Die zusammengefassten Änderungen der verkauften Plätze einer Vorstellung
+ * seit der letzten Benachrichtigung. Ein Platz, der in der Zwischenzeit
+ * verkauft und wieder storniert wurde, taucht nicht auf.
+ * 
+ * Alle Abonnenten einer Vorstellung erhalten dasselbe Exemplar. Die Mengen
+ * sind daher nur lesbar; wer sie verändern will, muss sie kopieren.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Belegungsaenderung
+{
+    private final Vorstellung _vorstellung;
+    private final PlatzMenge _verkauft;
+    private final PlatzMenge _storniert;
+    private final PlatzMenge _verkauftePlaetze;
+
+    /**
+     * Initialisiert eine Änderung.
+     * 
+     * @require verkauft.istNurLesbar()
+     * @require storniert.istNurLesbar()
+     * @require verkauftePlaetze.istNurLesbar()
+     */
+    Belegungsaenderung(Vorstellung vorstellung, PlatzMenge verkauft,
+            PlatzMenge storniert, PlatzMenge verkauftePlaetze)
+    {
+        assert verkauft.istNurLesbar() : "Vorbedingung verletzt: verkauft.istNurLesbar()";
+        assert storniert.istNurLesbar() : "Vorbedingung verletzt: storniert.istNurLesbar()";
+        assert verkauftePlaetze.istNurLesbar() : "Vorbedingung verletzt: verkauftePlaetze.istNurLesbar()";
+
+        _vorstellung = vorstellung;
+        _verkauft = verkauft;
+        _storniert = storniert;
+        _verkauftePlaetze = verkauftePlaetze;
+    }
+
+    /**
+     * Gibt die Vorstellung zurück, deren Plätze sich geändert haben.
+     * 
+     * @ensure result != null
+     */
+    public Vorstellung getVorstellung()
+    {
+        return _vorstellung;
+    }
+
+    /**
+     * Gibt die Plätze zurück, die seit der letzten Benachrichtigung verkauft
+     * wurden.
+     * 
+     * @ensure result != null
+     * @ensure result.istNurLesbar()
+     */
+    public PlatzMenge getVerkauft()
+    {
+        return _verkauft;
+    }
+
+    /**
+     * Gibt die Plätze zurück, die seit der letzten Benachrichtigung storniert
+     * wurden.
+     * 
+     * @ensure result != null
+     * @ensure result.istNurLesbar()
+     */
+    public PlatzMenge getStorniert()
+    {
+        return _storniert;
+    }
+
+    /**
+     * Gibt alle Plätze zurück, die nach dieser Änderung verkauft sind.
+     * 
+     * @ensure result != null
+     * @ensure result.istNurLesbar()
+     */
+    public PlatzMenge getVerkauftePlaetze()
+    {
+        return _verkauftePlaetze;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Belegungsaenderung: " + _vorstellung + ", verkauft="
+                + _verkauft + ", storniert=" + _storniert;
+    }
+}
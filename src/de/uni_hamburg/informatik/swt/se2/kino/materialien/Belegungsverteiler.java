@@ -0,0 +1,279 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ein Verteiler, der Änderungen der verkauften Plätze beobachteter
+ * Vorstellungen gesammelt an die Abonnenten ausliefert.
+ * 
+ * Ein Verkauf oder eine Stornierung markiert die Vorstellung nur als geändert;
+ * das kostet einen Vergleich-und-Tausch auf einem Flag und höchstens einen
+ * Eintrag in eine Warteschlange pro Intervall. Im Takt des Intervalls
+ * vergleicht der Verteiler für jede markierte Vorstellung die verkauften
+ * Plätze mit dem zuletzt ausgelieferten Stand und erzeugt daraus eine einzige
+ * {@link Belegungsaenderung}, die alle Abonnenten der Vorstellung auf ihrem
+ * jeweiligen Executor erhalten. Eine Folge schneller Verkäufe wird so zu einer
+ * Benachrichtigung zusammengefasst, unabhängig davon, wie viele Abonnenten es
+ * gibt.
+ * 
+ * Wirft ein Listener auf einem direkten Executor eine Ausnahme oder lehnt ein
+ * Executor die Benachrichtigung ab, erhalten die übrigen Abonnenten die
+ * Änderung trotzdem. Die Ausnahme wird dem Handler für nicht gefangene
+ * Ausnahmen des ausliefernden Threads gemeldet, der Taktgeber läuft weiter.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Belegungsverteiler
+{
+    private static Belegungsverteiler _standard;
+
+    private final long _intervall;
+    private final ConcurrentLinkedQueue<Beobachtung> _geaendert;
+    private Thread _taktgeber;
+
+    /**
+     * Initialisiert einen neuen Verteiler. Er liefert erst aus, wenn
+     * {@link #verteile()} aufgerufen oder der Taktgeber mit {@link #starte()}
+     * gestartet wird.
+     * 
+     * @param intervallInMillis der Abstand zweier Auslieferungen in
+     *            Millisekunden.
+     * 
+     * @require intervallInMillis > 0
+     */
+    Belegungsverteiler(long intervallInMillis)
+    {
+        assert intervallInMillis > 0 : "Vorbedingung verletzt: intervallInMillis > 0";
+
+        _intervall = intervallInMillis;
+        _geaendert = new ConcurrentLinkedQueue<Beobachtung>();
+    }
+
+    /**
+     * Gibt den Verteiler zurück, den Vorstellungen und Kinos standardmäßig
+     * verwenden. Er liefert alle 50 Millisekunden in einem Hintergrund-Thread
+     * aus.
+     * 
+     * @ensure result != null
+     */
+    static synchronized Belegungsverteiler getStandard()
+    {
+        if (_standard == null)
+        {
+            _standard = new Belegungsverteiler(50);
+            _standard.starte();
+        }
+        return _standard;
+    }
+
+    /**
+     * Erzeugt ein Abonnement, das noch keine Vorstellung beobachtet.
+     * 
+     * @require listener != null
+     * @require executor != null
+     * 
+     * @ensure result != null
+     */
+    Belegungsabonnement erzeugeAbonnement(BelegungsListener listener,
+            Executor executor)
+    {
+        assert listener != null : "Vorbedingung verletzt: listener != null";
+        assert executor != null : "Vorbedingung verletzt: executor != null";
+
+        return new Belegungsabonnement(this, listener, executor);
+    }
+
+    /**
+     * Trägt das Abonnement bei der angegebenen Vorstellung ein. Es erhält
+     * Änderungen ab dem aktuellen Stand der Vorstellung.
+     * 
+     * @require abonnement != null
+     * @require vorstellung != null
+     * @require die Vorstellung wird von keinem anderen Verteiler beobachtet
+     */
+    synchronized void trageEin(Belegungsabonnement abonnement,
+            Vorstellung vorstellung)
+    {
+        assert abonnement != null : "Vorbedingung verletzt: abonnement != null";
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+
+        if (abonnement.istGekuendigt())
+        {
+            return;
+        }
+        Beobachtung beobachtung = vorstellung.getBeobachtung();
+        if (beobachtung == null)
+        {
+            beobachtung = new Beobachtung(vorstellung);
+            synchronized (beobachtung)
+            {
+                // Erst anmelden, dann den Stand lesen: ein Verkauf dazwischen
+                // ist entweder im Stand enthalten oder wird gemeldet.
+                vorstellung.setBeobachtung(beobachtung);
+                beobachtung._letzterStand = vorstellung.getVerkauftePlaetze();
+            }
+        }
+        assert beobachtung.getVerteiler() == this : "Vorbedingung verletzt: die Vorstellung wird von keinem anderen Verteiler beobachtet";
+
+        beobachtung._abonnements.add(abonnement);
+        abonnement.getBeobachtungen().add(beobachtung);
+    }
+
+    /**
+     * Trägt das Abonnement bei allen Vorstellungen aus, bei denen es
+     * eingetragen ist. Vorstellungen ohne Abonnenten werden nicht weiter
+     * beobachtet.
+     */
+    synchronized void kuendige(Belegungsabonnement abonnement)
+    {
+        List<Beobachtung> beobachtungen = abonnement.getBeobachtungen();
+        for (Beobachtung beobachtung : beobachtungen)
+        {
+            beobachtung._abonnements.remove(abonnement);
+            if (beobachtung._abonnements.isEmpty())
+            {
+                beobachtung._vorstellung.setBeobachtung(null);
+            }
+        }
+        beobachtungen.clear();
+    }
+
+    /**
+     * Liefert die Änderungen aller seit dem letzten Aufruf gemeldeten
+     * Vorstellungen aus.
+     */
+    void verteile()
+    {
+        Beobachtung beobachtung;
+        while ((beobachtung = _geaendert.poll()) != null)
+        {
+            beobachtung.verteile();
+        }
+    }
+
+    /**
+     * Startet einen Daemon-Thread, der im Takt des Intervalls ausliefert.
+     */
+    synchronized void starte()
+    {
+        if (_taktgeber != null)
+        {
+            return;
+        }
+        _taktgeber = new Thread("Belegungsverteiler")
+        {
+            @Override
+            public void run()
+            {
+                while (!isInterrupted())
+                {
+                    try
+                    {
+                        Thread.sleep(_intervall);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                    try
+                    {
+                        verteile();
+                    }
+                    catch (RuntimeException e)
+                    {
+                        meldeFehler(e);
+                    }
+                }
+            }
+        };
+        _taktgeber.setDaemon(true);
+        _taktgeber.start();
+    }
+
+    /**
+     * Meldet eine Ausnahme beim Ausliefern dem Handler für nicht gefangene
+     * Ausnahmen des aktuellen Threads, ohne den Thread zu beenden.
+     */
+    private static void meldeFehler(RuntimeException e)
+    {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Die Beobachtung einer Vorstellung mit ihren Abonnenten und dem zuletzt
+     * ausgelieferten Stand.
+     */
+    class Beobachtung
+    {
+        private final Vorstellung _vorstellung;
+        private final List<Belegungsabonnement> _abonnements;
+        private final AtomicBoolean _gemeldet;
+        private PlatzMenge _letzterStand;
+
+        private Beobachtung(Vorstellung vorstellung)
+        {
+            _vorstellung = vorstellung;
+            _abonnements = new CopyOnWriteArrayList<Belegungsabonnement>();
+            _gemeldet = new AtomicBoolean();
+        }
+
+        /**
+         * Markiert die Vorstellung als geändert. Wird auf dem Verkaufspfad
+         * aufgerufen und reiht die Beobachtung höchstens einmal bis zur
+         * nächsten Auslieferung ein.
+         */
+        void melde()
+        {
+            if (!_gemeldet.get() && _gemeldet.compareAndSet(false, true))
+            {
+                _geaendert.add(this);
+            }
+        }
+
+        Belegungsverteiler getVerteiler()
+        {
+            return Belegungsverteiler.this;
+        }
+
+        private synchronized void verteile()
+        {
+            // Vor dem Lesen zurücksetzen, damit ein gleichzeitiger Verkauf
+            // erneut gemeldet wird.
+            _gemeldet.set(false);
+            PlatzMenge stand = _vorstellung.getVerkauftePlaetze();
+            PlatzMenge verkauft = new PlatzMenge(stand);
+            verkauft.removeAll(_letzterStand);
+            PlatzMenge storniert = new PlatzMenge(_letzterStand);
+            storniert.removeAll(stand);
+            _letzterStand = stand;
+            if (verkauft.isEmpty() && storniert.isEmpty())
+            {
+                return;
+            }
+            // Die Abonnenten erhalten nur lesbare Sichten, damit keiner den
+            // Stand verändert, mit dem die nächste Änderung berechnet wird.
+            Belegungsaenderung aenderung = new Belegungsaenderung(
+                    _vorstellung, verkauft.nurLesbar(), storniert.nurLesbar(),
+                    stand.nurLesbar());
+            // Der Stand ist schon übernommen; ein scheiternder Abonnent darf
+            // den übrigen die Änderung nicht vorenthalten.
+            for (Belegungsabonnement abonnement : _abonnements)
+            {
+                try
+                {
+                    abonnement.liefere(aenderung);
+                }
+                catch (RuntimeException e)
+                {
+                    meldeFehler(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+public class BelegungsverteilerTest
+{
+    private static final Executor DIREKT = new Executor()
+    {
+        @Override
+        public void execute(Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    // Ein Verteiler ohne Taktgeber, der nur bei verteile() ausliefert.
+    private Belegungsverteiler _verteiler = new Belegungsverteiler(50);
+    private Kinosaal _saal = new Kinosaal("A", 5, 10);
+    private Film _film = new Film("Film", 90, FSK.FSK0, false);
+    private List<Belegungsaenderung> _aenderungen = new ArrayList<Belegungsaenderung>();
+    private BelegungsListener _listener = new BelegungsListener()
+    {
+        @Override
+        public void belegungGeaendert(Belegungsaenderung aenderung)
+        {
+            _aenderungen.add(aenderung);
+        }
+    };
+
+    private Vorstellung erzeugeVorstellung(int stunde)
+    {
+        return new Vorstellung(_saal, _film, new Uhrzeit(stunde, 0),
+                new Uhrzeit(stunde + 1, 30), new Datum(1, 1, 2012), 800);
+    }
+
+    @Test
+    public void testeVerkaeufeWerdenZusammengefasst()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        v.verkaufePlatz(new Platz(0, 0));
+        v.abonniere(_listener, DIREKT, _verteiler);
+
+        v.verkaufePlatz(new Platz(1, 1));
+        v.verkaufePlaetze(new HashSet<Platz>(Arrays.asList(new Platz(2, 2),
+                new Platz(2, 3))));
+        assertTrue(_aenderungen.isEmpty());
+
+        _verteiler.verteile();
+        assertEquals(1, _aenderungen.size());
+        Belegungsaenderung aenderung = _aenderungen.get(0);
+        assertSame(v, aenderung.getVorstellung());
+        assertEquals(new HashSet<Platz>(Arrays.asList(new Platz(1, 1),
+                new Platz(2, 2), new Platz(2, 3))), aenderung.getVerkauft());
+        assertTrue(aenderung.getStorniert().isEmpty());
+        assertEquals(4, aenderung.getVerkauftePlaetze().size());
+
+        // Ohne weitere Änderung wird nichts ausgeliefert.
+        _verteiler.verteile();
+        assertEquals(1, _aenderungen.size());
+    }
+
+    @Test
+    public void testeStornierungen()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        v.verkaufePlatz(new Platz(0, 0));
+        v.verkaufePlatz(new Platz(0, 1));
+        v.abonniere(_listener, DIREKT, _verteiler);
+
+        v.stornierePlatz(new Platz(0, 0));
+        v.verkaufePlatz(new Platz(3, 3));
+        v.stornierePlatz(new Platz(3, 3));
+        _verteiler.verteile();
+
+        assertEquals(1, _aenderungen.size());
+        Belegungsaenderung aenderung = _aenderungen.get(0);
+        assertTrue(aenderung.getVerkauft().isEmpty());
+        assertEquals(new HashSet<Platz>(Arrays.asList(new Platz(0, 0))),
+                aenderung.getStorniert());
+    }
+
+    @Test
+    public void testeAbonnentKannDenStandNichtVeraendern()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        v.abonniere(_listener, DIREKT, _verteiler);
+        v.verkaufePlatz(new Platz(0, 0));
+        _verteiler.verteile();
+
+        Belegungsaenderung aenderung = _aenderungen.get(0);
+        try
+        {
+            aenderung.getVerkauftePlaetze().clear();
+            fail("UnsupportedOperationException erwartet");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // erwartet
+        }
+        assertTrue(aenderung.getVerkauft().istNurLesbar());
+        assertTrue(aenderung.getStorniert().istNurLesbar());
+
+        // Der nächste Stand wird weiter gegen den unveränderten verglichen.
+        v.verkaufePlatz(new Platz(1, 1));
+        _verteiler.verteile();
+        assertEquals(new HashSet<Platz>(Arrays.asList(new Platz(1, 1))),
+                _aenderungen.get(1).getVerkauft());
+    }
+
+    @Test
+    public void testeKuendigen()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        Belegungsabonnement abonnement = v.abonniere(_listener, DIREKT,
+                _verteiler);
+        v.verkaufePlatz(new Platz(0, 0));
+        abonnement.kuendige();
+        _verteiler.verteile();
+
+        assertTrue(abonnement.istGekuendigt());
+        assertTrue(_aenderungen.isEmpty());
+        assertNull(v.getBeobachtung());
+    }
+
+    @Test
+    public void testeAbonnementFuerKino()
+    {
+        Vorstellung v1 = erzeugeVorstellung(14);
+        Vorstellung v2 = erzeugeVorstellung(17);
+        Kino kino = new Kino(new Kinosaal[] { _saal }, new Vorstellung[] { v1 });
+        kino.abonniere(_listener, DIREKT, _verteiler);
+        kino.fuegeVorstellungHinzu(v2);
+
+        v1.verkaufePlatz(new Platz(0, 0));
+        v2.verkaufePlatz(new Platz(0, 0));
+        _verteiler.verteile();
+
+        assertEquals(2, _aenderungen.size());
+        assertSame(v1, _aenderungen.get(0).getVorstellung());
+        assertSame(v2, _aenderungen.get(1).getVorstellung());
+    }
+
+    @Test
+    public void testeWerfenderListenerHaeltAndereNichtAuf()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        v.abonniere(new BelegungsListener()
+        {
+            @Override
+            public void belegungGeaendert(Belegungsaenderung aenderung)
+            {
+                throw new IllegalStateException("Listener gescheitert");
+            }
+        }, DIREKT, _verteiler);
+        v.abonniere(_listener, DIREKT, _verteiler);
+
+        List<Throwable> fehler = verteileUndSammleFehler(v);
+
+        assertEquals(2, _aenderungen.size());
+        assertEquals(2, fehler.size());
+        assertTrue(fehler.get(0) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testeAbgelehnterExecutorHaeltAndereNichtAuf()
+    {
+        Vorstellung v = erzeugeVorstellung(17);
+        v.abonniere(_listener, new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        }, _verteiler);
+        v.abonniere(_listener, DIREKT, _verteiler);
+
+        List<Throwable> fehler = verteileUndSammleFehler(v);
+
+        assertEquals(2, _aenderungen.size());
+        assertEquals(2, fehler.size());
+        assertTrue(fehler.get(0) instanceof RejectedExecutionException);
+    }
+
+    /**
+     * Verkauft zweimal je einen Platz, liefert jeweils aus und gibt die dabei
+     * gemeldeten Ausnahmen zurück.
+     */
+    private List<Throwable> verteileUndSammleFehler(Vorstellung v)
+    {
+        final List<Throwable> fehler = new ArrayList<Throwable>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler vorher = thread
+            .getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler()
+        {
+            @Override
+            public void uncaughtException(Thread t, Throwable e)
+            {
+                fehler.add(e);
+            }
+        });
+        try
+        {
+            v.verkaufePlatz(new Platz(0, 0));
+            _verteiler.verteile();
+            v.verkaufePlatz(new Platz(0, 1));
+            _verteiler.verteile();
+        }
+        finally
+        {
+            thread.setUncaughtExceptionHandler(vorher);
+        }
+        return fehler;
+    }
+}
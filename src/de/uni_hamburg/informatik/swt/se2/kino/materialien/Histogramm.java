@@ -0,0 +1,170 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein Histogramm nicht-negativer Messwerte, etwa Laufzeiten in Nanosekunden
+ * oder Platzanzahlen. Die Werte werden in logarithmische Klassen mit 16
+ * Unterteilungen je Zweierpotenz einsortiert; Perzentile weichen daher um
+ * höchstens etwa 6 % vom tatsächlichen Wert ab. Werte unter 16 werden exakt
+ * gezählt.
+ * 
+ * Das Erfassen eines Werts erzeugt keine Objekte und kommt ohne Sperren aus,
+ * sodass Histogramme dauerhaft auf den Verkaufspfaden mitlaufen können.
+ * Klassen und Summe sind {@link LongAdder}, die bei gleichzeitigem Erfassen
+ * auf mehrere Zellen ausweichen, statt sich um eine Cache-Zeile zu streiten;
+ * das Maximum wird nur geschrieben, wenn ein Wert es übertrifft. Beim
+ * Lesen während laufender Erfassungen sind Anzahl, Summe und Perzentile
+ * Momentaufnahmen, die nicht notwendig zueinander passen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Histogramm
+{
+    private static final int UNTERTEILUNG = 4;
+
+    private final LongAdder[] _klassen;
+    private final LongAdder _summe;
+    private final AtomicLong _maximum;
+
+    /**
+     * Initialisiert ein leeres Histogramm.
+     */
+    public Histogramm()
+    {
+        _klassen = new LongAdder[64 << UNTERTEILUNG];
+        for (int i = 0; i < _klassen.length; i++)
+        {
+            _klassen[i] = new LongAdder();
+        }
+        _summe = new LongAdder();
+        _maximum = new AtomicLong();
+    }
+
+    /**
+     * Erfasst einen Messwert. Negative Werte werden als 0 erfasst.
+     * 
+     * @param wert der Messwert.
+     */
+    public void erfasse(long wert)
+    {
+        if (wert < 0)
+        {
+            wert = 0;
+        }
+        _klassen[klasse(wert)].increment();
+        _summe.add(wert);
+        // Meist liegt der Wert unter dem Maximum; dann genügt das Lesen.
+        long maximum = _maximum.get();
+        while (wert > maximum && !_maximum.compareAndSet(maximum, wert))
+        {
+            maximum = _maximum.get();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der erfassten Werte zurück.
+     * 
+     * @ensure result >= 0
+     */
+    public long getAnzahl()
+    {
+        long anzahl = 0;
+        for (LongAdder klasse : _klassen)
+        {
+            anzahl += klasse.sum();
+        }
+        return anzahl;
+    }
+
+    /**
+     * Gibt die Summe der erfassten Werte zurück.
+     */
+    public long getSumme()
+    {
+        return _summe.sum();
+    }
+
+    /**
+     * Gibt den größten erfassten Wert zurück, oder 0.
+     */
+    public long getMaximum()
+    {
+        return _maximum.get();
+    }
+
+    /**
+     * Gibt den Mittelwert der erfassten Werte zurück, oder 0.
+     */
+    public double getMittelwert()
+    {
+        long anzahl = getAnzahl();
+        return anzahl == 0 ? 0 : (double) getSumme() / anzahl;
+    }
+
+    /**
+     * Gibt den Wert zurück, unter dem der angegebene Anteil der erfassten
+     * Werte liegt (die Obergrenze seiner Klasse), oder 0, falls noch nichts
+     * erfasst wurde.
+     * 
+     * @param anteil der Anteil, etwa 0.99 für das 99. Perzentil.
+     * 
+     * @require anteil >= 0 && anteil <= 1
+     */
+    public long getPerzentil(double anteil)
+    {
+        assert anteil >= 0 && anteil <= 1 : "Vorbedingung verletzt: anteil >= 0 && anteil <= 1";
+
+        long rang = Math.max(1, (long) Math.ceil(anteil * getAnzahl()));
+        long gezaehlt = 0;
+        for (int i = 0; i < _klassen.length; i++)
+        {
+            gezaehlt += _klassen[i].sum();
+            if (gezaehlt >= rang)
+            {
+                return Math.min(obergrenze(i), getMaximum());
+            }
+        }
+        return getMaximum();
+    }
+
+    /**
+     * Gibt die Klasse zurück, in die der Wert fällt.
+     */
+    private static int klasse(long wert)
+    {
+        int exponent = 63 - Long.numberOfLeadingZeros(wert);
+        if (exponent < UNTERTEILUNG)
+        {
+            return (int) wert;
+        }
+        int mantisse = (int) (wert >>> (exponent - UNTERTEILUNG))
+                & ((1 << UNTERTEILUNG) - 1);
+        return ((exponent - UNTERTEILUNG + 1) << UNTERTEILUNG) + mantisse;
+    }
+
+    /**
+     * Gibt den größten Wert zurück, der in die angegebene Klasse fällt.
+     */
+    private static long obergrenze(int klasse)
+    {
+        if (klasse < (1 << UNTERTEILUNG))
+        {
+            return klasse;
+        }
+        int verschiebung = (klasse >>> UNTERTEILUNG) - 1;
+        long mantisse = klasse & ((1 << UNTERTEILUNG) - 1);
+        long untergrenze = ((1L << UNTERTEILUNG) | mantisse) << verschiebung;
+        return untergrenze + (1L << verschiebung) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Histogramm: Anzahl " + getAnzahl() + ", p50 "
+                + getPerzentil(0.5) + ", p99 " + getPerzentil(0.99)
+                + ", Maximum " + getMaximum();
+    }
+}
@@ -0,0 +1,99 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogrammTest
+{
+    @Test
+    public void testeLeeresHistogramm()
+    {
+        Histogramm histogramm = new Histogramm();
+        assertEquals(0, histogramm.getAnzahl());
+        assertEquals(0, histogramm.getMaximum());
+        assertEquals(0, histogramm.getPerzentil(0.99));
+        assertEquals(0.0, histogramm.getMittelwert(), 0);
+    }
+
+    @Test
+    public void testeKleineWerteExakt()
+    {
+        Histogramm histogramm = new Histogramm();
+        for (int wert = 1; wert <= 10; wert++)
+        {
+            histogramm.erfasse(wert);
+        }
+        assertEquals(10, histogramm.getAnzahl());
+        assertEquals(55, histogramm.getSumme());
+        assertEquals(5.5, histogramm.getMittelwert(), 0);
+        assertEquals(5, histogramm.getPerzentil(0.5));
+        assertEquals(9, histogramm.getPerzentil(0.9));
+        assertEquals(10, histogramm.getPerzentil(1));
+        assertEquals(10, histogramm.getMaximum());
+    }
+
+    @Test
+    public void testePerzentileGrosserWerte()
+    {
+        Histogramm histogramm = new Histogramm();
+        for (long wert = 1; wert <= 100000; wert++)
+        {
+            histogramm.erfasse(wert * 1000);
+        }
+        assertEquals(100000, histogramm.getAnzahl());
+        assertEquals(100000000, histogramm.getMaximum());
+        assertNahe(50000000, histogramm.getPerzentil(0.5));
+        assertNahe(99000000, histogramm.getPerzentil(0.99));
+        assertEquals(100000000, histogramm.getPerzentil(1));
+
+        histogramm.erfasse(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogramm.getPerzentil(1));
+    }
+
+    @Test
+    public void testeNegativeWerteAlsNull()
+    {
+        Histogramm histogramm = new Histogramm();
+        histogramm.erfasse(-5);
+        assertEquals(1, histogramm.getAnzahl());
+        assertEquals(0, histogramm.getPerzentil(1));
+    }
+
+    @Test
+    public void testeGleichzeitigesErfassen() throws InterruptedException
+    {
+        final Histogramm histogramm = new Histogramm();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            final long versatz = t * 10000;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (long wert = 1; wert <= 10000; wert++)
+                    {
+                        histogramm.erfasse(versatz + wert);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(40000, histogramm.getAnzahl());
+        assertEquals(40000L * 40001 / 2, histogramm.getSumme());
+        assertEquals(40000, histogramm.getMaximum());
+    }
+
+    private static void assertNahe(long erwartet, long tatsaechlich)
+    {
+        assertTrue(tatsaechlich + " statt " + erwartet, tatsaechlich >= erwartet
+                && tatsaechlich <= erwartet + erwartet / 16);
+    }
+}
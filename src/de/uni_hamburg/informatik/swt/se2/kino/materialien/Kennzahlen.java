@@ -0,0 +1,171 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kennzahlen über die Verkaufspfade aller Vorstellungen und Kinos: Anzahl und
+ * Dauer von Verkäufen und Stornierungen, Plätze pro Vorgang, Konflikte und
+ * wie oft ein angefragter Tagesplan im Programm lag. Die Kennzahlen werden
+ * ständig erfasst, ohne dabei Objekte zu erzeugen, und können etwa über JMX
+ * veröffentlicht werden.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Kennzahlen
+{
+    private static final Kennzahlen STANDARD = new Kennzahlen();
+
+    private final Histogramm _verkaufsdauer;
+    private final Histogramm _stornierungsdauer;
+    private final Histogramm _plaetzeProVerkauf;
+    private final Histogramm _plaetzeProStornierung;
+    private final LongAdder _verkaufskonflikte;
+    private final LongAdder _stornierungskonflikte;
+    private final LongAdder _tagesplanTreffer;
+    private final LongAdder _tagesplanFehlgriffe;
+
+    /**
+     * Initialisiert leere Kennzahlen.
+     */
+    Kennzahlen()
+    {
+        _verkaufsdauer = new Histogramm();
+        _stornierungsdauer = new Histogramm();
+        _plaetzeProVerkauf = new Histogramm();
+        _plaetzeProStornierung = new Histogramm();
+        _verkaufskonflikte = new LongAdder();
+        _stornierungskonflikte = new LongAdder();
+        _tagesplanTreffer = new LongAdder();
+        _tagesplanFehlgriffe = new LongAdder();
+    }
+
+    /**
+     * Gibt die Kennzahlen zurück, in die alle Vorstellungen und Kinos
+     * schreiben.
+     * 
+     * @ensure result != null
+     */
+    public static Kennzahlen getStandard()
+    {
+        return STANDARD;
+    }
+
+    /**
+     * Gibt die Dauer aller Verkaufsversuche in Nanosekunden zurück,
+     * einschließlich der gescheiterten.
+     */
+    public Histogramm getVerkaufsdauer()
+    {
+        return _verkaufsdauer;
+    }
+
+    /**
+     * Gibt die Dauer aller Stornierungsversuche in Nanosekunden zurück.
+     */
+    public Histogramm getStornierungsdauer()
+    {
+        return _stornierungsdauer;
+    }
+
+    /**
+     * Gibt die Anzahl der Plätze pro erfolgreichem Verkauf zurück.
+     */
+    public Histogramm getPlaetzeProVerkauf()
+    {
+        return _plaetzeProVerkauf;
+    }
+
+    /**
+     * Gibt die Anzahl der Plätze pro erfolgreicher Stornierung zurück.
+     */
+    public Histogramm getPlaetzeProStornierung()
+    {
+        return _plaetzeProStornierung;
+    }
+
+    /**
+     * Gibt zurück, wie oft ein Verkauf an einem bereits belegten Platz
+     * gescheitert ist.
+     */
+    public long getVerkaufskonflikte()
+    {
+        return _verkaufskonflikte.sum();
+    }
+
+    /**
+     * Gibt zurück, wie oft eine Stornierung an einem nicht verkauften Platz
+     * gescheitert ist.
+     */
+    public long getStornierungskonflikte()
+    {
+        return _stornierungskonflikte.sum();
+    }
+
+    /**
+     * Gibt zurück, wie oft ein angefragter Tagesplan im Programm lag.
+     */
+    public long getTagesplanTreffer()
+    {
+        return _tagesplanTreffer.sum();
+    }
+
+    /**
+     * Gibt zurück, wie oft ein Tagesplan außerhalb des Programms angefragt
+     * wurde und leer erzeugt werden musste.
+     */
+    public long getTagesplanFehlgriffe()
+    {
+        return _tagesplanFehlgriffe.sum();
+    }
+
+    /**
+     * Erfasst einen Verkaufsversuch.
+     * 
+     * @param anfang der Beginn des Versuchs laut {@link System#nanoTime()}.
+     * @param plaetze die Anzahl der Plätze.
+     * @param erfolgreich ob die Plätze verkauft wurden.
+     */
+    void erfasseVerkauf(long anfang, int plaetze, boolean erfolgreich)
+    {
+        _verkaufsdauer.erfasse(System.nanoTime() - anfang);
+        if (erfolgreich)
+        {
+            _plaetzeProVerkauf.erfasse(plaetze);
+        }
+        else
+        {
+            _verkaufskonflikte.increment();
+        }
+    }
+
+    /**
+     * Erfasst einen Stornierungsversuch.
+     * 
+     * @param anfang der Beginn des Versuchs laut {@link System#nanoTime()}.
+     * @param plaetze die Anzahl der Plätze.
+     * @param erfolgreich ob die Plätze storniert wurden.
+     */
+    void erfasseStornierung(long anfang, int plaetze, boolean erfolgreich)
+    {
+        _stornierungsdauer.erfasse(System.nanoTime() - anfang);
+        if (erfolgreich)
+        {
+            _plaetzeProStornierung.erfasse(plaetze);
+        }
+        else
+        {
+            _stornierungskonflikte.increment();
+        }
+    }
+
+    /**
+     * Erfasst das Nachschlagen eines Tagesplans.
+     * 
+     * @param treffer ob der Tagesplan im Programm lag.
+     */
+    void erfasseTagesplan(boolean treffer)
+    {
+        (treffer ? _tagesplanTreffer : _tagesplanFehlgriffe).increment();
+    }
+}
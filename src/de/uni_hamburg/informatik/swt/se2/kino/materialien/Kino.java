@@ -1,11 +1,25 @@
 package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
 
 /**
  * Ein Kino mit mehreren Kinosälen, in denen Vorstellungen laufen koennen.
@@ -15,10 +29,54 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
  */
 public class Kino
 {
+    private static final Kennzahlen KENNZAHLEN = Kennzahlen.getStandard();
+
+    // Die größte Anzahl Tage, die _tagesplaene lückenlos abdeckt. Tage, die
+    // das Feld darüber hinaus verlängern würden, landen in _ausreisser.
+    private static final int MAX_TAGE_IM_FELD = 10 * 366;
+
     private List<Kinosaal> _kinosaele;
 
-    // Die Vorstellungspläne, sortiert nach Tagen.
-    private SortedMap<Datum, Tagesplan> _tagesplaene;
+    // Die Vorstellungspläne, lückenlos nach Tagen geordnet: _tagesplaene[i]
+    // ist der Plan für den Tag nach _tagesplaene[i - 1]. Auch Tage ohne
+    // Vorstellungen haben innerhalb des Bereichs einen eigenen Plan, sodass
+    // lesende Zugriffe nie etwas erzeugen müssen. Das Feld wird bei jeder
+    // Erweiterung durch ein neues Feld ersetzt und kann ohne Sperre gelesen
+    // werden.
+    private volatile Tagesplan[] _tagesplaene;
+
+    // Die Pläne einzelner Tage, die weit außerhalb von _tagesplaene liegen,
+    // etwa durch einen Tippfehler im Jahr. Für sie wird das Feld nicht bis zu
+    // ihnen verlängert. Meistens leer.
+    private Map<Integer, Tagesplan> _ausreisser;
+
+    // Die Vorstellungen jedes Kinosaals auf einer durchgehenden Zeitachse, in
+    // derselben Reihenfolge wie _kinosaele.
+    private Saalplan[] _saalplaene;
+
+    // Die Auslastung je Film. Wird nur unter der Sperre des Kinos erweitert
+    // und kann ohne Sperre gelesen werden.
+    private Map<Film, Auslastung> _filmauslastungen;
+
+    private Verkaufsprotokoll _verkaufsprotokoll;
+
+    // Die Abonnements aller Vorstellungen. Neu hinzugefügte Vorstellungen
+    // werden bei ihnen eingetragen.
+    private List<Belegungsabonnement> _belegungsabonnements;
+
+    /**
+     * Initialisiert ein Kino ohne Vorstellungen. Vorstellungen können danach
+     * mit {@link #fuegeVorstellungHinzu(Vorstellung)} hinzugefügt werden.
+     * 
+     * @param saele die Kinosäle des Kinos.
+     * 
+     * @require saele != null
+     * @require saele enthaelt keine Nullpointer
+     */
+    public Kino(Kinosaal[] saele)
+    {
+        this(saele, new Vorstellung[0]);
+    }
 
     /**
      * Initialisiert ein Kino.
@@ -26,12 +84,14 @@ public class Kino
      * @param saele die Kinosäle des Kinos.
      * @param vorstellungen die Vorstellungen, die in dem Kino laufen.
      * 
+     * @throws IllegalArgumentException falls sich zwei Vorstellungen im
+     *             selben Kinosaal überschneiden.
+     * 
      * @require saele != null
      * @require vorstellungen != null
      * @require saele enthaelt keine Nullpointer
      * @require vorstellungen enthaelt keine Nullpointer
      * @require alle Vorstellungen laufen in uebergebenen Kinosälen
-     * @require alle Vorstellungen fangen zu unterschiedlichen Zeiten an
      */
     public Kino(Kinosaal[] saele, Vorstellung[] vorstellungen)
     {
@@ -39,28 +99,211 @@ public class Kino
         assert vorstellungen != null : "Vorbedingung verletzt: vorstellungen != null";
 
         _kinosaele = new ArrayList<Kinosaal>(saele.length);
-        _tagesplaene = new TreeMap<Datum, Tagesplan>();
+        _tagesplaene = new Tagesplan[0];
+        _ausreisser = new ConcurrentHashMap<Integer, Tagesplan>();
+        _belegungsabonnements = new ArrayList<Belegungsabonnement>();
+        _saalplaene = new Saalplan[saele.length];
+        _filmauslastungen = new ConcurrentHashMap<Film, Auslastung>();
 
         for (Kinosaal saal : saele)
         {
             assert saal != null : "Vorbedingung verletzt: saele enthaelt keine Nullpointer";
+            _saalplaene[_kinosaele.size()] = new Saalplan();
             _kinosaele.add(saal);
         }
 
         for (Vorstellung vorstellung : vorstellungen)
         {
             assert vorstellung != null : "Vorbedingung verletzt: vorstellungen enthaelt keine Nullpointer";
-            Kinosaal saal = vorstellung.getKinosaal();
-            assert _kinosaele.contains(saal) : "Vorbedingung verletzt: alle Vorstellungen laufen in uebergebenen Kinosaelen";
-            Datum datum = vorstellung.getDatum();
-            Tagesplan tagesplan = _tagesplaene.get(datum);
-            if (tagesplan == null)
+            fuegeVorstellungHinzu(vorstellung);
+        }
+    }
+
+    /**
+     * Fügt diesem Kino eine Vorstellung hinzu. Die Methode darf von mehreren
+     * Threads gleichzeitig aufgerufen werden, etwa beim parallelen Einlesen
+     * eines Programms.
+     * 
+     * @param vorstellung die Vorstellung.
+     * 
+     * @throws IllegalArgumentException falls sich die Vorstellung mit einer
+     *             anderen im selben Kinosaal überschneidet. Sie wird dann nicht
+     *             hinzugefügt.
+     * 
+     * @require vorstellung != null
+     * @require hatKinosaal(vorstellung.getKinosaal())
+     */
+    public synchronized void fuegeVorstellungHinzu(Vorstellung vorstellung)
+    {
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+        assert hatKinosaal(vorstellung.getKinosaal()) : "Vorbedingung verletzt: hatKinosaal(vorstellung.getKinosaal())";
+
+        Vorstellung konflikt = fuegeVorstellungHinzuFallsFrei(vorstellung);
+        if (konflikt != null)
+        {
+            throw new IllegalArgumentException(new Konflikt(konflikt,
+                    vorstellung).toString());
+        }
+    }
+
+    /**
+     * Fügt diesem Kino eine Vorstellung hinzu, falls sie sich mit keiner
+     * anderen Vorstellung im selben Kinosaal überschneidet. Prüfung und
+     * Hinzufügen geschehen atomar.
+     * 
+     * @param vorstellung die Vorstellung.
+     * 
+     * @return <code>null</code>, falls die Vorstellung hinzugefügt wurde,
+     *         sonst eine Vorstellung, mit der sie sich überschneidet.
+     * 
+     * @require vorstellung != null
+     * @require hatKinosaal(vorstellung.getKinosaal())
+     */
+    public synchronized Vorstellung fuegeVorstellungHinzuFallsFrei(
+            Vorstellung vorstellung)
+    {
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+        assert hatKinosaal(vorstellung.getKinosaal()) : "Vorbedingung verletzt: hatKinosaal(vorstellung.getKinosaal())";
+
+        Saalplan saalplan = _saalplaene[_kinosaele.indexOf(vorstellung
+                .getKinosaal())];
+        Vorstellung konflikt = saalplan.getKonflikt(vorstellung);
+        if (konflikt != null)
+        {
+            return konflikt;
+        }
+        saalplan.fuegeHinzu(vorstellung);
+
+        int tag = vorstellung.getDatum().getEpochentag();
+        Tagesplan tagesplan = tagesplan(_tagesplaene, _ausreisser, tag);
+        if (tagesplan == null)
+        {
+            if (passtInsFeld(_tagesplaene, tag))
+            {
+                _tagesplaene = erweitere(_tagesplaene, tag);
+                tagesplan = tagesplan(_tagesplaene, _ausreisser, tag);
+            }
+            else
+            {
+                tagesplan = new Tagesplan(vorstellung.getDatum());
+                _ausreisser.put(Integer.valueOf(tag), tagesplan);
+            }
+        }
+        tagesplan.fuegeVorstellungHinzu(vorstellung);
+
+        Auslastung filmauslastung = _filmauslastungen.get(vorstellung
+                .getFilm());
+        if (filmauslastung == null)
+        {
+            filmauslastung = new Auslastung();
+            _filmauslastungen.put(vorstellung.getFilm(), filmauslastung);
+        }
+        vorstellung.rechneEinIn(filmauslastung, saalplan.getAuslastung(),
+                tagesplan.getAuslastung());
+        if (_verkaufsprotokoll != null)
+        {
+            vorstellung.setVerkaufsprotokoll(_verkaufsprotokoll);
+        }
+        Iterator<Belegungsabonnement> it = _belegungsabonnements.iterator();
+        while (it.hasNext())
+        {
+            Belegungsabonnement abonnement = it.next();
+            if (abonnement.istGekuendigt())
+            {
+                it.remove();
+            }
+            else
+            {
+                abonnement.beobachte(vorstellung);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gibt eine Vorstellung dieses Kinos zurück, die sich im selben Kinosaal
+     * mit der angegebenen Vorstellung überschneidet, oder <code>null</code>.
+     * Vorstellungen, die über Mitternacht laufen, werden dabei
+     * berücksichtigt.
+     * 
+     * @param vorstellung die Vorstellung.
+     * 
+     * @require vorstellung != null
+     * @require hatKinosaal(vorstellung.getKinosaal())
+     */
+    public synchronized Vorstellung getKonflikt(Vorstellung vorstellung)
+    {
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+        assert hatKinosaal(vorstellung.getKinosaal()) : "Vorbedingung verletzt: hatKinosaal(vorstellung.getKinosaal())";
+
+        return _saalplaene[_kinosaele.indexOf(vorstellung.getKinosaal())]
+                .getKonflikt(vorstellung);
+    }
+
+    /**
+     * Sucht in einem ganzen Programm nach Vorstellungen, die sich im selben
+     * Kinosaal überschneiden. Die Vorstellungen werden je Saal nach ihrem
+     * Anfang sortiert und in einem Durchlauf geprüft; der Aufwand ist damit
+     * O(n log n) statt quadratisch. Jede Vorstellung, die vor dem Ende einer
+     * früheren Vorstellung im selben Saal beginnt, wird einmal gemeldet,
+     * zusammen mit der früheren Vorstellung, die am längsten dauert.
+     * 
+     * @param vorstellungen die Vorstellungen des Programms.
+     * 
+     * @require vorstellungen != null
+     * @require vorstellungen enthaelt keine Nullpointer
+     * 
+     * @ensure result != null
+     */
+    public static List<Konflikt> findeKonflikte(
+            Iterable<Vorstellung> vorstellungen)
+    {
+        assert vorstellungen != null : "Vorbedingung verletzt: vorstellungen != null";
+
+        Map<Kinosaal, List<Vorstellung>> nachSaal =
+                new HashMap<Kinosaal, List<Vorstellung>>();
+        for (Vorstellung vorstellung : vorstellungen)
+        {
+            assert vorstellung != null : "Vorbedingung verletzt: vorstellungen enthaelt keine Nullpointer";
+            List<Vorstellung> saal = nachSaal.get(vorstellung.getKinosaal());
+            if (saal == null)
             {
-                tagesplan = new Tagesplan(datum);
-                _tagesplaene.put(datum, tagesplan);
+                saal = new ArrayList<Vorstellung>();
+                nachSaal.put(vorstellung.getKinosaal(), saal);
             }
-            tagesplan.fuegeVorstellungHinzu(vorstellung);
+            saal.add(vorstellung);
         }
+
+        Comparator<Vorstellung> nachAnfang = new Comparator<Vorstellung>()
+        {
+            @Override
+            public int compare(Vorstellung v1, Vorstellung v2)
+            {
+                long a1 = Saalplan.anfang(v1);
+                long a2 = Saalplan.anfang(v2);
+                return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+            }
+        };
+        List<Konflikt> konflikte = new ArrayList<Konflikt>();
+        for (List<Vorstellung> saal : nachSaal.values())
+        {
+            Collections.sort(saal, nachAnfang);
+            Vorstellung laengste = null;
+            long ende = Long.MIN_VALUE;
+            for (Vorstellung vorstellung : saal)
+            {
+                if (Saalplan.anfang(vorstellung) < ende)
+                {
+                    konflikte.add(new Konflikt(laengste, vorstellung));
+                }
+                if (Saalplan.ende(vorstellung) > ende)
+                {
+                    laengste = vorstellung;
+                    ende = Saalplan.ende(vorstellung);
+                }
+            }
+        }
+        return konflikte;
     }
 
     /**
@@ -83,6 +326,52 @@ public class Kino
         return new ArrayList<Kinosaal>(_kinosaele);
     }
 
+    /**
+     * Gibt die Auslastung aller Vorstellungen des angegebenen Films zurück.
+     * Läuft der Film in keiner Vorstellung, ist sie leer.
+     * 
+     * @require film != null
+     * 
+     * @ensure result != null
+     */
+    public Auslastung getAuslastung(Film film)
+    {
+        assert film != null : "Vorbedingung verletzt: film != null";
+
+        Auslastung auslastung = _filmauslastungen.get(film);
+        return auslastung == null ? new Auslastung() : auslastung;
+    }
+
+    /**
+     * Gibt die Auslastung aller Vorstellungen im angegebenen Kinosaal zurück.
+     * 
+     * @require kinosaal != null
+     * @require hatKinosaal(kinosaal)
+     * 
+     * @ensure result != null
+     */
+    public Auslastung getAuslastung(Kinosaal kinosaal)
+    {
+        assert kinosaal != null : "Vorbedingung verletzt: kinosaal != null";
+        assert hatKinosaal(kinosaal) : "Vorbedingung verletzt: hatKinosaal(kinosaal)";
+
+        return _saalplaene[_kinosaele.indexOf(kinosaal)].getAuslastung();
+    }
+
+    /**
+     * Gibt die Auslastung aller Vorstellungen am angegebenen Tag zurück.
+     * 
+     * @require tag != null
+     * 
+     * @ensure result != null
+     */
+    public Auslastung getAuslastung(Datum tag)
+    {
+        assert tag != null : "Vorbedingung verletzt: tag != null";
+
+        return getTagesplan(tag).getAuslastung();
+    }
+
     /**
      * Gibt den Tagesplan fuer das angegebene Datum zurück.
      * 
@@ -95,11 +384,380 @@ public class Kino
     {
         assert tag != null : "Vorbedingung verletzt: tag != null";
 
-        Tagesplan tagesplan = _tagesplaene.get(tag);
+        Tagesplan tagesplan = tagesplan(_tagesplaene, _ausreisser, tag
+                .getEpochentag());
+        KENNZAHLEN.erfasseTagesplan(tagesplan != null);
         if (tagesplan == null)
         {
+            // Außerhalb des Programms: Ein leerer Plan muss trotzdem sein
+            // eigenes Datum kennen und kann daher nicht geteilt werden.
             tagesplan = new Tagesplan(tag);
         }
         return tagesplan;
     }
+
+    /**
+     * Gibt die Tagespläne aller Tage vom ersten bis einschließlich zum letzten
+     * angegebenen Tag zurück, einen pro Tag. Die Liste ist eine
+     * unveränderliche Sicht auf die Tagespläne dieses Kinos; sie wird weder
+     * kopiert noch sortiert. Später hinzugefügte Tage erscheinen nicht
+     * zuverlässig in der Sicht.
+     * 
+     * @param von der erste Tag.
+     * @param bis der letzte Tag.
+     * 
+     * @require von != null
+     * @require bis != null
+     * @require von.compareTo(bis) <= 0
+     * 
+     * @ensure result.size() == bis.tageSeit(von) + 1
+     */
+    public List<Tagesplan> getTagesplaene(Datum von, Datum bis)
+    {
+        assert von != null : "Vorbedingung verletzt: von != null";
+        assert bis != null : "Vorbedingung verletzt: bis != null";
+        assert von.compareTo(bis) <= 0 : "Vorbedingung verletzt: von.compareTo(bis) <= 0";
+
+        return new Tagesplanbereich(_tagesplaene, _ausreisser, von
+                .getEpochentag(), bis.tageSeit(von) + 1);
+    }
+
+    /**
+     * Gibt den ersten Tag zurück, an dem eine Vorstellung läuft, oder
+     * <code>null</code>, falls es keine Vorstellungen gibt.
+     */
+    public Datum getErstenTag()
+    {
+        Tagesplan[] tagesplaene = _tagesplaene;
+        Datum erster = tagesplaene.length == 0 ? null : tagesplaene[0]
+                .getDatum();
+        for (Tagesplan tagesplan : _ausreisser.values())
+        {
+            if (erster == null || tagesplan.getDatum().compareTo(erster) < 0)
+            {
+                erster = tagesplan.getDatum();
+            }
+        }
+        return erster;
+    }
+
+    /**
+     * Gibt den letzten Tag zurück, an dem eine Vorstellung läuft, oder
+     * <code>null</code>, falls es keine Vorstellungen gibt.
+     */
+    public Datum getLetztenTag()
+    {
+        Tagesplan[] tagesplaene = _tagesplaene;
+        Datum letzter = tagesplaene.length == 0 ? null
+                : tagesplaene[tagesplaene.length - 1].getDatum();
+        for (Tagesplan tagesplan : _ausreisser.values())
+        {
+            if (letzter == null || tagesplan.getDatum().compareTo(letzter) > 0)
+            {
+                letzter = tagesplan.getDatum();
+            }
+        }
+        return letzter;
+    }
+
+    /**
+     * Gibt den Tagesplan für den angegebenen Epochentag zurück oder
+     * <code>null</code>, falls der Tag weder in den angegebenen Plänen liegt
+     * noch ein Ausreißer ist.
+     */
+    private static Tagesplan tagesplan(Tagesplan[] tagesplaene,
+            Map<Integer, Tagesplan> ausreisser, int tag)
+    {
+        if (tagesplaene.length > 0)
+        {
+            long index = (long) tag
+                    - tagesplaene[0].getDatum().getEpochentag();
+            if (index >= 0 && index < tagesplaene.length)
+            {
+                return tagesplaene[(int) index];
+            }
+        }
+        return ausreisser.isEmpty() ? null : ausreisser.get(Integer
+                .valueOf(tag));
+    }
+
+    /**
+     * Prüft, ob die angegebenen Pläne bis zu dem Tag verlängert werden
+     * dürfen, ohne mehr als {@link #MAX_TAGE_IM_FELD} Tage abzudecken.
+     */
+    private static boolean passtInsFeld(Tagesplan[] tagesplaene, int tag)
+    {
+        if (tagesplaene.length == 0)
+        {
+            return true;
+        }
+        long erster = tagesplaene[0].getDatum().getEpochentag();
+        long letzter = erster + tagesplaene.length - 1;
+        return Math.max(letzter, tag) - Math.min(erster, tag)
+                < MAX_TAGE_IM_FELD;
+    }
+
+    /**
+     * Gibt alle Tagespläne zurück, auch die der Ausreißer.
+     */
+    private List<Tagesplan> alleTagesplaene()
+    {
+        List<Tagesplan> alle = new ArrayList<Tagesplan>(Arrays
+                .asList(_tagesplaene));
+        alle.addAll(_ausreisser.values());
+        return alle;
+    }
+
+    /**
+     * Gibt neue Tagespläne zurück, die die angegebenen Pläne enthalten und bis
+     * zu dem angegebenen Tag reichen. Die Lücke wird mit leeren Plänen
+     * gefüllt.
+     */
+    private static Tagesplan[] erweitere(Tagesplan[] tagesplaene, int tag)
+    {
+        if (tagesplaene.length == 0)
+        {
+            return new Tagesplan[] { new Tagesplan(Datum.ausEpochentag(tag)) };
+        }
+        int erster = tagesplaene[0].getDatum().getEpochentag();
+        int letzter = erster + tagesplaene.length - 1;
+        int neuerErster = Math.min(erster, tag);
+        int neuerLetzter = Math.max(letzter, tag);
+        Tagesplan[] neu = new Tagesplan[neuerLetzter - neuerErster + 1];
+        System.arraycopy(tagesplaene, 0, neu, erster - neuerErster,
+                tagesplaene.length);
+        for (int i = 0; i < neu.length; i++)
+        {
+            if (neu[i] == null)
+            {
+                neu[i] = new Tagesplan(Datum.ausEpochentag(neuerErster + i));
+            }
+        }
+        return neu;
+    }
+
+    /**
+     * Gibt eine ID für die angegebene Vorstellung zurück, die stabil bleibt,
+     * solange dieses Kino mit denselben Kinosälen in derselben Reihenfolge
+     * erzeugt wird. Die ID setzt sich aus dem Tag, dem Kinosaal und der
+     * Anfangszeit der Vorstellung zusammen.
+     * 
+     * @param vorstellung die Vorstellung.
+     * 
+     * @require vorstellung != null
+     * @require hatKinosaal(vorstellung.getKinosaal())
+     */
+    public long getVorstellungsId(Vorstellung vorstellung)
+    {
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+        assert hatKinosaal(vorstellung.getKinosaal()) : "Vorbedingung verletzt: hatKinosaal(vorstellung.getKinosaal())";
+
+        long tag = vorstellung.getDatum().getEpochentag();
+        int saal = _kinosaele.indexOf(vorstellung.getKinosaal());
+        assert saal <= 0xFFFF : "Vorbedingung verletzt: höchstens 65536 Kinosäle";
+        Uhrzeit anfang = vorstellung.getAnfangszeit();
+        int minute = anfang.getStunden() * 60 + anfang.getMinuten();
+        return (tag << 32) | ((long) saal << 16) | minute;
+    }
+
+    /**
+     * Gibt die Vorstellung mit der angegebenen ID zurück oder
+     * <code>null</code>, falls es in diesem Kino keine solche Vorstellung gibt.
+     * 
+     * @param id die ID, wie sie von {@link #getVorstellungsId(Vorstellung)}
+     *            geliefert wird.
+     */
+    public Vorstellung getVorstellung(long id)
+    {
+        int tag = (int) (id >> 32);
+        int saal = (int) ((id >>> 16) & 0xFFFF);
+        int minute = (int) (id & 0xFFFF);
+        if (saal >= _kinosaele.size() || minute >= 24 * 60)
+        {
+            return null;
+        }
+        Tagesplan tagesplan = tagesplan(_tagesplaene, _ausreisser, tag);
+        if (tagesplan != null)
+        {
+            Kinosaal kinosaal = _kinosaele.get(saal);
+            Uhrzeit anfang = new Uhrzeit(minute / 60, minute % 60);
+            for (Vorstellung vorstellung : tagesplan.getVorstellungen())
+            {
+                if (vorstellung.getKinosaal().equals(kinosaal)
+                        && vorstellung.getAnfangszeit().equals(anfang))
+                {
+                    return vorstellung;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schreibt ein Abbild der verkauften Plätze aller Vorstellungen in die
+     * angegebene Datei. Das Abbild kann beim nächsten Start mit
+     * {@link #oeffneBelegungsabbild(File)} geöffnet werden. Kehrt die Methode
+     * zurück, ist das Abbild dauerhaft auf der Platte gespeichert.
+     * 
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht geschrieben werden kann.
+     * 
+     * @require datei != null
+     */
+    public void schreibeBelegungsabbild(File datei) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        SortedMap<Long, Vorstellung> vorstellungen =
+                new TreeMap<Long, Vorstellung>();
+        for (Tagesplan tagesplan : alleTagesplaene())
+        {
+            for (Vorstellung vorstellung : tagesplan.getVorstellungen())
+            {
+                vorstellungen.put(getVorstellungsId(vorstellung), vorstellung);
+            }
+        }
+        Belegungsabbild.schreibe(vorstellungen, datei);
+    }
+
+    /**
+     * Öffnet ein mit {@link #schreibeBelegungsabbild(File)} geschriebenes
+     * Abbild und blendet es in den Speicher ein. Die Vorstellungen dieses
+     * Kinos lesen ihre verkauften Plätze danach direkt aus der Einblendung,
+     * ohne sie auf den Heap zu kopieren. Vorstellungen, die im Abbild nicht
+     * vorkommen, bleiben unverändert.
+     * 
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht gelesen werden kann.
+     * 
+     * @require datei != null
+     * @require in diesem Kino wurde noch nichts verkauft oder gehalten
+     */
+    public void oeffneBelegungsabbild(File datei) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        Belegungsabbild abbild = Belegungsabbild.oeffne(datei);
+        for (Tagesplan tagesplan : alleTagesplaene())
+        {
+            for (Vorstellung vorstellung : tagesplan.getVorstellungen())
+            {
+                LongBuffer belegung = abbild.gibBelegung(
+                        getVorstellungsId(vorstellung), vorstellung
+                            .getKinosaal());
+                if (belegung != null)
+                {
+                    vorstellung.setBelegungsbasis(belegung);
+                }
+            }
+        }
+    }
+
+    /**
+     * Eine unveränderliche Sicht auf die Tagespläne eines Zeitraums. Tage
+     * außerhalb der Pläne des Kinos werden als leere Pläne geliefert.
+     */
+    private static class Tagesplanbereich extends AbstractList<Tagesplan>
+            implements RandomAccess
+    {
+        private final Tagesplan[] _tagesplaene;
+        private final Map<Integer, Tagesplan> _ausreisser;
+        private final int _ersterTag;
+        private final int _anzahl;
+
+        Tagesplanbereich(Tagesplan[] tagesplaene,
+                Map<Integer, Tagesplan> ausreisser, int ersterTag, int anzahl)
+        {
+            _tagesplaene = tagesplaene;
+            _ausreisser = ausreisser;
+            _ersterTag = ersterTag;
+            _anzahl = anzahl;
+        }
+
+        @Override
+        public Tagesplan get(int index)
+        {
+            if (index < 0 || index >= _anzahl)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            Tagesplan tagesplan = tagesplan(_tagesplaene, _ausreisser,
+                    _ersterTag + index);
+            if (tagesplan == null)
+            {
+                tagesplan = new Tagesplan(Datum.ausEpochentag(_ersterTag
+                        + index));
+            }
+            return tagesplan;
+        }
+
+        @Override
+        public int size()
+        {
+            return _anzahl;
+        }
+    }
+
+    /**
+     * Setzt das Verkaufsprotokoll, das über Verkäufe und Stornierungen aller
+     * Vorstellungen dieses Kinos informiert wird. Das Protokoll darf auch
+     * null sein.
+     * 
+     * @param protokoll das Verkaufsprotokoll.
+     */
+    public synchronized void setVerkaufsprotokoll(Verkaufsprotokoll protokoll)
+    {
+        _verkaufsprotokoll = protokoll;
+        for (Tagesplan tagesplan : alleTagesplaene())
+        {
+            for (Vorstellung vorstellung : tagesplan.getVorstellungen())
+            {
+                vorstellung.setVerkaufsprotokoll(protokoll);
+            }
+        }
+    }
+
+    /**
+     * Abonniert die Änderungen der verkauften Plätze aller Vorstellungen
+     * dieses Kinos, auch der später hinzugefügten. Der Listener erhält pro
+     * geänderter Vorstellung und Auslieferungsintervall eine zusammengefasste
+     * Änderung auf dem angegebenen Executor.
+     * 
+     * @param listener der Listener.
+     * @param executor der Executor, auf dem der Listener aufgerufen wird.
+     * 
+     * @require listener != null
+     * @require executor != null
+     * 
+     * @ensure result != null
+     * 
+     * @see Vorstellung#abonniere(BelegungsListener, Executor)
+     */
+    public Belegungsabonnement abonniere(BelegungsListener listener,
+            Executor executor)
+    {
+        return abonniere(listener, executor, Belegungsverteiler.getStandard());
+    }
+
+    /**
+     * Abonniert die Änderungen aller Vorstellungen über den angegebenen
+     * Verteiler.
+     */
+    synchronized Belegungsabonnement abonniere(BelegungsListener listener,
+            Executor executor, Belegungsverteiler verteiler)
+    {
+        Belegungsabonnement abonnement = verteiler.erzeugeAbonnement(listener,
+                executor);
+        for (Tagesplan tagesplan : alleTagesplaene())
+        {
+            for (Vorstellung vorstellung : tagesplan.getVorstellungen())
+            {
+                abonnement.beobachte(vorstellung);
+            }
+        }
+        _belegungsabonnements.add(abonnement);
+        return abonnement;
+    }
 }
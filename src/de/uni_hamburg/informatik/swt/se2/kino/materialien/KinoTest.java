@@ -2,9 +2,13 @@ package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Before;
@@ -97,6 +101,209 @@ public class KinoTest
                         _vorstellungSaal2Film2b, _vorstellungSaal1Film0)));
     }
 
+    @Test
+    public void testeTagesplanWirdNichtNeuErzeugt()
+    {
+        assertSame(_kino.getTagesplan(_d1), _kino.getTagesplan(new Datum(11,
+                7, 2008)));
+        Tagesplan leer = _kino.getTagesplan(_d1.naechsterTag());
+        assertEquals(_d1.naechsterTag(), leer.getDatum());
+        assertTrue(leer.getVorstellungen().isEmpty());
+    }
+
+    @Test
+    public void testeGibTagesplaeneImZeitraum()
+    {
+        Datum d3 = _d1.plus(3);
+        _kino.fuegeVorstellungHinzu(new Vorstellung(_saal0, _film1, _u1, _u2,
+                d3, 800));
+        assertEquals(_d1, _kino.getErstenTag());
+        assertEquals(d3, _kino.getLetztenTag());
+
+        // Der Zeitraum reicht über das Programm hinaus
+        List<Tagesplan> woche = _kino.getTagesplaene(_d1.minus(1), _d1.plus(5));
+        assertEquals(7, woche.size());
+        for (int i = 0; i < woche.size(); i++)
+        {
+            assertEquals(_d1.minus(1).plus(i), woche.get(i).getDatum());
+        }
+        assertTrue(woche.get(0).getVorstellungen().isEmpty());
+        assertSame(_kino.getTagesplan(_d1), woche.get(1));
+        assertTrue(woche.get(2).getVorstellungen().isEmpty());
+        assertSame(_kino.getTagesplan(_d1.plus(2)), woche.get(3));
+        assertEquals(1, woche.get(4).getVorstellungen().size());
+
+        assertEquals(1, _kino.getTagesplaene(_d1, _d1).size());
+    }
+
+    @Test
+    public void testeWeitEntfernterTag()
+    {
+        // Ein Tippfehler im Jahr darf das Feld der Tagespläne nicht über
+        // Jahrhunderte verlängern; der Tag wird trotzdem gefunden.
+        Datum fern = new Datum(11, 7, 2808);
+        Vorstellung vorstellung = new Vorstellung(_saal0, _film1, _u1, _u2,
+                fern, 800);
+        _kino.fuegeVorstellungHinzu(vorstellung);
+
+        assertEquals(_d1, _kino.getErstenTag());
+        assertEquals(fern, _kino.getLetztenTag());
+        assertEquals(Arrays.asList(vorstellung), _kino.getTagesplan(fern)
+                .getVorstellungen());
+        assertSame(_kino.getTagesplan(fern), _kino.getTagesplaene(fern, fern)
+                .get(0));
+        assertSame(vorstellung, _kino.getVorstellung(_kino
+                .getVorstellungsId(vorstellung)));
+        assertTrue(_kino.getTagesplan(fern.vorherigerTag()).getVorstellungen()
+                .isEmpty());
+        assertEquals(4, _kino.getTagesplan(_d1).getVorstellungen().size());
+    }
+
+    @Test
+    public void testeKinoOhneVorstellungen()
+    {
+        Kino kino = new Kino(_alleSaele);
+        assertNull(kino.getErstenTag());
+        assertNull(kino.getLetztenTag());
+        assertTrue(kino.getTagesplan(_d1).getVorstellungen().isEmpty());
+        assertEquals(2, kino.getTagesplaene(_d1, _d1.naechsterTag()).size());
+    }
+
+    @Test
+    public void testeKonflikte()
+    {
+        // Saal 2 ist am 11.7. von 17:30 bis 1:30 am Folgetag belegt
+        assertNull(_kino.getKonflikt(new Vorstellung(_saal2, _film0, _u4,
+                new Uhrzeit(3, 0), _d1, 900)));
+        assertSame(_vorstellungSaal2Film1, _kino.getKonflikt(new Vorstellung(
+                _saal2, _film0, new Uhrzeit(16, 0), new Uhrzeit(17, 31), _d1,
+                900)));
+        assertSame(_vorstellungSaal2Film2a, _kino.getKonflikt(new Vorstellung(
+                _saal2, _film0, new Uhrzeit(21, 0), new Uhrzeit(21, 30), _d1,
+                900)));
+
+        // Über Mitternacht in den nächsten Tag hinein
+        Vorstellung nachts = new Vorstellung(_saal2, _film0, new Uhrzeit(1, 0),
+                new Uhrzeit(3, 0), _d1.naechsterTag(), 900);
+        assertSame(_vorstellungSaal2Film2b, _kino.getKonflikt(nachts));
+        assertSame(_vorstellungSaal2Film2b, _kino
+                .fuegeVorstellungHinzuFallsFrei(nachts));
+        assertTrue(_kino.getTagesplan(_d1.naechsterTag()).getVorstellungen()
+                .isEmpty());
+
+        // Anschließende Vorstellungen überschneiden sich nicht
+        Vorstellung danach = new Vorstellung(_saal2, _film0, _u4, new Uhrzeit(
+                3, 0), _d1.naechsterTag(), 900);
+        assertNull(_kino.fuegeVorstellungHinzuFallsFrei(danach));
+        assertEquals(1, _kino.getTagesplan(_d1.naechsterTag())
+                .getVorstellungen().size());
+        assertNull(_kino.getKonflikt(new Vorstellung(_saal1, _film0, _u2, _u3,
+                _d1, 900)));
+    }
+
+    @Test
+    public void testeUeberschneidungWirdAbgelehnt()
+    {
+        Vorstellung ueberschneidend = new Vorstellung(_saal2, _film0,
+                new Uhrzeit(21, 0), new Uhrzeit(21, 30), _d1, 900);
+        try
+        {
+            _kino.fuegeVorstellungHinzu(ueberschneidend);
+            fail("Überschneidung nicht erkannt");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // erwartet
+        }
+        assertEquals(4, _kino.getTagesplan(_d1).getVorstellungen().size());
+        assertFalse(_kino.getTagesplan(_d1).getVorstellungen().contains(
+                ueberschneidend));
+    }
+
+    @Test
+    public void testeFindeKonflikte()
+    {
+        assertTrue(Kino.findeKonflikte(Arrays.asList(_alleVorstellungen))
+                .isEmpty());
+
+        Vorstellung lang = new Vorstellung(_saal2, _film2, new Uhrzeit(12, 0),
+                _u3, _d1, 900);
+        Vorstellung nachts = new Vorstellung(_saal2, _film0, new Uhrzeit(1, 0),
+                new Uhrzeit(2, 0), _d1.naechsterTag(), 900);
+        List<Konflikt> konflikte = Kino.findeKonflikte(Arrays.asList(
+                _vorstellungSaal1Film0, _vorstellungSaal2Film1,
+                _vorstellungSaal2Film2a, _vorstellungSaal2Film2b, lang, nachts));
+        assertEquals(3, konflikte.size());
+        assertSame(lang, konflikte.get(0).getFruehereVorstellung());
+        assertSame(_vorstellungSaal2Film1, konflikte.get(0)
+                .getSpaetereVorstellung());
+        assertSame(_vorstellungSaal2Film2a, konflikte.get(1)
+                .getSpaetereVorstellung());
+        assertSame(_vorstellungSaal2Film2b, konflikte.get(2)
+                .getFruehereVorstellung());
+        assertSame(nachts, konflikte.get(2).getSpaetereVorstellung());
+    }
+
+    @Test
+    public void testeAuslastung()
+    {
+        Auslastung film2 = _kino.getAuslastung(_film2);
+        Auslastung saal2 = _kino.getAuslastung(_saal2);
+        Auslastung tag = _kino.getAuslastung(_d1);
+        assertEquals(2 * 160, film2.getAnzahlPlaetze());
+        assertEquals(3 * 160, saal2.getAnzahlPlaetze());
+        assertEquals(3 * 160 + 640, tag.getAnzahlPlaetze());
+        assertEquals(0, tag.getAnzahlVerkaufterPlaetze());
+
+        _vorstellungSaal2Film2a.verkaufePlatz(new Platz(0, 0));
+        _vorstellungSaal2Film2b.verkaufePlaetze(new HashSet<Platz>(Arrays
+                .asList(new Platz(0, 0), new Platz(0, 1))));
+        _vorstellungSaal1Film0.verkaufePlatz(new Platz(1, 1));
+        _vorstellungSaal2Film2b.stornierePlatz(new Platz(0, 1));
+
+        assertEquals(2, film2.getAnzahlVerkaufterPlaetze());
+        assertEquals(1800, film2.getUmsatz());
+        assertEquals(2, saal2.getAnzahlVerkaufterPlaetze());
+        assertEquals(3, tag.getAnzahlVerkaufterPlaetze());
+        assertEquals(2700, tag.getUmsatz());
+        assertEquals(1, _vorstellungSaal1Film0.getAuslastung()
+                .getAnzahlVerkaufterPlaetze());
+        assertEquals(900, _kino.getAuslastung(_saal1).getUmsatz());
+        assertEquals(0, _kino.getAuslastung(_film1).getUmsatz());
+        assertEquals(0, _kino.getAuslastung(_d1.naechsterTag())
+                .getAnzahlPlaetze());
+    }
+
+    @Test
+    public void testeAuslastungMitReservierung()
+    {
+        Reservierung reservierung = _vorstellungSaal2Film1.haltePlaetze(
+                new HashSet<Platz>(Arrays.asList(new Platz(2, 2), new Platz(
+                        2, 3))), "Kasse", 60000);
+        assertEquals(0, _kino.getAuslastung(_film1).getAnzahlVerkaufterPlaetze());
+
+        assertTrue(_vorstellungSaal2Film1.bestaetigeReservierung(reservierung, "Kasse"));
+        assertEquals(2, _kino.getAuslastung(_film1).getAnzahlVerkaufterPlaetze());
+        assertEquals(2000, _kino.getAuslastung(_saal2).getUmsatz());
+    }
+
+    @Test
+    public void testeVorstellungsIdMitHohemSaalindex()
+    {
+        Kinosaal[] saele = new Kinosaal[0x8001];
+        for (int i = 0; i < saele.length; i++)
+        {
+            saele[i] = new Kinosaal("Saal " + i, 1, 1);
+        }
+        Vorstellung vorstellung = new Vorstellung(saele[0x8000], _film0, _u1,
+                _u2, _d1, 900);
+        Kino kino = new Kino(saele, new Vorstellung[] { vorstellung });
+
+        long id = kino.getVorstellungsId(vorstellung);
+        assertEquals(_d1.getEpochentag(), id >> 32);
+        assertSame(vorstellung, kino.getVorstellung(id));
+    }
+
     @Test
     public void testeHatKinosaal()
     {
@@ -0,0 +1,78 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+/**
+ * Ein Kino für Tests, die seinen Stand speichern und in einem neu erzeugten
+ * Kino wiederherstellen. Jeder Aufruf von {@link #erzeugeKino()} liefert ein
+ * neues Kino mit denselben Sälen und Vorstellungen, sodass die
+ * Vorstellungs-IDs übereinstimmen.
+ * 
+ * Am Tag {@link #DATUM} laufen zwei Vorstellungen in Saal 1 (20 Reihen zu 25
+ * Sitzen) um 17:30 und 20:00 Uhr, am Tag danach eine in Saal 2 (16 Sitze pro
+ * Reihe) um 20:00 Uhr.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class KinoTesthilfe
+{
+    /**
+     * Der erste Spieltag.
+     */
+    public static final Datum DATUM = new Datum(11, 7, 2008);
+
+    private KinoTesthilfe()
+    {
+    }
+
+    /**
+     * Erzeugt das Kino mit 10 Reihen in Saal 2.
+     * 
+     * @ensure result != null
+     */
+    public static Kino erzeugeKino()
+    {
+        return erzeugeKino(10);
+    }
+
+    /**
+     * Erzeugt das Kino mit der angegebenen Anzahl Reihen in Saal 2.
+     * 
+     * @require reihenImZweitenSaal > 0
+     * @ensure result != null
+     */
+    public static Kino erzeugeKino(int reihenImZweitenSaal)
+    {
+        assert reihenImZweitenSaal > 0 : "Vorbedingung verletzt: reihenImZweitenSaal > 0";
+
+        Kinosaal[] saele = { new Kinosaal("Saal 1", 20, 25),
+                new Kinosaal("Saal 2", reihenImZweitenSaal, 16) };
+        Film film = new Film("Thor", 115, FSK.FSK12, false);
+        Vorstellung[] vorstellungen = {
+                new Vorstellung(saele[0], film, new Uhrzeit(17, 30),
+                        new Uhrzeit(19, 30), DATUM, 900),
+                new Vorstellung(saele[0], film, new Uhrzeit(20, 0),
+                        new Uhrzeit(22, 0), DATUM, 900),
+                new Vorstellung(saele[1], film, new Uhrzeit(20, 0),
+                        new Uhrzeit(22, 0), DATUM.naechsterTag(), 900) };
+        return new Kino(saele, vorstellungen);
+    }
+
+    /**
+     * Gibt die i-te Vorstellung des angegebenen Tages zurück.
+     * 
+     * @require kino != null
+     * @require datum != null
+     * @ensure result != null
+     */
+    public static Vorstellung gibVorstellung(Kino kino, Datum datum, int i)
+    {
+        assert kino != null : "Vorbedingung verletzt: kino != null";
+        assert datum != null : "Vorbedingung verletzt: datum != null";
+
+        return kino.getTagesplan(datum).getVorstellungen().get(i);
+    }
+}
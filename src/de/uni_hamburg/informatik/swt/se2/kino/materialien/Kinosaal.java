@@ -1,6 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
@@ -9,6 +10,11 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
  * Ein Kinosaal. Ein Kinosaal hat einen Namen und kennt die Anzahl seiner
  * Sitzplätze.
  * 
+ * Jeder Platz des Kinosaals hat eine Platznummer von 0 bis zur Anzahl der
+ * Plätze - 1 (Reihe * Sitze pro Reihe + Sitz). Der Kinosaal hält für jede
+ * Platznummer ein festes Platz-Exemplar bereit, sodass Platzpläne ohne neue
+ * Objekte aufgebaut werden können.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
@@ -17,6 +23,9 @@ public class Kinosaal
     private String _name;
     private int _anzahlReihen;
     private int _anzahlSitzeProReihe;
+    // Die Plätze nach Platznummer.
+    private final Platz[] _plaetze;
+    private final List<Platz> _platzliste;
 
     /**
      * Initialisiert einen neuen Kinosaal.
@@ -25,9 +34,14 @@ public class Kinosaal
      * @param anzahlReihen die Anzahl der Reihen.
      * @param anzahlSitzeProReihe die Anzahl der Sitze Pro Reihe.
      * 
+     * @throws ArithmeticException falls die Anzahl der Plätze nicht mehr als
+     *             int darstellbar ist.
+     * 
      * @require name != null
      * @require anzahlReihen > 0
      * @require anzahlSitzeProReihe > 0
+     * @require anzahlReihen <= Platz.MAX_REIHE + 1
+     * @require anzahlSitzeProReihe <= Platz.MAX_SITZ + 1
      * 
      * @ensure getName() == name
      * @ensure getAnzahlReihen() == anzahlReihen
@@ -38,10 +52,20 @@ public class Kinosaal
         assert name != null : "Vorbedingung verletzt: name != null";
         assert anzahlReihen > 0 : "Vorbedingung verletzt: anzahlReihen > 0";
         assert anzahlSitzeProReihe > 0 : "Vorbedingung verletzt: anzahlSitzeProReihe > 0";
+        assert anzahlReihen <= Platz.MAX_REIHE + 1 : "Vorbedingung verletzt: anzahlReihen <= Platz.MAX_REIHE + 1";
+        assert anzahlSitzeProReihe <= Platz.MAX_SITZ + 1 : "Vorbedingung verletzt: anzahlSitzeProReihe <= Platz.MAX_SITZ + 1";
 
         _name = name;
         _anzahlReihen = anzahlReihen;
         _anzahlSitzeProReihe = anzahlSitzeProReihe;
+        _plaetze = new Platz[Math.multiplyExact(anzahlReihen,
+                anzahlSitzeProReihe)];
+        for (int i = 0; i < _plaetze.length; i++)
+        {
+            _plaetze[i] = Platz.get(i / anzahlSitzeProReihe, i
+                    % anzahlSitzeProReihe);
+        }
+        _platzliste = Collections.unmodifiableList(Arrays.asList(_plaetze));
     }
 
     /**
@@ -75,24 +99,71 @@ public class Kinosaal
     }
 
     /**
-     * Gibt eine Liste der Plätze in diesem Kinosaal zurück.
+     * Gibt eine unveränderliche Liste der Plätze in diesem Kinosaal zurück,
+     * geordnet nach Platznummer. Es wird stets dieselbe Liste zurückgegeben.
      * 
      * @ensure result != null
      */
     public List<Platz> getPlaetze()
     {
-        List<Platz> kinoPlaetze = new ArrayList<Platz>();
-        int reihen = getAnzahlReihen();
-        int plaetze = getAnzahlSitzeProReihe();
-        for (int i = 0; i < reihen; i++)
-        {
-            for (int j = 0; j < plaetze; j++)
-            {
-                Platz platz = new Platz(i, j);
-                kinoPlaetze.add(platz);
-            }
-        }
-        return kinoPlaetze;
+        return _platzliste;
+    }
+
+    /**
+     * Gibt die Anzahl der Plätze in diesem Kinosaal zurück.
+     * 
+     * @ensure result > 0
+     */
+    public int getAnzahlPlaetze()
+    {
+        return _plaetze.length;
+    }
+
+    /**
+     * Gibt den Platz mit der angegebenen Platznummer zurück.
+     * 
+     * @require nummer >= 0 && nummer < getAnzahlPlaetze()
+     * 
+     * @ensure result != null
+     */
+    public Platz getPlatz(int nummer)
+    {
+        assert nummer >= 0 && nummer < _plaetze.length : "Vorbedingung verletzt: nummer >= 0 && nummer < getAnzahlPlaetze()";
+
+        return _plaetze[nummer];
+    }
+
+    /**
+     * Gibt den Platz in der angegebenen Reihe und auf dem angegebenen Sitz
+     * zurück.
+     * 
+     * @require reihe >= 0 && reihe < getAnzahlReihen()
+     * @require sitz >= 0 && sitz < getAnzahlSitzeProReihe()
+     * 
+     * @ensure result != null
+     */
+    public Platz getPlatz(int reihe, int sitz)
+    {
+        assert reihe >= 0 && reihe < _anzahlReihen : "Vorbedingung verletzt: reihe >= 0 && reihe < getAnzahlReihen()";
+        assert sitz >= 0 && sitz < _anzahlSitzeProReihe : "Vorbedingung verletzt: sitz >= 0 && sitz < getAnzahlSitzeProReihe()";
+
+        return _plaetze[reihe * _anzahlSitzeProReihe + sitz];
+    }
+
+    /**
+     * Gibt die Platznummer des angegebenen Platzes zurück.
+     * 
+     * @require platz != null
+     * @require hatPlatz(platz)
+     * 
+     * @ensure result >= 0 && result < getAnzahlPlaetze()
+     */
+    public int getPlatznummer(Platz platz)
+    {
+        assert platz != null : "Vorbedingung verletzt: platz != null";
+        assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
+
+        return platz.getReihe() * _anzahlSitzeProReihe + platz.getSitz();
     }
 
     /**
@@ -3,6 +3,7 @@ package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
@@ -23,6 +24,13 @@ public class KinosaalTest
         assertNotNull(k.toString());
     }
 
+    @Test(expected = ArithmeticException.class)
+    public void testeZuGrosserKinosaal()
+    {
+        // 65536 * 65536 Plätze passen nicht in ein int
+        new Kinosaal("Name", Platz.MAX_REIHE + 1, Platz.MAX_SITZ + 1);
+    }
+
     @Test
     public void testeIstPlatzVorhanden()
     {
@@ -43,6 +51,22 @@ public class KinosaalTest
         assertTrue(plaetze.contains(new Platz(2, 3)));
     }
 
+    @Test
+    public void testePlatznummern()
+    {
+        Kinosaal k = new Kinosaal("Name", 3, 4);
+        assertEquals(12, k.getAnzahlPlaetze());
+        assertSame(k.getPlaetze(), k.getPlaetze());
+        for (int nummer = 0; nummer < k.getAnzahlPlaetze(); nummer++)
+        {
+            Platz platz = k.getPlatz(nummer);
+            assertSame(platz, k.getPlaetze().get(nummer));
+            assertSame(platz, k.getPlatz(platz.getReihe(), platz.getSitz()));
+            assertEquals(nummer, k.getPlatznummer(platz));
+        }
+        assertEquals(new Platz(2, 1), k.getPlatz(9));
+    }
+
     @Test
     public void testeEqualsUndHashCode()
     {
@@ -0,0 +1,58 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+/**
+ * Zwei Vorstellungen, die sich im selben Kinosaal zeitlich überschneiden.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Konflikt
+{
+    private final Vorstellung _frueher;
+    private final Vorstellung _spaeter;
+
+    /**
+     * Initialisiert einen Konflikt.
+     * 
+     * @param frueher die früher beginnende Vorstellung.
+     * @param spaeter die Vorstellung, die vor dem Ende der früheren beginnt.
+     * 
+     * @require frueher != null
+     * @require spaeter != null
+     */
+    public Konflikt(Vorstellung frueher, Vorstellung spaeter)
+    {
+        assert frueher != null : "Vorbedingung verletzt: frueher != null";
+        assert spaeter != null : "Vorbedingung verletzt: spaeter != null";
+
+        _frueher = frueher;
+        _spaeter = spaeter;
+    }
+
+    /**
+     * Gibt die früher beginnende Vorstellung zurück.
+     * 
+     * @ensure result != null
+     */
+    public Vorstellung getFruehereVorstellung()
+    {
+        return _frueher;
+    }
+
+    /**
+     * Gibt die Vorstellung zurück, die vor dem Ende der früheren beginnt.
+     * 
+     * @ensure result != null
+     */
+    public Vorstellung getSpaetereVorstellung()
+    {
+        return _spaeter;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Konflikt: " + _frueher + " (" + _frueher.getDatum() + ") und "
+                + _spaeter + " (" + _spaeter.getDatum() + ")";
+    }
+}
@@ -0,0 +1,442 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+/**
+ * Eine Menge von Plätzen eines Kinosaals, gespeichert als Bitmap mit einem Bit
+ * pro Platz (Index = Reihe * Sitze pro Reihe + Sitz, wie in der Belegung einer
+ * Vorstellung).
+ * 
+ * Vereinigung ({@link #addAll(Collection)}), Schnitt
+ * ({@link #retainAll(Collection)}), Differenz und Teilmengen-Prüfung zweier
+ * Mengen mit gleichem Aufbau erfolgen wortweise. Eine Vorstellung verwendet
+ * die Wörter einer passenden PlatzMenge direkt als Maske, sodass Prüfen,
+ * Verkaufen und Stornieren einer Auswahl ohne Iteration über einzelne Plätze
+ * auskommen.
+ * 
+ * Mit {@link #nurLesbar()} entsteht eine nicht veränderbare Sicht auf
+ * dieselben Wörter, etwa um eine Momentaufnahme ohne weitere Kopie an mehrere
+ * Empfänger weiterzugeben.
+ * 
+ * Eine PlatzMenge ist nicht threadsicher.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class PlatzMenge extends AbstractSet<Platz>
+{
+    private final int _anzahlReihen;
+    private final int _anzahlSitzeProReihe;
+    private final long[] _woerter;
+    private final boolean _nurLesbar;
+
+    /**
+     * Erzeugt eine leere Menge für die Plätze des angegebenen Kinosaals.
+     * 
+     * @require kinosaal != null
+     */
+    public PlatzMenge(Kinosaal kinosaal)
+    {
+        this(kinosaal.getAnzahlReihen(), kinosaal.getAnzahlSitzeProReihe());
+    }
+
+    /**
+     * Erzeugt eine leere Menge für die Plätze eines Kinosaals mit den
+     * angegebenen Abmessungen.
+     * 
+     * @require anzahlReihen >= 0
+     * @require anzahlSitzeProReihe >= 0
+     */
+    public PlatzMenge(int anzahlReihen, int anzahlSitzeProReihe)
+    {
+        this(anzahlReihen, anzahlSitzeProReihe, new long[Platzbelegung
+                .anzahlWoerter(anzahlReihen * anzahlSitzeProReihe)]);
+    }
+
+    /**
+     * Erzeugt eine veränderbare Kopie der angegebenen Menge.
+     * 
+     * @require menge != null
+     */
+    public PlatzMenge(PlatzMenge menge)
+    {
+        this(menge._anzahlReihen, menge._anzahlSitzeProReihe, menge._woerter
+                .clone());
+    }
+
+    /**
+     * Erzeugt eine Menge, die die angegebenen Wörter übernimmt.
+     */
+    PlatzMenge(int anzahlReihen, int anzahlSitzeProReihe, long[] woerter)
+    {
+        assert anzahlReihen >= 0 : "Vorbedingung verletzt: anzahlReihen >= 0";
+        assert anzahlSitzeProReihe >= 0 : "Vorbedingung verletzt: anzahlSitzeProReihe >= 0";
+
+        _anzahlReihen = anzahlReihen;
+        _anzahlSitzeProReihe = anzahlSitzeProReihe;
+        _woerter = woerter;
+        _nurLesbar = false;
+    }
+
+    /**
+     * Erzeugt eine nicht veränderbare Sicht auf die angegebene Menge.
+     */
+    private PlatzMenge(PlatzMenge menge, boolean nurLesbar)
+    {
+        _anzahlReihen = menge._anzahlReihen;
+        _anzahlSitzeProReihe = menge._anzahlSitzeProReihe;
+        _woerter = menge._woerter;
+        _nurLesbar = nurLesbar;
+    }
+
+    /**
+     * Gibt eine nicht veränderbare Sicht auf diese Menge zurück. Die Wörter
+     * werden nicht kopiert; spätere Änderungen dieser Menge sind in der Sicht
+     * zu sehen. Jeder Versuch, die Sicht zu verändern, wirft eine
+     * {@link UnsupportedOperationException}.
+     * 
+     * @ensure result != null
+     */
+    public PlatzMenge nurLesbar()
+    {
+        return _nurLesbar ? this : new PlatzMenge(this, true);
+    }
+
+    /**
+     * Prüft, ob diese Menge nicht verändert werden kann.
+     */
+    public boolean istNurLesbar()
+    {
+        return _nurLesbar;
+    }
+
+    /**
+     * Gibt die Anzahl der Reihen zurück, für die diese Menge angelegt ist.
+     */
+    public int getAnzahlReihen()
+    {
+        return _anzahlReihen;
+    }
+
+    /**
+     * Gibt die Anzahl der Sitze pro Reihe zurück, für die diese Menge angelegt
+     * ist.
+     */
+    public int getAnzahlSitzeProReihe()
+    {
+        return _anzahlSitzeProReihe;
+    }
+
+    /**
+     * Prüft, ob der angegebene Platz in diese Menge aufgenommen werden kann.
+     * 
+     * @require platz != null
+     */
+    public boolean hatPlatz(Platz platz)
+    {
+        assert platz != null : "Vorbedingung verletzt: platz != null";
+
+        return platz.getReihe() < _anzahlReihen
+                && platz.getSitz() < _anzahlSitzeProReihe;
+    }
+
+    /**
+     * Prüft, ob diese Menge für die Plätze des angegebenen Kinosaals angelegt
+     * ist.
+     * 
+     * @require kinosaal != null
+     */
+    public boolean passtZu(Kinosaal kinosaal)
+    {
+        assert kinosaal != null : "Vorbedingung verletzt: kinosaal != null";
+
+        return _anzahlReihen == kinosaal.getAnzahlReihen()
+                && _anzahlSitzeProReihe == kinosaal.getAnzahlSitzeProReihe();
+    }
+
+    /**
+     * Gibt die Wörter dieser Menge zurück, ohne sie zu kopieren.
+     */
+    long[] woerter()
+    {
+        return _woerter;
+    }
+
+    @Override
+    public int size()
+    {
+        int anzahl = 0;
+        for (long wort : _woerter)
+        {
+            anzahl += Long.bitCount(wort);
+        }
+        return anzahl;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (long wort : _woerter)
+        {
+            if (wort != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        if (!(o instanceof Platz) || !hatPlatz((Platz) o))
+        {
+            return false;
+        }
+        int index = index((Platz) o);
+        return (_woerter[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Fügt den Platz dieser Menge hinzu.
+     * 
+     * @require platz != null
+     * @require hatPlatz(platz)
+     */
+    @Override
+    public boolean add(Platz platz)
+    {
+        assert platz != null : "Vorbedingung verletzt: platz != null";
+        assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
+
+        pruefeVeraenderbar();
+        int index = index(platz);
+        long alt = _woerter[index >>> 6];
+        _woerter[index >>> 6] = alt | (1L << index);
+        return _woerter[index >>> 6] != alt;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        pruefeVeraenderbar();
+        if (!contains(o))
+        {
+            return false;
+        }
+        int index = index((Platz) o);
+        _woerter[index >>> 6] &= ~(1L << index);
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        pruefeVeraenderbar();
+        Arrays.fill(_woerter, 0);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Platz> c)
+    {
+        pruefeVeraenderbar();
+        if (!hatGleichenAufbau(c))
+        {
+            return super.addAll(c);
+        }
+        long[] andere = ((PlatzMenge) c)._woerter;
+        boolean geaendert = false;
+        for (int i = 0; i < _woerter.length; i++)
+        {
+            long neu = _woerter[i] | andere[i];
+            geaendert |= neu != _woerter[i];
+            _woerter[i] = neu;
+        }
+        return geaendert;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c)
+    {
+        pruefeVeraenderbar();
+        if (!hatGleichenAufbau(c))
+        {
+            return super.retainAll(c);
+        }
+        long[] andere = ((PlatzMenge) c)._woerter;
+        boolean geaendert = false;
+        for (int i = 0; i < _woerter.length; i++)
+        {
+            long neu = _woerter[i] & andere[i];
+            geaendert |= neu != _woerter[i];
+            _woerter[i] = neu;
+        }
+        return geaendert;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c)
+    {
+        pruefeVeraenderbar();
+        if (!hatGleichenAufbau(c))
+        {
+            boolean geaendert = false;
+            for (Object o : c)
+            {
+                geaendert |= remove(o);
+            }
+            return geaendert;
+        }
+        long[] andere = ((PlatzMenge) c)._woerter;
+        boolean geaendert = false;
+        for (int i = 0; i < _woerter.length; i++)
+        {
+            long neu = _woerter[i] & ~andere[i];
+            geaendert |= neu != _woerter[i];
+            _woerter[i] = neu;
+        }
+        return geaendert;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c)
+    {
+        if (!hatGleichenAufbau(c))
+        {
+            return super.containsAll(c);
+        }
+        long[] andere = ((PlatzMenge) c)._woerter;
+        for (int i = 0; i < _woerter.length; i++)
+        {
+            if ((andere[i] & ~_woerter[i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<Platz> iterator()
+    {
+        return new Iterator<Platz>()
+        {
+            private int _naechster = naechsterIndex(0);
+            private int _letzter = -1;
+
+            @Override
+            public boolean hasNext()
+            {
+                return _naechster >= 0;
+            }
+
+            @Override
+            public Platz next()
+            {
+                if (_naechster < 0)
+                {
+                    throw new NoSuchElementException();
+                }
+                _letzter = _naechster;
+                _naechster = naechsterIndex(_naechster + 1);
+                return platz(_letzter);
+            }
+
+            @Override
+            public void remove()
+            {
+                pruefeVeraenderbar();
+                if (_letzter < 0)
+                {
+                    throw new IllegalStateException();
+                }
+                _woerter[_letzter >>> 6] &= ~(1L << _letzter);
+                _letzter = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (hatGleichenAufbau(o))
+        {
+            return Arrays.equals(_woerter, ((PlatzMenge) o)._woerter);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        // Wie von Set verlangt die Summe der Hashcodes der Plätze, aber ohne
+        // die Plätze zu erzeugen.
+        int summe = 0;
+        for (int index = naechsterIndex(0); index >= 0; index = naechsterIndex(index + 1))
+        {
+            summe += ((index / _anzahlSitzeProReihe) << 16)
+                    | (index % _anzahlSitzeProReihe);
+        }
+        return summe;
+    }
+
+    /**
+     * Gibt den kleinsten Index ab dem angegebenen zurück, dessen Bit gesetzt
+     * ist, oder -1.
+     */
+    private int naechsterIndex(int ab)
+    {
+        int i = ab >>> 6;
+        if (i >= _woerter.length)
+        {
+            return -1;
+        }
+        long bits = _woerter[i] & (-1L << ab);
+        while (bits == 0)
+        {
+            if (++i == _woerter.length)
+            {
+                return -1;
+            }
+            bits = _woerter[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    private void pruefeVeraenderbar()
+    {
+        if (_nurLesbar)
+        {
+            throw new UnsupportedOperationException(
+                    "Die PlatzMenge ist nicht veränderbar");
+        }
+    }
+
+    private boolean hatGleichenAufbau(Object o)
+    {
+        if (!(o instanceof PlatzMenge))
+        {
+            return false;
+        }
+        PlatzMenge andere = (PlatzMenge) o;
+        return andere._anzahlReihen == _anzahlReihen
+                && andere._anzahlSitzeProReihe == _anzahlSitzeProReihe;
+    }
+
+    private int index(Platz platz)
+    {
+        return platz.getReihe() * _anzahlSitzeProReihe + platz.getSitz();
+    }
+
+    private Platz platz(int index)
+    {
+        return Platz.get(index / _anzahlSitzeProReihe, index
+                % _anzahlSitzeProReihe);
+    }
+}
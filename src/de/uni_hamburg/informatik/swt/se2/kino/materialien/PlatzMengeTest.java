@@ -0,0 +1,169 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+public class PlatzMengeTest
+{
+    private Kinosaal _saal = new Kinosaal("A", 10, 100);
+
+    @Test
+    public void testeHinzufuegenUndEntfernen()
+    {
+        PlatzMenge menge = new PlatzMenge(_saal);
+        assertTrue(menge.isEmpty());
+        assertTrue(menge.add(new Platz(0, 63)));
+        assertTrue(menge.add(new Platz(0, 64)));
+        assertFalse(menge.add(new Platz(0, 64)));
+        assertTrue(menge.add(new Platz(9, 99)));
+
+        assertEquals(3, menge.size());
+        assertTrue(menge.contains(new Platz(0, 64)));
+        assertFalse(menge.contains(new Platz(1, 64)));
+        assertFalse(menge.contains(new Platz(10, 0)));
+        assertFalse(menge.contains("0-64"));
+
+        assertTrue(menge.remove(new Platz(0, 63)));
+        assertFalse(menge.remove(new Platz(0, 63)));
+        assertEquals(2, menge.size());
+    }
+
+    @Test
+    public void testeIteratorInPlatzreihenfolge()
+    {
+        PlatzMenge menge = new PlatzMenge(_saal);
+        menge.add(new Platz(5, 3));
+        menge.add(new Platz(0, 99));
+        menge.add(new Platz(0, 1));
+
+        Iterator<Platz> it = menge.iterator();
+        assertEquals(new Platz(0, 1), it.next());
+        assertEquals(new Platz(0, 99), it.next());
+        it.remove();
+        assertEquals(new Platz(5, 3), it.next());
+        assertFalse(it.hasNext());
+        assertEquals(2, menge.size());
+    }
+
+    @Test
+    public void testeMengenoperationen()
+    {
+        PlatzMenge a = new PlatzMenge(_saal);
+        PlatzMenge b = new PlatzMenge(_saal);
+        a.add(new Platz(1, 1));
+        a.add(new Platz(1, 2));
+        b.add(new Platz(1, 2));
+        b.add(new Platz(1, 3));
+
+        PlatzMenge vereinigung = new PlatzMenge(a);
+        assertTrue(vereinigung.addAll(b));
+        assertEquals(3, vereinigung.size());
+        assertTrue(vereinigung.containsAll(a));
+        assertFalse(a.containsAll(vereinigung));
+
+        PlatzMenge schnitt = new PlatzMenge(a);
+        assertTrue(schnitt.retainAll(b));
+        assertEquals(1, schnitt.size());
+        assertTrue(schnitt.contains(new Platz(1, 2)));
+
+        PlatzMenge differenz = new PlatzMenge(a);
+        assertTrue(differenz.removeAll(b));
+        assertEquals(1, differenz.size());
+        assertTrue(differenz.contains(new Platz(1, 1)));
+        assertEquals(2, a.size());
+    }
+
+    @Test
+    public void testeGleichheitMitAnderenMengen()
+    {
+        PlatzMenge menge = new PlatzMenge(_saal);
+        menge.add(new Platz(2, 70));
+        menge.add(new Platz(3, 0));
+        Set<Platz> andere = new HashSet<Platz>(Arrays.asList(new Platz(2, 70),
+                new Platz(3, 0)));
+
+        assertEquals(andere, menge);
+        assertEquals(menge, andere);
+        assertEquals(andere.hashCode(), menge.hashCode());
+        assertEquals(menge, new PlatzMenge(menge));
+        assertFalse(menge.equals(new PlatzMenge(_saal)));
+    }
+
+    @Test
+    public void testeNurLesbareSicht()
+    {
+        PlatzMenge menge = new PlatzMenge(_saal);
+        menge.add(new Platz(1, 1));
+        PlatzMenge sicht = menge.nurLesbar();
+
+        assertTrue(sicht.istNurLesbar());
+        assertFalse(menge.istNurLesbar());
+        assertEquals(menge, sicht);
+        menge.add(new Platz(2, 2));
+        assertTrue(sicht.contains(new Platz(2, 2)));
+
+        Iterator<Platz> it = sicht.iterator();
+        it.next();
+        try
+        {
+            it.remove();
+            fail("UnsupportedOperationException erwartet");
+        }
+        catch (UnsupportedOperationException e)
+        {
+        }
+        try
+        {
+            sicht.add(new Platz(3, 3));
+            fail("UnsupportedOperationException erwartet");
+        }
+        catch (UnsupportedOperationException e)
+        {
+        }
+        PlatzMenge kopie = new PlatzMenge(sicht);
+        assertFalse(kopie.istNurLesbar());
+        assertTrue(kopie.add(new Platz(3, 3)));
+        assertEquals(2, sicht.size());
+    }
+
+    @Test
+    public void testeVerkaufMitPlatzMenge()
+    {
+        Vorstellung v = new Vorstellung(_saal, new Film("Film", 90,
+                FSK.FSK0, false), new Uhrzeit(17, 0), new Uhrzeit(19, 0),
+                new Datum(1, 1, 2012), 800);
+        PlatzMenge menge = new PlatzMenge(_saal);
+        for (int sitz = 60; sitz < 70; sitz++)
+        {
+            menge.add(new Platz(4, sitz));
+        }
+
+        assertTrue(v.hatPlaetze(menge));
+        assertTrue(v.sindVerkaufbar(menge));
+        assertEquals(8000, v.getPreisFuerPlaetze(menge));
+        assertNull(v.verkaufeFallsFrei(menge));
+        assertEquals(10, v.getAnzahlVerkauftePlaetze());
+        assertTrue(v.sindStornierbar(menge));
+        assertFalse(v.sindVerkaufbar(menge));
+
+        // Die Maske wird nicht aufbewahrt: Änderungen an der Menge ändern den
+        // Verkauf nicht.
+        menge.clear();
+        assertEquals(10, v.getAnzahlVerkauftePlaetze());
+    }
+}
@@ -0,0 +1,638 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.nio.LongBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+/**
+ * Die Belegung der Plätze eines Kinosaals als gepackte Bitmap. Jeder Platz
+ * belegt genau ein Bit, die Plätze werden reihenweise durchnummeriert (Index =
+ * Reihe * Sitze pro Reihe + Sitz). Mengen von Plätzen werden als Masken über
+ * dieselben Wörter dargestellt, sodass Prüfungen und Änderungen einer ganzen
+ * Auswahl wortweise erfolgen.
+ * 
+ * Alle Änderungen erfolgen sperrfrei per compare-and-set auf den einzelnen
+ * Wörtern, sodass mehrere Threads gleichzeitig auf derselben Belegung arbeiten
+ * können.
+ * 
+ * Die Wörter werden erst bei der ersten Änderung auf dem Heap angelegt. Bis
+ * dahin ist die Belegung entweder leer oder wird direkt aus einer Basis
+ * gelesen, etwa aus einem eingeblendeten {@link Belegungsabbild}. Vorstellungen,
+ * an denen sich nichts ändert, belegen so keinen eigenen Speicher für ihre
+ * Plätze.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Platzbelegung
+{
+    private final Kinosaal _kinosaal;
+    private final int _sitzeProReihe;
+    private final int _anzahlWoerter;
+    private volatile LongBuffer _basis;
+    private volatile AtomicLongArray _woerter;
+
+    /**
+     * Initialisiert eine leere Belegung für den angegebenen Kinosaal.
+     * 
+     * @param kinosaal der Kinosaal.
+     * 
+     * @require kinosaal != null
+     */
+    public Platzbelegung(Kinosaal kinosaal)
+    {
+        assert kinosaal != null : "Vorbedingung verletzt: kinosaal != null";
+
+        _kinosaal = kinosaal;
+        _sitzeProReihe = kinosaal.getAnzahlSitzeProReihe();
+        _anzahlWoerter = anzahlWoerter(kinosaal.getAnzahlPlaetze());
+    }
+
+    /**
+     * Gibt die Anzahl der Wörter zurück, die für die angegebene Anzahl Plätze
+     * benötigt werden.
+     */
+    static int anzahlWoerter(int anzahlPlaetze)
+    {
+        return (anzahlPlaetze + 63) >>> 6;
+    }
+
+    /**
+     * Gibt die Anzahl der Wörter dieser Belegung zurück.
+     */
+    int anzahlWoerter()
+    {
+        return _anzahlWoerter;
+    }
+
+    /**
+     * Setzt die Basis, aus der diese Belegung gelesen wird, solange sie nicht
+     * geändert wurde. Die Basis wird nicht kopiert.
+     * 
+     * @require basis != null
+     * @require basis.limit() == anzahlWoerter()
+     * @require diese Belegung wurde noch nicht geändert
+     */
+    synchronized void setBasis(LongBuffer basis)
+    {
+        assert basis != null : "Vorbedingung verletzt: basis != null";
+        assert basis.limit() == _anzahlWoerter : "Vorbedingung verletzt: basis.limit() == anzahlWoerter()";
+        assert _woerter == null : "Vorbedingung verletzt: Belegung wurde noch nicht geändert";
+
+        _basis = basis;
+    }
+
+    /**
+     * Gibt an, ob diese Belegung noch unverändert aus ihrer Basis gelesen wird.
+     */
+    boolean istEingeblendet()
+    {
+        return _woerter == null && _basis != null;
+    }
+
+    /**
+     * Gibt das Wort mit dem angegebenen Index zurück.
+     */
+    long wort(int i)
+    {
+        AtomicLongArray woerter = _woerter;
+        if (woerter != null)
+        {
+            return woerter.get(i);
+        }
+        LongBuffer basis = _basis;
+        return basis == null ? 0 : basis.get(i);
+    }
+
+    /**
+     * Gibt die veränderbaren Wörter zurück und legt sie beim ersten Aufruf aus
+     * der Basis an.
+     */
+    private AtomicLongArray woerter()
+    {
+        AtomicLongArray woerter = _woerter;
+        if (woerter == null)
+        {
+            synchronized (this)
+            {
+                woerter = _woerter;
+                if (woerter == null)
+                {
+                    woerter = new AtomicLongArray(_anzahlWoerter);
+                    LongBuffer basis = _basis;
+                    if (basis != null)
+                    {
+                        for (int i = 0; i < _anzahlWoerter; i++)
+                        {
+                            woerter.set(i, basis.get(i));
+                        }
+                    }
+                    _woerter = woerter;
+                }
+            }
+        }
+        return woerter;
+    }
+
+    /**
+     * Gibt den Index des angegebenen Platzes in der Bitmap zurück.
+     * 
+     * @require platz != null
+     */
+    int index(Platz platz)
+    {
+        return platz.getReihe() * _sitzeProReihe + platz.getSitz();
+    }
+
+    /**
+     * Gibt den Platz zurück, der zu dem angegebenen Index gehört.
+     * 
+     * @require index >= 0
+     * @ensure result != null
+     */
+    Platz platz(int index)
+    {
+        return _kinosaal.getPlatz(index);
+    }
+
+    /**
+     * Gibt eine Maske zurück, in der genau die Bits der angegebenen Plätze
+     * gesetzt sind. Ist plaetze eine {@link PlatzMenge} für diesen Kinosaal,
+     * sind das ihre eigenen Wörter; die Maske darf daher weder verändert noch
+     * aufbewahrt werden. Für Prüfungen, die nur lesen.
+     * 
+     * @param plaetze die Plätze.
+     * 
+     * @require plaetze != null
+     * @ensure result != null
+     */
+    long[] maske(Set<Platz> plaetze)
+    {
+        if (plaetze instanceof PlatzMenge
+                && ((PlatzMenge) plaetze).passtZu(_kinosaal))
+        {
+            return ((PlatzMenge) plaetze).woerter();
+        }
+        return baueMaske(plaetze);
+    }
+
+    /**
+     * Gibt eine neue Maske zurück, in der genau die Bits der angegebenen
+     * Plätze gesetzt sind. Die Maske gehört dem Aufrufer; spätere Änderungen
+     * der Menge wirken sich nicht auf sie aus. Für Verkauf, Stornierung und
+     * Reservierung, die die Maske über ihre Dauer hinweg verwenden.
+     * 
+     * @param plaetze die Plätze.
+     * 
+     * @require plaetze != null
+     * @ensure result != null
+     */
+    long[] eigeneMaske(Set<Platz> plaetze)
+    {
+        if (plaetze instanceof PlatzMenge
+                && ((PlatzMenge) plaetze).passtZu(_kinosaal))
+        {
+            return ((PlatzMenge) plaetze).woerter().clone();
+        }
+        return baueMaske(plaetze);
+    }
+
+    private long[] baueMaske(Set<Platz> plaetze)
+    {
+        long[] maske = new long[_anzahlWoerter];
+        for (Platz platz : plaetze)
+        {
+            int index = index(platz);
+            maske[index >>> 6] |= 1L << index;
+        }
+        return maske;
+    }
+
+    /**
+     * Gibt die Plätze zurück, deren Bits in der Maske gesetzt sind.
+     * 
+     * @require maske != null
+     * @ensure result != null
+     */
+    PlatzMenge plaetze(long[] maske)
+    {
+        return new PlatzMenge(_kinosaal.getAnzahlReihen(), _sitzeProReihe,
+                maske.clone());
+    }
+
+    /**
+     * Gibt die belegten Plätze als Menge zurück. Die Wörter werden einzeln
+     * kopiert; bei gleichzeitigen Änderungen ist das Ergebnis daher nur eine
+     * Momentaufnahme.
+     * 
+     * @ensure result != null
+     */
+    PlatzMenge belegtePlaetze()
+    {
+        long[] woerter = new long[_anzahlWoerter];
+        for (int i = 0; i < _anzahlWoerter; i++)
+        {
+            woerter[i] = wort(i);
+        }
+        return new PlatzMenge(_kinosaal.getAnzahlReihen(), _sitzeProReihe,
+                woerter);
+    }
+
+    /**
+     * Schreibt die freien Sitze der angegebenen Reihe in das Zielfeld: Bit j
+     * ist gesetzt, wenn Sitz j frei ist. Die Wörter werden einzeln gelesen;
+     * bei gleichzeitigen Änderungen ist das Ergebnis daher nur ein Hinweis.
+     * 
+     * @param reihe die Reihe.
+     * @param ziel das Zielfeld mit anzahlWoerter(Sitze pro Reihe) Wörtern.
+     * 
+     * @require reihe >= 0
+     * @require ziel != null
+     */
+    void freieSitze(int reihe, long[] ziel)
+    {
+        int anfang = reihe * _sitzeProReihe;
+        for (int t = 0; t < ziel.length; t++)
+        {
+            int index = anfang + (t << 6);
+            int wort = index >>> 6;
+            int verschiebung = index & 63;
+            long bits = wort(wort) >>> verschiebung;
+            if (verschiebung != 0 && wort + 1 < _anzahlWoerter)
+            {
+                bits |= wort(wort + 1) << (64 - verschiebung);
+            }
+            int gueltig = Math.min(64, _sitzeProReihe - (t << 6));
+            long maske = gueltig == 64 ? -1L : (1L << gueltig) - 1;
+            ziel[t] = ~bits & maske;
+        }
+    }
+
+    /**
+     * Prüft, ob der angegebene Platz belegt ist.
+     * 
+     * @require platz != null
+     */
+    boolean istBelegt(Platz platz)
+    {
+        int index = index(platz);
+        return (wort(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Belegt den angegebenen Platz.
+     * 
+     * @require platz != null
+     */
+    void belege(Platz platz)
+    {
+        int index = index(platz);
+        setzeBits(index >>> 6, 1L << index);
+    }
+
+    /**
+     * Gibt den angegebenen Platz frei.
+     * 
+     * @require platz != null
+     */
+    void gibFrei(Platz platz)
+    {
+        int index = index(platz);
+        loescheBits(index >>> 6, 1L << index);
+    }
+
+    /**
+     * Prüft, ob alle Plätze der Maske frei sind.
+     * 
+     * @require maske != null
+     */
+    boolean sindAlleFrei(long[] maske)
+    {
+        for (int i = 0; i < maske.length; i++)
+        {
+            if ((wort(i) & maske[i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prüft, ob alle Plätze der Maske belegt sind.
+     * 
+     * @require maske != null
+     */
+    boolean sindAlleBelegt(long[] maske)
+    {
+        for (int i = 0; i < maske.length; i++)
+        {
+            if ((wort(i) & maske[i]) != maske[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gibt den Index eines freien Platzes der Maske zurück, oder -1, falls alle
+     * Plätze der Maske belegt sind.
+     * 
+     * @require maske != null
+     */
+    int ersterFreier(long[] maske)
+    {
+        for (int i = 0; i < maske.length; i++)
+        {
+            long frei = maske[i] & ~wort(i);
+            if (frei != 0)
+            {
+                return (i << 6) + Long.numberOfTrailingZeros(frei);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Belegt alle Plätze der Maske.
+     * 
+     * @require maske != null
+     */
+    void belege(long[] maske)
+    {
+        for (int i = 0; i < maske.length; i++)
+        {
+            setzeBits(i, maske[i]);
+        }
+    }
+
+    /**
+     * Belegt alle Plätze der Maske, aber nur, wenn keiner von ihnen bereits
+     * belegt ist. Die Wörter werden in aufsteigender Reihenfolge per
+     * compare-and-set belegt. Trifft das Verfahren auf einen belegten Platz,
+     * werden die bis dahin belegten Wörter wieder freigegeben. Andere Threads
+     * können die Plätze einer gescheiterten Belegung also kurzzeitig als belegt
+     * sehen, aber niemals zwei Belegungen denselben Platz erhalten.
+     * 
+     * @param maske die Maske der zu belegenden Plätze.
+     * @return -1, falls alle Plätze belegt wurden, sonst den Index eines
+     *         bereits belegten Platzes. In diesem Fall wurde kein Platz belegt.
+     * 
+     * @require maske != null
+     */
+    int belegeAlleOderKeinen(long[] maske)
+    {
+        AtomicLongArray woerter = woerter();
+        for (int i = 0; i < maske.length; i++)
+        {
+            long bits = maske[i];
+            if (bits == 0)
+            {
+                continue;
+            }
+            long alt;
+            do
+            {
+                alt = woerter.get(i);
+                long konflikt = alt & bits;
+                if (konflikt != 0)
+                {
+                    for (int j = 0; j < i; j++)
+                    {
+                        loescheBits(j, maske[j]);
+                    }
+                    return (i << 6) + Long.numberOfTrailingZeros(konflikt);
+                }
+            }
+            while (!woerter.compareAndSet(i, alt, alt | bits));
+        }
+        return -1;
+    }
+
+    /**
+     * Gibt alle Plätze der Maske frei, aber nur, wenn alle von ihnen belegt
+     * sind. Das Gegenstück zu {@link #belegeAlleOderKeinen(long[])}: Trifft
+     * das Verfahren auf einen freien Platz, werden die bis dahin freigegebenen
+     * Wörter wieder belegt. Zwei gleichzeitige Freigaben desselben Platzes
+     * können also nicht beide gelingen.
+     * 
+     * @param maske die Maske der freizugebenden Plätze.
+     * @return -1, falls alle Plätze freigegeben wurden, sonst den Index eines
+     *         freien Platzes. In diesem Fall wurde kein Platz freigegeben.
+     * 
+     * @require maske != null
+     */
+    int gibAlleFreiOderKeinen(long[] maske)
+    {
+        AtomicLongArray woerter = woerter();
+        for (int i = 0; i < maske.length; i++)
+        {
+            long bits = maske[i];
+            if (bits == 0)
+            {
+                continue;
+            }
+            long alt;
+            do
+            {
+                alt = woerter.get(i);
+                long konflikt = bits & ~alt;
+                if (konflikt != 0)
+                {
+                    for (int j = 0; j < i; j++)
+                    {
+                        setzeBits(j, maske[j]);
+                    }
+                    return (i << 6) + Long.numberOfTrailingZeros(konflikt);
+                }
+            }
+            while (!woerter.compareAndSet(i, alt, alt & ~bits));
+        }
+        return -1;
+    }
+
+    /**
+     * Gibt alle Plätze der Maske frei.
+     * 
+     * @require maske != null
+     */
+    void gibFrei(long[] maske)
+    {
+        for (int i = 0; i < maske.length; i++)
+        {
+            loescheBits(i, maske[i]);
+        }
+    }
+
+    /**
+     * Belegt alle Plätze der Maske und gibt die Maske der Plätze zurück, die
+     * dabei neu belegt wurden.
+     * 
+     * @require maske != null
+     * @ensure result != null
+     */
+    long[] belegeFreie(long[] maske)
+    {
+        long[] neu = new long[maske.length];
+        AtomicLongArray woerter = woerter();
+        for (int i = 0; i < maske.length; i++)
+        {
+            if (maske[i] == 0)
+            {
+                continue;
+            }
+            long alt;
+            do
+            {
+                alt = woerter.get(i);
+            }
+            while (!woerter.compareAndSet(i, alt, alt | maske[i]));
+            neu[i] = maske[i] & ~alt;
+        }
+        return neu;
+    }
+
+    /**
+     * Gibt alle Plätze der Maske frei und gibt die Maske der Plätze zurück,
+     * die dabei freigegeben wurden.
+     * 
+     * @require maske != null
+     * @ensure result != null
+     */
+    long[] gibBelegteFrei(long[] maske)
+    {
+        long[] frei = new long[maske.length];
+        AtomicLongArray woerter = woerter();
+        for (int i = 0; i < maske.length; i++)
+        {
+            if (maske[i] == 0)
+            {
+                continue;
+            }
+            long alt;
+            do
+            {
+                alt = woerter.get(i);
+            }
+            while (!woerter.compareAndSet(i, alt, alt & ~maske[i]));
+            frei[i] = maske[i] & alt;
+        }
+        return frei;
+    }
+
+    /**
+     * Gibt die Anzahl der Plätze einer Maske zurück.
+     * 
+     * @require maske != null
+     * @ensure result >= 0
+     */
+    static int anzahl(long[] maske)
+    {
+        int anzahl = 0;
+        for (long wort : maske)
+        {
+            anzahl += Long.bitCount(wort);
+        }
+        return anzahl;
+    }
+
+    /**
+     * Gibt die Anzahl der belegten Plätze zurück.
+     * 
+     * @ensure result >= 0
+     */
+    int anzahlBelegt()
+    {
+        int anzahl = 0;
+        for (int i = 0; i < _anzahlWoerter; i++)
+        {
+            anzahl += Long.bitCount(wort(i));
+        }
+        return anzahl;
+    }
+
+    /**
+     * Gibt den kleinsten Index ab einschließlich dem angegebenen zurück, dessen
+     * Platz belegt ist, oder -1.
+     * 
+     * @require ab >= 0
+     */
+    int naechsterBelegter(int ab)
+    {
+        return naechstesBit(ab, 0);
+    }
+
+    /**
+     * Gibt den kleinsten Index ab einschließlich dem angegebenen zurück, dessen
+     * Platz frei ist, oder -1.
+     * 
+     * @require ab >= 0
+     */
+    int naechsterFreier(int ab)
+    {
+        int index = naechstesBit(ab, -1L);
+        return index < _kinosaal.getAnzahlPlaetze() ? index : -1;
+    }
+
+    /**
+     * Sucht ab dem angegebenen Index das nächste Bit, das in den mit umkehren
+     * verXORten Wörtern gesetzt ist. Jedes Wort wird nur einmal gelesen.
+     */
+    private int naechstesBit(int ab, long umkehren)
+    {
+        int i = ab >>> 6;
+        if (i >= _anzahlWoerter)
+        {
+            return -1;
+        }
+        long bits = (wort(i) ^ umkehren) & (-1L << ab);
+        while (bits == 0)
+        {
+            if (++i == _anzahlWoerter)
+            {
+                return -1;
+            }
+            bits = wort(i) ^ umkehren;
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Setzt die angegebenen Bits im Wort mit dem angegebenen Index.
+     */
+    private void setzeBits(int wort, long bits)
+    {
+        if (bits == 0)
+        {
+            return;
+        }
+        AtomicLongArray woerter = woerter();
+        long alt;
+        do
+        {
+            alt = woerter.get(wort);
+        }
+        while (!woerter.compareAndSet(wort, alt, alt | bits));
+    }
+
+    /**
+     * Löscht die angegebenen Bits im Wort mit dem angegebenen Index.
+     */
+    private void loescheBits(int wort, long bits)
+    {
+        if (bits == 0)
+        {
+            return;
+        }
+        AtomicLongArray woerter = woerter();
+        long alt;
+        do
+        {
+            alt = woerter.get(wort);
+        }
+        while (!woerter.compareAndSet(wort, alt, alt & ~bits));
+    }
+}
@@ -0,0 +1,121 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Ein Ereignis für den JDK Flight Recorder, das einen Verkauf oder eine
+ * Stornierung von Plätzen einer Vorstellung mit seiner Dauer festhält. Die
+ * Ereignisse werden nur erzeugt, wenn ihr Typ in einer laufenden Aufzeichnung
+ * eingeschaltet ist; ist die Aufzeichnung aus, kostet der Verkaufspfad eine
+ * Abfrage und kein Objekt.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@Category({ "Kino", "Verkauf" })
+abstract class Platzereignis extends Event
+{
+    @Name("saal")
+    @Label("Kinosaal")
+    String _saal;
+
+    @Name("film")
+    @Label("Film")
+    String _film;
+
+    @Name("datum")
+    @Label("Datum")
+    String _datum;
+
+    @Name("anfangszeit")
+    @Label("Anfangszeit")
+    String _anfangszeit;
+
+    @Name("plaetze")
+    @Label("Plätze")
+    int _plaetze;
+
+    @Name("erfolgreich")
+    @Label("Erfolgreich")
+    @Description("Ob alle Plätze verkauft bzw. storniert wurden")
+    boolean _erfolgreich;
+
+    private static final EventType VERKAUF = EventType
+        .getEventType(Verkauf.class);
+    private static final EventType STORNIERUNG = EventType
+        .getEventType(Stornierung.class);
+
+    /**
+     * Beginnt die Zeitmessung eines Verkaufs.
+     * 
+     * @return das Ereignis, oder <code>null</code>, falls Verkäufe gerade
+     *         nicht aufgezeichnet werden.
+     */
+    static Platzereignis beginneVerkauf()
+    {
+        return VERKAUF.isEnabled() ? beginne(new Verkauf()) : null;
+    }
+
+    /**
+     * Beginnt die Zeitmessung einer Stornierung.
+     * 
+     * @return das Ereignis, oder <code>null</code>, falls Stornierungen
+     *         gerade nicht aufgezeichnet werden.
+     */
+    static Platzereignis beginneStornierung()
+    {
+        return STORNIERUNG.isEnabled() ? beginne(new Stornierung()) : null;
+    }
+
+    private static Platzereignis beginne(Platzereignis ereignis)
+    {
+        ereignis.begin();
+        return ereignis;
+    }
+
+    /**
+     * Beendet die Zeitmessung und zeichnet das Ereignis auf, falls es
+     * aufgezeichnet werden soll.
+     * 
+     * @param vorstellung die Vorstellung.
+     * @param plaetze die Anzahl der Plätze.
+     * @param erfolgreich ob alle Plätze verkauft bzw. storniert wurden.
+     */
+    void beende(Vorstellung vorstellung, int plaetze, boolean erfolgreich)
+    {
+        end();
+        if (shouldCommit())
+        {
+            _saal = vorstellung.getKinosaal().getName();
+            _film = vorstellung.getFilm().getTitel();
+            _datum = vorstellung.getDatum().toString();
+            _anfangszeit = vorstellung.getAnfangszeit().toString();
+            _plaetze = plaetze;
+            _erfolgreich = erfolgreich;
+            commit();
+        }
+    }
+
+    /**
+     * Ein Verkauf von Plätzen.
+     */
+    @Name("de.uni_hamburg.informatik.swt.se2.kino.Verkauf")
+    @Label("Platzverkauf")
+    static final class Verkauf extends Platzereignis
+    {
+    }
+
+    /**
+     * Eine Stornierung von Plätzen.
+     */
+    @Name("de.uni_hamburg.informatik.swt.se2.kino.Stornierung")
+    @Label("Platzstornierung")
+    static final class Stornierung extends Platzereignis
+    {
+    }
+}
@@ -0,0 +1,92 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+public class PlatzereignisTest
+{
+    private static final String VERKAUF = "de.uni_hamburg.informatik.swt.se2.kino.Verkauf";
+    private static final String STORNIERUNG = "de.uni_hamburg.informatik.swt.se2.kino.Stornierung";
+
+    @Test
+    public void testeVerkaufUndStornierungWerdenAufgezeichnet()
+            throws Exception
+    {
+        Vorstellung vorstellung = new Vorstellung(new Kinosaal("Saal 7", 5,
+                5), new Film("Film", 90, FSK.FSK0, false), new Uhrzeit(20, 0),
+                new Uhrzeit(22, 0), new Datum(1, 1, 2012), 800);
+        Set<Platz> plaetze = new HashSet<Platz>(Arrays.asList(Platz.get(2, 2),
+                Platz.get(2, 3), Platz.get(2, 4)));
+
+        List<RecordedEvent> ereignisse = new ArrayList<RecordedEvent>();
+        File datei = File.createTempFile("kino", ".jfr");
+        try
+        {
+            Recording aufzeichnung = new Recording();
+            aufzeichnung.enable(VERKAUF);
+            aufzeichnung.enable(STORNIERUNG);
+            aufzeichnung.start();
+            vorstellung.verkaufeFallsFrei(plaetze);
+            vorstellung.verkaufeFallsFrei(plaetze);
+            vorstellung.storniereFallsVerkauft(plaetze);
+            Reservierung reservierung = vorstellung.haltePlaetze(plaetze,
+                    "Kasse", 60000);
+            vorstellung.bestaetigeReservierung(reservierung, "Kasse");
+            aufzeichnung.stop();
+            aufzeichnung.dump(datei.toPath());
+            aufzeichnung.close();
+
+            for (RecordedEvent ereignis : RecordingFile.readAllEvents(datei
+                    .toPath()))
+            {
+                if (ereignis.getString("saal").equals("Saal 7"))
+                {
+                    ereignisse.add(ereignis);
+                }
+            }
+        }
+        finally
+        {
+            datei.delete();
+        }
+
+        assertEquals(4, ereignisse.size());
+        RecordedEvent verkauf = ereignisse.get(0);
+        assertEquals(VERKAUF, verkauf.getEventType().getName());
+        assertEquals("Film", verkauf.getString("film"));
+        assertEquals(3, verkauf.getInt("plaetze"));
+        assertTrue(verkauf.getBoolean("erfolgreich"));
+        assertFalse(verkauf.getDuration().isNegative());
+        assertFalse(ereignisse.get(1).getBoolean("erfolgreich"));
+        assertEquals(STORNIERUNG, ereignisse.get(2).getEventType().getName());
+        assertEquals(VERKAUF, ereignisse.get(3).getEventType().getName());
+        assertTrue(ereignisse.get(3).getBoolean("erfolgreich"));
+    }
+
+    @Test
+    public void testeOhneAufzeichnungKeinEreignis()
+    {
+        assertNull(Platzereignis.beginneVerkauf());
+        assertNull(Platzereignis.beginneStornierung());
+    }
+}
@@ -0,0 +1,327 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+/**
+ * Sucht in einer Platzbelegung die besten nebeneinander liegenden freien
+ * Plätze, also die, deren Mitte der Mitte des Kinosaals am nächsten liegt.
+ * 
+ * Gesucht wird wortweise auf den Bits einer Reihe: Aus den freien Sitzen
+ * einer Reihe entsteht durch wiederholtes Verschieben und Verunden eine
+ * Maske, in der genau die Sitze gesetzt sind, an denen ein Block der
+ * gesuchten Länge beginnen kann. Darin wird der Blockanfang gesucht, der der
+ * Mitte der Reihe am nächsten liegt. Einzelne Plätze werden erst für das
+ * Ergebnis erzeugt.
+ * 
+ * Abstände werden in halben Plätzen gerechnet, damit auch Mitten zwischen
+ * zwei Sitzen ganzzahlig sind.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Platzsuche
+{
+    private final Platzbelegung _belegung;
+    private final Kinosaal _kinosaal;
+    private final int _anzahlReihen;
+    private final int _sitzeProReihe;
+    private final int _anzahlWoerter;
+
+    // Die freien Sitze je Reihe, erst bei Bedarf gelesen.
+    private final long[][] _frei;
+
+    // Die Ergebnisse der letzten Suche in einer Reihe.
+    private int _anfang;
+    private long _abstand;
+
+    /**
+     * Initialisiert eine Suche in der angegebenen Belegung.
+     */
+    Platzsuche(Platzbelegung belegung, Kinosaal kinosaal)
+    {
+        _belegung = belegung;
+        _kinosaal = kinosaal;
+        _anzahlReihen = kinosaal.getAnzahlReihen();
+        _sitzeProReihe = kinosaal.getAnzahlSitzeProReihe();
+        _anzahlWoerter = Platzbelegung.anzahlWoerter(_sitzeProReihe);
+        _frei = new long[_anzahlReihen][];
+    }
+
+    /**
+     * Sucht die besten anzahl nebeneinander liegenden freien Plätze in einer
+     * Reihe.
+     * 
+     * @return die Plätze oder eine leere Menge, falls es in keiner Reihe genug
+     *         freie Plätze nebeneinander gibt.
+     * 
+     * @require anzahl > 0
+     */
+    Set<Platz> sucheInEinerReihe(int anzahl)
+    {
+        assert anzahl > 0 : "Vorbedingung verletzt: anzahl > 0";
+
+        int besteReihe = -1;
+        int besterAnfang = -1;
+        long besterAbstand = Long.MAX_VALUE;
+        for (int reihe = 0; reihe < _anzahlReihen; reihe++)
+        {
+            long dy = 2L * reihe - (_anzahlReihen - 1);
+            if (dy * dy >= besterAbstand)
+            {
+                continue;
+            }
+            if (sucheBlock(reihe, anzahl))
+            {
+                long abstand = _abstand + dy * dy;
+                if (abstand < besterAbstand)
+                {
+                    besteReihe = reihe;
+                    besterAnfang = _anfang;
+                    besterAbstand = abstand;
+                }
+            }
+        }
+
+        Set<Platz> plaetze = new LinkedHashSet<Platz>();
+        if (besteReihe >= 0)
+        {
+            fuegeBlockHinzu(plaetze, besteReihe, besterAnfang, anzahl);
+        }
+        return plaetze;
+    }
+
+    /**
+     * Sucht die besten anzahl freien Plätze, aufgeteilt auf zwei direkt
+     * hintereinander liegende Reihen mit je einem Block nebeneinander
+     * liegender Plätze. Die Plätze werden so gleichmäßig wie möglich auf die
+     * beiden Reihen verteilt.
+     * 
+     * @return die Plätze oder eine leere Menge, falls es keine zwei Reihen mit
+     *         genug freien Plätzen gibt.
+     * 
+     * @require anzahl > 1
+     */
+    Set<Platz> sucheInZweiReihen(int anzahl)
+    {
+        assert anzahl > 1 : "Vorbedingung verletzt: anzahl > 1";
+
+        int vorne = (anzahl + 1) / 2;
+        int hinten = anzahl - vorne;
+        int besteReihe = -1;
+        int besterAnfangVorne = -1;
+        int besterAnfangHinten = -1;
+        boolean besteVertauscht = false;
+        long besterAbstand = Long.MAX_VALUE;
+        for (int reihe = 0; reihe + 1 < _anzahlReihen; reihe++)
+        {
+            long dy1 = 2L * reihe - (_anzahlReihen - 1);
+            long dy2 = dy1 + 2;
+            long dy = dy1 * dy1 + dy2 * dy2;
+            if (dy >= besterAbstand)
+            {
+                continue;
+            }
+            for (int variante = 0; variante < (vorne == hinten ? 1 : 2); variante++)
+            {
+                boolean vertauscht = variante == 1;
+                int erste = vertauscht ? hinten : vorne;
+                int zweite = vertauscht ? vorne : hinten;
+                if (!sucheBlock(reihe, erste))
+                {
+                    continue;
+                }
+                int anfang1 = _anfang;
+                long abstand = _abstand;
+                if (!sucheBlock(reihe + 1, zweite))
+                {
+                    continue;
+                }
+                abstand += _abstand + dy;
+                if (abstand < besterAbstand)
+                {
+                    besteReihe = reihe;
+                    besterAnfangVorne = anfang1;
+                    besterAnfangHinten = _anfang;
+                    besteVertauscht = vertauscht;
+                    besterAbstand = abstand;
+                }
+            }
+        }
+
+        Set<Platz> plaetze = new LinkedHashSet<Platz>();
+        if (besteReihe >= 0)
+        {
+            fuegeBlockHinzu(plaetze, besteReihe, besterAnfangVorne,
+                    besteVertauscht ? hinten : vorne);
+            fuegeBlockHinzu(plaetze, besteReihe + 1, besterAnfangHinten,
+                    besteVertauscht ? vorne : hinten);
+        }
+        return plaetze;
+    }
+
+    /**
+     * Sucht in der angegebenen Reihe den Block aus anzahl freien Plätzen, der
+     * der Mitte der Reihe am nächsten liegt. Bei Erfolg stehen der Anfang des
+     * Blocks in _anfang und das Quadrat seines Abstands zur Mitte in
+     * _abstand.
+     * 
+     * @return <code>true</code>, falls es einen solchen Block gibt.
+     */
+    private boolean sucheBlock(int reihe, int anzahl)
+    {
+        if (anzahl > _sitzeProReihe)
+        {
+            return false;
+        }
+        long[] anfaenge = blockanfaenge(frei(reihe), anzahl);
+
+        // Idealer Anfang: Die Mitte des Blocks liegt auf der Mitte der Reihe
+        int ideal = (_sitzeProReihe - anzahl) / 2;
+        int davor = hoechstesBitBis(anfaenge, ideal);
+        int danach = niedrigstesBitAb(anfaenge, ideal + 1);
+        if (davor < 0 && danach < 0)
+        {
+            return false;
+        }
+        long abstandDavor = davor < 0 ? Long.MAX_VALUE : abstand(davor, anzahl);
+        long abstandDanach = danach < 0 ? Long.MAX_VALUE : abstand(danach,
+                anzahl);
+        if (abstandDavor <= abstandDanach)
+        {
+            _anfang = davor;
+            _abstand = abstandDavor;
+        }
+        else
+        {
+            _anfang = danach;
+            _abstand = abstandDanach;
+        }
+        return true;
+    }
+
+    /**
+     * Gibt das Quadrat des Abstands zwischen der Mitte des Blocks und der
+     * Mitte der Reihe in halben Plätzen zurück.
+     */
+    private long abstand(int anfang, int anzahl)
+    {
+        long dx = 2L * anfang + (anzahl - 1) - (_sitzeProReihe - 1);
+        return dx * dx;
+    }
+
+    /**
+     * Gibt die freien Sitze der angegebenen Reihe zurück.
+     */
+    private long[] frei(int reihe)
+    {
+        if (_frei[reihe] == null)
+        {
+            _frei[reihe] = new long[_anzahlWoerter];
+            _belegung.freieSitze(reihe, _frei[reihe]);
+        }
+        return _frei[reihe];
+    }
+
+    /**
+     * Berechnet aus den freien Sitzen einer Reihe die Sitze, an denen ein
+     * Block aus anzahl freien Sitzen beginnt. Nach jedem Schritt steht in Bit
+     * i, ob die nächsten laenge Sitze ab i frei sind; die Länge verdoppelt
+     * sich dabei höchstens, sodass log(anzahl) Schritte genügen.
+     */
+    private long[] blockanfaenge(long[] frei, int anzahl)
+    {
+        long[] anfaenge = frei.clone();
+        int laenge = 1;
+        while (laenge < anzahl)
+        {
+            int schritt = Math.min(laenge, anzahl - laenge);
+            verundeVerschoben(anfaenge, schritt);
+            laenge += schritt;
+        }
+        return anfaenge;
+    }
+
+    /**
+     * Verundet die Bits mit sich selbst, um schritt Stellen nach unten
+     * verschoben.
+     */
+    private static void verundeVerschoben(long[] bits, int schritt)
+    {
+        int woerter = schritt >>> 6;
+        int verschiebung = schritt & 63;
+        for (int i = 0; i < bits.length; i++)
+        {
+            int quelle = i + woerter;
+            long verschoben = 0;
+            if (quelle < bits.length)
+            {
+                verschoben = bits[quelle] >>> verschiebung;
+                if (verschiebung != 0 && quelle + 1 < bits.length)
+                {
+                    verschoben |= bits[quelle + 1] << (64 - verschiebung);
+                }
+            }
+            bits[i] &= verschoben;
+        }
+    }
+
+    /**
+     * Gibt den Index des höchsten gesetzten Bits bis einschließlich zum
+     * angegebenen Index zurück oder -1.
+     */
+    private static int hoechstesBitBis(long[] bits, int index)
+    {
+        if (index < 0)
+        {
+            return -1;
+        }
+        int wort = Math.min(index >>> 6, bits.length - 1);
+        long maske = (index >>> 6) > wort ? -1L : -1L >>> (63 - (index & 63));
+        for (int i = wort; i >= 0; i--)
+        {
+            long treffer = bits[i] & maske;
+            if (treffer != 0)
+            {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(treffer);
+            }
+            maske = -1L;
+        }
+        return -1;
+    }
+
+    /**
+     * Gibt den Index des niedrigsten gesetzten Bits ab einschließlich dem
+     * angegebenen Index zurück oder -1.
+     */
+    private static int niedrigstesBitAb(long[] bits, int index)
+    {
+        int wort = index >>> 6;
+        if (wort >= bits.length)
+        {
+            return -1;
+        }
+        long maske = -1L << (index & 63);
+        for (int i = wort; i < bits.length; i++)
+        {
+            long treffer = bits[i] & maske;
+            if (treffer != 0)
+            {
+                return (i << 6) + Long.numberOfTrailingZeros(treffer);
+            }
+            maske = -1L;
+        }
+        return -1;
+    }
+
+    private void fuegeBlockHinzu(Set<Platz> plaetze, int reihe,
+            int anfang, int anzahl)
+    {
+        for (int sitz = anfang; sitz < anfang + anzahl; sitz++)
+        {
+            plaetze.add(_kinosaal.getPlatz(reihe, sitz));
+        }
+    }
+}
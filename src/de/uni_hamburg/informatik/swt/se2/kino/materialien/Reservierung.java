@@ -0,0 +1,175 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+/**
+ * Eine Reservierung hält Plätze einer Vorstellung für eine begrenzte Zeit fest,
+ * zum Beispiel während an der Kasse bezahlt wird. Gehaltene Plätze können von
+ * niemand anderem verkauft oder gehalten werden. Die Reservierung wird entweder
+ * bestätigt, dann sind die Plätze verkauft, oder sie wird freigegeben bzw.
+ * läuft nach ihrer Haltedauer ab, dann sind die Plätze wieder frei.
+ * 
+ * Eine Reservierung wird von {@link Vorstellung#haltePlaetze} für einen
+ * Besitzer erzeugt, etwa eine Kasse oder einen Verkaufskanal. Nur dieser
+ * Besitzer kann sie bestätigen oder freigeben; die Vorstellung prüft das bei
+ * {@link Vorstellung#bestaetigeReservierung} und
+ * {@link Vorstellung#gibReservierungFrei}.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Reservierung
+{
+    /**
+     * Die Zustände einer Reservierung.
+     */
+    public enum Zustand
+    {
+        GEHALTEN, BESTAETIGT, FREIGEGEBEN, ABGELAUFEN;
+    }
+
+    private final Vorstellung _vorstellung;
+    private final long[] _maske;
+    private final String _besitzer;
+    private final long _haltedauer;
+    private final AtomicReference<Zustand> _zustand;
+    private volatile long _ablaufTick;
+
+    /**
+     * Initialisiert eine neue Reservierung im Zustand GEHALTEN.
+     * 
+     * @param vorstellung die Vorstellung.
+     * @param maske die Maske der gehaltenen Plätze.
+     * @param besitzer der Besitzer der Reservierung.
+     * @param haltedauer die Haltedauer in Millisekunden.
+     */
+    Reservierung(Vorstellung vorstellung, long[] maske, String besitzer,
+            long haltedauer)
+    {
+        _vorstellung = vorstellung;
+        _maske = maske;
+        _besitzer = besitzer;
+        _haltedauer = haltedauer;
+        _zustand = new AtomicReference<Zustand>(Zustand.GEHALTEN);
+    }
+
+    /**
+     * Gibt die Vorstellung zurück, deren Plätze gehalten werden.
+     * 
+     * @ensure result != null
+     */
+    public Vorstellung getVorstellung()
+    {
+        return _vorstellung;
+    }
+
+    /**
+     * Gibt den Besitzer dieser Reservierung zurück, zum Beispiel den Namen der
+     * Kasse oder des Verkaufskanals.
+     * 
+     * @ensure result != null
+     */
+    public String getBesitzer()
+    {
+        return _besitzer;
+    }
+
+    /**
+     * Gibt die Haltedauer in Millisekunden zurück.
+     */
+    public long getHaltedauer()
+    {
+        return _haltedauer;
+    }
+
+    /**
+     * Gibt die Plätze zurück, die diese Reservierung hält.
+     * 
+     * @ensure result != null
+     */
+    public Set<Platz> getPlaetze()
+    {
+        return _vorstellung.plaetzeFuerMaske(_maske);
+    }
+
+    /**
+     * Gibt den aktuellen Zustand dieser Reservierung zurück.
+     * 
+     * @ensure result != null
+     */
+    public Zustand getZustand()
+    {
+        return _zustand.get();
+    }
+
+    /**
+     * Gibt an, ob die Plätze noch gehalten werden, die Reservierung also weder
+     * bestätigt noch freigegeben oder abgelaufen ist.
+     */
+    public boolean istGehalten()
+    {
+        return _zustand.get() == Zustand.GEHALTEN;
+    }
+
+    /**
+     * Gibt die Maske der gehaltenen Plätze zurück.
+     */
+    long[] getMaske()
+    {
+        return _maske;
+    }
+
+    /**
+     * Wechselt vom Zustand GEHALTEN in den angegebenen Zustand. Von mehreren
+     * gleichzeitigen Wechseln gelingt genau einer.
+     * 
+     * @return <code>true</code>, falls der Wechsel gelungen ist.
+     */
+    boolean beende(Zustand zustand)
+    {
+        return _zustand.compareAndSet(Zustand.GEHALTEN, zustand);
+    }
+
+    /**
+     * Nimmt eine Bestätigung zurück, deren Verkauf nicht protokolliert werden
+     * konnte. Die Reservierung gilt danach als freigegeben.
+     */
+    void widerrufeBestaetigung()
+    {
+        _zustand.compareAndSet(Zustand.BESTAETIGT, Zustand.FREIGEGEBEN);
+    }
+
+    /**
+     * Lässt diese Reservierung ablaufen, falls sie noch gehalten wird.
+     */
+    void laufeAb()
+    {
+        _vorstellung.beendeReservierung(this, Zustand.ABGELAUFEN);
+    }
+
+    /**
+     * Gibt den Tick des Zeitrads zurück, in dem diese Reservierung abläuft.
+     */
+    long getAblaufTick()
+    {
+        return _ablaufTick;
+    }
+
+    /**
+     * Setzt den Tick des Zeitrads, in dem diese Reservierung abläuft.
+     */
+    void setAblaufTick(long ablaufTick)
+    {
+        _ablaufTick = ablaufTick;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Reservierung: " + _besitzer + ", " + _zustand.get() + ", "
+                + _vorstellung;
+    }
+}
@@ -0,0 +1,197 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+public class ReservierungTest
+{
+    private Vorstellung _vorstellung;
+    private Zeitrad _zeitrad;
+    private Set<Platz> _plaetze;
+
+    @Before
+    public void setUp()
+    {
+        Kinosaal saal = new Kinosaal("A", 20, 50);
+        Film film = new Film("Rio", 96, FSK.FSK0, false);
+        _vorstellung = new Vorstellung(saal, film, new Uhrzeit(17, 30),
+                new Uhrzeit(20, 0), new Datum(11, 7, 2008), 900);
+
+        // 10 ms pro Tick, 8 Fächer: Das Rad wird im Test von Hand
+        // weitergeschaltet.
+        _zeitrad = new Zeitrad(10, 8);
+
+        _plaetze = new HashSet<Platz>();
+        _plaetze.add(new Platz(3, 4));
+        _plaetze.add(new Platz(3, 5));
+    }
+
+    @Test
+    public void testeGehaltenePlaetzeSindNichtVerkaufbar()
+    {
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 50,
+                _zeitrad);
+
+        assertNotNull(r);
+        assertTrue(r.istGehalten());
+        assertEquals("Kasse 1", r.getBesitzer());
+        assertEquals(_plaetze, r.getPlaetze());
+        assertTrue(_vorstellung.istPlatzGehalten(new Platz(3, 4)));
+        assertFalse(_vorstellung.istPlatzVerkauft(new Platz(3, 4)));
+        assertFalse(_vorstellung.sindVerkaufbar(_plaetze));
+        assertEquals(new Platz(3, 5),
+                _vorstellung.verkaufeFallsFrei(einzeln(new Platz(3, 5))));
+        assertNull(_vorstellung.haltePlaetze(_plaetze, "Kasse 2", 50,
+                _zeitrad));
+    }
+
+    @Test
+    public void testeBestaetigenVerkauftPlaetze()
+    {
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 50,
+                _zeitrad);
+
+        assertTrue(_vorstellung.bestaetigeReservierung(r, "Kasse 1"));
+        assertEquals(Reservierung.Zustand.BESTAETIGT, r.getZustand());
+        assertTrue(_vorstellung.sindStornierbar(_plaetze));
+        assertFalse(_vorstellung.istPlatzGehalten(new Platz(3, 4)));
+        assertEquals(2, _vorstellung.getAnzahlVerkauftePlaetze());
+
+        // Eine bestätigte Reservierung läuft nicht mehr ab
+        for (int i = 0; i < 20; i++)
+        {
+            _zeitrad.schalteWeiter();
+        }
+        assertTrue(_vorstellung.sindStornierbar(_plaetze));
+        assertFalse(_vorstellung.bestaetigeReservierung(r, "Kasse 1"));
+    }
+
+    @Test
+    public void testeReservierungLaeuftAb()
+    {
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 50,
+                _zeitrad);
+
+        for (int i = 0; i < 4; i++)
+        {
+            _zeitrad.schalteWeiter();
+        }
+        assertTrue(r.istGehalten());
+
+        _zeitrad.schalteWeiter();
+        assertEquals(Reservierung.Zustand.ABGELAUFEN, r.getZustand());
+        assertTrue(_vorstellung.sindVerkaufbar(_plaetze));
+        assertFalse(_vorstellung.bestaetigeReservierung(r, "Kasse 1"));
+        assertEquals(0, _vorstellung.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeLangeHaltedauerUeberMehrereUmlaeufe()
+    {
+        // 25 Ticks bei 8 Fächern: Die Reservierung liegt drei Umläufe im Rad
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 250,
+                _zeitrad);
+
+        for (int i = 0; i < 24; i++)
+        {
+            _zeitrad.schalteWeiter();
+        }
+        assertTrue(r.istGehalten());
+        _zeitrad.schalteWeiter();
+        assertFalse(r.istGehalten());
+    }
+
+    @Test
+    public void testeFreigeben()
+    {
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 50,
+                _zeitrad);
+
+        _vorstellung.gibReservierungFrei(r, "Kasse 1");
+        assertEquals(Reservierung.Zustand.FREIGEGEBEN, r.getZustand());
+        assertTrue(_vorstellung.sindVerkaufbar(_plaetze));
+        assertFalse(_vorstellung.bestaetigeReservierung(r, "Kasse 1"));
+    }
+
+    @Test
+    public void testeFremderBesitzerWirdAbgelehnt()
+    {
+        Reservierung r = _vorstellung.haltePlaetze(_plaetze, "Kasse 1", 50,
+                _zeitrad);
+
+        try
+        {
+            _vorstellung.bestaetigeReservierung(r, "Kasse 2");
+            fail("IllegalArgumentException erwartet");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // erwartet
+        }
+        try
+        {
+            _vorstellung.gibReservierungFrei(r, "Kasse 2");
+            fail("IllegalArgumentException erwartet");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // erwartet
+        }
+        assertEquals(Reservierung.Zustand.GEHALTEN, r.getZustand());
+        assertFalse(_vorstellung.sindVerkaufbar(_plaetze));
+        assertEquals(0, _vorstellung.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeVieleReservierungenLaufenAb()
+    {
+        int anzahl = 0;
+        for (int reihe = 0; reihe < 20; reihe++)
+        {
+            for (int sitz = 0; sitz < 50; sitz++)
+            {
+                assertNotNull(_vorstellung.haltePlaetze(
+                        einzeln(new Platz(reihe, sitz)), "Web", 10 * (sitz + 1),
+                        _zeitrad));
+                anzahl++;
+            }
+        }
+        assertEquals(1000, anzahl);
+        assertFalse(_vorstellung.sindVerkaufbar(einzeln(new Platz(19, 49))));
+
+        for (int i = 0; i < 50; i++)
+        {
+            _zeitrad.schalteWeiter();
+        }
+        for (int reihe = 0; reihe < 20; reihe++)
+        {
+            for (int sitz = 0; sitz < 50; sitz++)
+            {
+                assertTrue(_vorstellung.sindVerkaufbar(einzeln(new Platz(
+                        reihe, sitz))));
+            }
+        }
+    }
+
+    private static Set<Platz> einzeln(Platz platz)
+    {
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(platz);
+        return plaetze;
+    }
+}
@@ -0,0 +1,106 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+
+/**
+ * Die Vorstellungen eines Kinosaals als Intervalle auf einer durchgehenden
+ * Zeitachse. Eine Vorstellung belegt den Saal von ihrer Anfangszeit bis
+ * ausschließlich ihrer Endzeit, gemessen in Minuten seit dem 1.1.1970.
+ * Vorstellungen, die über Mitternacht laufen, reichen damit in den nächsten
+ * Tag hinein.
+ * 
+ * Da sich die Vorstellungen eines Saalplans nie überschneiden, genügt es, sie
+ * nach ihrem Anfang zu sortieren: Eine neue Vorstellung kann sich nur mit
+ * ihrem direkten Vorgänger oder Nachfolger überschneiden. Die Prüfung kostet
+ * damit O(log n).
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Saalplan
+{
+    private static final long MINUTEN_PRO_TAG = 24 * 60;
+
+    private final TreeMap<Long, Vorstellung> _vorstellungen;
+    private final Auslastung _auslastung;
+
+    /**
+     * Initialisiert einen leeren Saalplan.
+     */
+    Saalplan()
+    {
+        _vorstellungen = new TreeMap<Long, Vorstellung>();
+        _auslastung = new Auslastung();
+    }
+
+    /**
+     * Gibt die Auslastung aller Vorstellungen dieses Saalplans zurück.
+     */
+    Auslastung getAuslastung()
+    {
+        return _auslastung;
+    }
+
+    /**
+     * Gibt eine Vorstellung dieses Saalplans zurück, die sich mit der
+     * angegebenen Vorstellung überschneidet, oder <code>null</code>.
+     * 
+     * @require vorstellung != null
+     */
+    Vorstellung getKonflikt(Vorstellung vorstellung)
+    {
+        assert vorstellung != null : "Vorbedingung verletzt: vorstellung != null";
+
+        long anfang = anfang(vorstellung);
+        Map.Entry<Long, Vorstellung> davor = _vorstellungen.floorEntry(anfang);
+        if (davor != null && ende(davor.getValue()) > anfang)
+        {
+            return davor.getValue();
+        }
+        Map.Entry<Long, Vorstellung> danach = _vorstellungen
+                .higherEntry(anfang);
+        if (danach != null && danach.getKey().longValue() < ende(vorstellung))
+        {
+            return danach.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Fügt diesem Saalplan eine Vorstellung hinzu.
+     * 
+     * @require vorstellung != null
+     * @require getKonflikt(vorstellung) == null
+     */
+    void fuegeHinzu(Vorstellung vorstellung)
+    {
+        assert getKonflikt(vorstellung) == null : "Vorbedingung verletzt: getKonflikt(vorstellung) == null";
+
+        _vorstellungen.put(Long.valueOf(anfang(vorstellung)), vorstellung);
+    }
+
+    /**
+     * Gibt den Anfang der angegebenen Vorstellung in Minuten seit dem
+     * 1.1.1970 zurück.
+     */
+    static long anfang(Vorstellung vorstellung)
+    {
+        Uhrzeit anfangszeit = vorstellung.getAnfangszeit();
+        return vorstellung.getDatum().getEpochentag() * MINUTEN_PRO_TAG
+                + anfangszeit.getStunden() * 60 + anfangszeit.getMinuten();
+    }
+
+    /**
+     * Gibt das Ende der angegebenen Vorstellung in Minuten seit dem 1.1.1970
+     * zurück. Eine Vorstellung dauert mindestens eine Minute.
+     */
+    static long ende(Vorstellung vorstellung)
+    {
+        int dauer = vorstellung.getEndzeit().minutenSeit(
+                vorstellung.getAnfangszeit());
+        return anfang(vorstellung) + Math.max(1, dauer);
+    }
+}
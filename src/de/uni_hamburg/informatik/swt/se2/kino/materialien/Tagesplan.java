@@ -1,6 +1,6 @@
 package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -11,13 +11,25 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
  * Ein Tagesplan verzeichnet alle Vorstellungen, die in dem Kino an einem
  * bestimmten Tag laufen.
  * 
+ * Die Vorstellungen werden beim Hinzufügen an der richtigen Stelle
+ * einsortiert. Jede Änderung veröffentlicht eine neue, unveränderliche Liste
+ * (copy-on-write), sodass lesende Zugriffe weder kopieren noch sortieren
+ * noch sperren müssen.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
 public class Tagesplan
 {
     private Datum _tag;
-    private List<Vorstellung> _vorstellungen;
+    // Die Vorstellungen, sortiert nach Anfangszeit. Wird nur unter der Sperre
+    // dieses Tagesplans ersetzt und nie verändert.
+    private Vorstellung[] _vorstellungen;
+
+    // Die veröffentlichte, unveränderliche Sicht auf _vorstellungen.
+    private volatile List<Vorstellung> _sicht;
+
+    private final Auslastung _auslastung;
 
     // Der Comparator wird zur Sortierung der Vorstellungen innerhalb eines
     // Tagesplans verwendet.
@@ -48,7 +60,9 @@ public class Tagesplan
         assert tag != null : "Vorbedingung verletzt: tag != null";
 
         _tag = tag;
-        _vorstellungen = new ArrayList<Vorstellung>();
+        _vorstellungen = new Vorstellung[0];
+        _sicht = Collections.emptyList();
+        _auslastung = new Auslastung();
     }
 
     /**
@@ -61,6 +75,17 @@ public class Tagesplan
         return _tag;
     }
 
+    /**
+     * Gibt die Auslastung aller Vorstellungen dieses Tagesplans zurück. Sie
+     * wird nur fortgeschrieben, wenn der Tagesplan zu einem Kino gehört.
+     * 
+     * @ensure result != null
+     */
+    public Auslastung getAuslastung()
+    {
+        return _auslastung;
+    }
+
     /**
      * Fügt diesem Tagesplan eine Vorstellung hinzu.
      * 
@@ -69,24 +94,55 @@ public class Tagesplan
      * @require v != null
      * @require die Vorstellung laeuft an dem Tag dieses Tagesplans
      */
-    public void fuegeVorstellungHinzu(Vorstellung v)
+    public synchronized void fuegeVorstellungHinzu(Vorstellung v)
     {
         assert v != null : "Vorbedingung verletzt: v != null";
         assert v.getDatum().equals(_tag) : "Vorbedingung verletzt: v.getDatum().equals(_tag)";
 
-        _vorstellungen.add(v);
+        Vorstellung[] alt = _vorstellungen;
+        int stelle = einfuegestelle(alt, v);
+        Vorstellung[] neu = new Vorstellung[alt.length + 1];
+        System.arraycopy(alt, 0, neu, 0, stelle);
+        neu[stelle] = v;
+        System.arraycopy(alt, stelle, neu, stelle + 1, alt.length - stelle);
+        _vorstellungen = neu;
+        _sicht = Collections.unmodifiableList(Arrays.asList(neu));
+    }
+
+    /**
+     * Sucht binär die Stelle, an der die angegebene Vorstellung eingefügt
+     * werden muss. Bei gleicher Anfangszeit kommt sie hinter die vorhandenen
+     * Vorstellungen, sodass deren Reihenfolge erhalten bleibt.
+     */
+    private static int einfuegestelle(Vorstellung[] vorstellungen,
+            Vorstellung v)
+    {
+        int links = 0;
+        int rechts = vorstellungen.length;
+        while (links < rechts)
+        {
+            int mitte = (links + rechts) >>> 1;
+            if (_vergleichNachAnfangszeit.compare(vorstellungen[mitte], v) <= 0)
+            {
+                links = mitte + 1;
+            }
+            else
+            {
+                rechts = mitte;
+            }
+        }
+        return links;
     }
 
     /**
      * Gibt alle Vorstellungen des Tages zurück. Die Vorstellungen werden
-     * sortiert nach ihrer Anfangszeit zurückgegeben.
+     * sortiert nach ihrer Anfangszeit zurückgegeben. Die Liste ist
+     * unveränderlich und wird von späteren Änderungen nicht berührt.
      * 
      * @ensure result != null
      */
     public List<Vorstellung> getVorstellungen()
     {
-        List<Vorstellung> result = new ArrayList<Vorstellung>(_vorstellungen);
-        Collections.sort(result, _vergleichNachAnfangszeit);
-        return result;
+        return _sicht;
     }
 }
@@ -1,8 +1,12 @@
 package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,4 +74,45 @@ public class TagesplanTest
         _t.fuegeVorstellungHinzu(_vorstellung3);
         assertEquals(2, _t.getVorstellungen().size());
     }
+
+    @Test
+    public void testeVorstellungenWerdenNichtKopiert()
+    {
+        _t.fuegeVorstellungHinzu(_vorstellung2);
+        List<Vorstellung> vorher = _t.getVorstellungen();
+        assertSame(vorher, _t.getVorstellungen());
+
+        _t.fuegeVorstellungHinzu(_vorstellung);
+        assertEquals(1, vorher.size());
+        assertEquals(2, _t.getVorstellungen().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testeVorstellungenSindUnveraenderlich()
+    {
+        _t.fuegeVorstellungHinzu(_vorstellung);
+        _t.getVorstellungen().add(_vorstellung2);
+    }
+
+    @Test
+    public void testeEinsortierenBeiVielenVorstellungen()
+    {
+        Random zufall = new Random(42);
+        for (int i = 0; i < 200; i++)
+        {
+            Uhrzeit anfang = new Uhrzeit(zufall.nextInt(24), zufall.nextInt(60));
+            _t.fuegeVorstellungHinzu(new Vorstellung(_kinosaal, _film, anfang,
+                    _endzeit, _datum, i));
+        }
+        List<Vorstellung> vorstellungen = _t.getVorstellungen();
+        assertEquals(200, vorstellungen.size());
+        for (int i = 1; i < vorstellungen.size(); i++)
+        {
+            Vorstellung v1 = vorstellungen.get(i - 1);
+            Vorstellung v2 = vorstellungen.get(i);
+            int vergleich = v1.getAnfangszeit().compareTo(v2.getAnfangszeit());
+            assertTrue(vergleich < 0
+                    || (vergleich == 0 && v1.getPreis() < v2.getPreis()));
+        }
+    }
 }
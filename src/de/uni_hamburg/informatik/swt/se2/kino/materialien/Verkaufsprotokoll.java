@@ -0,0 +1,83 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.Set;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+
+/**
+ * Ein Verkaufsprotokoll wird von einer Vorstellung über jeden Verkauf und jede
+ * Stornierung informiert, bevor die verkaufende Methode zurückkehrt. Es kann
+ * die Änderungen zum Beispiel dauerhaft speichern.
+ * 
+ * Das Protokollieren geschieht in zwei Schritten: Die Vorstellung übergibt die
+ * Änderung zusammen mit einem Runnable, das die Plätze im Speicher ändert, und
+ * zwar für jede Vorstellung nacheinander in der Reihenfolge der Änderungen.
+ * Das Protokoll führt das Runnable aus, sobald es die Änderung angenommen
+ * hat, und zwar so, dass beides für einen Kontrollpunkt untrennbar ist: Ein
+ * Abbild enthält entweder die Änderung im Speicher oder den Datensatz danach.
+ * Wirft das Protokoll eine Exception, hat es das Runnable nicht ausgeführt.
+ * Danach wartet die Vorstellung mit der erhaltenen Quittung, bis die Änderung
+ * gespeichert ist; dabei können andere Änderungen derselben Vorstellung schon
+ * übergeben werden.
+ * 
+ * Implementationen müssen threadsicher sein, weil Vorstellungen von mehreren
+ * Threads gleichzeitig verkauft werden können.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface Verkaufsprotokoll
+{
+    /**
+     * Die maximale Anzahl Plätze, die mit einem Verkauf oder einer Stornierung
+     * übergeben werden können. Vorstellungen lehnen größere Änderungen ab.
+     */
+    int MAX_PLAETZE_PRO_AENDERUNG = 16 * 1024;
+
+    /**
+     * Übergibt verkaufte Plätze und führt den Verkauf im Speicher aus. Die
+     * Methode sollte nicht warten, bis der Verkauf gespeichert ist.
+     * 
+     * @param vorstellung die Vorstellung.
+     * @param plaetze die verkauften Plätze.
+     * @param aenderung verkauft die Plätze im Speicher.
+     * 
+     * @return die Quittung für {@link #warteAuf(long)}.
+     * 
+     * @throws IllegalStateException falls der Verkauf nicht protokolliert
+     *             werden kann. Die Plätze werden dann nicht verkauft.
+     * 
+     * @require plaetze.size() <= MAX_PLAETZE_PRO_AENDERUNG
+     */
+    long plaetzeVerkauft(Vorstellung vorstellung, Set<Platz> plaetze,
+            Runnable aenderung);
+
+    /**
+     * Übergibt stornierte Plätze und führt die Stornierung im Speicher aus.
+     * Die Methode sollte nicht warten, bis die Stornierung gespeichert ist.
+     * 
+     * @param vorstellung die Vorstellung.
+     * @param plaetze die stornierten Plätze.
+     * @param aenderung storniert die Plätze im Speicher.
+     * 
+     * @return die Quittung für {@link #warteAuf(long)}.
+     * 
+     * @throws IllegalStateException falls die Stornierung nicht protokolliert
+     *             werden kann. Die Plätze werden dann nicht storniert.
+     * 
+     * @require plaetze.size() <= MAX_PLAETZE_PRO_AENDERUNG
+     */
+    long plaetzeStorniert(Vorstellung vorstellung, Set<Platz> plaetze,
+            Runnable aenderung);
+
+    /**
+     * Wartet, bis die Änderung mit der angegebenen Quittung gespeichert ist.
+     * 
+     * @param quittung die Quittung aus {@link #plaetzeVerkauft} oder
+     *            {@link #plaetzeStorniert}.
+     * 
+     * @throws IllegalStateException falls die Änderung nicht gespeichert
+     *             werden konnte. Die Änderung bleibt im Speicher bestehen.
+     */
+    void warteAuf(long quittung);
+}
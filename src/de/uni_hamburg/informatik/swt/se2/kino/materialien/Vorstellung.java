@@ -1,6 +1,10 @@
 package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
@@ -12,19 +16,37 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
  * und wo läuft welcher Film) und zum anderen, welche Plätze für diese
  * Vorstellung bereits verkauft wurden.
  * 
+ * Neben verkauften und freien Plätzen gibt es gehaltene Plätze: Eine
+ * {@link Reservierung} hält Plätze für eine begrenzte Zeit fest, bis sie
+ * bestätigt (die Plätze sind dann verkauft), freigegeben wird oder abläuft.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
 public class Vorstellung
 {
+    private static final Kennzahlen KENNZAHLEN = Kennzahlen.getStandard();
+
     private Kinosaal _kinosaal;
     private Film _film;
     private Uhrzeit _anfangszeit;
     private Uhrzeit _endzeit;
     private Datum _datum;
     private int _preis;
-    private boolean[][] _verkauft;
-    private int _anzahlVerkauftePlaetze;
+    // Belegt sind alle Plätze, die verkauft oder gehalten sind. Ein Verkauf
+    // belegt die Plätze zuerst und markiert sie danach als verkauft.
+    private Platzbelegung _belegt;
+    private Platzbelegung _verkauft;
+    private volatile Verkaufsprotokoll _protokoll;
+    // Solange ein Verkaufsprotokoll gesetzt ist, werden Änderungen der
+    // verkauften Plätze unter dieser Sperre vorgenommen und übergeben, damit
+    // das Protokoll sie in derselben Reihenfolge erhält.
+    private final Object _protokollsperre = new Object();
+    // Die Auslastung dieser Vorstellung, gefolgt von den Auslastungen, in die
+    // sie eingerechnet wird (Film, Kinosaal, Tag).
+    private volatile Auslastung[] _auslastungen;
+    // Gesetzt, solange die Vorstellung Abonnenten hat.
+    private volatile Belegungsverteiler.Beobachtung _beobachtung;
 
     /**
      * Erstellt eine neue Vorstellung.
@@ -66,9 +88,11 @@ public class Vorstellung
         _endzeit = endzeit;
         _datum = datum;
         _preis = preis;
-        _verkauft = new boolean[kinosaal.getAnzahlReihen()][kinosaal
-                .getAnzahlSitzeProReihe()];
-        _anzahlVerkauftePlaetze = 0;
+        _belegt = new Platzbelegung(kinosaal);
+        _verkauft = new Platzbelegung(kinosaal);
+        Auslastung auslastung = new Auslastung();
+        auslastung.addierePlaetze(kinosaal.getAnzahlPlaetze());
+        _auslastungen = new Auslastung[] { auslastung };
     }
 
     /**
@@ -161,6 +185,11 @@ public class Vorstellung
     {
         assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
 
+        if (plaetze instanceof PlatzMenge
+                && ((PlatzMenge) plaetze).passtZu(_kinosaal))
+        {
+            return true;
+        }
         boolean result = true;
         for (Platz p : plaetze)
         {
@@ -203,7 +232,26 @@ public class Vorstellung
         assert platz != null : "Vorbedingung verletzt: platz != null";
         assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
 
-        return _verkauft[platz.getReihe()][platz.getSitz()];
+        return _verkauft.istBelegt(platz);
+    }
+
+    /**
+     * Gibt an, ob ein bestimmter Platz von einer Reservierung gehalten wird.
+     * 
+     * @param platz der Sitzplatz.
+     * 
+     * @return <code>true</code>, falls der Platz gehalten wird,
+     *         <code>false</code> sonst.
+     * 
+     * @require platz != null
+     * @require hatPlatz(platz)
+     */
+    public boolean istPlatzGehalten(Platz platz)
+    {
+        assert platz != null : "Vorbedingung verletzt: platz != null";
+        assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
+
+        return _belegt.istBelegt(platz) && !_verkauft.istBelegt(platz);
     }
 
     /**
@@ -214,17 +262,21 @@ public class Vorstellung
      * @require platz != null
      * @require hatPlatz(platz)
      * @require !istPlatzVerkauft(reihe, sitz)
+     * @require !istPlatzGehalten(reihe, sitz)
      * 
      * @ensure istPlatzVerkauft(reihe, sitz)
+     * 
+     * @throws IllegalStateException falls der Platz inzwischen von einem
+     *             anderen Thread verkauft oder gehalten wurde.
      */
     public void verkaufePlatz(Platz platz)
     {
         assert platz != null : "Vorbedingung verletzt: platz != null";
         assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
         assert !istPlatzVerkauft(platz) : "Vorbedingung verletzt: !istPlatzVerkauft(platz)";
+        assert !istPlatzGehalten(platz) : "Vorbedingung verletzt: !istPlatzGehalten(platz)";
 
-        _verkauft[platz.getReihe()][platz.getSitz()] = true;
-        _anzahlVerkauftePlaetze++;
+        pruefeVerkauf(verkaufeFallsFrei(Collections.singleton(platz)));
     }
 
     /**
@@ -237,6 +289,9 @@ public class Vorstellung
      * @require istPlatzVerkauft(reihe, sitz)
      * 
      * @ensure !istPlatzVerkauft(reihe, sitz)
+     * 
+     * @throws IllegalStateException falls der Platz inzwischen von einem
+     *             anderen Thread storniert wurde.
      */
     public void stornierePlatz(Platz platz)
     {
@@ -244,8 +299,7 @@ public class Vorstellung
         assert hatPlatz(platz) : "Vorbedingung verletzt: hatPlatz(platz)";
         assert istPlatzVerkauft(platz) : "Vorbedingung verletzt: istPlatzVerkauft(platz)";
 
-        _verkauft[platz.getReihe()][platz.getSitz()] = false;
-        _anzahlVerkauftePlaetze--;
+        pruefeStornierung(storniereFallsVerkauft(Collections.singleton(platz)));
     }
 
     /**
@@ -253,7 +307,116 @@ public class Vorstellung
      */
     public int getAnzahlVerkauftePlaetze()
     {
-        return _anzahlVerkauftePlaetze;
+        return _verkauft.anzahlBelegt();
+    }
+
+    /**
+     * Gibt die Auslastung dieser Vorstellung zurück. Sie wird bei jedem Verkauf
+     * und jeder Stornierung fortgeschrieben.
+     * 
+     * @ensure result != null
+     */
+    public Auslastung getAuslastung()
+    {
+        return _auslastungen[0];
+    }
+
+    /**
+     * Gibt die verkauften Plätze dieser Vorstellung als neue Menge zurück.
+     * Spätere Verkäufe ändern die Menge nicht.
+     * 
+     * @ensure result != null
+     */
+    public PlatzMenge getVerkauftePlaetze()
+    {
+        return _verkauft.belegtePlaetze();
+    }
+
+    /**
+     * Abonniert die Änderungen der verkauften Plätze dieser Vorstellung. Der
+     * Listener wird auf dem angegebenen Executor benachrichtigt, höchstens
+     * einmal pro Auslieferungsintervall (50 Millisekunden); schnell
+     * aufeinanderfolgende Verkäufe und Stornierungen werden dabei zu einer
+     * Änderung zusammengefasst. Den Stand zum Zeitpunkt des Abonnierens
+     * liefert {@link #getVerkauftePlaetze()}.
+     * 
+     * @param listener der Listener.
+     * @param executor der Executor, auf dem der Listener aufgerufen wird, etwa
+     *            einer, der an den Event-Dispatch-Thread übergibt.
+     * 
+     * @require listener != null
+     * @require executor != null
+     * 
+     * @ensure result != null
+     */
+    public Belegungsabonnement abonniere(BelegungsListener listener,
+            Executor executor)
+    {
+        return abonniere(listener, executor, Belegungsverteiler.getStandard());
+    }
+
+    /**
+     * Abonniert die Änderungen der verkauften Plätze über den angegebenen
+     * Verteiler.
+     */
+    Belegungsabonnement abonniere(BelegungsListener listener,
+            Executor executor, Belegungsverteiler verteiler)
+    {
+        Belegungsabonnement abonnement = verteiler.erzeugeAbonnement(listener,
+                executor);
+        verteiler.trageEin(abonnement, this);
+        return abonnement;
+    }
+
+    /**
+     * Gibt die kleinste Platznummer ab einschließlich der angegebenen zurück,
+     * deren Platz verkauft ist, oder -1, falls es keine gibt. Damit lassen sich
+     * die verkauften Plätze durchlaufen, ohne Objekte zu erzeugen und ohne
+     * jeden Platz einzeln zu prüfen:
+     * 
+     * <pre>
+     * int nummer = v.naechsterVerkaufterPlatz(0);
+     * while (nummer &gt;= 0)
+     * {
+     *     ...
+     *     nummer = v.naechsterVerkaufterPlatz(nummer + 1);
+     * }
+     * </pre>
+     * 
+     * Die Suche prüft 64 Plätze auf einmal. Ein Durchlauf über alle
+     * verkauften Plätze kostet daher einen Schritt je verkauftem Platz und
+     * je 64 Plätzen des Kinosaals; bei einem fast leeren Saal bestimmt die
+     * Saalgröße den Aufwand.
+     * 
+     * @param ab die Platznummer, ab der gesucht wird.
+     * 
+     * @require ab >= 0
+     * 
+     * @see Kinosaal#getPlatz(int)
+     */
+    public int naechsterVerkaufterPlatz(int ab)
+    {
+        assert ab >= 0 : "Vorbedingung verletzt: ab >= 0";
+
+        return _verkauft.naechsterBelegter(ab);
+    }
+
+    /**
+     * Gibt die kleinste Platznummer ab einschließlich der angegebenen zurück,
+     * deren Platz weder verkauft noch gehalten ist, oder -1, falls es keine
+     * gibt.
+     * 
+     * @param ab die Platznummer, ab der gesucht wird.
+     * 
+     * @require ab >= 0
+     * 
+     * @see #naechsterVerkaufterPlatz(int)
+     */
+    public int naechsterFreierPlatz(int ab)
+    {
+        assert ab >= 0 : "Vorbedingung verletzt: ab >= 0";
+
+        return _belegt.naechsterFreier(ab);
     }
 
     /**
@@ -264,6 +427,13 @@ public class Vorstellung
      * @require sindVerkaufbar(plaetze)
      * 
      * @ensure alle angegebenen Plätze sind verkauft
+     * 
+     * @throws IllegalStateException falls einer der Plätze inzwischen von
+     *             einem anderen Thread verkauft oder gehalten wurde. In diesem
+     *             Fall wurde keiner der Plätze verkauft.
+     * @throws IllegalArgumentException falls es mehr als
+     *             {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze
+     *             sind.
      */
     public void verkaufePlaetze(Set<Platz> plaetze)
     {
@@ -271,15 +441,98 @@ public class Vorstellung
         assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
         assert sindVerkaufbar(plaetze) : "Vorbedingung verletzt: sindVerkaufbar(plaetze)";
 
-        for (Platz platz : plaetze)
+        pruefeVerkauf(verkaufeFallsFrei(plaetze));
+    }
+
+    /**
+     * Verkauft die gegebenen Plätze, sofern keiner von ihnen bereits verkauft
+     * ist. Es werden entweder alle oder keiner der Plätze verkauft. Anders als
+     * bei {@link #verkaufePlaetze(Set)} muss vorher nicht geprüft werden, ob
+     * die Plätze verkaufbar sind; Prüfung und Verkauf erfolgen in einem
+     * Schritt. Diese Methode kann von mehreren Threads gleichzeitig für
+     * dieselbe Vorstellung aufgerufen werden, ohne dass ein Platz doppelt
+     * verkauft wird.
+     * 
+     * @param plaetze die Sitzplätze.
+     * 
+     * @return <code>null</code>, falls alle Plätze verkauft wurden, sonst
+     *         einen der Plätze, die bereits verkauft waren. In diesem Fall
+     *         wurde keiner der Plätze verkauft.
+     * 
+     * @throws IllegalArgumentException falls es mehr als
+     *             {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze
+     *             sind.
+     * 
+     * @require plaetze != null
+     * @require hatPlaetze(plaetze)
+     */
+    public Platz verkaufeFallsFrei(Set<Platz> plaetze)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
+        pruefeAnzahl(plaetze);
+
+        long anfang = System.nanoTime();
+        Platzereignis ereignis = Platzereignis.beginneVerkauf();
+        Platz konflikt = verkaufe(_belegt.eigeneMaske(plaetze), plaetze);
+        if (ereignis != null)
         {
-            verkaufePlatz(platz);
+            ereignis.beende(this, plaetze.size(), konflikt == null);
         }
+        KENNZAHLEN.erfasseVerkauf(anfang, plaetze.size(), konflikt == null);
+        return konflikt;
+    }
+
+    /**
+     * Belegt die Plätze der Maske, sofern keiner von ihnen belegt ist, und
+     * verkauft sie. Kann das Verkaufsprotokoll den Verkauf nicht annehmen,
+     * werden die Plätze wieder freigegeben.
+     * 
+     * @return <code>null</code> oder einen der bereits belegten Plätze.
+     */
+    private Platz verkaufe(final long[] maske, Set<Platz> plaetze)
+    {
+        Verkaufsprotokoll protokoll = _protokoll;
+        if (protokoll == null)
+        {
+            int konflikt = _belegt.belegeAlleOderKeinen(maske);
+            if (konflikt >= 0)
+            {
+                return _belegt.platz(konflikt);
+            }
+            _verkauft.belege(maske);
+            verbuche(plaetze.size());
+            return null;
+        }
+
+        long quittung;
+        synchronized (_protokollsperre)
+        {
+            int konflikt = _belegt.belegeAlleOderKeinen(maske);
+            if (konflikt >= 0)
+            {
+                return _belegt.platz(konflikt);
+            }
+            try
+            {
+                quittung = protokoll.plaetzeVerkauft(this, plaetze,
+                        verkaufeImSpeicher(maske));
+            }
+            catch (RuntimeException e)
+            {
+                _belegt.gibFrei(maske);
+                throw e;
+            }
+        }
+        verbuche(plaetze.size());
+        protokoll.warteAuf(quittung);
+        return null;
     }
 
     /**
      * Prüft, ob die gegebenen Plätze alle verkauft werden können. Dafür wird
-     * geschaut, ob keiner der gegebenen Plätze bisher verkauft ist.
+     * geschaut, ob keiner der gegebenen Plätze bisher verkauft oder gehalten
+     * ist.
      * 
      * Liefert true, wenn alle Plätze verkaufbar sind, sonst false.
      * 
@@ -291,12 +544,60 @@ public class Vorstellung
         assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
         assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
 
-        boolean result = true;
-        for (Platz platz : plaetze)
+        return _belegt.sindAlleFrei(_belegt.maske(plaetze));
+    }
+
+    /**
+     * Sucht die besten anzahl nebeneinander liegenden freien Plätze in einer
+     * Reihe. Am besten sind die Plätze, deren Mitte der Mitte des Kinosaals am
+     * nächsten liegt. Weder verkaufte noch gehaltene Plätze werden vorgeschlagen.
+     * 
+     * Die Suche verändert nichts; bis zum Verkauf können die Plätze vergeben
+     * sein. Die Plätze sollten daher mit {@link #verkaufeFallsFrei(Set)} oder
+     * {@link #haltePlaetze(Set, String, long)} belegt werden.
+     * 
+     * @param anzahl die Anzahl der Plätze.
+     * 
+     * @return die Plätze von links nach rechts oder eine leere Menge, falls es
+     *         in keiner Reihe genug freie Plätze nebeneinander gibt.
+     * 
+     * @require anzahl > 0
+     * 
+     * @ensure result != null
+     */
+    public Set<Platz> sucheBestePlaetze(int anzahl)
+    {
+        return sucheBestePlaetze(anzahl, false);
+    }
+
+    /**
+     * Sucht die besten anzahl freien Plätze wie
+     * {@link #sucheBestePlaetze(int)}. Gibt es in keiner Reihe genug freie
+     * Plätze nebeneinander und ist es erlaubt, werden die Plätze möglichst
+     * gleichmäßig auf zwei direkt hintereinander liegende Reihen verteilt.
+     * 
+     * @param anzahl die Anzahl der Plätze.
+     * @param zweiReihenErlaubt ob die Plätze auf zwei Reihen verteilt werden
+     *            dürfen.
+     * 
+     * @return die Plätze oder eine leere Menge, falls keine passenden Plätze
+     *         frei sind.
+     * 
+     * @require anzahl > 0
+     * 
+     * @ensure result != null
+     */
+    public Set<Platz> sucheBestePlaetze(int anzahl, boolean zweiReihenErlaubt)
+    {
+        assert anzahl > 0 : "Vorbedingung verletzt: anzahl > 0";
+
+        Platzsuche suche = new Platzsuche(_belegt, _kinosaal);
+        Set<Platz> plaetze = suche.sucheInEinerReihe(anzahl);
+        if (plaetze.isEmpty() && zweiReihenErlaubt && anzahl > 1)
         {
-            result &= !istPlatzVerkauft(platz);
+            plaetze = suche.sucheInZweiReihen(anzahl);
         }
-        return result;
+        return plaetze;
     }
 
     /**
@@ -307,6 +608,13 @@ public class Vorstellung
      * @require sindStornierbar(plaetze)
      * 
      * @ensure alle angegebenen Plätze sind storniert
+     * 
+     * @throws IllegalStateException falls einer der Plätze inzwischen von
+     *             einem anderen Thread storniert wurde. In diesem Fall wurde
+     *             keiner der Plätze storniert.
+     * @throws IllegalArgumentException falls es mehr als
+     *             {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze
+     *             sind.
      */
     public void stornierePlaetze(Set<Platz> plaetze)
     {
@@ -314,10 +622,132 @@ public class Vorstellung
         assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
         assert sindStornierbar(plaetze) : "Vorbedingung verletzt: sindStornierbar(plaetze)";
 
-        for (Platz platz : plaetze)
+        pruefeStornierung(storniereFallsVerkauft(plaetze));
+    }
+
+    /**
+     * Lehnt Änderungen ab, die mehr Plätze umfassen, als ein
+     * Verkaufsprotokoll mit einer Änderung annehmen kann.
+     */
+    private static void pruefeAnzahl(Set<Platz> plaetze)
+    {
+        if (plaetze.size() > Verkaufsprotokoll.MAX_PLAETZE_PRO_AENDERUNG)
+        {
+            throw new IllegalArgumentException("Zu viele Plätze für eine "
+                    + "Änderung: " + plaetze.size());
+        }
+    }
+
+    /**
+     * Meldet einen Konflikt von {@link #verkaufeFallsFrei(Set)} als
+     * Exception.
+     */
+    private static void pruefeVerkauf(Platz konflikt)
+    {
+        if (konflikt != null)
+        {
+            throw new IllegalStateException("Platz " + konflikt
+                    + " ist nicht mehr frei");
+        }
+    }
+
+    /**
+     * Meldet einen Konflikt von {@link #storniereFallsVerkauft(Set)} als
+     * Exception.
+     */
+    private static void pruefeStornierung(Platz konflikt)
+    {
+        if (konflikt != null)
+        {
+            throw new IllegalStateException("Platz " + konflikt
+                    + " ist nicht mehr verkauft");
+        }
+    }
+
+    /**
+     * Storniert die gegebenen Plätze, sofern alle von ihnen verkauft sind. Es
+     * werden entweder alle oder keiner der Plätze storniert. Wie bei
+     * {@link #verkaufeFallsFrei(Set)} erfolgen Prüfung und Stornierung in
+     * einem Schritt, sodass gleichzeitige Stornierungen desselben Platzes aus
+     * mehreren Threads nicht beide gelingen.
+     * 
+     * @param plaetze die Sitzplätze.
+     * 
+     * @return <code>null</code>, falls alle Plätze storniert wurden, sonst
+     *         einen der Plätze, die nicht verkauft waren. In diesem Fall wurde
+     *         keiner der Plätze storniert.
+     * 
+     * @throws IllegalArgumentException falls es mehr als
+     *             {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze
+     *             sind.
+     * 
+     * @require plaetze != null
+     * @require hatPlaetze(plaetze)
+     */
+    public Platz storniereFallsVerkauft(Set<Platz> plaetze)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
+        pruefeAnzahl(plaetze);
+
+        long anfang = System.nanoTime();
+        Platzereignis ereignis = Platzereignis.beginneStornierung();
+        Platz konflikt = storniere(_verkauft.eigeneMaske(plaetze), plaetze);
+        if (ereignis != null)
+        {
+            ereignis.beende(this, plaetze.size(), konflikt == null);
+        }
+        KENNZAHLEN.erfasseStornierung(anfang, plaetze.size(),
+                konflikt == null);
+        return konflikt;
+    }
+
+    /**
+     * Storniert die Plätze der Maske, sofern alle von ihnen verkauft sind,
+     * und gibt sie frei. Mit Verkaufsprotokoll werden die Plätze erst geprüft
+     * und erst freigegeben, wenn das Protokoll die Stornierung angenommen hat;
+     * bis dahin bleiben sie verkauft.
+     * 
+     * @return <code>null</code> oder einen der nicht verkauften Plätze.
+     */
+    private Platz storniere(final long[] maske, Set<Platz> plaetze)
+    {
+        Verkaufsprotokoll protokoll = _protokoll;
+        if (protokoll == null)
+        {
+            int konflikt = _verkauft.gibAlleFreiOderKeinen(maske);
+            if (konflikt >= 0)
+            {
+                return _verkauft.platz(konflikt);
+            }
+            _belegt.gibFrei(maske);
+            verbuche(-plaetze.size());
+            return null;
+        }
+
+        long quittung;
+        synchronized (_protokollsperre)
         {
-            stornierePlatz(platz);
+            // Unter der Sperre ändert niemand sonst die verkauften Plätze,
+            // daher genügt es, sie vor dem Protokollieren zu prüfen.
+            int konflikt = _verkauft.ersterFreier(maske);
+            if (konflikt >= 0)
+            {
+                return _verkauft.platz(konflikt);
+            }
+            quittung = protokoll.plaetzeStorniert(this, plaetze, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    _verkauft.gibFrei(maske);
+                    _belegt.gibFrei(maske);
+                }
+            });
         }
+        verbuche(-plaetze.size());
+        protokoll.warteAuf(quittung);
+        return null;
     }
 
     /**
@@ -334,12 +764,390 @@ public class Vorstellung
         assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
         assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
 
-        boolean result = true;
-        for (Platz platz : plaetze)
+        return _verkauft.sindAlleBelegt(_verkauft.maske(plaetze));
+    }
+
+    /**
+     * Hält die gegebenen Plätze für die angegebene Dauer fest, sofern keiner
+     * von ihnen verkauft oder gehalten ist. Es werden entweder alle oder keiner
+     * der Plätze gehalten. Wird die Reservierung nicht innerhalb der
+     * Haltedauer bestätigt oder freigegeben, läuft sie ab und die Plätze sind
+     * wieder frei.
+     * 
+     * @param plaetze die Sitzplätze.
+     * @param besitzer der Besitzer der Reservierung, z.B. der Name der Kasse.
+     * @param haltedauerInMillis die Haltedauer in Millisekunden.
+     * 
+     * @return die Reservierung oder <code>null</code>, falls mindestens einer
+     *         der Plätze bereits verkauft oder gehalten ist.
+     * 
+     * @throws IllegalArgumentException falls es mehr als
+     *             {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze
+     *             sind, da die Bestätigung sonst nicht protokolliert werden
+     *             könnte.
+     * 
+     * @require plaetze != null
+     * @require hatPlaetze(plaetze)
+     * @require besitzer != null
+     * @require haltedauerInMillis > 0
+     */
+    public Reservierung haltePlaetze(Set<Platz> plaetze, String besitzer,
+            long haltedauerInMillis)
+    {
+        return haltePlaetze(plaetze, besitzer, haltedauerInMillis,
+                Zeitrad.getStandard());
+    }
+
+    /**
+     * Hält die gegebenen Plätze fest und plant ihren Ablauf im angegebenen
+     * Zeitrad ein.
+     * 
+     * @see #haltePlaetze(Set, String, long)
+     */
+    Reservierung haltePlaetze(Set<Platz> plaetze, String besitzer,
+            long haltedauerInMillis, Zeitrad zeitrad)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
+        assert besitzer != null : "Vorbedingung verletzt: besitzer != null";
+        assert haltedauerInMillis > 0 : "Vorbedingung verletzt: haltedauerInMillis > 0";
+        pruefeAnzahl(plaetze);
+
+        // Die Reservierung bewahrt die Maske auf, daher eine eigene Kopie
+        long[] maske = _belegt.eigeneMaske(plaetze);
+        if (_belegt.belegeAlleOderKeinen(maske) >= 0)
         {
-            result &= istPlatzVerkauft(platz);
+            return null;
         }
-        return result;
+        Reservierung reservierung = new Reservierung(this, maske, besitzer,
+                haltedauerInMillis);
+        zeitrad.plane(reservierung);
+        return reservierung;
+    }
+
+    /**
+     * Bestätigt eine Reservierung. Die gehaltenen Plätze sind danach verkauft.
+     * Die Bestätigung wird wie ein Verkauf aufgezeichnet und gezählt.
+     * 
+     * @param reservierung die Reservierung.
+     * @param besitzer der Besitzer, der die Reservierung bestätigt.
+     * 
+     * @return <code>true</code>, falls die Plätze verkauft wurden,
+     *         <code>false</code>, falls die Reservierung bereits abgelaufen,
+     *         freigegeben oder bestätigt war.
+     * 
+     * @require reservierung != null
+     * @require reservierung.getVorstellung() == this
+     * @require besitzer != null
+     * 
+     * @throws IllegalArgumentException falls die Reservierung einem anderen
+     *             Besitzer gehört. Sie bleibt dann unverändert.
+     * @throws IllegalStateException falls das Verkaufsprotokoll den Verkauf
+     *             nicht annimmt. Die Reservierung ist dann freigegeben.
+     */
+    public boolean bestaetigeReservierung(Reservierung reservierung,
+            String besitzer)
+    {
+        assert reservierung != null : "Vorbedingung verletzt: reservierung != null";
+        assert reservierung.getVorstellung() == this : "Vorbedingung verletzt: reservierung.getVorstellung() == this";
+        assert besitzer != null : "Vorbedingung verletzt: besitzer != null";
+        pruefeBesitzer(reservierung, besitzer);
+
+        long anfang = System.nanoTime();
+        Platzereignis ereignis = Platzereignis.beginneVerkauf();
+        Set<Platz> plaetze = reservierung.getPlaetze();
+        boolean bestaetigt = bestaetige(reservierung, plaetze);
+        if (ereignis != null)
+        {
+            ereignis.beende(this, plaetze.size(), bestaetigt);
+        }
+        KENNZAHLEN.erfasseVerkauf(anfang, plaetze.size(), bestaetigt);
+        return bestaetigt;
+    }
+
+    /**
+     * Verkauft die gehaltenen Plätze der Reservierung, sofern sie noch
+     * gehalten ist.
+     * 
+     * @return <code>true</code>, falls die Plätze verkauft wurden.
+     */
+    private boolean bestaetige(Reservierung reservierung, Set<Platz> plaetze)
+    {
+        final long[] maske = reservierung.getMaske();
+        Verkaufsprotokoll protokoll = _protokoll;
+        if (protokoll == null)
+        {
+            if (!reservierung.beende(Reservierung.Zustand.BESTAETIGT))
+            {
+                return false;
+            }
+            _verkauft.belege(maske);
+            verbuche(plaetze.size());
+            return true;
+        }
+
+        long quittung;
+        synchronized (_protokollsperre)
+        {
+            if (!reservierung.beende(Reservierung.Zustand.BESTAETIGT))
+            {
+                return false;
+            }
+            try
+            {
+                quittung = protokoll.plaetzeVerkauft(this, plaetze,
+                        verkaufeImSpeicher(maske));
+            }
+            catch (RuntimeException e)
+            {
+                reservierung.widerrufeBestaetigung();
+                _belegt.gibFrei(maske);
+                throw e;
+            }
+        }
+        verbuche(plaetze.size());
+        protokoll.warteAuf(quittung);
+        return true;
+    }
+
+    /**
+     * Gibt die Änderung zurück, die das Verkaufsprotokoll für einen Verkauf
+     * der bereits belegten Plätze der Maske ausführt.
+     */
+    private Runnable verkaufeImSpeicher(final long[] maske)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                _verkauft.belege(maske);
+            }
+        };
+    }
+
+    /**
+     * Gibt die Plätze einer Reservierung vorzeitig wieder frei. Ist die
+     * Reservierung nicht mehr gehalten, passiert nichts.
+     * 
+     * @param reservierung die Reservierung.
+     * @param besitzer der Besitzer, der die Reservierung freigibt.
+     * 
+     * @require reservierung != null
+     * @require reservierung.getVorstellung() == this
+     * @require besitzer != null
+     * 
+     * @throws IllegalArgumentException falls die Reservierung einem anderen
+     *             Besitzer gehört. Sie bleibt dann unverändert.
+     */
+    public void gibReservierungFrei(Reservierung reservierung, String besitzer)
+    {
+        assert reservierung != null : "Vorbedingung verletzt: reservierung != null";
+        assert reservierung.getVorstellung() == this : "Vorbedingung verletzt: reservierung.getVorstellung() == this";
+        assert besitzer != null : "Vorbedingung verletzt: besitzer != null";
+        pruefeBesitzer(reservierung, besitzer);
+
+        beendeReservierung(reservierung, Reservierung.Zustand.FREIGEGEBEN);
+    }
+
+    /**
+     * Lehnt es ab, dass jemand anderes als ihr Besitzer eine Reservierung
+     * bestätigt oder freigibt.
+     */
+    private static void pruefeBesitzer(Reservierung reservierung,
+            String besitzer)
+    {
+        if (!reservierung.getBesitzer().equals(besitzer))
+        {
+            throw new IllegalArgumentException("Reservierung gehört nicht "
+                    + besitzer + ", sondern " + reservierung.getBesitzer());
+        }
+    }
+
+    /**
+     * Beendet eine noch gehaltene Reservierung mit dem angegebenen Zustand und
+     * gibt ihre Plätze frei.
+     */
+    void beendeReservierung(Reservierung reservierung,
+            Reservierung.Zustand zustand)
+    {
+        if (reservierung.beende(zustand))
+        {
+            _belegt.gibFrei(reservierung.getMaske());
+        }
+    }
+
+    /**
+     * Spielt einen protokollierten Verkauf wieder ein. Anders als beim
+     * Verkauf werden bereits verkaufte Plätze übersprungen, und der Verkauf
+     * wird weder protokolliert noch in den Kennzahlen oder als Ereignis
+     * erfasst; die Auslastungen werden fortgeschrieben.
+     * 
+     * @param plaetze die verkauften Plätze.
+     * 
+     * @require plaetze != null
+     * @require hatPlaetze(plaetze)
+     * @require die Vorstellung hat kein Verkaufsprotokoll und keine
+     *          gehaltenen Plätze
+     */
+    public void spieleVerkaufEin(Set<Platz> plaetze)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
+        assert _protokoll == null : "Vorbedingung verletzt: kein Verkaufsprotokoll";
+
+        long[] maske = _verkauft.maske(plaetze);
+        _belegt.belege(maske);
+        int anzahl = Platzbelegung.anzahl(_verkauft.belegeFreie(maske));
+        if (anzahl > 0)
+        {
+            verbuche(anzahl);
+        }
+    }
+
+    /**
+     * Spielt eine protokollierte Stornierung wieder ein. Nicht verkaufte
+     * Plätze werden übersprungen; sonst gilt dasselbe wie für
+     * {@link #spieleVerkaufEin(Set)}.
+     * 
+     * @param plaetze die stornierten Plätze.
+     * 
+     * @require plaetze != null
+     * @require hatPlaetze(plaetze)
+     * @require die Vorstellung hat kein Verkaufsprotokoll und keine
+     *          gehaltenen Plätze
+     */
+    public void spieleStornierungEin(Set<Platz> plaetze)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatPlaetze(plaetze) : "Vorbedingung verletzt: hatPlaetze(plaetze)";
+        assert _protokoll == null : "Vorbedingung verletzt: kein Verkaufsprotokoll";
+
+        long[] storniert = _verkauft.gibBelegteFrei(_verkauft.maske(plaetze));
+        _belegt.gibFrei(storniert);
+        int anzahl = Platzbelegung.anzahl(storniert);
+        if (anzahl > 0)
+        {
+            verbuche(-anzahl);
+        }
+    }
+
+    /**
+     * Setzt das Verkaufsprotokoll, das über Verkäufe und Stornierungen dieser
+     * Vorstellung informiert wird. Das Protokoll darf auch null sein.
+     */
+    void setVerkaufsprotokoll(Verkaufsprotokoll protokoll)
+    {
+        _protokoll = protokoll;
+    }
+
+    /**
+     * Rechnet diese Vorstellung zusätzlich in die angegebenen Auslastungen ein,
+     * samt der bereits verkauften Plätze. Ersetzt vorher gesetzte
+     * Auslastungen nicht, sondern ergänzt sie.
+     * 
+     * @require auslastungen != null
+     * @require es laufen keine gleichzeitigen Verkäufe an dieser Vorstellung
+     */
+    void rechneEinIn(Auslastung... auslastungen)
+    {
+        assert auslastungen != null : "Vorbedingung verletzt: auslastungen != null";
+
+        Auslastung[] bisher = _auslastungen;
+        Auslastung[] neu = Arrays.copyOf(bisher, bisher.length
+                + auslastungen.length);
+        System.arraycopy(auslastungen, 0, neu, bisher.length,
+                auslastungen.length);
+        int plaetze = _kinosaal.getAnzahlPlaetze();
+        int verkauft = getAnzahlVerkauftePlaetze();
+        for (Auslastung auslastung : auslastungen)
+        {
+            auslastung.addierePlaetze(plaetze);
+            auslastung.addiereVerkauf(verkauft, _preis);
+        }
+        _auslastungen = neu;
+    }
+
+    /**
+     * Schreibt die Auslastungen um die angegebene Anzahl verkaufter (positiv)
+     * oder stornierter (negativ) Plätze fort.
+     */
+    private void zaehle(int anzahl)
+    {
+        for (Auslastung auslastung : _auslastungen)
+        {
+            auslastung.addiereVerkauf(anzahl, _preis);
+        }
+    }
+
+    /**
+     * Zählt verkaufte (positiv) oder stornierte (negativ) Plätze und meldet
+     * die Änderung den Abonnenten.
+     */
+    private void verbuche(int anzahl)
+    {
+        zaehle(anzahl);
+        melde();
+    }
+
+    /**
+     * Meldet dem Verteiler eine Änderung, falls die Vorstellung Abonnenten
+     * hat.
+     */
+    private void melde()
+    {
+        Belegungsverteiler.Beobachtung beobachtung = _beobachtung;
+        if (beobachtung != null)
+        {
+            beobachtung.melde();
+        }
+    }
+
+    /**
+     * Gibt die Beobachtung dieser Vorstellung zurück, oder null.
+     */
+    Belegungsverteiler.Beobachtung getBeobachtung()
+    {
+        return _beobachtung;
+    }
+
+    /**
+     * Setzt die Beobachtung dieser Vorstellung. Darf null sein.
+     */
+    void setBeobachtung(Belegungsverteiler.Beobachtung beobachtung)
+    {
+        _beobachtung = beobachtung;
+    }
+
+    /**
+     * Lässt diese Vorstellung ihre verkauften Plätze aus der angegebenen Basis
+     * lesen, bis sich die Belegung zum ersten Mal ändert.
+     * 
+     * @require basis != null
+     * @require an dieser Vorstellung wurde noch nichts verkauft oder gehalten
+     */
+    void setBelegungsbasis(LongBuffer basis)
+    {
+        _belegt.setBasis(basis);
+        _verkauft.setBasis(basis);
+        zaehle(_verkauft.anzahlBelegt());
+        melde();
+    }
+
+    /**
+     * Gibt die Belegung der verkauften Plätze zurück.
+     */
+    Platzbelegung getVerkauft()
+    {
+        return _verkauft;
+    }
+
+    /**
+     * Gibt die Plätze zurück, deren Bits in der Maske gesetzt sind.
+     */
+    Set<Platz> plaetzeFuerMaske(long[] maske)
+    {
+        return _belegt.plaetze(maske);
     }
 
     @Override
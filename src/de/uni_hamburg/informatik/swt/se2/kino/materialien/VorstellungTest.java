@@ -3,11 +3,15 @@ package de.uni_hamburg.informatik.swt.se2.kino.materialien;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -205,4 +209,477 @@ public class VorstellungTest
         }
         assertEquals(30, v.getAnzahlVerkauftePlaetze());
     }
+
+    @Test
+    public void testeVerkaufenUeberWortgrenzen()
+    {
+        // 20 Reihen * 50 Sitze: Reihe 1 liegt quer über der Grenze der
+        // ersten beiden 64-Bit-Wörter der Belegung.
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+
+        Set<Platz> plaetze = new HashSet<Platz>();
+        for (int sitz = 10; sitz < 20; sitz++)
+        {
+            plaetze.add(new Platz(1, sitz));
+        }
+        plaetze.add(new Platz(19, 49));
+
+        assertTrue(v.sindVerkaufbar(plaetze));
+        v.verkaufePlaetze(plaetze);
+        assertEquals(11, v.getAnzahlVerkauftePlaetze());
+        assertTrue(v.istPlatzVerkauft(new Platz(1, 13)));
+        assertTrue(v.istPlatzVerkauft(new Platz(1, 14)));
+        assertTrue(v.istPlatzVerkauft(new Platz(19, 49)));
+        assertFalse(v.istPlatzVerkauft(new Platz(1, 20)));
+        assertFalse(v.istPlatzVerkauft(new Platz(0, 10)));
+
+        Set<Platz> einFreierPlatz = new HashSet<Platz>();
+        einFreierPlatz.add(new Platz(1, 15));
+        einFreierPlatz.add(new Platz(1, 20));
+        assertFalse(v.sindVerkaufbar(einFreierPlatz));
+        assertFalse(v.sindStornierbar(einFreierPlatz));
+
+        v.stornierePlaetze(plaetze);
+        assertEquals(0, v.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeGleichzeitigerVerkaufDesselbenPlatzes()
+            throws InterruptedException
+    {
+        final Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        final Platz platz = new Platz(3, 3);
+        final AtomicInteger erfolge = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        v.verkaufePlatz(platz);
+                        erfolge.incrementAndGet();
+                    }
+                    catch (IllegalStateException e)
+                    {
+                        // Ein anderer Thread war schneller
+                    }
+                    catch (AssertionError e)
+                    {
+                        // Die Vorbedingung war schon verletzt
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(1, erfolge.get());
+        assertEquals(1, v.getAnzahlVerkauftePlaetze());
+        assertEquals(1, v.getAuslastung().getAnzahlVerkaufterPlaetze());
+    }
+
+    @Test
+    public void testeVerkaufeFallsFreiAllesOderNichts()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+
+        Platz besetzt = new Platz(4, 40);
+        v.verkaufePlatz(besetzt);
+
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(0, 0));
+        plaetze.add(new Platz(2, 10));
+        plaetze.add(besetzt);
+        plaetze.add(new Platz(10, 5));
+
+        assertEquals(besetzt, v.verkaufeFallsFrei(plaetze));
+        assertEquals(1, v.getAnzahlVerkauftePlaetze());
+        assertFalse(v.istPlatzVerkauft(new Platz(0, 0)));
+        assertFalse(v.istPlatzVerkauft(new Platz(2, 10)));
+        assertFalse(v.istPlatzVerkauft(new Platz(10, 5)));
+
+        plaetze.remove(besetzt);
+        assertNull(v.verkaufeFallsFrei(plaetze));
+        assertEquals(4, v.getAnzahlVerkauftePlaetze());
+        assertTrue(v.sindStornierbar(plaetze));
+    }
+
+    @Test
+    public void testeStorniereFallsVerkauftAllesOderNichts()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(0, 0));
+        plaetze.add(new Platz(10, 5));
+        v.verkaufePlaetze(plaetze);
+        Platz frei = new Platz(4, 40);
+        plaetze.add(frei);
+
+        assertEquals(frei, v.storniereFallsVerkauft(plaetze));
+        assertEquals(2, v.getAnzahlVerkauftePlaetze());
+
+        plaetze.remove(frei);
+        assertNull(v.storniereFallsVerkauft(plaetze));
+        assertEquals(0, v.getAnzahlVerkauftePlaetze());
+        assertTrue(v.sindVerkaufbar(plaetze));
+        assertEquals(new Platz(0, 0), v.storniereFallsVerkauft(Collections
+                .singleton(new Platz(0, 0))));
+    }
+
+    @Test
+    public void testeEinspielenUeberspringtUnveraenderte()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        v.verkaufePlatz(new Platz(0, 0));
+        Histogramm plaetzeProVerkauf = Kennzahlen.getStandard()
+            .getPlaetzeProVerkauf();
+        long verkaeufe = plaetzeProVerkauf.getAnzahl();
+
+        PlatzMenge plaetze = new PlatzMenge(_kinoA);
+        plaetze.add(new Platz(0, 0));
+        plaetze.add(new Platz(1, 1));
+        plaetze.add(new Platz(19, 49));
+        v.spieleVerkaufEin(plaetze);
+        assertEquals(3, v.getAnzahlVerkauftePlaetze());
+        assertEquals(3 * 1230, v.getAuslastung().getUmsatz());
+        assertFalse(v.sindVerkaufbar(plaetze));
+
+        plaetze.remove(new Platz(0, 0));
+        plaetze.add(new Platz(2, 2));
+        v.spieleStornierungEin(plaetze);
+        assertEquals(1, v.getAnzahlVerkauftePlaetze());
+        assertEquals(1230, v.getAuslastung().getUmsatz());
+        assertTrue(v.sindVerkaufbar(plaetze));
+        assertEquals(verkaeufe, plaetzeProVerkauf.getAnzahl());
+    }
+
+    @Test
+    public void testeZuVielePlaetzeFuerEineAenderung()
+    {
+        Kinosaal riesig = new Kinosaal("R", 200, 100);
+        Vorstellung v = new Vorstellung(riesig, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        Set<Platz> plaetze = new HashSet<Platz>();
+        for (int i = 0; i <= Verkaufsprotokoll.MAX_PLAETZE_PRO_AENDERUNG; i++)
+        {
+            plaetze.add(riesig.getPlatz(i));
+        }
+
+        try
+        {
+            v.verkaufeFallsFrei(plaetze);
+            fail("IllegalArgumentException erwartet");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals(0, v.getAnzahlVerkauftePlaetze());
+        }
+        try
+        {
+            v.haltePlaetze(plaetze, "Kasse 1", 1000);
+            fail("IllegalArgumentException erwartet");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(v.sindVerkaufbar(plaetze));
+        }
+
+        plaetze.remove(riesig.getPlatz(0));
+        assertNull(v.verkaufeFallsFrei(plaetze));
+        assertEquals(Verkaufsprotokoll.MAX_PLAETZE_PRO_AENDERUNG, v
+            .getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeProtokollFuehrtAenderungErstNachDemDatensatzAus()
+    {
+        final Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45,
+                _20_15, _11_07_2008, 1230);
+        final Platz platz = new Platz(3, 7);
+        final AtomicInteger datensaetze = new AtomicInteger();
+        v.setVerkaufsprotokoll(new Verkaufsprotokoll()
+        {
+            @Override
+            public long plaetzeVerkauft(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                assertFalse(v.istPlatzVerkauft(platz));
+                aenderung.run();
+                assertTrue(v.istPlatzVerkauft(platz));
+                return datensaetze.incrementAndGet();
+            }
+
+            @Override
+            public long plaetzeStorniert(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                assertTrue(v.istPlatzVerkauft(platz));
+                assertFalse(v.sindVerkaufbar(plaetze));
+                aenderung.run();
+                assertFalse(v.istPlatzVerkauft(platz));
+                return datensaetze.incrementAndGet();
+            }
+
+            @Override
+            public void warteAuf(long quittung)
+            {
+            }
+        });
+
+        assertNull(v.verkaufeFallsFrei(Collections.singleton(platz)));
+        assertNull(v.storniereFallsVerkauft(Collections.singleton(platz)));
+        assertEquals(2, datensaetze.get());
+        assertTrue(v.sindVerkaufbar(Collections.singleton(platz)));
+    }
+
+    @Test
+    public void testeAbgelehnteStornierungBleibtVerkauft()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        Platz platz = new Platz(3, 7);
+        v.verkaufePlatz(platz);
+        v.setVerkaufsprotokoll(new Verkaufsprotokoll()
+        {
+            @Override
+            public long plaetzeVerkauft(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                throw new IllegalStateException("Journal geschlossen");
+            }
+
+            @Override
+            public long plaetzeStorniert(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                throw new IllegalStateException("Journal geschlossen");
+            }
+
+            @Override
+            public void warteAuf(long quittung)
+            {
+            }
+        });
+
+        try
+        {
+            v.storniereFallsVerkauft(Collections.singleton(platz));
+            fail("IllegalStateException erwartet");
+        }
+        catch (IllegalStateException e)
+        {
+            assertTrue(v.istPlatzVerkauft(platz));
+        }
+        assertEquals(1, v.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeGleichzeitigerVerkaufOhneDoppeltVerkauftePlaetze()
+            throws InterruptedException
+    {
+        final Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45,
+                _20_15, _11_07_2008, 1230);
+        final int anzahlThreads = 8;
+        final AtomicInteger verkaufte = new AtomicInteger();
+        Thread[] threads = new Thread[anzahlThreads];
+
+        for (int t = 0; t < anzahlThreads; t++)
+        {
+            final int versatz = t;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    // Jeder Thread versucht, in jeder Reihe dieselben
+                    // überlappenden Dreiergruppen zu kaufen.
+                    for (int reihe = 0; reihe < 20; reihe++)
+                    {
+                        for (int sitz = versatz % 3; sitz + 2 < 50; sitz += 3)
+                        {
+                            Set<Platz> gruppe = new HashSet<Platz>();
+                            gruppe.add(new Platz(reihe, sitz));
+                            gruppe.add(new Platz(reihe, sitz + 1));
+                            gruppe.add(new Platz(reihe, sitz + 2));
+                            if (v.verkaufeFallsFrei(gruppe) == null)
+                            {
+                                verkaufte.addAndGet(gruppe.size());
+                            }
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(verkaufte.get(), v.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeSucheBestePlaetzeImLeerenSaal()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        Set<Platz> plaetze = v.sucheBestePlaetze(4);
+
+        // 20 Reihen zu 50 Sitzen: Mitte zwischen Reihe 9 und 10, Sitz 24 und 25
+        assertEquals(4, plaetze.size());
+        for (int sitz = 23; sitz <= 26; sitz++)
+        {
+            assertTrue(plaetze.contains(new Platz(9, sitz)));
+        }
+    }
+
+    @Test
+    public void testeSucheBestePlaetzeUmVerkaufteHerum()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        v.verkaufePlatz(new Platz(8, 24));
+        v.verkaufePlatz(new Platz(9, 24));
+        v.verkaufePlatz(new Platz(10, 24));
+        Set<Platz> plaetze = v.sucheBestePlaetze(3);
+
+        // Rechts neben dem verkauften Platz liegt der Block näher an der
+        // Mitte als in Reihe 7 oder 11.
+        assertEquals(3, plaetze.size());
+        assertTrue(v.sindVerkaufbar(plaetze));
+        assertTrue(plaetze.contains(new Platz(9, 25)));
+        assertTrue(plaetze.contains(new Platz(9, 26)));
+        assertTrue(plaetze.contains(new Platz(9, 27)));
+    }
+
+    @Test
+    public void testeSucheBestePlaetzeOhneErgebnis()
+    {
+        Kinosaal klein = new Kinosaal("K", 2, 3);
+        Vorstellung v = new Vorstellung(klein, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        v.verkaufePlatz(new Platz(0, 1));
+        v.verkaufePlatz(new Platz(1, 1));
+
+        assertTrue(v.sucheBestePlaetze(2).isEmpty());
+        assertTrue(v.sucheBestePlaetze(4).isEmpty());
+        assertEquals(1, v.sucheBestePlaetze(1).size());
+    }
+
+    @Test
+    public void testeSucheBestePlaetzeInZweiReihen()
+    {
+        Kinosaal klein = new Kinosaal("K", 3, 4);
+        Vorstellung v = new Vorstellung(klein, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        for (int reihe = 0; reihe < 3; reihe++)
+        {
+            v.verkaufePlatz(new Platz(reihe, 0));
+        }
+        Reservierung r = v.haltePlaetze(
+                Collections.singleton(new Platz(2, 3)), "Kasse",
+                60000);
+        assertNotNull(r);
+
+        assertTrue(v.sucheBestePlaetze(5).isEmpty());
+        Set<Platz> plaetze = v.sucheBestePlaetze(5, true);
+        assertEquals(5, plaetze.size());
+        assertTrue(v.sindVerkaufbar(plaetze));
+        // Reihe 0 und 1 liegen genauso weit von der Mitte wie Reihe 1 und 2;
+        // bei gleichem Abstand gewinnen die vorderen Reihen.
+        for (int sitz = 1; sitz <= 3; sitz++)
+        {
+            assertTrue(plaetze.contains(new Platz(0, sitz)));
+        }
+        assertTrue(plaetze.contains(new Platz(1, 1)));
+        assertTrue(plaetze.contains(new Platz(1, 2)));
+        v.gibReservierungFrei(r, "Kasse");
+    }
+
+    @Test
+    public void testeSucheBestePlaetzeUeberWortgrenzen()
+    {
+        Kinosaal breit = new Kinosaal("B", 1, 150);
+        Vorstellung v = new Vorstellung(breit, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        // Frei bleiben nur die Sitze 60 bis 69 und 120 bis 139
+        for (int sitz = 0; sitz < 150; sitz++)
+        {
+            if (!(sitz >= 60 && sitz < 70) && !(sitz >= 120 && sitz < 140))
+            {
+                v.verkaufePlatz(new Platz(0, sitz));
+            }
+        }
+        Set<Platz> plaetze = v.sucheBestePlaetze(10);
+        assertEquals(10, plaetze.size());
+        for (int sitz = 60; sitz < 70; sitz++)
+        {
+            assertTrue(plaetze.contains(new Platz(0, sitz)));
+        }
+
+        plaetze = v.sucheBestePlaetze(11);
+        assertEquals(11, plaetze.size());
+        for (int sitz = 120; sitz <= 130; sitz++)
+        {
+            assertTrue(plaetze.contains(new Platz(0, sitz)));
+        }
+        assertTrue(v.sucheBestePlaetze(21).isEmpty());
+    }
+
+    @Test
+    public void testeNaechsterVerkaufterUndFreierPlatz()
+    {
+        Kinosaal saal = new Kinosaal("K", 2, 70);
+        Vorstellung v = new Vorstellung(saal, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        assertEquals(-1, v.naechsterVerkaufterPlatz(0));
+        assertEquals(0, v.naechsterFreierPlatz(0));
+
+        v.verkaufePlatz(new Platz(0, 0));
+        v.verkaufePlatz(new Platz(0, 69));
+        v.verkaufePlatz(new Platz(1, 69));
+        assertNotNull(v.haltePlaetze(Collections.singleton(new Platz(0, 1)),
+                "Kasse", 60000));
+
+        assertEquals(0, v.naechsterVerkaufterPlatz(0));
+        assertEquals(69, v.naechsterVerkaufterPlatz(1));
+        assertEquals(139, v.naechsterVerkaufterPlatz(70));
+        assertEquals(-1, v.naechsterVerkaufterPlatz(140));
+
+        // Der gehaltene Platz 1 ist nicht frei
+        assertEquals(2, v.naechsterFreierPlatz(0));
+        assertEquals(70, v.naechsterFreierPlatz(69));
+        assertEquals(-1, v.naechsterFreierPlatz(139));
+    }
+
+    @Test
+    public void testeGetVerkauftePlaetze()
+    {
+        Vorstellung v = new Vorstellung(_kinoA, _hdR1, _16_45, _20_15,
+                _11_07_2008, 1230);
+        v.verkaufePlatz(new Platz(3, 4));
+        PlatzMenge verkauft = v.getVerkauftePlaetze();
+        v.verkaufePlatz(new Platz(5, 6));
+
+        assertEquals(Collections.singleton(new Platz(3, 4)), verkauft);
+        assertEquals(2, v.getVerkauftePlaetze().size());
+        assertTrue(v.getVerkauftePlaetze().passtZu(_kinoA));
+    }
 }
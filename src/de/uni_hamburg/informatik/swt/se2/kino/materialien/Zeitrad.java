@@ -0,0 +1,174 @@
+package de.uni_hamburg.informatik.swt.se2.kino.materialien;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Ein Zeitrad (hashed timing wheel), über das gehaltene Plätze nach Ablauf
+ * ihrer Haltedauer wieder freigegeben werden. Das Rad besteht aus einer festen
+ * Anzahl von Fächern, die reihum im Takt einer Tick-Dauer abgearbeitet werden.
+ * Eine Reservierung wird in das Fach ihres Ablauf-Ticks einsortiert; beim
+ * Weiterschalten wird nur das jeweils aktuelle Fach betrachtet. Einplanen und
+ * Ablaufen kosten damit konstante Zeit, unabhängig davon, wie viele
+ * Reservierungen in wie vielen Vorstellungen gerade bestehen.
+ * 
+ * Bestätigte oder freigegebene Reservierungen werden nicht aus ihrem Fach
+ * entfernt, sondern beim Erreichen ihres Ticks übersprungen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+class Zeitrad
+{
+    private static Zeitrad _standard;
+
+    private final long _tickDauer;
+    private final ConcurrentLinkedQueue<Reservierung>[] _faecher;
+    private final int _fachMaske;
+    private volatile long _aktuellerTick;
+    private Thread _taktgeber;
+
+    /**
+     * Initialisiert ein neues Zeitrad. Das Rad schaltet erst weiter, wenn
+     * {@link #schalteWeiter()} aufgerufen oder der Taktgeber mit
+     * {@link #starte()} gestartet wird.
+     * 
+     * @param tickDauerInMillis die Dauer eines Ticks in Millisekunden.
+     * @param anzahlFaecher die Anzahl der Fächer, eine Zweierpotenz.
+     * 
+     * @require tickDauerInMillis > 0
+     * @require anzahlFaecher > 0 && anzahlFaecher ist eine Zweierpotenz
+     */
+    public Zeitrad(long tickDauerInMillis, int anzahlFaecher)
+    {
+        assert tickDauerInMillis > 0 : "Vorbedingung verletzt: tickDauerInMillis > 0";
+        assert anzahlFaecher > 0 && Integer.bitCount(anzahlFaecher) == 1 : "Vorbedingung verletzt: anzahlFaecher ist eine Zweierpotenz";
+
+        _tickDauer = tickDauerInMillis;
+        _faecher = erzeugeFaecher(anzahlFaecher);
+        _fachMaske = anzahlFaecher - 1;
+        _aktuellerTick = 0;
+    }
+
+    /**
+     * Erzeugt die angegebene Anzahl leerer Fächer.
+     */
+    private static ConcurrentLinkedQueue<Reservierung>[] erzeugeFaecher(
+            int anzahl)
+    {
+        // Felder generischer Typen lassen sich nicht direkt erzeugen; jedes
+        // Element ist aber tatsächlich eine Queue von Reservierungen.
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<Reservierung>[] faecher = (ConcurrentLinkedQueue<Reservierung>[]) new ConcurrentLinkedQueue<?>[anzahl];
+        for (int i = 0; i < anzahl; i++)
+        {
+            faecher[i] = new ConcurrentLinkedQueue<Reservierung>();
+        }
+        return faecher;
+    }
+
+    /**
+     * Gibt das Zeitrad zurück, das Vorstellungen standardmäßig verwenden. Es
+     * schaltet alle 100 Millisekunden in einem Hintergrund-Thread weiter.
+     * 
+     * @ensure result != null
+     */
+    static synchronized Zeitrad getStandard()
+    {
+        if (_standard == null)
+        {
+            _standard = new Zeitrad(100, 512);
+            _standard.starte();
+        }
+        return _standard;
+    }
+
+    /**
+     * Plant den Ablauf der angegebenen Reservierung nach deren Haltedauer ein.
+     * 
+     * @param reservierung die Reservierung.
+     * 
+     * @require reservierung != null
+     */
+    void plane(Reservierung reservierung)
+    {
+        assert reservierung != null : "Vorbedingung verletzt: reservierung != null";
+
+        long ticks = (reservierung.getHaltedauer() + _tickDauer - 1)
+                / _tickDauer;
+        long ablaufTick = _aktuellerTick + Math.max(1, ticks);
+        reservierung.setAblaufTick(ablaufTick);
+        _faecher[(int) (ablaufTick & _fachMaske)].add(reservierung);
+
+        // Falls das Rad in der Zwischenzeit bereits über den Ablauf-Tick
+        // hinweg geschaltet hat, wird die Reservierung hier beendet.
+        if (_aktuellerTick >= ablaufTick)
+        {
+            reservierung.laufeAb();
+        }
+    }
+
+    /**
+     * Schaltet das Rad um einen Tick weiter und lässt alle Reservierungen
+     * ablaufen, deren Ablauf-Tick erreicht ist.
+     */
+    synchronized void schalteWeiter()
+    {
+        long tick = _aktuellerTick + 1;
+        _aktuellerTick = tick;
+        Iterator<Reservierung> it = _faecher[(int) (tick & _fachMaske)]
+                .iterator();
+        while (it.hasNext())
+        {
+            Reservierung reservierung = it.next();
+            if (!reservierung.istGehalten())
+            {
+                it.remove();
+            }
+            else if (reservierung.getAblaufTick() <= tick)
+            {
+                it.remove();
+                reservierung.laufeAb();
+            }
+        }
+    }
+
+    /**
+     * Startet einen Daemon-Thread, der das Rad im Takt der Tick-Dauer
+     * weiterschaltet.
+     */
+    synchronized void starte()
+    {
+        if (_taktgeber != null)
+        {
+            return;
+        }
+        _taktgeber = new Thread("Zeitrad")
+        {
+            @Override
+            public void run()
+            {
+                long naechsterTick = System.currentTimeMillis() + _tickDauer;
+                while (!isInterrupted())
+                {
+                    long warten = naechsterTick - System.currentTimeMillis();
+                    if (warten > 0)
+                    {
+                        try
+                        {
+                            Thread.sleep(warten);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            return;
+                        }
+                    }
+                    schalteWeiter();
+                    naechsterTick += _tickDauer;
+                }
+            }
+        };
+        _taktgeber.setDaemon(true);
+        _taktgeber.start();
+    }
+}
@@ -0,0 +1,512 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Verkaufsprotokoll;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Ein Dienst, der den Kartenverkauf eines Kinos ohne Oberfläche über HTTP
+ * anbietet, etwa für einen Webshop oder Kassenautomaten, die dasselbe Kino im
+ * Speicher nutzen wie die Kasse. Der Dienst verwendet den HTTP-Server des JDK
+ * und lauscht nur auf der lokalen Adresse. Antworten sind JSON.
+ * 
+ * <pre>
+ * GET  /tagesplan/20.5.2012          die Vorstellungen eines Tages
+ * GET  /vorstellung/{id}             die Plätze einer Vorstellung
+ * POST /vorstellung/{id}/verkauf     verkauft die Plätze im Rumpf, z.B. "3-4,3-5"
+ * POST /vorstellung/{id}/stornierung storniert die Plätze im Rumpf
+ * </pre>
+ * 
+ * Die IDs sind die von {@link Kino#getVorstellungsId(Vorstellung)}. In der
+ * Platzübersicht steht pro Reihe eine Zeichenkette mit '.' für jeden freien und
+ * 'x' für jeden verkauften oder gehaltenen Platz. Verkauf und Stornierung
+ * erfolgen ganz oder gar nicht; ist ein Platz nicht frei bzw. nicht verkauft,
+ * antwortet der Dienst mit 409 und nennt den Platz. Mehr als
+ * {@link Verkaufsprotokoll#MAX_PLAETZE_PRO_AENDERUNG} Plätze auf einmal lehnt
+ * er mit 400 ab.
+ * 
+ * Jede Anfrage wird in einem eigenen virtuellen Thread bearbeitet, sofern die
+ * Laufzeitumgebung virtuelle Threads kennt (ab Java 21), sonst in einem Pool
+ * von Daemon-Threads. Die Anfragen greifen ohne zusätzliche Sperren auf das
+ * Kino zu; Verkauf und Stornierung verwenden die atomaren Operationen der
+ * Vorstellung.
+ * 
+ * Scheitert die Bearbeitung einer Anfrage unerwartet, antwortet der Dienst
+ * mit 500 und protokolliert den Fehler über {@link Logger}.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Verkaufsdienst
+{
+    private static final Charset ZEICHENSATZ = Charset.forName("UTF-8");
+    private static final Logger LOGGER = Logger.getLogger(Verkaufsdienst.class
+        .getName());
+
+    private final Kino _kino;
+    private final HttpServer _server;
+    private final ExecutorService _executor;
+
+    /**
+     * Erzeugt einen Dienst für das angegebene Kino. Er nimmt erst nach
+     * {@link #starte()} Anfragen an.
+     * 
+     * @param kino das Kino.
+     * @param port der Port, oder 0 für einen freien Port.
+     * 
+     * @throws IOException falls der Port nicht belegt werden kann.
+     * 
+     * @require kino != null
+     * @require port >= 0
+     */
+    public Verkaufsdienst(Kino kino, int port) throws IOException
+    {
+        assert kino != null : "Vorbedingung verletzt: kino != null";
+        assert port >= 0 : "Vorbedingung verletzt: port >= 0";
+
+        _kino = kino;
+        _server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        _executor = erzeugeExecutor();
+        _server.setExecutor(_executor);
+        _server.createContext("/tagesplan/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange anfrage) throws IOException
+            {
+                bearbeite(anfrage);
+            }
+        });
+        _server.createContext("/vorstellung/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange anfrage) throws IOException
+            {
+                bearbeite(anfrage);
+            }
+        });
+    }
+
+    /**
+     * Startet den Dienst.
+     */
+    public void starte()
+    {
+        _server.start();
+    }
+
+    /**
+     * Beendet den Dienst. Laufende Anfragen werden nicht abgewartet.
+     */
+    public void beende()
+    {
+        _server.stop(0);
+        _executor.shutdown();
+    }
+
+    /**
+     * Gibt den Port zurück, auf dem der Dienst lauscht.
+     */
+    public int getPort()
+    {
+        return _server.getAddress().getPort();
+    }
+
+    /**
+     * Erzeugt einen Executor, der jede Anfrage in einem neuen virtuellen
+     * Thread ausführt. Virtuelle Threads werden per Reflection angefordert, da
+     * das Projekt für Java 11 übersetzt wird; auf älteren Laufzeitumgebungen
+     * wird stattdessen ein Pool von Daemon-Threads verwendet.
+     */
+    private static ExecutorService erzeugeExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "Verkaufsdienst");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Bearbeitet eine Anfrage und schickt die Antwort.
+     */
+    private void bearbeite(HttpExchange anfrage) throws IOException
+    {
+        try
+        {
+            String[] pfad = anfrage.getRequestURI().getPath().substring(1)
+                    .split("/");
+            String methode = anfrage.getRequestMethod();
+            if (pfad[0].equals("tagesplan") && pfad.length == 2)
+            {
+                if (pruefeMethode(anfrage, methode, "GET"))
+                {
+                    zeigeTagesplan(anfrage, pfad[1]);
+                }
+            }
+            else if (pfad[0].equals("vorstellung") && pfad.length >= 2
+                    && pfad.length <= 3)
+            {
+                Vorstellung vorstellung = findeVorstellung(pfad[1]);
+                if (vorstellung == null)
+                {
+                    antworte(anfrage, 404, fehler("Unbekannte Vorstellung"));
+                }
+                else if (pfad.length == 2)
+                {
+                    if (pruefeMethode(anfrage, methode, "GET"))
+                    {
+                        zeigePlaetze(anfrage, vorstellung);
+                    }
+                }
+                else if (pfad[2].equals("verkauf")
+                        || pfad[2].equals("stornierung"))
+                {
+                    if (pruefeMethode(anfrage, methode, "POST"))
+                    {
+                        aendereBelegung(anfrage, vorstellung, pfad[2]
+                                .equals("verkauf"));
+                    }
+                }
+                else
+                {
+                    antworte(anfrage, 404, fehler("Unbekannter Pfad"));
+                }
+            }
+            else
+            {
+                antworte(anfrage, 404, fehler("Unbekannter Pfad"));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            antworteNachFehler(anfrage, e);
+        }
+        catch (Error e)
+        {
+            antworteNachFehler(anfrage, e);
+            throw e;
+        }
+        finally
+        {
+            anfrage.close();
+        }
+    }
+
+    /**
+     * Protokolliert einen unerwarteten Fehler bei der Bearbeitung der Anfrage
+     * und antwortet mit 500, sofern noch keine Antwort begonnen wurde.
+     */
+    private static void antworteNachFehler(HttpExchange anfrage,
+            Throwable fehler)
+    {
+        if (anfrage.getResponseCode() < 0)
+        {
+            try
+            {
+                antworte(anfrage, 500, fehler("Interner Fehler"));
+            }
+            catch (IOException e)
+            {
+                fehler.addSuppressed(e);
+            }
+        }
+        LOGGER.log(Level.SEVERE, "Anfrage " + anfrage.getRequestMethod() + " "
+                + anfrage.getRequestURI() + " gescheitert", fehler);
+    }
+
+    /**
+     * Prüft die Methode der Anfrage und antwortet mit 405, falls sie nicht
+     * passt.
+     */
+    private boolean pruefeMethode(HttpExchange anfrage, String methode,
+            String erwartet) throws IOException
+    {
+        if (methode.equals(erwartet))
+        {
+            return true;
+        }
+        anfrage.getResponseHeaders().set("Allow", erwartet);
+        antworte(anfrage, 405, fehler("Nur " + erwartet + " erlaubt"));
+        return false;
+    }
+
+    /**
+     * Antwortet mit den Vorstellungen des angegebenen Tages.
+     */
+    private void zeigeTagesplan(HttpExchange anfrage, String tag)
+            throws IOException
+    {
+        Datum datum = parseDatum(tag);
+        if (datum == null)
+        {
+            antworte(anfrage, 400, fehler("Ungültiges Datum"));
+            return;
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Vorstellung vorstellung : _kino.getTagesplan(datum)
+                .getVorstellungen())
+        {
+            if (json.length() > 1)
+            {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(_kino.getVorstellungsId(vorstellung));
+            json.append(",\"film\":");
+            haengeStringAn(json, vorstellung.getFilm().getTitel());
+            json.append(",\"saal\":");
+            haengeStringAn(json, vorstellung.getKinosaal().getName());
+            json.append(",\"anfang\":\"")
+                    .append(vorstellung.getAnfangszeit()
+                            .getFormatiertenString());
+            json.append("\",\"ende\":\"")
+                    .append(vorstellung.getEndzeit().getFormatiertenString());
+            json.append("\",\"preis\":").append(vorstellung.getPreis());
+            json.append(",\"plaetze\":").append(
+                    vorstellung.getKinosaal().getAnzahlPlaetze());
+            json.append(",\"verkauft\":").append(
+                    vorstellung.getAnzahlVerkauftePlaetze());
+            json.append('}');
+        }
+        antworte(anfrage, 200, json.append(']').toString());
+    }
+
+    /**
+     * Antwortet mit der Platzübersicht der angegebenen Vorstellung.
+     */
+    private void zeigePlaetze(HttpExchange anfrage, Vorstellung vorstellung)
+            throws IOException
+    {
+        Kinosaal saal = vorstellung.getKinosaal();
+        int sitze = saal.getAnzahlSitzeProReihe();
+        char[] plaetze = new char[saal.getAnzahlPlaetze()];
+        Arrays.fill(plaetze, 'x');
+        for (int nummer = vorstellung.naechsterFreierPlatz(0); nummer >= 0; nummer = vorstellung
+                .naechsterFreierPlatz(nummer + 1))
+        {
+            plaetze[nummer] = '.';
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(_kino.getVorstellungsId(vorstellung));
+        json.append(",\"preis\":").append(vorstellung.getPreis());
+        json.append(",\"reihen\":[");
+        for (int reihe = 0; reihe < saal.getAnzahlReihen(); reihe++)
+        {
+            if (reihe > 0)
+            {
+                json.append(',');
+            }
+            json.append('"').append(plaetze, reihe * sitze, sitze).append('"');
+        }
+        antworte(anfrage, 200, json.append("]}").toString());
+    }
+
+    /**
+     * Verkauft oder storniert die im Rumpf der Anfrage angegebenen Plätze.
+     */
+    private void aendereBelegung(HttpExchange anfrage,
+            Vorstellung vorstellung, boolean verkaufen) throws IOException
+    {
+        PlatzMenge plaetze = parsePlaetze(leseRumpf(anfrage),
+                vorstellung.getKinosaal());
+        if (plaetze == null || plaetze.isEmpty())
+        {
+            antworte(anfrage, 400, fehler("Ungültige Plätze"));
+            return;
+        }
+        if (plaetze.size() > Verkaufsprotokoll.MAX_PLAETZE_PRO_AENDERUNG)
+        {
+            antworte(anfrage, 400, fehler("Zu viele Plätze"));
+            return;
+        }
+        Platz konflikt = verkaufen ? vorstellung.verkaufeFallsFrei(plaetze)
+                : vorstellung.storniereFallsVerkauft(plaetze);
+        if (konflikt != null)
+        {
+            antworte(anfrage, 409, "{\"fehler\":\""
+                    + (verkaufen ? "Platz nicht frei" : "Platz nicht verkauft")
+                    + "\",\"platz\":\"" + konflikt + "\"}");
+            return;
+        }
+        antworte(anfrage, 200, "{\"plaetze\":" + plaetze.size()
+                + ",\"preis\":" + vorstellung.getPreisFuerPlaetze(plaetze)
+                + "}");
+    }
+
+    /**
+     * Gibt die Vorstellung mit der angegebenen ID zurück oder null.
+     */
+    private Vorstellung findeVorstellung(String id)
+    {
+        try
+        {
+            return _kino.getVorstellung(Long.parseLong(id));
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Liest ein Datum der Form Tag.Monat.Jahr, oder gibt null zurück.
+     */
+    static Datum parseDatum(String text)
+    {
+        String[] teile = text.split("\\.");
+        if (teile.length != 3)
+        {
+            return null;
+        }
+        try
+        {
+            int tag = Integer.parseInt(teile[0]);
+            int monat = Integer.parseInt(teile[1]);
+            int jahr = Integer.parseInt(teile[2]);
+            return Datum.istGueltig(tag, monat, jahr) ? new Datum(tag, monat,
+                    jahr) : null;
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Liest eine durch Kommas getrennte Liste von Plätzen der Form
+     * Reihe-Sitz, oder gibt null zurück, falls ein Platz ungültig ist oder
+     * nicht zum Kinosaal gehört.
+     */
+    static PlatzMenge parsePlaetze(String text, Kinosaal saal)
+    {
+        PlatzMenge plaetze = new PlatzMenge(saal);
+        for (String eintrag : text.split(","))
+        {
+            eintrag = eintrag.trim();
+            if (eintrag.isEmpty())
+            {
+                continue;
+            }
+            int trenner = eintrag.indexOf('-');
+            if (trenner < 0)
+            {
+                return null;
+            }
+            try
+            {
+                int reihe = Integer.parseInt(eintrag.substring(0, trenner));
+                int sitz = Integer.parseInt(eintrag.substring(trenner + 1));
+                if (reihe < 0 || reihe >= saal.getAnzahlReihen() || sitz < 0
+                        || sitz >= saal.getAnzahlSitzeProReihe())
+                {
+                    return null;
+                }
+                plaetze.add(saal.getPlatz(reihe, sitz));
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+        }
+        return plaetze;
+    }
+
+    /**
+     * Liest den Rumpf der Anfrage als Text.
+     */
+    private static String leseRumpf(HttpExchange anfrage) throws IOException
+    {
+        InputStream ein = anfrage.getRequestBody();
+        ByteArrayOutputStream rumpf = new ByteArrayOutputStream();
+        byte[] puffer = new byte[1024];
+        int gelesen;
+        while ((gelesen = ein.read(puffer)) > 0)
+        {
+            rumpf.write(puffer, 0, gelesen);
+        }
+        return new String(rumpf.toByteArray(), ZEICHENSATZ);
+    }
+
+    /**
+     * Schickt die Antwort mit dem angegebenen Status.
+     */
+    private static void antworte(HttpExchange anfrage, int status, String json)
+            throws IOException
+    {
+        byte[] daten = json.getBytes(ZEICHENSATZ);
+        anfrage.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        anfrage.sendResponseHeaders(status, daten.length);
+        OutputStream aus = anfrage.getResponseBody();
+        aus.write(daten);
+        aus.close();
+    }
+
+    private static String fehler(String meldung)
+    {
+        StringBuilder json = new StringBuilder("{\"fehler\":");
+        haengeStringAn(json, meldung);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Hängt den Text als JSON-String an.
+     */
+    private static void haengeStringAn(StringBuilder json, String text)
+    {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                json.append('\\').append(c);
+            }
+            else if (c < 0x20)
+            {
+                json.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,197 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.http;
+
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.DATUM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Verkaufsprotokoll;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+public class VerkaufsdienstTest
+{
+    private Vorstellung _vorstellung;
+    private Kino _kino;
+    private Verkaufsdienst _dienst;
+    private String _pfad;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        starte(new Kinosaal("Saal \"1\"", 2, 4));
+    }
+
+    @After
+    public void tearDown()
+    {
+        _dienst.beende();
+    }
+
+    /**
+     * Startet einen Dienst für ein Kino mit einer Vorstellung in dem
+     * angegebenen Saal.
+     */
+    private void starte(Kinosaal saal) throws IOException
+    {
+        _vorstellung = new Vorstellung(saal, new Film("Thor", 115, FSK.FSK12,
+                false), new Uhrzeit(20, 0), new Uhrzeit(22, 0), DATUM, 900);
+        _kino = new Kino(new Kinosaal[] { saal },
+                new Vorstellung[] { _vorstellung });
+        _dienst = new Verkaufsdienst(_kino, 0);
+        _dienst.starte();
+        _pfad = "/vorstellung/" + _kino.getVorstellungsId(_vorstellung);
+    }
+
+    /**
+     * Schickt eine Anfrage und gibt Status und Antwort als "Status Antwort"
+     * zurück.
+     */
+    private String sende(String methode, String pfad, String rumpf)
+            throws IOException
+    {
+        HttpURLConnection verbindung = (HttpURLConnection) new URL(
+                "http://localhost:" + _dienst.getPort() + pfad)
+                .openConnection();
+        verbindung.setRequestMethod(methode);
+        if (rumpf != null)
+        {
+            verbindung.setDoOutput(true);
+            OutputStream aus = verbindung.getOutputStream();
+            aus.write(rumpf.getBytes("UTF-8"));
+            aus.close();
+        }
+        int status = verbindung.getResponseCode();
+        InputStream ein = status < 400 ? verbindung.getInputStream()
+                : verbindung.getErrorStream();
+        ByteArrayOutputStream antwort = new ByteArrayOutputStream();
+        int b;
+        while ((b = ein.read()) >= 0)
+        {
+            antwort.write(b);
+        }
+        ein.close();
+        return status + " " + new String(antwort.toByteArray(), "UTF-8");
+    }
+
+    @Test
+    public void testeTagesplan() throws IOException
+    {
+        String antwort = sende("GET", "/tagesplan/11.7.2008", null);
+        assertEquals("200 [{\"id\":" + _kino.getVorstellungsId(_vorstellung)
+                + ",\"film\":\"Thor\",\"saal\":\"Saal \\\"1\\\"\","
+                + "\"anfang\":\"20:00\",\"ende\":\"22:00\",\"preis\":900,"
+                + "\"plaetze\":8,\"verkauft\":0}]", antwort);
+        assertEquals("200 []", sende("GET", "/tagesplan/12.7.2008", null));
+        assertTrue(sende("GET", "/tagesplan/31.2.2008", null).startsWith(
+                "400 "));
+    }
+
+    @Test
+    public void testeVerkaufUndStornierung() throws IOException
+    {
+        assertEquals("200 {\"plaetze\":2,\"preis\":1800}", sende("POST",
+                _pfad + "/verkauf", "0-1, 1-3"));
+        assertTrue(_vorstellung.istPlatzVerkauft(new Platz(1, 3)));
+        assertEquals("200 {\"id\":" + _kino.getVorstellungsId(_vorstellung)
+                + ",\"preis\":900,\"reihen\":[\".x..\",\"...x\"]}", sende(
+                "GET", _pfad, null));
+
+        assertEquals("409 {\"fehler\":\"Platz nicht frei\",\"platz\":\"0-1\"}",
+                sende("POST", _pfad + "/verkauf", "0-0,0-1"));
+        assertEquals(2, _vorstellung.getAnzahlVerkauftePlaetze());
+
+        assertEquals(
+                "409 {\"fehler\":\"Platz nicht verkauft\",\"platz\":\"0-0\"}",
+                sende("POST", _pfad + "/stornierung", "0-0,0-1"));
+        assertEquals("200 {\"plaetze\":1,\"preis\":900}", sende("POST",
+                _pfad + "/stornierung", "0-1"));
+        assertEquals(1, _vorstellung.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeFehlerhafteAnfragen() throws IOException
+    {
+        assertTrue(sende("GET", "/vorstellung/42", null).startsWith("404 "));
+        assertTrue(sende("GET", _pfad + "/verkauf", null).startsWith("405 "));
+        assertTrue(sende("POST", _pfad + "/verkauf", "2-0").startsWith("400 "));
+        assertTrue(sende("POST", _pfad + "/verkauf", "a-b").startsWith("400 "));
+        assertTrue(sende("POST", _pfad + "/verkauf", "").startsWith("400 "));
+        assertEquals(0, _vorstellung.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeZuVielePlaetze() throws IOException
+    {
+        _dienst.beende();
+        starte(new Kinosaal("Halle", 200, 100));
+
+        StringBuilder rumpf = new StringBuilder();
+        for (int i = 0; i <= Verkaufsprotokoll.MAX_PLAETZE_PRO_AENDERUNG; i++)
+        {
+            rumpf.append(i / 100).append('-').append(i % 100).append(',');
+        }
+        assertEquals("400 {\"fehler\":\"Zu viele Plätze\"}", sende("POST",
+                _pfad + "/verkauf", rumpf.toString()));
+        assertEquals(0, _vorstellung.getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeUnerwarteterFehler() throws IOException
+    {
+        _kino.setVerkaufsprotokoll(new Verkaufsprotokoll()
+        {
+            @Override
+            public long plaetzeVerkauft(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                throw new IllegalStateException("Journal geschlossen");
+            }
+
+            @Override
+            public long plaetzeStorniert(Vorstellung vorstellung,
+                    Set<Platz> plaetze, Runnable aenderung)
+            {
+                throw new IllegalStateException("Journal geschlossen");
+            }
+
+            @Override
+            public void warteAuf(long quittung)
+            {
+            }
+        });
+        Logger logger = Logger.getLogger(Verkaufsdienst.class.getName());
+        Level vorher = logger.getLevel();
+        logger.setLevel(Level.OFF);
+        try
+        {
+            assertEquals("500 {\"fehler\":\"Interner Fehler\"}", sende(
+                    "POST", _pfad + "/verkauf", "0-0"));
+        }
+        finally
+        {
+            logger.setLevel(vorher);
+        }
+        assertEquals(0, _vorstellung.getAnzahlVerkauftePlaetze());
+        // Der Dienst bearbeitet danach weiter Anfragen.
+        assertTrue(sende("GET", _pfad, null).startsWith("200 "));
+    }
+}
@@ -0,0 +1,50 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.jmx;
+
+/**
+ * Die Sicht auf ein Histogramm, wie sie über JMX veröffentlicht wird.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface HistogrammMXBean
+{
+    /**
+     * Gibt die Einheit der Werte zurück, etwa "ns".
+     */
+    String getEinheit();
+
+    /**
+     * Gibt die Anzahl der erfassten Werte zurück.
+     */
+    long getAnzahl();
+
+    /**
+     * Gibt den Mittelwert der erfassten Werte zurück.
+     */
+    double getMittelwert();
+
+    /**
+     * Gibt den Median der erfassten Werte zurück.
+     */
+    long getMedian();
+
+    /**
+     * Gibt das 90. Perzentil der erfassten Werte zurück.
+     */
+    long getPerzentil90();
+
+    /**
+     * Gibt das 99. Perzentil der erfassten Werte zurück.
+     */
+    long getPerzentil99();
+
+    /**
+     * Gibt das 99,9. Perzentil der erfassten Werte zurück.
+     */
+    long getPerzentil999();
+
+    /**
+     * Gibt den größten erfassten Wert zurück.
+     */
+    long getMaximum();
+}
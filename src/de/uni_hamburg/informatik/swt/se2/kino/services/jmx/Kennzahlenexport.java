@@ -0,0 +1,241 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.jmx;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Histogramm;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kennzahlen;
+
+/**
+ * Veröffentlicht Kennzahlen und Histogramme als MXBeans beim
+ * Plattform-MBean-Server, sodass sie etwa mit JConsole oder VisualVM
+ * beobachtet werden können. Alle Beans liegen in der Domäne
+ * {@value #DOMAENE}. Die Werte werden erst beim Lesen eines Attributs aus den
+ * Histogrammen und Zählern berechnet; die Erfassung bleibt davon unberührt.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Kennzahlenexport
+{
+    /**
+     * Die JMX-Domäne aller Beans dieser Anwendung.
+     */
+    public static final String DOMAENE = "de.uni_hamburg.informatik.swt.se2.kino";
+
+    private Kennzahlenexport()
+    {
+    }
+
+    /**
+     * Veröffentlicht die angegebenen Kennzahlen: eine {@link VerkaufMXBean}
+     * mit dem Namen "Verkauf" und je eine {@link HistogrammMXBean} für Dauer
+     * und Plätze von Verkäufen und Stornierungen.
+     * 
+     * @throws JMException falls die Beans nicht registriert werden können.
+     * 
+     * @require kennzahlen != null
+     */
+    public static void registriere(Kennzahlen kennzahlen) throws JMException
+    {
+        assert kennzahlen != null : "Vorbedingung verletzt: kennzahlen != null";
+
+        registriere(name("Verkauf", "Verkauf"), new Verkauf(kennzahlen));
+        registriere("Verkaufsdauer", kennzahlen.getVerkaufsdauer(), "ns");
+        registriere("Stornierungsdauer", kennzahlen.getStornierungsdauer(),
+                "ns");
+        registriere("PlaetzeProVerkauf", kennzahlen.getPlaetzeProVerkauf(),
+                "Plätze");
+        registriere("PlaetzeProStornierung", kennzahlen
+                .getPlaetzeProStornierung(), "Plätze");
+    }
+
+    /**
+     * Veröffentlicht ein Histogramm unter dem angegebenen Namen. Ist unter
+     * dem Namen bereits eine Bean registriert, wird sie ersetzt.
+     * 
+     * @param name der Name der Bean.
+     * @param histogramm das Histogramm.
+     * @param einheit die Einheit der Werte, etwa "ns".
+     * 
+     * @throws JMException falls die Bean nicht registriert werden kann.
+     * 
+     * @require name != null
+     * @require histogramm != null
+     * @require einheit != null
+     */
+    public static void registriere(String name, Histogramm histogramm,
+            String einheit) throws JMException
+    {
+        assert name != null : "Vorbedingung verletzt: name != null";
+        assert histogramm != null : "Vorbedingung verletzt: histogramm != null";
+        assert einheit != null : "Vorbedingung verletzt: einheit != null";
+
+        registriere(name("Histogramm", name), new Verteilung(histogramm,
+                einheit));
+    }
+
+    /**
+     * Gibt den Namen zurück, unter dem eine Bean des angegebenen Typs
+     * veröffentlicht wird.
+     * 
+     * @throws JMException falls der Name ungültig ist.
+     * 
+     * @require typ != null
+     * @require name != null
+     */
+    public static ObjectName name(String typ, String name) throws JMException
+    {
+        assert typ != null : "Vorbedingung verletzt: typ != null";
+        assert name != null : "Vorbedingung verletzt: name != null";
+
+        return new ObjectName(DOMAENE + ":type=" + typ + ",name="
+                + ObjectName.quote(name));
+    }
+
+    private static void registriere(ObjectName name, Object bean)
+            throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name))
+        {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+
+    /**
+     * Die Bean zu einem Histogramm.
+     */
+    private static class Verteilung implements HistogrammMXBean
+    {
+        private final Histogramm _histogramm;
+        private final String _einheit;
+
+        Verteilung(Histogramm histogramm, String einheit)
+        {
+            _histogramm = histogramm;
+            _einheit = einheit;
+        }
+
+        @Override
+        public String getEinheit()
+        {
+            return _einheit;
+        }
+
+        @Override
+        public long getAnzahl()
+        {
+            return _histogramm.getAnzahl();
+        }
+
+        @Override
+        public double getMittelwert()
+        {
+            return _histogramm.getMittelwert();
+        }
+
+        @Override
+        public long getMedian()
+        {
+            return _histogramm.getPerzentil(0.5);
+        }
+
+        @Override
+        public long getPerzentil90()
+        {
+            return _histogramm.getPerzentil(0.9);
+        }
+
+        @Override
+        public long getPerzentil99()
+        {
+            return _histogramm.getPerzentil(0.99);
+        }
+
+        @Override
+        public long getPerzentil999()
+        {
+            return _histogramm.getPerzentil(0.999);
+        }
+
+        @Override
+        public long getMaximum()
+        {
+            return _histogramm.getMaximum();
+        }
+    }
+
+    /**
+     * Die Bean zu den Zählern der Kennzahlen.
+     */
+    private static class Verkauf implements VerkaufMXBean
+    {
+        private final Kennzahlen _kennzahlen;
+
+        Verkauf(Kennzahlen kennzahlen)
+        {
+            _kennzahlen = kennzahlen;
+        }
+
+        @Override
+        public long getVerkaeufe()
+        {
+            return _kennzahlen.getPlaetzeProVerkauf().getAnzahl();
+        }
+
+        @Override
+        public long getVerkauftePlaetze()
+        {
+            return _kennzahlen.getPlaetzeProVerkauf().getSumme();
+        }
+
+        @Override
+        public long getVerkaufskonflikte()
+        {
+            return _kennzahlen.getVerkaufskonflikte();
+        }
+
+        @Override
+        public long getStornierungen()
+        {
+            return _kennzahlen.getPlaetzeProStornierung().getAnzahl();
+        }
+
+        @Override
+        public long getStorniertePlaetze()
+        {
+            return _kennzahlen.getPlaetzeProStornierung().getSumme();
+        }
+
+        @Override
+        public long getStornierungskonflikte()
+        {
+            return _kennzahlen.getStornierungskonflikte();
+        }
+
+        @Override
+        public long getTagesplanTreffer()
+        {
+            return _kennzahlen.getTagesplanTreffer();
+        }
+
+        @Override
+        public long getTagesplanFehlgriffe()
+        {
+            return _kennzahlen.getTagesplanFehlgriffe();
+        }
+
+        @Override
+        public double getTagesplanTrefferquote()
+        {
+            long treffer = getTagesplanTreffer();
+            long anfragen = treffer + getTagesplanFehlgriffe();
+            return anfragen == 0 ? 1 : (double) treffer / anfragen;
+        }
+    }
+}
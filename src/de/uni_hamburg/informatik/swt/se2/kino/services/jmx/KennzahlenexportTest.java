@@ -0,0 +1,94 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Histogramm;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kennzahlen;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+public class KennzahlenexportTest
+{
+    private static final MBeanServer SERVER = ManagementFactory
+            .getPlatformMBeanServer();
+
+    @Test
+    public void testeVerkaufUndStornierungWerdenGezaehlt() throws Exception
+    {
+        Kennzahlenexport.registriere(Kennzahlen.getStandard());
+        ObjectName verkauf = Kennzahlenexport.name("Verkauf", "Verkauf");
+
+        Kinosaal saal = new Kinosaal("Saal", 5, 5);
+        Datum tag = new Datum(1, 1, 2012);
+        Vorstellung vorstellung = new Vorstellung(saal, new Film("Film", 90,
+                FSK.FSK0, false), new Uhrzeit(20, 0), new Uhrzeit(22, 0), tag,
+                800);
+        Kino kino = new Kino(new Kinosaal[] { saal },
+                new Vorstellung[] { vorstellung });
+        Set<Platz> plaetze = new HashSet<Platz>(Arrays.asList(Platz.get(1, 1),
+                Platz.get(1, 2)));
+
+        long verkaeufe = lies(verkauf, "Verkaeufe");
+        long verkauftePlaetze = lies(verkauf, "VerkauftePlaetze");
+        long konflikte = lies(verkauf, "Verkaufskonflikte");
+        long stornierungen = lies(verkauf, "Stornierungen");
+        long treffer = lies(verkauf, "TagesplanTreffer");
+        long fehlgriffe = lies(verkauf, "TagesplanFehlgriffe");
+
+        vorstellung.verkaufeFallsFrei(plaetze);
+        vorstellung.verkaufeFallsFrei(plaetze);
+        vorstellung.storniereFallsVerkauft(plaetze);
+        kino.getTagesplan(tag);
+        kino.getTagesplan(tag.naechsterTag());
+
+        // Andere Tests können gleichzeitig verkaufen, daher nur Untergrenzen.
+        assertTrue(lies(verkauf, "Verkaeufe") >= verkaeufe + 1);
+        assertTrue(lies(verkauf, "VerkauftePlaetze") >= verkauftePlaetze + 2);
+        assertTrue(lies(verkauf, "Verkaufskonflikte") >= konflikte + 1);
+        assertTrue(lies(verkauf, "Stornierungen") >= stornierungen + 1);
+        assertTrue(lies(verkauf, "TagesplanTreffer") >= treffer + 1);
+        assertTrue(lies(verkauf, "TagesplanFehlgriffe") >= fehlgriffe + 1);
+        assertTrue(lies(Kennzahlenexport.name("Histogramm", "Verkaufsdauer"),
+                "Anzahl") >= 2);
+    }
+
+    @Test
+    public void testeHistogrammWirdErsetzt() throws Exception
+    {
+        Histogramm erstes = new Histogramm();
+        Histogramm zweites = new Histogramm();
+        zweites.erfasse(7);
+        Kennzahlenexport.registriere("Test", erstes, "ms");
+        Kennzahlenexport.registriere("Test", zweites, "ms");
+
+        ObjectName name = Kennzahlenexport.name("Histogramm", "Test");
+        assertEquals(1L, lies(name, "Anzahl"));
+        assertEquals(7L, lies(name, "Perzentil99"));
+        assertNotNull(SERVER.getAttribute(name, "Einheit"));
+        SERVER.unregisterMBean(name);
+    }
+
+    private static long lies(ObjectName name, String attribut)
+            throws Exception
+    {
+        return ((Number) SERVER.getAttribute(name, attribut)).longValue();
+    }
+}
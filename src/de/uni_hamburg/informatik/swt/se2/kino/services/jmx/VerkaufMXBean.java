@@ -0,0 +1,61 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.jmx;
+
+/**
+ * Die Zähler der Verkaufspfade, wie sie über JMX veröffentlicht werden. Die
+ * Verteilungen von Dauer und Platzanzahl liegen in eigenen
+ * {@link HistogrammMXBean}s.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface VerkaufMXBean
+{
+    /**
+     * Gibt die Anzahl erfolgreicher Verkäufe zurück.
+     */
+    long getVerkaeufe();
+
+    /**
+     * Gibt die Anzahl der insgesamt verkauften Plätze zurück.
+     */
+    long getVerkauftePlaetze();
+
+    /**
+     * Gibt zurück, wie oft ein Verkauf an einem belegten Platz gescheitert
+     * ist.
+     */
+    long getVerkaufskonflikte();
+
+    /**
+     * Gibt die Anzahl erfolgreicher Stornierungen zurück.
+     */
+    long getStornierungen();
+
+    /**
+     * Gibt die Anzahl der insgesamt stornierten Plätze zurück.
+     */
+    long getStorniertePlaetze();
+
+    /**
+     * Gibt zurück, wie oft eine Stornierung an einem nicht verkauften Platz
+     * gescheitert ist.
+     */
+    long getStornierungskonflikte();
+
+    /**
+     * Gibt zurück, wie oft ein angefragter Tagesplan im Programm lag.
+     */
+    long getTagesplanTreffer();
+
+    /**
+     * Gibt zurück, wie oft ein Tagesplan außerhalb des Programms angefragt
+     * wurde.
+     */
+    long getTagesplanFehlgriffe();
+
+    /**
+     * Gibt den Anteil der Tagesplan-Anfragen zurück, die im Programm lagen,
+     * oder 1, falls noch keiner angefragt wurde.
+     */
+    double getTagesplanTrefferquote();
+}
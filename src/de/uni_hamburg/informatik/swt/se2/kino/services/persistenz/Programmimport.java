@@ -0,0 +1,1057 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.persistenz;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Konflikt;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Liest ein Kinoprogramm mit Kinosälen, Filmen und Vorstellungen aus einer
+ * Datei und baut daraus ein Kino auf.
+ * 
+ * Im CSV-Format steht ein Datensatz pro Zeile, die Felder sind durch Semikolons
+ * getrennt. Leere Zeilen und Zeilen, die mit # beginnen, werden übersprungen.
+ * Alle Säle und Filme müssen vor der ersten Vorstellung stehen:
+ * 
+ * <pre>
+ * SAAL;Saal 1;20;25
+ * FILM;Rio;96;FSK0;nein
+ * VORSTELLUNG;Saal 1;Rio;20.5.2012;17:30;20:00;500
+ * </pre>
+ * 
+ * Säle und Filme werden der Reihe nach gelesen. Die Vorstellungen werden in
+ * Abschnitte an Zeilengrenzen aufgeteilt, die parallel direkt aus der
+ * eingeblendeten Datei gelesen und sofort dem Kino hinzugefügt werden. Gleiche
+ * Säle, Filme, Uhrzeiten und Daten werden dabei nur einmal erzeugt.
+ * Vorstellungen, die sich im selben Saal überschneiden, werden als Fehler
+ * gemeldet.
+ * 
+ * Das Binärformat enthält dieselben Daten, die Vorstellungen aber als
+ * Datensätze fester Länge, die ohne Zerlegen von Text gelesen werden. Es kann
+ * mit {@link #konvertiere(File, File)} aus einer CSV-Datei erzeugt werden.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Programmimport
+{
+    /**
+     * Die Kennung am Anfang jeder Programmdatei im Binärformat.
+     */
+    public static final int KENNUNG = 0x4B505231;
+
+    private static final Charset ZEICHENSATZ = Charset.forName("UTF-8");
+    private static final byte[] VORSTELLUNG = "VORSTELLUNG"
+            .getBytes(ZEICHENSATZ);
+    private static final byte TRENNER = ';';
+
+    // Saal und Film (je 2 Byte), Datum (4 Byte), Anfang und Ende in Minuten
+    // (je 2 Byte), Preis (4 Byte).
+    private static final int DATENSATZ_LAENGE = 16;
+
+    // Kleinere Abschnitte lohnen den Aufwand für einen eigenen Thread nicht,
+    // größere lassen sich nicht am Stück einblenden.
+    private static final long MIN_ABSCHNITT = 256 * 1024;
+    private static final long MAX_ABSCHNITT = 1 << 30;
+
+    private final int _anzahlThreads;
+    private final List<Kinosaal> _saele;
+    private final List<Film> _filme;
+    private final Map<Name, Integer> _saalNummern;
+    private final Map<Name, Integer> _filmNummern;
+    private final AtomicReferenceArray<Uhrzeit> _uhrzeiten;
+    private final ConcurrentMap<Integer, Datum> _daten;
+
+    /**
+     * Initialisiert einen Import, der so viele Threads verwendet, wie
+     * Prozessoren zur Verfügung stehen.
+     */
+    public Programmimport()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initialisiert einen Import mit der angegebenen Anzahl von Threads.
+     * 
+     * @param anzahlThreads die Anzahl der Threads.
+     * 
+     * @require anzahlThreads > 0
+     */
+    public Programmimport(int anzahlThreads)
+    {
+        assert anzahlThreads > 0 : "Vorbedingung verletzt: anzahlThreads > 0";
+
+        _anzahlThreads = anzahlThreads;
+        _saele = new ArrayList<Kinosaal>();
+        _filme = new ArrayList<Film>();
+        _saalNummern = new HashMap<Name, Integer>();
+        _filmNummern = new HashMap<Name, Integer>();
+        _uhrzeiten = new AtomicReferenceArray<Uhrzeit>(24 * 60);
+        _daten = new ConcurrentHashMap<Integer, Datum>();
+    }
+
+    /**
+     * Liest ein Programm im CSV-Format.
+     * 
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht gelesen werden kann oder
+     *             fehlerhaft ist.
+     * 
+     * @require datei != null
+     * @ensure result != null
+     */
+    public Kino leseCsv(File datei) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        setzeZurueck();
+        RandomAccessFile zugriff = new RandomAccessFile(datei, "r");
+        try
+        {
+            FileChannel kanal = zugriff.getChannel();
+            long anfang = leseStammdaten(kanal);
+            final Kino kino = new Kino(_saele.toArray(new Kinosaal[_saele
+                    .size()]));
+            long[] grenzen = teileAuf(kanal, anfang, kanal.size());
+            List<Callable<Integer>> abschnitte = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i + 1 < grenzen.length; i++)
+            {
+                abschnitte.add(csvAbschnitt(kanal, grenzen[i], grenzen[i + 1],
+                        new Vorstellungsziel()
+                        {
+                            public void vorstellung(int saal, int film,
+                                    int datum, int anfang, int ende, int preis)
+                                    throws IOException
+                            {
+                                fuegeHinzu(kino, erzeugeVorstellung(saal,
+                                        film, datum, anfang, ende, preis));
+                            }
+                        }));
+            }
+            fuehreAus(abschnitte);
+            return kino;
+        }
+        finally
+        {
+            zugriff.close();
+        }
+    }
+
+    /**
+     * Liest ein Programm im Binärformat.
+     * 
+     * @param datei die Datei.
+     * 
+     * @throws IOException falls die Datei nicht gelesen werden kann oder
+     *             fehlerhaft ist.
+     * 
+     * @require datei != null
+     * @ensure result != null
+     */
+    public Kino leseBinaer(File datei) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        setzeZurueck();
+        DataInputStream kopf = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(datei)));
+        int kopfLaenge;
+        int anzahl;
+        try
+        {
+            if (kopf.readInt() != KENNUNG)
+            {
+                throw new IOException("Keine Programmdatei: " + datei);
+            }
+            kopfLaenge = kopf.readInt();
+            anzahl = kopf.readInt();
+            int anzahlSaele = kopf.readInt();
+            for (int i = 0; i < anzahlSaele; i++)
+            {
+                fuegeSaalHinzu(new Kinosaal(kopf.readUTF(), kopf.readInt(),
+                        kopf.readInt()));
+            }
+            int anzahlFilme = kopf.readInt();
+            for (int i = 0; i < anzahlFilme; i++)
+            {
+                String titel = kopf.readUTF();
+                int laenge = kopf.readInt();
+                int fsk = kopf.readByte();
+                if (fsk < 0 || fsk >= FSK.values().length)
+                {
+                    throw new IOException("Ungültige FSK in " + datei);
+                }
+                fuegeFilmHinzu(new Film(titel, laenge, FSK.values()[fsk], kopf
+                        .readBoolean()));
+            }
+        }
+        finally
+        {
+            kopf.close();
+        }
+
+        final Kino kino = new Kino(_saele.toArray(new Kinosaal[_saele.size()]));
+        RandomAccessFile zugriff = new RandomAccessFile(datei, "r");
+        try
+        {
+            final FileChannel kanal = zugriff.getChannel();
+            long ende = kopfLaenge + (long) anzahl * DATENSATZ_LAENGE;
+            if (kanal.size() < ende)
+            {
+                throw new IOException("Programmdatei ist unvollständig: "
+                        + datei);
+            }
+            long[] grenzen = teileDatensaetzeAuf(anzahl);
+            List<Callable<Integer>> abschnitte = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i + 1 < grenzen.length; i++)
+            {
+                final long von = kopfLaenge + grenzen[i] * DATENSATZ_LAENGE;
+                final long laenge = (grenzen[i + 1] - grenzen[i])
+                        * DATENSATZ_LAENGE;
+                abschnitte.add(new Callable<Integer>()
+                {
+                    public Integer call() throws IOException
+                    {
+                        return Integer.valueOf(leseDatensaetze(kino, kanal,
+                                von, laenge));
+                    }
+                });
+            }
+            fuehreAus(abschnitte);
+            return kino;
+        }
+        finally
+        {
+            zugriff.close();
+        }
+    }
+
+    /**
+     * Wandelt ein Programm im CSV-Format in das Binärformat um, ohne es
+     * vollständig in den Speicher zu laden.
+     * 
+     * @param csv die Quelldatei im CSV-Format.
+     * @param binaer die Zieldatei.
+     * 
+     * @throws IOException falls eine der Dateien nicht gelesen bzw.
+     *             geschrieben werden kann oder die Quelldatei fehlerhaft ist.
+     * 
+     * @require csv != null
+     * @require binaer != null
+     */
+    public void konvertiere(File csv, File binaer) throws IOException
+    {
+        assert csv != null : "Vorbedingung verletzt: csv != null";
+        assert binaer != null : "Vorbedingung verletzt: binaer != null";
+
+        setzeZurueck();
+        RandomAccessFile quelle = new RandomAccessFile(csv, "r");
+        RandomAccessFile ziel = new RandomAccessFile(binaer, "rw");
+        try
+        {
+            FileChannel quellkanal = quelle.getChannel();
+            final FileChannel zielkanal = ziel.getChannel();
+            zielkanal.truncate(0);
+            long anfang = leseStammdaten(quellkanal);
+            zielkanal.write(ByteBuffer.wrap(schreibeKopf()));
+
+            final ByteBuffer puffer = ByteBuffer.allocate(64 * 1024);
+            Vorstellungsziel schreiber = new Vorstellungsziel()
+            {
+                public void vorstellung(int saal, int film, int datum,
+                        int anfang, int ende, int preis) throws IOException
+                {
+                    if (puffer.remaining() < DATENSATZ_LAENGE)
+                    {
+                        schreibe(zielkanal, puffer);
+                    }
+                    puffer.putShort((short) saal);
+                    puffer.putShort((short) film);
+                    puffer.putInt(datum);
+                    puffer.putShort((short) anfang);
+                    puffer.putShort((short) ende);
+                    puffer.putInt(preis);
+                }
+            };
+            int anzahl = 0;
+            long[] grenzen = teileAuf(quellkanal, anfang, quellkanal.size());
+            for (int i = 0; i + 1 < grenzen.length; i++)
+            {
+                anzahl += rufeAuf(csvAbschnitt(quellkanal, grenzen[i],
+                        grenzen[i + 1], schreiber));
+            }
+            schreibe(zielkanal, puffer);
+
+            ByteBuffer anzahlPuffer = ByteBuffer.allocate(4);
+            anzahlPuffer.putInt(0, anzahl);
+            zielkanal.write(anzahlPuffer, 8);
+            zielkanal.force(false);
+        }
+        finally
+        {
+            ziel.close();
+            quelle.close();
+        }
+    }
+
+    /**
+     * Liest die Säle und Filme am Anfang einer CSV-Datei.
+     * 
+     * @return die Position der ersten Vorstellung oder das Ende der Datei.
+     */
+    private long leseStammdaten(FileChannel kanal) throws IOException
+    {
+        ByteBuffer puffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream zeile = new ByteArrayOutputStream();
+        long zeilenAnfang = 0;
+        long position = 0;
+        while (true)
+        {
+            puffer.clear();
+            int gelesen = kanal.read(puffer, position);
+            if (gelesen <= 0)
+            {
+                if (zeile.size() > 0)
+                {
+                    if (!leseStammdatensatz(zeile, zeilenAnfang))
+                    {
+                        return zeilenAnfang;
+                    }
+                }
+                return position;
+            }
+            for (int i = 0; i < gelesen; i++)
+            {
+                byte b = puffer.get(i);
+                if (b == '\n')
+                {
+                    if (!leseStammdatensatz(zeile, zeilenAnfang))
+                    {
+                        return zeilenAnfang;
+                    }
+                    zeile.reset();
+                    zeilenAnfang = position + i + 1;
+                }
+                else
+                {
+                    zeile.write(b);
+                }
+            }
+            position += gelesen;
+        }
+    }
+
+    /**
+     * Liest einen Saal oder Film aus der angegebenen Zeile.
+     * 
+     * @return <code>false</code>, falls die Zeile eine Vorstellung enthält.
+     */
+    private boolean leseStammdatensatz(ByteArrayOutputStream zeile,
+            long position) throws IOException
+    {
+        String text = new String(zeile.toByteArray(), ZEICHENSATZ).trim();
+        if (text.length() == 0 || text.startsWith("#"))
+        {
+            return true;
+        }
+        String[] felder = text.split(";", -1);
+        try
+        {
+            if (felder[0].equals("SAAL") && felder.length == 4)
+            {
+                fuegeSaalHinzu(new Kinosaal(felder[1], Integer
+                        .parseInt(felder[2]), Integer.parseInt(felder[3])));
+                return true;
+            }
+            if (felder[0].equals("FILM") && felder.length == 5
+                    && (felder[4].equals("ja") || felder[4].equals("nein")))
+            {
+                fuegeFilmHinzu(new Film(felder[1], Integer.parseInt(felder[2]),
+                        FSK.valueOf(felder[3]), felder[4].equals("ja")));
+                return true;
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Fehlerhafter Datensatz bei Byte " + position
+                    + ": " + text);
+        }
+        if (felder[0].equals("VORSTELLUNG"))
+        {
+            return false;
+        }
+        throw new IOException("Unbekannter Datensatz bei Byte " + position
+                + ": " + text);
+    }
+
+    /**
+     * Vergisst die Säle und Filme eines vorherigen Imports.
+     */
+    private void setzeZurueck()
+    {
+        _saele.clear();
+        _filme.clear();
+        _saalNummern.clear();
+        _filmNummern.clear();
+    }
+
+    private void fuegeSaalHinzu(Kinosaal saal)
+    {
+        _saalNummern.put(new Name(saal.getName()),
+                Integer.valueOf(_saele.size()));
+        _saele.add(saal);
+    }
+
+    private void fuegeFilmHinzu(Film film)
+    {
+        _filmNummern.put(new Name(film.getTitel()),
+                Integer.valueOf(_filme.size()));
+        _filme.add(film);
+    }
+
+    /**
+     * Schreibt den Kopf einer Programmdatei im Binärformat. Die Anzahl der
+     * Vorstellungen wird erst am Ende eingetragen.
+     */
+    private byte[] schreibeKopf() throws IOException
+    {
+        ByteArrayOutputStream stammdaten = new ByteArrayOutputStream();
+        DataOutputStream aus = new DataOutputStream(stammdaten);
+        aus.writeInt(_saele.size());
+        for (Kinosaal saal : _saele)
+        {
+            aus.writeUTF(saal.getName());
+            aus.writeInt(saal.getAnzahlReihen());
+            aus.writeInt(saal.getAnzahlSitzeProReihe());
+        }
+        aus.writeInt(_filme.size());
+        for (Film film : _filme)
+        {
+            aus.writeUTF(film.getTitel());
+            aus.writeInt(film.getLaenge());
+            aus.writeByte(film.getFSK().ordinal());
+            aus.writeBoolean(film.hatUeberlaenge());
+        }
+        aus.close();
+
+        ByteArrayOutputStream kopf = new ByteArrayOutputStream();
+        aus = new DataOutputStream(kopf);
+        aus.writeInt(KENNUNG);
+        aus.writeInt(12 + stammdaten.size());
+        aus.writeInt(0);
+        stammdaten.writeTo(aus);
+        aus.close();
+        return kopf.toByteArray();
+    }
+
+    private static void schreibe(FileChannel kanal, ByteBuffer puffer)
+            throws IOException
+    {
+        puffer.flip();
+        while (puffer.hasRemaining())
+        {
+            kanal.write(puffer);
+        }
+        puffer.clear();
+    }
+
+    /**
+     * Teilt den angegebenen Bereich einer CSV-Datei an Zeilengrenzen in
+     * Abschnitte auf, die unabhängig voneinander gelesen werden können.
+     * 
+     * @return die Grenzen der Abschnitte, beginnend mit anfang und endend mit
+     *         ende.
+     */
+    private long[] teileAuf(FileChannel kanal, long anfang, long ende)
+            throws IOException
+    {
+        long laenge = ende - anfang;
+        int anzahl = (int) Math.max(1, Math.min(_anzahlThreads, laenge
+                / MIN_ABSCHNITT));
+        anzahl = (int) Math.max(anzahl, (laenge + MAX_ABSCHNITT - 1)
+                / MAX_ABSCHNITT);
+        long[] grenzen = new long[anzahl + 1];
+        grenzen[0] = anfang;
+        grenzen[anzahl] = ende;
+        ByteBuffer puffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < anzahl; i++)
+        {
+            long position = Math.max(grenzen[i - 1], anfang + laenge * i
+                    / anzahl);
+            grenzen[i] = naechsteZeile(kanal, puffer, position, ende);
+        }
+        return grenzen;
+    }
+
+    /**
+     * Gibt die Position des ersten Zeilenanfangs ab der angegebenen Position
+     * zurück.
+     */
+    private static long naechsteZeile(FileChannel kanal, ByteBuffer puffer,
+            long position, long ende) throws IOException
+    {
+        if (position == 0)
+        {
+            return 0;
+        }
+        // Beginnt an position eine Zeile, steht davor ein Zeilenumbruch.
+        position--;
+        while (position < ende)
+        {
+            puffer.clear();
+            int gelesen = kanal.read(puffer, position);
+            if (gelesen <= 0)
+            {
+                break;
+            }
+            for (int i = 0; i < gelesen; i++)
+            {
+                if (puffer.get(i) == '\n')
+                {
+                    return Math.min(ende, position + i + 1);
+                }
+            }
+            position += gelesen;
+        }
+        return ende;
+    }
+
+    /**
+     * Teilt die Datensätze einer Binärdatei in gleich große Abschnitte auf.
+     */
+    private long[] teileDatensaetzeAuf(int anzahlDatensaetze)
+    {
+        long laenge = (long) anzahlDatensaetze * DATENSATZ_LAENGE;
+        int anzahl = (int) Math.max(1, Math.min(_anzahlThreads, laenge
+                / MIN_ABSCHNITT));
+        anzahl = (int) Math.max(anzahl, (laenge + MAX_ABSCHNITT - 1)
+                / MAX_ABSCHNITT);
+        long[] grenzen = new long[anzahl + 1];
+        for (int i = 0; i <= anzahl; i++)
+        {
+            grenzen[i] = (long) anzahlDatensaetze * i / anzahl;
+        }
+        return grenzen;
+    }
+
+    /**
+     * Erzeugt eine Aufgabe, die alle Vorstellungen im angegebenen Abschnitt
+     * einer CSV-Datei liest und an das Ziel übergibt.
+     */
+    private Callable<Integer> csvAbschnitt(final FileChannel kanal,
+            final long von, final long bis, final Vorstellungsziel ziel)
+    {
+        return new Callable<Integer>()
+        {
+            public Integer call() throws IOException
+            {
+                MappedByteBuffer puffer = kanal.map(
+                        FileChannel.MapMode.READ_ONLY, von, bis - von);
+                Feldleser leser = new Feldleser(puffer, von);
+                int anzahl = 0;
+                int zeilenAnfang = 0;
+                int limit = puffer.limit();
+                while (zeilenAnfang < limit)
+                {
+                    int zeilenEnde = zeilenAnfang;
+                    while (zeilenEnde < limit && puffer.get(zeilenEnde) != '\n')
+                    {
+                        zeilenEnde++;
+                    }
+                    int inhaltEnde = zeilenEnde;
+                    if (inhaltEnde > zeilenAnfang
+                            && puffer.get(inhaltEnde - 1) == '\r')
+                    {
+                        inhaltEnde--;
+                    }
+                    if (inhaltEnde > zeilenAnfang
+                            && puffer.get(zeilenAnfang) != '#')
+                    {
+                        leser.setzeZeile(zeilenAnfang, inhaltEnde);
+                        leser.pruefeText(VORSTELLUNG);
+                        int saal = leser.nummer(_saalNummern);
+                        int film = leser.nummer(_filmNummern);
+                        int datum = leser.datum();
+                        int anfang = leser.uhrzeit();
+                        int ende = leser.uhrzeit();
+                        int preis = leser.zahl((byte) 0);
+                        leser.pruefeZeilenende();
+                        ziel.vorstellung(saal, film, datum, anfang, ende,
+                                preis);
+                        anzahl++;
+                    }
+                    zeilenAnfang = zeilenEnde + 1;
+                }
+                return Integer.valueOf(anzahl);
+            }
+        };
+    }
+
+    /**
+     * Liest die Datensätze im angegebenen Bereich einer Binärdatei und fügt
+     * die Vorstellungen dem Kino hinzu.
+     */
+    private int leseDatensaetze(Kino kino, FileChannel kanal, long von,
+            long laenge) throws IOException
+    {
+        MappedByteBuffer puffer = kanal.map(FileChannel.MapMode.READ_ONLY,
+                von, laenge);
+        int anzahl = (int) (laenge / DATENSATZ_LAENGE);
+        for (int i = 0; i < anzahl; i++)
+        {
+            int p = i * DATENSATZ_LAENGE;
+            int saal = puffer.getShort(p) & 0xFFFF;
+            int film = puffer.getShort(p + 2) & 0xFFFF;
+            int datum = puffer.getInt(p + 4);
+            int anfang = puffer.getShort(p + 8);
+            int ende = puffer.getShort(p + 10);
+            int preis = puffer.getInt(p + 12);
+            if (saal >= _saele.size() || film >= _filme.size()
+                    || !istUhrzeit(anfang) || !istUhrzeit(ende) || preis < 0
+                    || !istDatum(datum))
+            {
+                throw new IOException("Fehlerhafter Datensatz bei Byte "
+                        + (von + p));
+            }
+            fuegeHinzu(kino, erzeugeVorstellung(saal, film, datum, anfang,
+                    ende, preis));
+        }
+        return anzahl;
+    }
+
+    /**
+     * Fügt die Vorstellung dem Kino hinzu.
+     * 
+     * @throws IOException falls sie sich mit einer anderen Vorstellung im
+     *             selben Saal überschneidet.
+     */
+    private static void fuegeHinzu(Kino kino, Vorstellung vorstellung)
+            throws IOException
+    {
+        Vorstellung konflikt = kino.fuegeVorstellungHinzuFallsFrei(vorstellung);
+        if (konflikt != null)
+        {
+            throw new IOException(new Konflikt(konflikt, vorstellung)
+                    .toString());
+        }
+    }
+
+    /**
+     * Erzeugt eine Vorstellung und verwendet dabei bereits erzeugte Säle,
+     * Filme, Uhrzeiten und Daten wieder.
+     */
+    private Vorstellung erzeugeVorstellung(int saal, int film, int datum,
+            int anfang, int ende, int preis)
+    {
+        return new Vorstellung(_saele.get(saal), _filme.get(film),
+                uhrzeit(anfang), uhrzeit(ende), datum(datum), preis);
+    }
+
+    /**
+     * Gibt die Uhrzeit zu den angegebenen Minuten seit Mitternacht zurück.
+     */
+    private Uhrzeit uhrzeit(int minuten)
+    {
+        Uhrzeit uhrzeit = _uhrzeiten.get(minuten);
+        if (uhrzeit == null)
+        {
+            uhrzeit = new Uhrzeit(minuten / 60, minuten % 60);
+            if (!_uhrzeiten.compareAndSet(minuten, null, uhrzeit))
+            {
+                uhrzeit = _uhrzeiten.get(minuten);
+            }
+        }
+        return uhrzeit;
+    }
+
+    /**
+     * Gibt das Datum zu dem angegebenen Schlüssel der Form JJJJMMTT zurück.
+     */
+    private Datum datum(int schluessel)
+    {
+        Integer key = Integer.valueOf(schluessel);
+        Datum datum = _daten.get(key);
+        if (datum == null)
+        {
+            datum = new Datum(schluessel % 100, schluessel / 100 % 100,
+                    schluessel / 10000);
+            Datum vorhanden = _daten.putIfAbsent(key, datum);
+            if (vorhanden != null)
+            {
+                datum = vorhanden;
+            }
+        }
+        return datum;
+    }
+
+    private static boolean istUhrzeit(int minuten)
+    {
+        return minuten >= 0 && minuten < 24 * 60;
+    }
+
+    private static boolean istDatum(int schluessel)
+    {
+        return schluessel > 0
+                && Datum.istGueltig(schluessel % 100, schluessel / 100 % 100,
+                        schluessel / 10000);
+    }
+
+    /**
+     * Führt die angegebenen Aufgaben parallel aus und wartet auf ihr Ende.
+     */
+    private void fuehreAus(List<Callable<Integer>> aufgaben)
+            throws IOException
+    {
+        if (aufgaben.size() == 1)
+        {
+            rufeAuf(aufgaben.get(0));
+            return;
+        }
+        ExecutorService ausfuehrer = Executors.newFixedThreadPool(Math.min(
+                _anzahlThreads, aufgaben.size()));
+        try
+        {
+            List<Future<Integer>> ergebnisse = new ArrayList<Future<Integer>>();
+            for (Callable<Integer> aufgabe : aufgaben)
+            {
+                ergebnisse.add(ausfuehrer.submit(aufgabe));
+            }
+            for (Future<Integer> ergebnis : ergebnisse)
+            {
+                try
+                {
+                    ergebnis.get();
+                }
+                catch (ExecutionException e)
+                {
+                    wirf(e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Import unterbrochen");
+                }
+            }
+        }
+        finally
+        {
+            ausfuehrer.shutdownNow();
+        }
+    }
+
+    private static int rufeAuf(Callable<Integer> aufgabe) throws IOException
+    {
+        try
+        {
+            return aufgabe.call().intValue();
+        }
+        catch (Exception e)
+        {
+            wirf(e);
+            return 0;
+        }
+    }
+
+    private static void wirf(Throwable t) throws IOException
+    {
+        if (t instanceof IOException)
+        {
+            throw (IOException) t;
+        }
+        if (t instanceof RuntimeException)
+        {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error)
+        {
+            throw (Error) t;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    /**
+     * Nimmt die Felder einer gelesenen Vorstellung entgegen.
+     */
+    private interface Vorstellungsziel
+    {
+        void vorstellung(int saal, int film, int datum, int anfang, int ende,
+                int preis) throws IOException;
+    }
+
+    /**
+     * Der Name eines Saals oder Films als Folge von UTF-8-Bytes in einem
+     * Puffer. Ein Feldleser richtet einen wiederverwendbaren Namen auf das
+     * gelesene Feld aus, sodass Säle und Filme ohne neue Strings in den
+     * Nummerntabellen nachgeschlagen werden.
+     */
+    private static final class Name
+    {
+        private ByteBuffer _puffer;
+        private int _anfang;
+        private int _laenge;
+        private int _hash;
+
+        /**
+         * Erzeugt einen leeren Namen, der mit {@link #setze} ausgerichtet
+         * wird.
+         */
+        Name()
+        {
+        }
+
+        /**
+         * Erzeugt einen festen Namen aus einem Text.
+         */
+        Name(String text)
+        {
+            byte[] bytes = text.getBytes(ZEICHENSATZ);
+            setze(ByteBuffer.wrap(bytes), 0, bytes.length);
+        }
+
+        void setze(ByteBuffer puffer, int anfang, int ende)
+        {
+            _puffer = puffer;
+            _anfang = anfang;
+            _laenge = ende - anfang;
+            int hash = 1;
+            for (int i = anfang; i < ende; i++)
+            {
+                hash = 31 * hash + puffer.get(i);
+            }
+            _hash = hash;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Name))
+            {
+                return false;
+            }
+            Name anderer = (Name) o;
+            if (anderer._laenge != _laenge || anderer._hash != _hash)
+            {
+                return false;
+            }
+            for (int i = 0; i < _laenge; i++)
+            {
+                if (_puffer.get(_anfang + i) != anderer._puffer
+                    .get(anderer._anfang + i))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            byte[] bytes = new byte[_laenge];
+            for (int i = 0; i < _laenge; i++)
+            {
+                bytes[i] = _puffer.get(_anfang + i);
+            }
+            return new String(bytes, ZEICHENSATZ);
+        }
+    }
+
+    /**
+     * Liest die Felder einer Zeile direkt aus dem eingeblendeten Puffer. Zahlen,
+     * Daten, Uhrzeiten und Namen werden ohne Umweg über Strings gelesen.
+     */
+    private static class Feldleser
+    {
+        private final ByteBuffer _puffer;
+        private final long _dateiPosition;
+        private final Name _name;
+        private int _zeilenAnfang;
+        private int _position;
+        private int _ende;
+
+        Feldleser(ByteBuffer puffer, long dateiPosition)
+        {
+            _puffer = puffer;
+            _dateiPosition = dateiPosition;
+            _name = new Name();
+        }
+
+        void setzeZeile(int anfang, int ende)
+        {
+            _zeilenAnfang = anfang;
+            _position = anfang;
+            _ende = ende;
+        }
+
+        /**
+         * Prüft, ob das nächste Feld den angegebenen Text enthält.
+         */
+        void pruefeText(byte[] erwartet) throws IOException
+        {
+            for (byte b : erwartet)
+            {
+                if (_position >= _ende || _puffer.get(_position++) != b)
+                {
+                    throw fehler("Vorstellung erwartet");
+                }
+            }
+            ueberspringeTrenner();
+        }
+
+        /**
+         * Liest das nächste Feld als Namen und gibt dessen Nummer aus der
+         * angegebenen Tabelle zurück. Die Bytes des Feldes werden direkt mit
+         * den Namen der Tabelle verglichen.
+         */
+        int nummer(Map<Name, Integer> nummern) throws IOException
+        {
+            int anfang = _position;
+            while (_position < _ende && _puffer.get(_position) != TRENNER)
+            {
+                _position++;
+            }
+            _name.setze(_puffer, anfang, _position);
+            ueberspringeTrenner();
+            Integer nummer = nummern.get(_name);
+            if (nummer == null)
+            {
+                throw fehler("Unbekannter Saal oder Film " + _name);
+            }
+            return nummer.intValue();
+        }
+
+        /**
+         * Liest eine Zahl, der das angegebene Zeichen folgt. Beim Zeichen 0
+         * muss die Zahl am Ende eines Feldes stehen.
+         */
+        int zahl(byte danach) throws IOException
+        {
+            int anfang = _position;
+            int zahl = 0;
+            while (_position < _ende)
+            {
+                byte b = _puffer.get(_position);
+                if (b < '0' || b > '9')
+                {
+                    break;
+                }
+                zahl = zahl * 10 + (b - '0');
+                _position++;
+                if (zahl > 100000000)
+                {
+                    throw fehler("Zahl zu groß");
+                }
+            }
+            if (_position == anfang)
+            {
+                throw fehler("Zahl erwartet");
+            }
+            if (danach == 0)
+            {
+                ueberspringeTrenner();
+            }
+            else if (_position >= _ende || _puffer.get(_position++) != danach)
+            {
+                throw fehler("'" + (char) danach + "' erwartet");
+            }
+            return zahl;
+        }
+
+        /**
+         * Liest ein Datum der Form Tag.Monat.Jahr und gibt es als JJJJMMTT
+         * zurück.
+         */
+        int datum() throws IOException
+        {
+            int tag = zahl((byte) '.');
+            int monat = zahl((byte) '.');
+            int jahr = zahl((byte) 0);
+            if (!Datum.istGueltig(tag, monat, jahr))
+            {
+                throw fehler("Ungültiges Datum");
+            }
+            return jahr * 10000 + monat * 100 + tag;
+        }
+
+        /**
+         * Liest eine Uhrzeit der Form Stunden:Minuten und gibt sie als Minuten
+         * seit Mitternacht zurück.
+         */
+        int uhrzeit() throws IOException
+        {
+            int stunden = zahl((byte) ':');
+            int minuten = zahl((byte) 0);
+            if (stunden > 23 || minuten > 59)
+            {
+                throw fehler("Ungültige Uhrzeit");
+            }
+            return stunden * 60 + minuten;
+        }
+
+        /**
+         * Prüft, ob alle Felder der Zeile gelesen wurden.
+         */
+        void pruefeZeilenende() throws IOException
+        {
+            if (_position < _ende || _puffer.get(_position - 1) == TRENNER)
+            {
+                throw fehler("Zu viele Felder");
+            }
+        }
+
+        private void ueberspringeTrenner() throws IOException
+        {
+            if (_position < _ende)
+            {
+                if (_puffer.get(_position) != TRENNER)
+                {
+                    throw fehler("Feldende erwartet");
+                }
+                _position++;
+            }
+        }
+
+        IOException fehler(String meldung)
+        {
+            return new IOException(meldung + " in der Zeile bei Byte "
+                    + (_dateiPosition + _zeilenAnfang));
+        }
+    }
+}
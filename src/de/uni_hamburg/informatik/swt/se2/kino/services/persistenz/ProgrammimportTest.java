@@ -0,0 +1,179 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.persistenz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+public class ProgrammimportTest
+{
+    private static final String PROGRAMM = "# Beispielprogramm\r\n"
+            + "SAAL;Saal 1;20;25\r\n" + "SAAL;Saal 2;16;20\r\n" + "\r\n"
+            + "FILM;Rio;96;FSK0;nein\r\n"
+            + "FILM;Wasser für die Elefanten;120;FSK12;ja\r\n"
+            + "VORSTELLUNG;Saal 1;Rio;20.5.2012;17:30;20:00;500\r\n"
+            + "# Abendvorstellungen\r\n"
+            + "VORSTELLUNG;Saal 2;Wasser für die Elefanten;20.5.2012;20:00;22:30;900\r\n"
+            + "VORSTELLUNG;Saal 1;Rio;21.05.2012;17:30;20:00;500";
+
+    private File _csv;
+    private File _binaer;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        _csv = File.createTempFile("programm", ".csv");
+        _binaer = File.createTempFile("programm", ".bin");
+    }
+
+    @After
+    public void tearDown()
+    {
+        _csv.delete();
+        _binaer.delete();
+    }
+
+    private void schreibe(String text) throws IOException
+    {
+        Writer aus = new OutputStreamWriter(new FileOutputStream(_csv),
+                "UTF-8");
+        aus.write(text);
+        aus.close();
+    }
+
+    @Test
+    public void testeLeseCsv() throws IOException
+    {
+        schreibe(PROGRAMM);
+        pruefeBeispielprogramm(new Programmimport(4).leseCsv(_csv));
+    }
+
+    @Test
+    public void testeLeseBinaer() throws IOException
+    {
+        schreibe(PROGRAMM);
+        new Programmimport().konvertiere(_csv, _binaer);
+        pruefeBeispielprogramm(new Programmimport(4).leseBinaer(_binaer));
+    }
+
+    private void pruefeBeispielprogramm(Kino kino)
+    {
+        assertEquals(2, kino.getKinosaele().size());
+        List<Vorstellung> tag1 = kino.getTagesplan(new Datum(20, 5, 2012))
+                .getVorstellungen();
+        List<Vorstellung> tag2 = kino.getTagesplan(new Datum(21, 5, 2012))
+                .getVorstellungen();
+        assertEquals(2, tag1.size());
+        assertEquals(1, tag2.size());
+
+        Vorstellung v = tag1.get(1);
+        assertEquals("Saal 2", v.getKinosaal().getName());
+        assertEquals("Wasser für die Elefanten", v.getFilm().getTitel());
+        assertEquals(FSK.FSK12, v.getFilm().getFSK());
+        assertEquals(true, v.getFilm().hatUeberlaenge());
+        assertEquals(new Uhrzeit(22, 30), v.getEndzeit());
+        assertEquals(900, v.getPreis());
+
+        // Gleiche Werte werden nur einmal erzeugt
+        Vorstellung w = tag2.get(0);
+        assertSame(tag1.get(0).getFilm(), w.getFilm());
+        assertSame(tag1.get(0).getKinosaal(), w.getKinosaal());
+        assertSame(tag1.get(0).getAnfangszeit(), w.getAnfangszeit());
+        assertSame(tag1.get(0).getEndzeit(), v.getAnfangszeit());
+    }
+
+    @Test
+    public void testeGrossesProgrammParallel() throws IOException
+    {
+        // Genug Zeilen, damit die Datei in mehrere Abschnitte zerfällt
+        StringBuilder programm = new StringBuilder();
+        for (int saal = 0; saal < 10; saal++)
+        {
+            programm.append("SAAL;Saal " + saal + ";20;25\n");
+        }
+        programm.append("FILM;Thor;115;FSK12;nein\n");
+        int anzahl = 0;
+        Datum tag = new Datum(1, 1, 2012);
+        for (int i = 0; i < 100; i++)
+        {
+            for (int saal = 0; saal < 10; saal++)
+            {
+                for (int stunde = 0; stunde < 24; stunde++)
+                {
+                    programm.append("VORSTELLUNG;Saal " + saal + ";Thor;"
+                            + tag.getFormatiertenString() + ";" + stunde
+                            + ":00;" + stunde + ":59;800\n");
+                    anzahl++;
+                }
+            }
+            tag = tag.naechsterTag();
+        }
+        schreibe(programm.toString());
+        new Programmimport(1).konvertiere(_csv, _binaer);
+
+        Kino[] kinos = { new Programmimport(4).leseCsv(_csv),
+                new Programmimport(4).leseBinaer(_binaer) };
+        for (Kino kino : kinos)
+        {
+            int gelesen = 0;
+            tag = new Datum(1, 1, 2012);
+            for (int i = 0; i < 100; i++)
+            {
+                gelesen += kino.getTagesplan(tag).getVorstellungen().size();
+                tag = tag.naechsterTag();
+            }
+            assertEquals(anzahl, gelesen);
+        }
+    }
+
+    @Test
+    public void testeFehlerhafteZeilen() throws IOException
+    {
+        String kopf = "SAAL;Saal 1;20;25\nFILM;Rio;96;FSK0;nein\n";
+        String[] zeilen = { "VORSTELLUNG;Saal 9;Rio;20.5.2012;17:30;20:00;500",
+                "VORSTELLUNG;Saal 1;Rio;31.2.2012;17:30;20:00;500",
+                "VORSTELLUNG;Saal 1;Rio;20.5.2012;25:30;20:00;500",
+                "VORSTELLUNG;Saal 1;Rio;20.5.2012;17:30;20:00",
+                "VORSTELLUNG;Saal 1;Rio;20.5.2012;17:30;20:00;500;1",
+                "VORSTELLUNG;Saal 1;Rio;20.5.2012;17:30;20:00;-5",
+                "SAAL;Saal 2;20;25", "FILM;Thor;115;FSK99;nein",
+                "VORSTELLUNG;Saal 1;Rio;20.5.2012;11:00;13:00;500" };
+        for (String zeile : zeilen)
+        {
+            schreibe(kopf + "VORSTELLUNG;Saal 1;Rio;20.5.2012;10:00;12:00;500\n"
+                    + zeile + "\n");
+            try
+            {
+                new Programmimport().leseCsv(_csv);
+                fail("Fehlerhafte Zeile nicht erkannt: " + zeile);
+            }
+            catch (IOException e)
+            {
+                // erwartet
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testeKeineProgrammdatei() throws IOException
+    {
+        schreibe(PROGRAMM);
+        new Programmimport().leseBinaer(_csv);
+    }
+}
@@ -0,0 +1,564 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.persistenz;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Verkaufsprotokoll;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Ein Journal, in dem alle Verkäufe und Stornierungen eines Kinos dauerhaft
+ * gespeichert werden. Jede Änderung wird als kompakter binärer Datensatz an die
+ * Journaldatei angehängt; beim Start wird das Journal wieder eingespielt, um
+ * den Stand des Kinos wiederherzustellen.
+ * 
+ * Das Journal arbeitet mit Group Commit: Die verkaufenden Threads legen ihre
+ * Datensätze in einem Puffer ab und warten, bis ein Schreib-Thread den Puffer
+ * geschrieben und mit einem einzigen fsync auf die Platte gebracht hat.
+ * Während ein Puffer geschrieben wird, sammeln sich die folgenden Datensätze im
+ * zweiten Puffer, sodass bei hoher Last ein fsync viele Verkäufe abdeckt.
+ * 
+ * Aufbau der Datei: Die Kennung {@link #KENNUNG}, danach beliebig viele
+ * Datensätze aus Typ (1 Byte), Vorstellungs-ID (8 Byte), Anzahl der Plätze
+ * (2 Byte), je Platz Reihe und Sitz (je 2 Byte) und einer CRC32-Prüfsumme über
+ * den Datensatz (4 Byte). Ein unvollständiger oder beschädigter Datensatz
+ * stammt von einem Absturz während des Schreibens; das Einspielen endet dort,
+ * und beim Öffnen wird die Datei vor ihm abgeschnitten, damit neue Datensätze
+ * direkt an den letzten gültigen anschließen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class Verkaufsjournal implements Verkaufsprotokoll
+{
+    /**
+     * Die Kennung am Anfang jeder Journaldatei.
+     */
+    public static final int KENNUNG = 0x4B4A4E32;
+
+    /**
+     * Die maximale Anzahl Plätze, die in einem Datensatz gespeichert werden
+     * kann. Ein Datensatz dieser Größe passt in jedem Fall in den Sammelpuffer.
+     */
+    public static final int MAX_PLAETZE_PRO_DATENSATZ = MAX_PLAETZE_PRO_AENDERUNG;
+
+    private static final byte VERKAUF = 1;
+    private static final byte STORNO = 2;
+    private static final int KOPF_LAENGE = 1 + 8 + 2;
+    private static final int PRUEFSUMMEN_LAENGE = 4;
+    private static final int PUFFER_GROESSE = 128 * 1024;
+
+    private final Kino _kino;
+    private final FileChannel _kanal;
+    private final Thread _schreiber;
+
+    // Alle folgenden Felder sind durch den Monitor dieses Journals geschützt.
+    private ByteBuffer _sammelpuffer;
+    private ByteBuffer _schreibpuffer;
+    private final CRC32 _pruefsumme = new CRC32();
+    private long _letzteNummer;
+    private long _geschriebenBis;
+    private IOException _fehler;
+    private boolean _geschlossen;
+    private boolean _kontrollpunktLaeuft;
+
+    /**
+     * Öffnet das Journal in der angegebenen Datei. Existiert die Datei noch
+     * nicht, wird sie angelegt. Ein unvollständiger oder beschädigter
+     * Datensatz am Ende wird abgeschnitten; neue Datensätze werden an den
+     * letzten gültigen angehängt. Dazu wird die Datei einmal gelesen; wurde
+     * sie gerade eingespielt, ist
+     * {@link #Verkaufsjournal(Kino, File, long)} günstiger.
+     * 
+     * @param kino das Kino, dessen Verkäufe protokolliert werden.
+     * @param datei die Journaldatei.
+     * 
+     * @throws IOException falls die Datei nicht geöffnet werden kann oder kein
+     *             Verkaufsjournal ist.
+     * 
+     * @require kino != null
+     * @require datei != null
+     */
+    public Verkaufsjournal(Kino kino, File datei) throws IOException
+    {
+        this(kino, datei, lies(null, datei));
+    }
+
+    /**
+     * Öffnet das Journal in der angegebenen Datei und schneidet es hinter dem
+     * letzten gültigen Datensatz ab, dessen Ende {@link #spieleEin(Kino, File)}
+     * geliefert hat. Neue Datensätze werden dort angehängt.
+     * 
+     * @param kino das Kino, dessen Verkäufe protokolliert werden.
+     * @param datei die Journaldatei.
+     * @param gueltigeLaenge die Länge des gültigen Teils der Datei, wie sie
+     *            {@link #spieleEin(Kino, File)} liefert.
+     * 
+     * @throws IOException falls die Datei nicht geöffnet werden kann.
+     * 
+     * @require kino != null
+     * @require datei != null
+     * @require gueltigeLaenge == 0 || gueltigeLaenge >= 4
+     */
+    public Verkaufsjournal(Kino kino, File datei, long gueltigeLaenge)
+            throws IOException
+    {
+        assert kino != null : "Vorbedingung verletzt: kino != null";
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+        assert gueltigeLaenge == 0 || gueltigeLaenge >= 4 : "Vorbedingung verletzt: gueltigeLaenge == 0 || gueltigeLaenge >= 4";
+
+        _kino = kino;
+        _kanal = new RandomAccessFile(datei, "rw").getChannel();
+        if (gueltigeLaenge == 0)
+        {
+            ByteBuffer kennung = ByteBuffer.allocate(4);
+            kennung.putInt(KENNUNG).flip();
+            _kanal.truncate(0);
+            _kanal.write(kennung, 0);
+            gueltigeLaenge = 4;
+        }
+        if (_kanal.size() > gueltigeLaenge)
+        {
+            // Den Rest eines beim Absturz abgebrochenen Datensatzes entfernen,
+            // sonst endete das nächste Einspielen wieder an dieser Stelle.
+            _kanal.truncate(gueltigeLaenge);
+        }
+        _kanal.force(true);
+        _kanal.position(gueltigeLaenge);
+
+        _sammelpuffer = ByteBuffer.allocateDirect(PUFFER_GROESSE);
+        _schreibpuffer = ByteBuffer.allocateDirect(PUFFER_GROESSE);
+
+        _schreiber = new Thread("Verkaufsjournal")
+        {
+            @Override
+            public void run()
+            {
+                schreibeSchleife();
+            }
+        };
+        _schreiber.setDaemon(true);
+        _schreiber.start();
+    }
+
+    /**
+     * Spielt das Journal aus der angegebenen Datei in das Kino ein. Verkäufe
+     * und Stornierungen werden so angewendet, dass bereits verkaufte bzw.
+     * freie Plätze übersprungen werden; Datensätze für Vorstellungen, die es in
+     * dem Kino nicht gibt, werden ignoriert. Das Einspielen endet am ersten
+     * unvollständigen oder beschädigten Datensatz. Das Kino sollte beim
+     * Einspielen noch kein Verkaufsprotokoll haben.
+     * 
+     * @param kino das Kino.
+     * @param datei die Journaldatei.
+     * 
+     * @return das Ende des letzten gültigen Datensatzes in der Datei, bzw. 0,
+     *         falls die Datei nicht existiert oder leer ist. Mit diesem Wert
+     *         wird das Journal anschließend geöffnet.
+     * 
+     * @throws IOException falls die Datei nicht gelesen werden kann oder kein
+     *             Verkaufsjournal ist.
+     * 
+     * @require kino != null
+     * @require datei != null
+     */
+    public static long spieleEin(Kino kino, File datei) throws IOException
+    {
+        assert kino != null : "Vorbedingung verletzt: kino != null";
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+
+        return lies(kino, datei);
+    }
+
+    /**
+     * Liest das Journal bis zum ersten unvollständigen oder beschädigten
+     * Datensatz und wendet die Datensätze auf das Kino an, falls eins
+     * angegeben ist.
+     * 
+     * @return das Ende des letzten gültigen Datensatzes, bzw. 0 für eine
+     *         fehlende oder leere Datei.
+     */
+    private static long lies(Kino kino, File datei) throws IOException
+    {
+        if (!datei.exists() || datei.length() == 0)
+        {
+            return 0;
+        }
+
+        long ende = 4;
+        FileChannel kanal = new RandomAccessFile(datei, "r").getChannel();
+        try
+        {
+            ByteBuffer puffer = ByteBuffer.allocate(PUFFER_GROESSE);
+            puffer.limit(0);
+            if (!lese(kanal, puffer, 4) || puffer.getInt() != KENNUNG)
+            {
+                throw new IOException("Kein Verkaufsjournal: " + datei);
+            }
+            CRC32 pruefsumme = new CRC32();
+            while (lese(kanal, puffer, KOPF_LAENGE))
+            {
+                int anfang = puffer.position();
+                byte typ = puffer.get(anfang);
+                int anzahlPlaetze = puffer.getShort(anfang + 9) & 0xFFFF;
+                if ((typ != VERKAUF && typ != STORNO)
+                        || anzahlPlaetze > MAX_PLAETZE_PRO_DATENSATZ)
+                {
+                    break;
+                }
+                int laenge = KOPF_LAENGE + 4 * anzahlPlaetze;
+                if (!lese(kanal, puffer, laenge + PRUEFSUMMEN_LAENGE))
+                {
+                    break;
+                }
+                anfang = puffer.position();
+                ByteBuffer datensatz = puffer.duplicate();
+                datensatz.limit(anfang + laenge);
+                pruefsumme.reset();
+                pruefsumme.update(datensatz);
+                if ((int) pruefsumme.getValue() != puffer.getInt(anfang
+                        + laenge))
+                {
+                    break;
+                }
+
+                puffer.get();
+                long id = puffer.getLong();
+                puffer.getShort();
+                Vorstellung vorstellung = kino != null ? kino
+                    .getVorstellung(id) : null;
+                if (vorstellung != null)
+                {
+                    wendeAn(vorstellung, typ, puffer, anzahlPlaetze);
+                }
+                else
+                {
+                    puffer.position(puffer.position() + 4 * anzahlPlaetze);
+                }
+                puffer.getInt();
+                ende += laenge + PRUEFSUMMEN_LAENGE;
+            }
+        }
+        finally
+        {
+            kanal.close();
+        }
+        return ende;
+    }
+
+    /**
+     * Liest die Plätze eines Datensatzes aus dem Puffer und spielt sie als
+     * Ganzes in die Vorstellung ein. Plätze, die es in ihrem Saal nicht gibt,
+     * werden übersprungen.
+     */
+    private static void wendeAn(Vorstellung vorstellung, byte typ,
+            ByteBuffer puffer, int anzahlPlaetze)
+    {
+        PlatzMenge plaetze = new PlatzMenge(vorstellung.getKinosaal());
+        for (int i = 0; i < anzahlPlaetze; i++)
+        {
+            Platz platz = Platz.get(puffer.getShort() & 0xFFFF,
+                    puffer.getShort() & 0xFFFF);
+            if (vorstellung.hatPlatz(platz))
+            {
+                plaetze.add(platz);
+            }
+        }
+        if (typ == VERKAUF)
+        {
+            vorstellung.spieleVerkaufEin(plaetze);
+        }
+        else
+        {
+            vorstellung.spieleStornierungEin(plaetze);
+        }
+    }
+
+    /**
+     * Stellt sicher, dass ab der aktuellen Position des Puffers mindestens die
+     * angegebene Anzahl Bytes gelesen werden kann. Dazu wird der Puffer
+     * kompaktiert und aus dem Kanal nachgefüllt.
+     * 
+     * @return <code>false</code>, falls das Ende der Datei vorher erreicht ist.
+     */
+    private static boolean lese(FileChannel kanal, ByteBuffer puffer,
+            int anzahlBytes) throws IOException
+    {
+        while (puffer.remaining() < anzahlBytes)
+        {
+            puffer.compact();
+            int gelesen = kanal.read(puffer);
+            puffer.flip();
+            if (gelesen < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long plaetzeVerkauft(Vorstellung vorstellung, Set<Platz> plaetze,
+            Runnable aenderung)
+    {
+        return legeAb(VERKAUF, vorstellung, plaetze, aenderung);
+    }
+
+    @Override
+    public long plaetzeStorniert(Vorstellung vorstellung, Set<Platz> plaetze,
+            Runnable aenderung)
+    {
+        return legeAb(STORNO, vorstellung, plaetze, aenderung);
+    }
+
+    /**
+     * Wartet, bis der Datensatz mit der angegebenen Nummer dauerhaft
+     * gespeichert ist.
+     * 
+     * @throws IllegalStateException falls das Journal nicht geschrieben werden
+     *             kann.
+     */
+    @Override
+    public synchronized void warteAuf(long nummer)
+    {
+        while (_geschriebenBis < nummer)
+        {
+            pruefeFehler();
+            warte();
+        }
+    }
+
+    /**
+     * Legt einen Datensatz im Sammelpuffer ab und führt anschließend die
+     * Änderung im Speicher aus, beides unter dem Monitor des Journals, sodass
+     * ein Kontrollpunkt nie nur eins von beiden sieht. Ist der Sammelpuffer
+     * voll oder läuft gerade ein Kontrollpunkt, wird gewartet, nicht aber, bis
+     * der Datensatz geschrieben ist.
+     * 
+     * @return die fortlaufende Nummer des Datensatzes.
+     * 
+     * @throws IllegalArgumentException falls der Datensatz mehr als
+     *             {@link #MAX_PLAETZE_PRO_DATENSATZ} Plätze hätte.
+     * @throws IllegalStateException falls das Journal nicht geschrieben werden
+     *             kann oder geschlossen ist.
+     */
+    private synchronized long legeAb(byte typ, Vorstellung vorstellung,
+            Set<Platz> plaetze, Runnable aenderung)
+    {
+        if (plaetze.size() > MAX_PLAETZE_PRO_DATENSATZ)
+        {
+            // Die Anzahl wird in 2 Byte gespeichert; ein größerer Datensatz
+            // würde abgeschnitten.
+            throw new IllegalArgumentException("Zu viele Plätze für einen "
+                    + "Datensatz: " + plaetze.size());
+        }
+
+        int laenge = KOPF_LAENGE + 4 * plaetze.size() + PRUEFSUMMEN_LAENGE;
+        pruefeFehler();
+        pruefeOffen();
+        while (_sammelpuffer.remaining() < laenge || _kontrollpunktLaeuft)
+        {
+            // Der Sammelpuffer ist voll oder ein Kontrollpunkt wartet darauf,
+            // dass er leer wird; bis zum nächsten Pufferwechsel warten.
+            warte();
+            pruefeFehler();
+            pruefeOffen();
+        }
+
+        int anfang = _sammelpuffer.position();
+        _sammelpuffer.put(typ);
+        _sammelpuffer.putLong(_kino.getVorstellungsId(vorstellung));
+        _sammelpuffer.putShort((short) plaetze.size());
+        for (Platz platz : plaetze)
+        {
+            _sammelpuffer.putShort((short) platz.getReihe());
+            _sammelpuffer.putShort((short) platz.getSitz());
+        }
+        ByteBuffer datensatz = _sammelpuffer.duplicate();
+        datensatz.flip().position(anfang);
+        _pruefsumme.reset();
+        _pruefsumme.update(datensatz);
+        _sammelpuffer.putInt((int) _pruefsumme.getValue());
+        aenderung.run();
+        long nummer = ++_letzteNummer;
+        notifyAll();
+        return nummer;
+    }
+
+    /**
+     * Die Schleife des Schreib-Threads: Wechselt die Puffer, schreibt den
+     * gesammelten Puffer und bringt ihn mit einem fsync auf die Platte.
+     */
+    private void schreibeSchleife()
+    {
+        while (true)
+        {
+            long nummer;
+            ByteBuffer puffer;
+            synchronized (this)
+            {
+                while (_sammelpuffer.position() == 0 && !_geschlossen)
+                {
+                    warte();
+                }
+                if (_sammelpuffer.position() == 0)
+                {
+                    return;
+                }
+                puffer = _sammelpuffer;
+                _sammelpuffer = _schreibpuffer;
+                _schreibpuffer = puffer;
+                nummer = _letzteNummer;
+                notifyAll();
+            }
+
+            IOException fehler = null;
+            try
+            {
+                puffer.flip();
+                while (puffer.hasRemaining())
+                {
+                    _kanal.write(puffer);
+                }
+                _kanal.force(false);
+            }
+            catch (IOException e)
+            {
+                fehler = e;
+            }
+            puffer.clear();
+
+            synchronized (this)
+            {
+                if (fehler != null)
+                {
+                    _fehler = fehler;
+                    notifyAll();
+                    return;
+                }
+                _geschriebenBis = nummer;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Schreibt ein Belegungsabbild des Kinos und leert anschließend das
+     * Journal, sodass beim nächsten Start nur die Verkäufe seit diesem
+     * Kontrollpunkt eingespielt werden müssen. Das Journal wird erst geleert,
+     * wenn das Abbild samt Verzeichniseintrag auf der Platte steht; ein
+     * Absturz dazwischen hinterlässt Abbild und volles Journal, deren
+     * Einspielen dasselbe ergibt. Während des Kontrollpunkts werden keine
+     * neuen Datensätze angenommen, damit der Sammelpuffer leer wird. Da jede
+     * Änderung im Speicher zusammen mit ihrem Datensatz unter dem Monitor des
+     * Journals erfolgt, enthält das Abbild genau die Änderungen, deren
+     * Datensätze mit dem Leeren des Journals wegfallen.
+     * 
+     * @param abbild die Datei für das Belegungsabbild.
+     * 
+     * @throws IOException falls das Abbild nicht geschrieben oder das Journal
+     *             nicht geleert werden kann.
+     * 
+     * @require abbild != null
+     */
+    public synchronized void kontrollpunkt(File abbild) throws IOException
+    {
+        assert abbild != null : "Vorbedingung verletzt: abbild != null";
+
+        pruefeOffen();
+        _kontrollpunktLaeuft = true;
+        try
+        {
+            while (_sammelpuffer.position() > 0
+                    || _geschriebenBis < _letzteNummer)
+            {
+                pruefeFehler();
+                warte();
+            }
+            pruefeFehler();
+
+            _kino.schreibeBelegungsabbild(abbild);
+            _kanal.truncate(4);
+            _kanal.position(4);
+            _kanal.force(true);
+        }
+        finally
+        {
+            _kontrollpunktLaeuft = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Schließt das Journal. Bereits abgelegte Datensätze werden noch
+     * geschrieben.
+     * 
+     * @throws IOException falls das Journal nicht geschlossen werden kann.
+     */
+    public void schliesse() throws IOException
+    {
+        synchronized (this)
+        {
+            _geschlossen = true;
+            notifyAll();
+        }
+        try
+        {
+            _schreiber.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        _kanal.close();
+    }
+
+    /**
+     * Wirft eine Exception, falls das Schreiben des Journals fehlgeschlagen
+     * ist.
+     */
+    private void pruefeFehler()
+    {
+        if (_fehler != null)
+        {
+            throw new IllegalStateException(
+                    "Verkaufsjournal konnte nicht geschrieben werden", _fehler);
+        }
+    }
+
+    /**
+     * Wirft eine Exception, falls das Journal bereits geschlossen ist.
+     */
+    private void pruefeOffen()
+    {
+        if (_geschlossen)
+        {
+            throw new IllegalStateException("Verkaufsjournal ist geschlossen");
+        }
+    }
+
+    /**
+     * Wartet auf eine Benachrichtigung über den Monitor dieses Journals.
+     */
+    private void warte()
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Warten auf das Verkaufsjournal unterbrochen", e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package de.uni_hamburg.informatik.swt.se2.kino.services.persistenz;
+
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.DATUM;
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.erzeugeKino;
+import static de.uni_hamburg.informatik.swt.se2.kino.materialien.KinoTesthilfe.gibVorstellung;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+public class VerkaufsjournalTest
+{
+    @Rule
+    public TemporaryFolder _ordner = new TemporaryFolder();
+
+    private File _datei;
+
+    @Before
+    public void setUp()
+    {
+        _datei = new File(_ordner.getRoot(), "kino.journal");
+    }
+
+    @Test
+    public void testeVorstellungsIdIstStabil()
+    {
+        Kino kino1 = erzeugeKino();
+        Kino kino2 = erzeugeKino();
+        for (Vorstellung v : kino1.getTagesplan(DATUM).getVorstellungen())
+        {
+            long id = kino1.getVorstellungsId(v);
+            Vorstellung w = kino2.getVorstellung(id);
+            assertEquals(v.getKinosaal(), w.getKinosaal());
+            assertEquals(v.getAnfangszeit(), w.getAnfangszeit());
+            assertEquals(id, kino2.getVorstellungsId(w));
+        }
+        assertNull(kino1.getVorstellung(0));
+    }
+
+    @Test
+    public void testeVerkaeufeUeberlebenNeustart() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+
+        Vorstellung v = gibVorstellung(kino, DATUM, 0);
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(0, 0));
+        plaetze.add(new Platz(19, 24));
+        plaetze.add(new Platz(5, 7));
+        v.verkaufePlaetze(plaetze);
+        v.verkaufePlatz(new Platz(1, 1));
+        v.stornierePlatz(new Platz(5, 7));
+        gibVorstellung(kino, DATUM, 1).verkaufePlatz(new Platz(9, 15));
+        journal.schliesse();
+
+        Kino neuesKino = erzeugeKino();
+        assertEquals(_datei.length(),
+                Verkaufsjournal.spieleEin(neuesKino, _datei));
+
+        Vorstellung w = gibVorstellung(neuesKino, DATUM, 0);
+        assertEquals(3, w.getAnzahlVerkauftePlaetze());
+        assertTrue(w.istPlatzVerkauft(new Platz(0, 0)));
+        assertTrue(w.istPlatzVerkauft(new Platz(19, 24)));
+        assertTrue(w.istPlatzVerkauft(new Platz(1, 1)));
+        assertFalse(w.istPlatzVerkauft(new Platz(5, 7)));
+        assertTrue(gibVorstellung(neuesKino, DATUM, 1).istPlatzVerkauft(
+                new Platz(9, 15)));
+    }
+
+    @Test
+    public void testeGleichzeitigeVerkaeufe() throws Exception
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        final Vorstellung v = gibVorstellung(kino, DATUM, 0);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            final int reihe = t;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int sitz = 0; sitz < 25; sitz++)
+                    {
+                        v.verkaufePlatz(new Platz(reihe, sitz));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        journal.schliesse();
+
+        Kino neuesKino = erzeugeKino();
+        assertEquals(_datei.length(),
+                Verkaufsjournal.spieleEin(neuesKino, _datei));
+        assertEquals(100, gibVorstellung(neuesKino, DATUM, 0)
+                .getAnzahlVerkauftePlaetze());
+    }
+
+    @Test
+    public void testeUnvollstaendigerDatensatzWirdIgnoriert()
+            throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(2, 2));
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(3, 3));
+        journal.schliesse();
+
+        // Absturz mitten im zweiten Datensatz nachstellen
+        long ende = _datei.length() - 2;
+        RandomAccessFile datei = new RandomAccessFile(_datei, "rw");
+        datei.setLength(ende);
+        datei.close();
+
+        Kino neuesKino = erzeugeKino();
+        assertTrue(Verkaufsjournal.spieleEin(neuesKino, _datei) < ende);
+        assertTrue(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(2, 2)));
+        assertFalse(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(3, 3)));
+    }
+
+    @Test
+    public void testeBeschaedigterDatensatzWirdIgnoriert() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(2, 2));
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(3, 3));
+        journal.schliesse();
+
+        // Den Sitz des zweiten Datensatzes verfälschen; die Länge stimmt
+        // weiterhin, nur die Prüfsumme nicht mehr.
+        RandomAccessFile datei = new RandomAccessFile(_datei, "rw");
+        datei.seek(datei.length() - 5);
+        datei.write(4);
+        datei.close();
+
+        Kino neuesKino = erzeugeKino();
+        Verkaufsjournal.spieleEin(neuesKino, _datei);
+        assertTrue(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(2, 2)));
+        assertFalse(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(3, 4)));
+        assertFalse(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(3, 3)));
+    }
+
+    @Test
+    public void testeVerkaeufeNachAbgebrochenemDatensatzBleibenErhalten()
+            throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(2, 2));
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(3, 3));
+        journal.schliesse();
+
+        RandomAccessFile datei = new RandomAccessFile(_datei, "rw");
+        datei.setLength(datei.length() - 2);
+        datei.close();
+
+        // Neustart: einspielen, weiter verkaufen, erneut einspielen
+        Kino zweitesKino = erzeugeKino();
+        long gueltigeLaenge = Verkaufsjournal.spieleEin(zweitesKino, _datei);
+        journal = new Verkaufsjournal(zweitesKino, _datei, gueltigeLaenge);
+        assertEquals(gueltigeLaenge, _datei.length());
+        zweitesKino.setVerkaufsprotokoll(journal);
+        gibVorstellung(zweitesKino, DATUM, 0).verkaufePlatz(new Platz(4, 4));
+        gibVorstellung(zweitesKino, DATUM, 1).verkaufePlatz(new Platz(5, 5));
+        journal.schliesse();
+
+        Kino drittesKino = erzeugeKino();
+        assertEquals(_datei.length(),
+                Verkaufsjournal.spieleEin(drittesKino, _datei));
+        Vorstellung v = gibVorstellung(drittesKino, DATUM, 0);
+        assertTrue(v.istPlatzVerkauft(new Platz(2, 2)));
+        assertFalse(v.istPlatzVerkauft(new Platz(3, 3)));
+        assertTrue(v.istPlatzVerkauft(new Platz(4, 4)));
+        assertTrue(gibVorstellung(drittesKino, DATUM, 1).istPlatzVerkauft(
+                new Platz(5, 5)));
+    }
+
+    @Test
+    public void testeGescheiterterVerkaufWirdZurueckgenommen()
+            throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        Vorstellung v = gibVorstellung(kino, DATUM, 0);
+        v.verkaufePlatz(new Platz(1, 1));
+        journal.schliesse();
+
+        Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(2, 2));
+        try
+        {
+            v.verkaufeFallsFrei(plaetze);
+            fail("Verkauf ohne Journal");
+        }
+        catch (IllegalStateException e)
+        {
+            // erwartet
+        }
+        assertFalse(v.istPlatzVerkauft(new Platz(2, 2)));
+        assertTrue(v.sindVerkaufbar(plaetze));
+
+        try
+        {
+            v.stornierePlatz(new Platz(1, 1));
+            fail("Stornierung ohne Journal");
+        }
+        catch (IllegalStateException e)
+        {
+            // erwartet
+        }
+        assertTrue(v.istPlatzVerkauft(new Platz(1, 1)));
+        assertEquals(1, v.getAuslastung().getAnzahlVerkaufterPlaetze());
+    }
+
+    @Test
+    public void testeZuGrosserDatensatzWirdAbgelehnt() throws IOException
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        Set<Platz> plaetze = new HashSet<Platz>();
+        for (int i = 0; i <= Verkaufsjournal.MAX_PLAETZE_PRO_DATENSATZ; i++)
+        {
+            plaetze.add(Platz.get(i / 256, i % 256));
+        }
+        try
+        {
+            journal.plaetzeVerkauft(gibVorstellung(kino, DATUM, 0), plaetze,
+                    new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            fail("Änderung trotz abgelehntem Datensatz");
+                        }
+                    });
+            fail("IllegalArgumentException erwartet");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // erwartet
+        }
+        journal.schliesse();
+        assertEquals(4, _datei.length());
+    }
+
+    @Test
+    public void testeJournalFolgtDerReihenfolgeImSpeicher() throws Exception
+    {
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        final Vorstellung v = gibVorstellung(kino, DATUM, 0);
+        final Set<Platz> plaetze = new HashSet<Platz>();
+        plaetze.add(new Platz(7, 7));
+
+        Thread verkaeufer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < 500; i++)
+                {
+                    v.verkaufeFallsFrei(plaetze);
+                }
+            }
+        };
+        Thread stornierer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < 500; i++)
+                {
+                    v.storniereFallsVerkauft(plaetze);
+                }
+            }
+        };
+        verkaeufer.start();
+        stornierer.start();
+        verkaeufer.join();
+        stornierer.join();
+        boolean verkauft = v.istPlatzVerkauft(new Platz(7, 7));
+        journal.schliesse();
+
+        Kino neuesKino = erzeugeKino();
+        Verkaufsjournal.spieleEin(neuesKino, _datei);
+        assertEquals(verkauft, gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(7, 7)));
+    }
+
+    @Test
+    public void testeKontrollpunkt() throws IOException
+    {
+        File abbild = new File(_ordner.getRoot(), "kino.abbild");
+        Kino kino = erzeugeKino();
+        Verkaufsjournal journal = new Verkaufsjournal(kino, _datei);
+        kino.setVerkaufsprotokoll(journal);
+        gibVorstellung(kino, DATUM, 0).verkaufePlatz(new Platz(2, 2));
+        journal.kontrollpunkt(abbild);
+        assertEquals(4, _datei.length());
+        gibVorstellung(kino, DATUM, 1).verkaufePlatz(new Platz(3, 3));
+        journal.schliesse();
+
+        Kino neuesKino = erzeugeKino();
+        neuesKino.oeffneBelegungsabbild(abbild);
+        assertEquals(_datei.length(),
+                Verkaufsjournal.spieleEin(neuesKino, _datei));
+        assertTrue(gibVorstellung(neuesKino, DATUM, 0).istPlatzVerkauft(
+                new Platz(2, 2)));
+        assertTrue(gibVorstellung(neuesKino, DATUM, 1).istPlatzVerkauft(
+                new Platz(3, 3)));
+    }
+
+    @Test
+    public void testeFehlendesJournal() throws IOException
+    {
+        assertEquals(0, Verkaufsjournal.spieleEin(erzeugeKino(), _datei));
+    }
+}
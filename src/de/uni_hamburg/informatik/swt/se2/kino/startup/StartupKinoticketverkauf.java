@@ -1,15 +1,30 @@
 package de.uni_hamburg.informatik.swt.se2.kino.startup;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
 import javax.swing.SwingUtilities;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.FSK;
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Uhrzeit;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Film;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kennzahlen;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+import de.uni_hamburg.informatik.swt.se2.kino.services.http.Verkaufsdienst;
+import de.uni_hamburg.informatik.swt.se2.kino.services.jmx.Kennzahlenexport;
+import de.uni_hamburg.informatik.swt.se2.kino.services.persistenz.Programmimport;
+import de.uni_hamburg.informatik.swt.se2.kino.services.persistenz.Verkaufsjournal;
 import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.kasse.KassenWerkzeug;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf.PlatzVerkaufsWerkzeug;
 
 /**
  * Startet die Anwendung.
@@ -19,23 +34,133 @@ import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.kasse.KassenWerkzeug;
  */
 public class StartupKinoticketverkauf
 {
+    private static final Logger LOGGER = Logger
+        .getLogger(StartupKinoticketverkauf.class.getName());
+
+    // Die Datei, in der alle Verkäufe und Stornierungen festgehalten werden.
+    private static final File JOURNAL = new File("kinoticketverkauf.journal");
+
+    // Die Datei, in der die verkauften Plätze beim Beenden abgebildet werden.
+    private static final File ABBILD = new File("kinoticketverkauf.abbild");
+
+    // Der Port des Verkaufsdienstes, falls keiner angegeben ist.
+    private static final int STANDARD_PORT = 8080;
+
     /**
      * Die Main-Methode.
      * 
-     * @param args die Aufrufparameter.
+     * @param args die Aufrufparameter. Ist eine Programmdatei angegeben (CSV
+     *            oder mit der Endung .bin im Binärformat), wird das Programm
+     *            daraus gelesen, sonst werden Beispieldaten verwendet. Mit
+     *            <code>--dienst</code> oder <code>--dienst=PORT</code> davor
+     *            startet statt der Kasse der {@link Verkaufsdienst}. In
+     *            beiden Fällen werden die Kennzahlen des Verkaufs über JMX
+     *            veröffentlicht.
+     * 
+     * @throws IOException falls die Programmdatei, das Belegungsabbild oder
+     *             das Verkaufsjournal nicht gelesen oder geöffnet werden kann.
+     * @throws JMException falls die Kennzahlen nicht veröffentlicht werden
+     *             können.
      */
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException, JMException
     {
-        final Kino kino = erzeugeKinoMitBeispieldaten();
+        int port = -1;
+        int naechstes = 0;
+        if (args.length > 0 && args[0].startsWith("--dienst"))
+        {
+            port = args[0].startsWith("--dienst=") ? Integer.parseInt(args[0]
+                    .substring("--dienst=".length())) : STANDARD_PORT;
+            naechstes++;
+        }
+        final Kino kino = args.length > naechstes ? leseProgramm(new File(
+                args[naechstes])) : erzeugeKinoMitBeispieldaten();
+        oeffneVerkaufsjournal(kino);
+        Kennzahlenexport.registriere(Kennzahlen.getStandard());
+        if (port >= 0)
+        {
+            Verkaufsdienst dienst = new Verkaufsdienst(kino, port);
+            dienst.starte();
+            LOGGER.info("Verkaufsdienst auf Port " + dienst.getPort());
+            return;
+        }
+        Kennzahlenexport.registriere("Platzplanaktualisierung",
+                PlatzVerkaufsWerkzeug.getAktualisierungsdauer(), "ns");
+        final Executor hintergrund = erzeugeHintergrundExecutor();
         SwingUtilities.invokeLater(new Runnable()
         {
             public void run()
             {
-                new KassenWerkzeug(kino);
+                new KassenWerkzeug(kino, hintergrund);
             }
         });
     }
 
+    /**
+     * Erzeugt den Executor, in dem die Kasse Verkäufe, Stornierungen und das
+     * Laden von Tagesplänen ausführt. Ein einzelner Thread erhält die
+     * Reihenfolge der Vorgänge; als Daemon hält er das Beenden nicht auf.
+     */
+    private static Executor erzeugeHintergrundExecutor()
+    {
+        return Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "Kasse-Hintergrund");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stellt die bisherigen Verkäufe aus dem Belegungsabbild und dem
+     * Verkaufsjournal wieder her und protokolliert alle weiteren Verkäufe
+     * darin. Beim Beenden wird ein Kontrollpunkt geschrieben.
+     */
+    private static void oeffneVerkaufsjournal(Kino kino) throws IOException
+    {
+        if (ABBILD.exists())
+        {
+            kino.oeffneBelegungsabbild(ABBILD);
+        }
+        long gueltigeLaenge = Verkaufsjournal.spieleEin(kino, JOURNAL);
+        final Verkaufsjournal journal = new Verkaufsjournal(kino, JOURNAL,
+                gueltigeLaenge);
+        kino.setVerkaufsprotokoll(journal);
+        Runtime.getRuntime().addShutdownHook(new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    journal.kontrollpunkt(ABBILD);
+                    journal.schliesse();
+                }
+                catch (IOException e)
+                {
+                    LOGGER.log(Level.SEVERE,
+                            "Kontrollpunkt beim Beenden gescheitert", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Liest das Programm aus der angegebenen Datei.
+     */
+    private static Kino leseProgramm(File datei) throws IOException
+    {
+        Programmimport programmimport = new Programmimport();
+        if (datei.getName().endsWith(".bin"))
+        {
+            return programmimport.leseBinaer(datei);
+        }
+        return programmimport.leseCsv(datei);
+    }
+
     /**
      * Erzeugt ein Kino mit einigen Vorstellungen.
      */
@@ -0,0 +1,171 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge;
+
+import java.awt.Component;
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Eine Arbeit an Materialien, die ein Werkzeug außerhalb des Event Dispatch
+ * Threads ausführen lässt, damit die Oberfläche auch bei langsamen
+ * Verkaufsprotokollen oder Sperren bedienbar bleibt. {@link #arbeite()} läuft
+ * im Executor; das Ergebnis oder der Fehler wird danach auf dem Event
+ * Dispatch Thread an {@link #erledigt(Object)} bzw.
+ * {@link #gescheitert(Throwable)} übergeben. Auch ein {@link Error} wird an
+ * {@link #gescheitert(Throwable)} gemeldet, damit das Werkzeug seine Sperren
+ * aufheben kann; danach wird er im Executor weitergeworfen.
+ * 
+ * Mit {@link #DIREKT} läuft alles sofort im aufrufenden Thread. Wird der
+ * Auftrag dann auf dem Event Dispatch Thread gestartet, sind Arbeit und
+ * Rückmeldung beim Ende von {@link #starte(Executor)} bereits erledigt.
+ * 
+ * @param <T> der Typ des Ergebnisses.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public abstract class Hintergrundauftrag<T>
+{
+    /**
+     * Ein Executor, der jede Arbeit sofort im aufrufenden Thread ausführt.
+     */
+    public static final Executor DIREKT = new Executor()
+    {
+        @Override
+        public void execute(Runnable arbeit)
+        {
+            arbeit.run();
+        }
+    };
+
+    /**
+     * Führt die Arbeit aus. Wird im Executor aufgerufen und darf daher keine
+     * Oberflächenelemente anfassen.
+     * 
+     * @throws Exception falls die Arbeit scheitert.
+     */
+    protected abstract T arbeite() throws Exception;
+
+    /**
+     * Wird auf dem Event Dispatch Thread aufgerufen, nachdem die Arbeit
+     * erledigt ist.
+     * 
+     * @param ergebnis das Ergebnis von {@link #arbeite()}.
+     */
+    protected abstract void erledigt(T ergebnis);
+
+    /**
+     * Wird auf dem Event Dispatch Thread aufgerufen, falls die Arbeit
+     * gescheitert ist oder vom Executor nicht angenommen wurde.
+     * 
+     * @param fehler der Fehler.
+     */
+    protected abstract void gescheitert(Throwable fehler);
+
+    /**
+     * Protokolliert einen Fehler und zeigt ihn der Benutzerin oder dem
+     * Benutzer in einem Dialog an. Ohne Bildschirm wird er nur protokolliert.
+     * Für die Verwendung in {@link #gescheitert(Throwable)}.
+     * 
+     * @param eltern die Komponente, über der der Dialog erscheint.
+     * @param meldung die Meldung für die Benutzerin oder den Benutzer.
+     * @param fehler der Fehler.
+     * 
+     * @require meldung != null
+     * @require fehler != null
+     */
+    public static void zeigeFehler(Component eltern, String meldung,
+            Throwable fehler)
+    {
+        assert meldung != null : "Vorbedingung verletzt: meldung != null";
+        assert fehler != null : "Vorbedingung verletzt: fehler != null";
+
+        Logger.getLogger(Hintergrundauftrag.class.getName()).log(
+                Level.SEVERE, meldung, fehler);
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            String grund = fehler.getLocalizedMessage();
+            JOptionPane.showMessageDialog(eltern, grund == null ? meldung
+                    : meldung + "\n" + grund, "Fehler",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Übergibt diesen Auftrag dem Executor.
+     * 
+     * @param executor der Executor, in dem {@link #arbeite()} läuft.
+     * 
+     * @require executor != null
+     */
+    public void starte(Executor executor)
+    {
+        assert executor != null : "Vorbedingung verletzt: executor != null";
+
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    T ergebnis;
+                    try
+                    {
+                        ergebnis = arbeite();
+                    }
+                    catch (Exception e)
+                    {
+                        melde(null, e);
+                        return;
+                    }
+                    catch (Error e)
+                    {
+                        melde(null, e);
+                        throw e;
+                    }
+                    melde(ergebnis, null);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            melde(null, e);
+        }
+    }
+
+    /**
+     * Meldet Ergebnis oder Fehler auf dem Event Dispatch Thread.
+     */
+    private void melde(final T ergebnis, final Throwable fehler)
+    {
+        Runnable meldung = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (fehler == null)
+                {
+                    erledigt(ergebnis);
+                }
+                else
+                {
+                    gescheitert(fehler);
+                }
+            }
+        };
+        if (SwingUtilities.isEventDispatchThread())
+        {
+            meldung.run();
+        }
+        else
+        {
+            SwingUtilities.invokeLater(meldung);
+        }
+    }
+}
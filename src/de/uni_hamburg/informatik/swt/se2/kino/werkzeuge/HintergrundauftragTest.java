@@ -0,0 +1,169 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+public class HintergrundauftragTest
+{
+    /**
+     * Ein Auftrag, der das Ergebnis oder den Fehler seiner Arbeit festhält.
+     */
+    private static class Auftrag extends Hintergrundauftrag<Integer>
+    {
+        private final Throwable _fehlerDerArbeit;
+        private boolean _gearbeitet;
+        private Integer _ergebnis;
+        private Throwable _fehler;
+        private boolean _aufEdtGemeldet;
+
+        Auftrag(Throwable fehlerDerArbeit)
+        {
+            _fehlerDerArbeit = fehlerDerArbeit;
+        }
+
+        @Override
+        protected Integer arbeite() throws Exception
+        {
+            _gearbeitet = true;
+            if (_fehlerDerArbeit instanceof Exception)
+            {
+                throw (Exception) _fehlerDerArbeit;
+            }
+            if (_fehlerDerArbeit instanceof Error)
+            {
+                throw (Error) _fehlerDerArbeit;
+            }
+            return 42;
+        }
+
+        @Override
+        protected void erledigt(Integer ergebnis)
+        {
+            _ergebnis = ergebnis;
+            _aufEdtGemeldet = SwingUtilities.isEventDispatchThread();
+        }
+
+        @Override
+        protected void gescheitert(Throwable fehler)
+        {
+            _fehler = fehler;
+            _aufEdtGemeldet = SwingUtilities.isEventDispatchThread();
+        }
+    }
+
+    /**
+     * Wartet, bis alle bisher an den Event Dispatch Thread übergebenen
+     * Meldungen ausgeführt sind.
+     */
+    private static void warteAufEdt() throws InterruptedException,
+            InvocationTargetException
+    {
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+            }
+        });
+    }
+
+    @Test
+    public void testeDirektAufEdtIstSofortErledigt() throws Exception
+    {
+        final Auftrag auftrag = new Auftrag(null);
+        final boolean[] erledigtBeimEnde = new boolean[1];
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                auftrag.starte(Hintergrundauftrag.DIREKT);
+                erledigtBeimEnde[0] = auftrag._ergebnis != null;
+            }
+        });
+
+        assertTrue(erledigtBeimEnde[0]);
+        assertEquals(Integer.valueOf(42), auftrag._ergebnis);
+        assertNull(auftrag._fehler);
+        assertTrue(auftrag._aufEdtGemeldet);
+    }
+
+    @Test
+    public void testeErgebnisWirdAufEdtGemeldet() throws Exception
+    {
+        Auftrag auftrag = new Auftrag(null);
+        auftrag.starte(Hintergrundauftrag.DIREKT);
+        warteAufEdt();
+
+        assertEquals(Integer.valueOf(42), auftrag._ergebnis);
+        assertTrue(auftrag._aufEdtGemeldet);
+    }
+
+    @Test
+    public void testeAbgelehnterAuftragScheitert() throws Exception
+    {
+        Auftrag auftrag = new Auftrag(null);
+        auftrag.starte(new Executor()
+        {
+            @Override
+            public void execute(Runnable arbeit)
+            {
+                throw new RejectedExecutionException();
+            }
+        });
+        warteAufEdt();
+
+        assertFalse(auftrag._gearbeitet);
+        assertNull(auftrag._ergebnis);
+        assertTrue(auftrag._fehler instanceof RejectedExecutionException);
+        assertTrue(auftrag._aufEdtGemeldet);
+    }
+
+    @Test
+    public void testeAusnahmeDerArbeitScheitert() throws Exception
+    {
+        IOException fehler = new IOException("Journal nicht erreichbar");
+        Auftrag auftrag = new Auftrag(fehler);
+        auftrag.starte(Hintergrundauftrag.DIREKT);
+        warteAufEdt();
+
+        assertTrue(auftrag._gearbeitet);
+        assertNull(auftrag._ergebnis);
+        assertSame(fehler, auftrag._fehler);
+        assertTrue(auftrag._aufEdtGemeldet);
+    }
+
+    @Test
+    public void testeErrorDerArbeitWirdGemeldetUndWeitergeworfen()
+            throws Exception
+    {
+        Error fehler = new StackOverflowError();
+        Auftrag auftrag = new Auftrag(fehler);
+        try
+        {
+            auftrag.starte(Hintergrundauftrag.DIREKT);
+            fail("Error erwartet");
+        }
+        catch (StackOverflowError e)
+        {
+            assertSame(fehler, e);
+        }
+        warteAufEdt();
+
+        assertSame(fehler, auftrag._fehler);
+        assertTrue(auftrag._aufEdtGemeldet);
+    }
+}
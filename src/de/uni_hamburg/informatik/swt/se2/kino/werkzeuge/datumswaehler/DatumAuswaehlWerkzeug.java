@@ -2,7 +2,8 @@ package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Observable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.JPanel;
 
@@ -17,10 +18,11 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
  * @author SE2-Team
  * @version SoSe 2012
  */
-public class DatumAuswaehlWerkzeug extends Observable
+public class DatumAuswaehlWerkzeug
 {
     private DatumAuswaehlWerkzeugUI _ui;
     private Datum _ausgewaehltesDatum;
+    private List<DatumAuswahlListener> _listener;
 
     /**
      * Initialisiert dieses Werkzeug. Das initial ausgewählte Datum ist der
@@ -29,6 +31,7 @@ public class DatumAuswaehlWerkzeug extends Observable
     public DatumAuswaehlWerkzeug()
     {
         _ausgewaehltesDatum = Datum.heute();
+        _listener = new CopyOnWriteArrayList<DatumAuswahlListener>();
         _ui = new DatumAuswaehlWerkzeugUI(_ausgewaehltesDatum.getFormatiertenString());
         registriereUIAktionen();
     }
@@ -40,10 +43,7 @@ public class DatumAuswaehlWerkzeug extends Observable
     {
         _ausgewaehltesDatum = _ausgewaehltesDatum.vorherigerTag();
         _ui.getDatumLabel().setText(_ausgewaehltesDatum.getFormatiertenString());
-        //Ueber aenderungen informieren
-        setChanged();
-        notifyObservers( this);
-        clearChanged();
+        informiereListener();
     }
     
     /**
@@ -53,12 +53,43 @@ public class DatumAuswaehlWerkzeug extends Observable
     {
         _ausgewaehltesDatum = _ausgewaehltesDatum.naechsterTag();
         _ui.getDatumLabel().setText(_ausgewaehltesDatum.getFormatiertenString());
-        //Ueber aenderungen informieren
-        setChanged();
-        notifyObservers( this);
-        clearChanged();
+        informiereListener();
     }
     
+    /**
+     * Fügt einen Listener hinzu, der bei Änderungen des ausgewählten Datums
+     * benachrichtigt wird.
+     * 
+     * @param listener der Listener.
+     */
+    public void addDatumAuswahlListener(DatumAuswahlListener listener)
+    {
+        _listener.add(listener);
+    }
+
+    /**
+     * Entfernt einen Listener.
+     * 
+     * @param listener der Listener.
+     */
+    public void removeDatumAuswahlListener(DatumAuswahlListener listener)
+    {
+        _listener.remove(listener);
+    }
+
+    /**
+     * Benachrichtigt die Listener über das neu ausgewählte Datum.
+     */
+    private void informiereListener()
+    {
+        DatumAuswahlEvent event = new DatumAuswahlEvent(this,
+                _ausgewaehltesDatum);
+        for (DatumAuswahlListener listener : _listener)
+        {
+            listener.datumGeaendert(event);
+        }
+    }
+
     /**
      * Gibt das Panel dieses Subwerkzeugs zurück. Das Panel sollte von einem
      * Kontextwerkzeug eingebettet werden.
@@ -0,0 +1,45 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler;
+
+import java.util.EventObject;
+
+import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
+
+/**
+ * Event, das darüber informiert, dass im {@link DatumAuswaehlWerkzeug} ein
+ * anderes Datum ausgewählt wurde.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class DatumAuswahlEvent extends EventObject
+{
+    private Datum _datum;
+
+    /**
+     * Erstellt ein neues DatumAuswahlEvent.
+     * 
+     * @param source Das Objekt, von dem das Ereignis ausgelöst wurde.
+     * @param datum das jetzt ausgewählte Datum.
+     */
+    public DatumAuswahlEvent(Object source, Datum datum)
+    {
+        super(source);
+        _datum = datum;
+    }
+
+    /**
+     * Gibt das nach diesem Ereignis ausgewählte Datum zurück.
+     */
+    public Datum getDatum()
+    {
+        return _datum;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DatumAuswahlEvent[source=" + source + ", datum=" + _datum + "]";
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,20 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler;
+
+import java.util.EventListener;
+
+/**
+ * Interface eines Listeners, der benachrichtigt wird, wenn im
+ * {@link DatumAuswaehlWerkzeug} ein anderes Datum ausgewählt wurde.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface DatumAuswahlListener extends EventListener
+{
+    /**
+     * Wird aufgerufen, wenn sich das ausgewählte Datum geändert hat.
+     * 
+     * @param event das Event, das die Änderung beschreibt.
+     */
+    void datumGeaendert(DatumAuswahlEvent event);
+}
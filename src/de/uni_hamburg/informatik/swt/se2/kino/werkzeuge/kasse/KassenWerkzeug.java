@@ -2,26 +2,34 @@ package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.kasse;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.Executor;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Datum;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kino;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Tagesplan;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.Hintergrundauftrag;
 import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler.DatumAuswaehlWerkzeug;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler.DatumAuswahlEvent;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.datumswaehler.DatumAuswahlListener;
 import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf.PlatzVerkaufsWerkzeug;
 import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler.VorstellungAuswaehlWerkzeug;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler.VorstellungAuswahlEvent;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler.VorstellungAuswahlListener;
 
 /**
  * Das Kassenwerkzeug. Mit diesem Werkzeug kann die Benutzerin oder der Benutzer
  * eine Vorstellung auswählen und Karten für diese Vorstellung verkaufen und
  * stornieren.
  * 
+ * Tagespläne werden wie Verkäufe und Stornierungen in einem Executor geladen,
+ * der beim Erzeugen angegeben wird. Solange ein Tagesplan lädt, können weder
+ * Vorstellungen ausgewählt noch Plätze verkauft werden.
+ * 
  * @author SE2-Team
  * @version SoSe 2012
  */
-public class KassenWerkzeug implements Observer
+public class KassenWerkzeug
 {
     // Das Material dieses Werkzeugs
     private Kino _kino;
@@ -34,28 +42,48 @@ public class KassenWerkzeug implements Observer
     private DatumAuswaehlWerkzeug _datumAuswaehlWerkzeug;
     private VorstellungAuswaehlWerkzeug _vorstellungAuswaehlWerkzeug;
 
+    // Der Executor, in dem Tagespläne geladen werden.
+    private Executor _executor;
+
+    // Die Anzahl der Tagespläne, die gerade geladen werden.
+    private int _ladendeTagesplaene;
+
     /**
-     * Initialisiert das Kassenwerkzeug.
+     * Initialisiert das Kassenwerkzeug. Alle Arbeit an den Materialien läuft
+     * direkt auf dem Event Dispatch Thread.
      * 
      * @param kino das Kino, mit dem das Werkzeug arbeitet.
      * 
      * @require kino != null
      */
     public KassenWerkzeug(Kino kino)
+    {
+        this(kino, Hintergrundauftrag.DIREKT);
+    }
+
+    /**
+     * Initialisiert das Kassenwerkzeug. Verkäufe, Stornierungen und das Laden
+     * von Tagesplänen laufen im angegebenen Executor.
+     * 
+     * @param kino das Kino, mit dem das Werkzeug arbeitet.
+     * @param executor der Executor für die Arbeit an den Materialien.
+     * 
+     * @require kino != null
+     * @require executor != null
+     */
+    public KassenWerkzeug(Kino kino, Executor executor)
     {
         assert kino != null : "Vorbedingung verletzt: kino != null";
+        assert executor != null : "Vorbedingung verletzt: executor != null";
 
         _kino = kino;
+        _executor = executor;
 
         // Subwerkzeuge erstellen
-        _platzVerkaufsWerkzeug = new PlatzVerkaufsWerkzeug();
+        _platzVerkaufsWerkzeug = new PlatzVerkaufsWerkzeug(executor);
         _datumAuswaehlWerkzeug = new DatumAuswaehlWerkzeug();
         _vorstellungAuswaehlWerkzeug = new VorstellungAuswaehlWerkzeug();
-        
-        //als observer registrieren
-        _platzVerkaufsWerkzeug.addObserver(this);
-        _datumAuswaehlWerkzeug.addObserver(this);
-        _vorstellungAuswaehlWerkzeug.addObserver(this);
+        registriereSubwerkzeugListener();
 
         // UI erstellen (mit eingebetteten UIs der direkten Subwerkzeuge)
         _ui = new KassenWerkzeugUI(_platzVerkaufsWerkzeug.getUIPanel(),
@@ -67,28 +95,36 @@ public class KassenWerkzeug implements Observer
 
         _ui.zeigeFenster();
     }
-    
-    //update handler
-    public void update(Observable o, Object arg)
+
+    /**
+     * Registriert die Listener, über die die Subwerkzeuge Änderungen ihrer
+     * Auswahl melden. Verkäufe und Stornierungen aktualisiert das
+     * PlatzVerkaufsWerkzeug selbst.
+     */
+    private void registriereSubwerkzeugListener()
     {
-    	if(o instanceof PlatzVerkaufsWerkzeug)
-    	{
-    		reagiereAufNeueVorstellungsWahl();
-    	}
-    	else if(o instanceof DatumAuswaehlWerkzeug)
-    	{
-    		setzeTagesplanFuerAusgewaehltesDatum();
-    	}
-    	else if(o instanceof VorstellungAuswaehlWerkzeug)
-    	{
-    		reagiereAufNeueVorstellungsWahl();
-    	}
-    	else
-    	{
-    		// fehler
-    	}
-    	 
+        _datumAuswaehlWerkzeug
+                .addDatumAuswahlListener(new DatumAuswahlListener()
+                {
+                    @Override
+                    public void datumGeaendert(DatumAuswahlEvent event)
+                    {
+                        setzeTagesplanFuerAusgewaehltesDatum();
+                    }
+                });
+
+        _vorstellungAuswaehlWerkzeug
+                .addVorstellungAuswahlListener(new VorstellungAuswahlListener()
+                {
+                    @Override
+                    public void vorstellungGeaendert(
+                            VorstellungAuswahlEvent event)
+                    {
+                        reagiereAufNeueVorstellungsWahl();
+                    }
+                });
     }
+
     /**
      * Fügt die Funktionalitat zum Beenden-Button hinzu.
      */
@@ -106,12 +142,78 @@ public class KassenWerkzeug implements Observer
 
     /**
      * Setzt den in diesem Werkzeug angezeigten Tagesplan basierend auf dem
-     * derzeit im DatumsAuswahlWerkzeug ausgewählten Datum.
+     * derzeit im DatumsAuswahlWerkzeug ausgewählten Datum. Der Tagesplan wird
+     * im Executor geladen; wurde inzwischen ein anderes Datum gewählt, wird
+     * er verworfen. Die Zeitmessung des Wechsels beginnt im Executor und
+     * endet, sobald der Tagesplan oder der Fehler angezeigt ist.
      */
     private void setzeTagesplanFuerAusgewaehltesDatum()
     {
-        Tagesplan tagesplan = _kino.getTagesplan(getAusgewaehltesDatum());
-        _vorstellungAuswaehlWerkzeug.setTagesplan(tagesplan);
+        final Datum datum = getAusgewaehltesDatum();
+        beginneLaden();
+        new Hintergrundauftrag<Tagesplan>()
+        {
+            // Bleibt null, falls der Executor den Auftrag ablehnt.
+            private TagesplanwechselEreignis _ereignis;
+
+            @Override
+            protected Tagesplan arbeite()
+            {
+                _ereignis = new TagesplanwechselEreignis();
+                _ereignis.begin();
+                return _kino.getTagesplan(datum);
+            }
+
+            @Override
+            protected void erledigt(Tagesplan tagesplan)
+            {
+                beendeLaden(tagesplan);
+                _ereignis.beende(tagesplan, true);
+            }
+
+            @Override
+            protected void gescheitert(Throwable fehler)
+            {
+                // Ein leerer Plan, damit keine Vorstellungen des vorher
+                // gewählten Tages verkauft werden.
+                Tagesplan leer = new Tagesplan(datum);
+                beendeLaden(leer);
+                if (_ereignis != null)
+                {
+                    _ereignis.beende(leer, false);
+                }
+                zeigeFehler(_platzVerkaufsWerkzeug.getUIPanel(),
+                        "Der Tagesplan für den " + datum
+                                + " konnte nicht geladen werden.", fehler);
+            }
+        }.starte(_executor);
+    }
+
+    /**
+     * Sperrt die Auswahl von Vorstellungen und den Verkauf, solange ein
+     * Tagesplan lädt.
+     */
+    private void beginneLaden()
+    {
+        _ladendeTagesplaene++;
+        _vorstellungAuswaehlWerkzeug.setAuswahlMoeglich(false);
+        _platzVerkaufsWerkzeug.sperre();
+    }
+
+    /**
+     * Zeigt den geladenen Tagesplan an, sofern sein Datum noch gewählt ist,
+     * und hebt die Sperren auf, wenn kein weiterer Tagesplan mehr lädt.
+     */
+    private void beendeLaden(Tagesplan tagesplan)
+    {
+        _ladendeTagesplaene--;
+        if (tagesplan.getDatum().equals(getAusgewaehltesDatum()))
+        {
+            _vorstellungAuswaehlWerkzeug.setTagesplan(tagesplan);
+        }
+        _vorstellungAuswaehlWerkzeug
+                .setAuswahlMoeglich(_ladendeTagesplaene == 0);
+        _platzVerkaufsWerkzeug.entsperre();
     }
 
     /**
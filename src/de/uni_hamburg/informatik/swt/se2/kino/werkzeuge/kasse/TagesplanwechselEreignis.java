@@ -0,0 +1,52 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.kasse;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Tagesplan;
+
+/**
+ * Ein Ereignis für den JDK Flight Recorder, das den Wechsel der Kasse auf den
+ * Tagesplan eines anderen Datums mit seiner Dauer festhält.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@Name("de.uni_hamburg.informatik.swt.se2.kino.Tagesplanwechsel")
+@Label("Tagesplanwechsel")
+@Category({ "Kino", "Oberfläche" })
+final class TagesplanwechselEreignis extends Event
+{
+    @Name("datum")
+    @Label("Datum")
+    String _datum;
+
+    @Name("vorstellungen")
+    @Label("Vorstellungen")
+    int _vorstellungen;
+
+    @Name("erfolgreich")
+    @Label("Erfolgreich")
+    boolean _erfolgreich;
+
+    /**
+     * Beendet die Zeitmessung und zeichnet das Ereignis auf, falls es
+     * aufgezeichnet werden soll.
+     * 
+     * @param tagesplan der angezeigte Tagesplan.
+     * @param erfolgreich ob der Tagesplan geladen werden konnte.
+     */
+    void beende(Tagesplan tagesplan, boolean erfolgreich)
+    {
+        end();
+        if (shouldCommit())
+        {
+            _datum = tagesplan.getDatum().toString();
+            _vorstellungen = tagesplan.getVorstellungen().size();
+            _erfolgreich = erfolgreich;
+            commit();
+        }
+    }
+}
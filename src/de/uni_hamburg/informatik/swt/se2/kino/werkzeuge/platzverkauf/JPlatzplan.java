@@ -1,21 +1,32 @@
 package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf;
 
-import java.awt.Component;
+import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.Insets;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
+import javax.accessibility.AccessibleContext;
+import javax.accessibility.AccessibleRole;
+import javax.swing.AbstractAction;
+import javax.swing.InputMap;
 import javax.swing.JComponent;
-import javax.swing.JLabel;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.border.BevelBorder;
+import javax.swing.border.Border;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
 
 /**
  * Widget, das die Plätze in einem Kinosaal grafisch darstellt und es
@@ -23,9 +34,18 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
  * 
  * Hierfür wurde ein eigenes Widget entwickelt, damit das Werkzeug nur einen
  * Listener für ein spezielles Auswahl-Event registrieren muss, statt an jedem
- * einzelnen Button einen ActionListener registrieren zu müssen. Dieses Widget
- * kapselt also die Abbildung der Events der einzelnen Buttons auf ein
- * Auswahl-Event.
+ * einzelnen Platz einen Listener registrieren zu müssen.
+ * 
+ * Der Platzplan ist eine einzige Komponente, die alle Plätze selbst zeichnet.
+ * Jeder Platz belegt eine Zelle fester Größe in einem Gitter; welcher Platz
+ * angeklickt wurde, ergibt sich aus der Mausposition, und nach einer Änderung
+ * wird nur die Zelle des betroffenen Platzes neu gezeichnet. Auch sehr große
+ * Säle sind damit sofort aufgebaut.
+ * 
+ * Der Platzplan lässt sich auch mit der Tastatur bedienen: Er ist per Tab
+ * erreichbar, die Pfeiltasten bewegen eine Markierung von Platz zu Platz, und
+ * Leertaste oder Enter wählen den markierten Platz aus bzw. ab. Für
+ * Screenreader beschreibt der Platzplan den markierten Platz samt Zustand.
  * 
  * @author SE2-Team
  * @version SoSe 2012
@@ -34,9 +54,34 @@ class JPlatzplan extends JComponent
 {
     public static Dimension PLATZBUTTON_GROESSE = new Dimension(22, 22);
 
-    private JPlatzButton[][] _buttons;
-    private ActionListener _buttonListener;
-    private Set<Platz> _ausgewaehltePlaetze;
+    private static final Color FARBE_FREI = Color.GREEN;
+    private static final Color FARBE_VERKAUFT = Color.RED;
+    private static final Color FARBE_AUSGEWAEHLT = Color.YELLOW;
+    private static final Color FARBE_FOKUS = Color.BLUE;
+
+    // Der Abstand um jeden Platz herum
+    private static final int RAND = 2;
+    private static final int ZELLE_BREITE = PLATZBUTTON_GROESSE.width + 2
+            * RAND;
+    private static final int ZELLE_HOEHE = PLATZBUTTON_GROESSE.height + 2
+            * RAND;
+
+    private static final Border RAHMEN_OBEN = new BevelBorder(
+            BevelBorder.RAISED);
+    private static final Border RAHMEN_GEDRUECKT = new BevelBorder(
+            BevelBorder.LOWERED);
+
+    private int _anzahlReihen;
+    private int _anzahlSitzeProReihe;
+    private PlatzMenge _verkauftePlaetze;
+    private PlatzMenge _ausgewaehltePlaetze;
+    // Der Platz, auf dem die Maustaste gerade gedrückt ist, oder null
+    private Platz _gedrueckterPlatz;
+    // Der Platz, den die Tastatur markiert, oder null, falls es keine Plätze
+    // gibt
+    private Platz _fokusPlatz;
+    // Die Breite der Spalte mit den Reihenbeschriftungen
+    private int _beschriftungsbreite;
     private List<PlatzSelectionListener> _selectionListener;
 
     /**
@@ -44,46 +89,281 @@ class JPlatzplan extends JComponent
      */
     public JPlatzplan()
     {
-        setLayout(new GridBagLayout());
-        erzeugePlatzAuswahlListener();
-        _ausgewaehltePlaetze = new HashSet<Platz>();
+        setFont(UIManager.getFont("Label.font"));
+        setForeground(UIManager.getColor("Label.foreground"));
+        setBackground(UIManager.getColor("Panel.background"));
+        setOpaque(true);
         _selectionListener = new ArrayList<PlatzSelectionListener>();
+        erzeugePlatzAuswahlListener();
+        erzeugeTastaturbedienung();
+        setAnzahlPlaetze(0, 0);
     }
 
     /**
      * Erzeugt und registriert den Listener, der darauf reagiert, wenn durch
-     * Drücken eines der Buttons ein Platz ausgewählt wird.
+     * einen Mausklick ein Platz ausgewählt wird. Wie bei einem Button zählt
+     * der Klick nur, wenn die Maustaste über demselben Platz gedrückt und
+     * losgelassen wird.
      */
     private void erzeugePlatzAuswahlListener()
     {
-        _buttonListener = new ActionListener()
+        MouseAdapter listener = new MouseAdapter()
         {
             @Override
-            public void actionPerformed(ActionEvent e)
+            public void mousePressed(MouseEvent e)
             {
-                // Es gibt nur einen Listener für alle Buttons. Welcher der
-                // Buttons gedrückt wurde, muss deshalb aus dem Event ausgelesen
-                // werden.
-                JPlatzButton button = (JPlatzButton) e.getSource();
-
-                // Je nachdem, ob der Platz bereits ausgewählt war, wird er aus
-                // der Menge der ausgewählten Plätze entfernt oder dieser
-                // hinzugefügt.
-                Platz platz = button.getPlatz();
-                if (_ausgewaehltePlaetze.contains(platz))
+                if (SwingUtilities.isLeftMouseButton(e))
                 {
-                    _ausgewaehltePlaetze.remove(platz);
-                    button.setAusgewaehlt(false);
-                    informiereSelectionListener(_ausgewaehltePlaetze);
+                    requestFocusInWindow();
+                    Platz platz = platzBei(e.getX(), e.getY());
+                    if (platz != null)
+                    {
+                        setFokusPlatz(platz);
+                    }
+                    setGedrueckterPlatz(platz);
                 }
-                else
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e)
+            {
+                // Wie bei einem Button: Wird die Maus vom Platz weggezogen,
+                // erscheint er nicht mehr gedrückt.
+                if (_gedrueckterPlatz != null
+                        && !_gedrueckterPlatz.equals(platzBei(e.getX(), e
+                                .getY())))
+                {
+                    setGedrueckterPlatz(null);
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e)
+            {
+                Platz platz = _gedrueckterPlatz;
+                setGedrueckterPlatz(null);
+                if (platz != null && platz.equals(platzBei(e.getX(), e.getY())))
                 {
-                    _ausgewaehltePlaetze.add(platz);
-                    button.setAusgewaehlt(true);
-                    informiereSelectionListener(_ausgewaehltePlaetze);
+                    wechsleAuswahl(platz);
                 }
             }
         };
+        addMouseListener(listener);
+        addMouseMotionListener(listener);
+    }
+
+    /**
+     * Registriert die Tastenbelegung: Die Pfeiltasten bewegen die Markierung,
+     * Leertaste und Enter wechseln die Auswahl des markierten Platzes. Beim
+     * Wechsel des Fokus wird die Markierung ein- bzw. ausgeblendet.
+     */
+    private void erzeugeTastaturbedienung()
+    {
+        setFocusable(true);
+        registriereBewegung("platzLinks", KeyEvent.VK_LEFT, 0, -1);
+        registriereBewegung("platzRechts", KeyEvent.VK_RIGHT, 0, 1);
+        registriereBewegung("platzOben", KeyEvent.VK_UP, -1, 0);
+        registriereBewegung("platzUnten", KeyEvent.VK_DOWN, 1, 0);
+
+        InputMap tasten = getInputMap(WHEN_FOCUSED);
+        tasten.put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0),
+                "platzAuswaehlen");
+        tasten.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0),
+                "platzAuswaehlen");
+        getActionMap().put("platzAuswaehlen", new AbstractAction()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                if (_fokusPlatz != null)
+                {
+                    wechsleAuswahl(_fokusPlatz);
+                }
+            }
+
+            private static final long serialVersionUID = 1L;
+        });
+
+        addFocusListener(new FocusAdapter()
+        {
+            @Override
+            public void focusGained(FocusEvent e)
+            {
+                zeichneFokusPlatzNeu();
+            }
+
+            @Override
+            public void focusLost(FocusEvent e)
+            {
+                zeichneFokusPlatzNeu();
+            }
+        });
+    }
+
+    /**
+     * Belegt eine Taste mit einer Aktion, die die Markierung um die
+     * angegebene Anzahl Reihen und Sitze verschiebt.
+     */
+    private void registriereBewegung(String name, int taste,
+            final int reihen, final int sitze)
+    {
+        getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(taste, 0), name);
+        getActionMap().put(name, new AbstractAction()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                bewegeFokusPlatz(reihen, sitze);
+            }
+
+            private static final long serialVersionUID = 1L;
+        });
+    }
+
+    /**
+     * Verschiebt die Markierung, höchstens bis zum Rand des Saals.
+     */
+    private void bewegeFokusPlatz(int reihen, int sitze)
+    {
+        if (_fokusPlatz == null)
+        {
+            return;
+        }
+        int reihe = Math.max(0, Math.min(_anzahlReihen - 1, _fokusPlatz
+                .getReihe() + reihen));
+        int sitz = Math.max(0, Math.min(_anzahlSitzeProReihe - 1, _fokusPlatz
+                .getSitz() + sitze));
+        setFokusPlatz(Platz.get(reihe, sitz));
+    }
+
+    /**
+     * Setzt die Markierung auf den angegebenen Platz, rollt ihn in den
+     * sichtbaren Bereich und meldet die neue Beschreibung an Screenreader.
+     */
+    private void setFokusPlatz(Platz platz)
+    {
+        String alteBeschreibung = beschreibeFokusPlatz();
+        zeichneFokusPlatzNeu();
+        _fokusPlatz = platz;
+        zeichneFokusPlatzNeu();
+        scrollRectToVisible(new Rectangle(gitterX() + platz.getSitz()
+                * ZELLE_BREITE, gitterY() + platz.getReihe() * ZELLE_HOEHE,
+                ZELLE_BREITE, ZELLE_HOEHE));
+        meldeBeschreibung(alteBeschreibung);
+    }
+
+    private void zeichneFokusPlatzNeu()
+    {
+        if (_fokusPlatz != null)
+        {
+            zeichnePlatzNeu(_fokusPlatz);
+        }
+    }
+
+    /**
+     * Nimmt den Platz in die Auswahl auf oder entfernt ihn daraus, je nachdem,
+     * ob er bereits ausgewählt war.
+     */
+    private void wechsleAuswahl(Platz platz)
+    {
+        String alteBeschreibung = beschreibeFokusPlatz();
+        if (!_ausgewaehltePlaetze.remove(platz))
+        {
+            _ausgewaehltePlaetze.add(platz);
+        }
+        zeichnePlatzNeu(platz);
+        meldeBeschreibung(alteBeschreibung);
+        informiereSelectionListener();
+    }
+
+    /**
+     * Beschreibt den markierten Platz samt Zustand in Worten, z.B. "Reihe 3,
+     * Sitz 5, frei, ausgewählt".
+     */
+    private String beschreibeFokusPlatz()
+    {
+        if (_fokusPlatz == null)
+        {
+            return "Keine Plätze";
+        }
+        String text = "Reihe " + (_fokusPlatz.getReihe() + 1) + ", Sitz "
+                + _fokusPlatz.getSitz();
+        text += _verkauftePlaetze.contains(_fokusPlatz) ? ", verkauft"
+                : ", frei";
+        if (_ausgewaehltePlaetze.contains(_fokusPlatz))
+        {
+            text += ", ausgewählt";
+        }
+        return text;
+    }
+
+    /**
+     * Meldet Screenreadern eine geänderte Beschreibung, falls sie den
+     * Platzplan bereits abgefragt haben.
+     */
+    private void meldeBeschreibung(String alteBeschreibung)
+    {
+        if (accessibleContext != null)
+        {
+            accessibleContext.firePropertyChange(
+                    AccessibleContext.ACCESSIBLE_DESCRIPTION_PROPERTY,
+                    alteBeschreibung, beschreibeFokusPlatz());
+        }
+    }
+
+    @Override
+    public AccessibleContext getAccessibleContext()
+    {
+        if (accessibleContext == null)
+        {
+            accessibleContext = new AccessibleJPlatzplan();
+        }
+        return accessibleContext;
+    }
+
+    /**
+     * Die Informationen für Screenreader: Der Platzplan heißt "Platzplan",
+     * und seine Beschreibung nennt den markierten Platz.
+     */
+    private class AccessibleJPlatzplan extends AccessibleJComponent
+    {
+        @Override
+        public String getAccessibleName()
+        {
+            String name = super.getAccessibleName();
+            return name != null ? name : "Platzplan";
+        }
+
+        @Override
+        public String getAccessibleDescription()
+        {
+            return beschreibeFokusPlatz();
+        }
+
+        @Override
+        public AccessibleRole getAccessibleRole()
+        {
+            return AccessibleRole.PANEL;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Setzt den Platz, auf dem die Maustaste gedrückt ist, und zeichnet den
+     * vorigen und den neuen Platz neu.
+     */
+    private void setGedrueckterPlatz(Platz platz)
+    {
+        if (_gedrueckterPlatz != null)
+        {
+            zeichnePlatzNeu(_gedrueckterPlatz);
+        }
+        _gedrueckterPlatz = platz;
+        if (platz != null)
+        {
+            zeichnePlatzNeu(platz);
+        }
     }
 
     /**
@@ -109,19 +389,29 @@ class JPlatzplan extends JComponent
 
     /**
      * Benachrichtigt die SelectionListener, dass sich die Auswahl geändert hat.
-     * 
-     * @param ausgewaehltePlaetze die neue Auswahl.
+     * Alle Listener erhalten dasselbe Event mit einer nicht veränderbaren
+     * Momentaufnahme der Auswahl.
      */
-    private void informiereSelectionListener(Set<Platz> ausgewaehltePlaetze)
+    private void informiereSelectionListener()
     {
         PlatzSelectionEvent event = new PlatzSelectionEvent(this,
-                ausgewaehltePlaetze);
+                new PlatzMenge(_ausgewaehltePlaetze).nurLesbar());
         for (PlatzSelectionListener listener : _selectionListener)
         {
             listener.auswahlGeaendert(event);
         }
     }
 
+    /**
+     * Prüft, ob dieser Platzplan die angegebene Anzahl Reihen und Sitze pro
+     * Reihe anzeigt.
+     */
+    public boolean hatAnzahlPlaetze(int anzahlReihen, int anzahlSitzeProReihe)
+    {
+        return _anzahlReihen == anzahlReihen
+                && _anzahlSitzeProReihe == anzahlSitzeProReihe;
+    }
+
     /**
      * Setzt die Anzahl der Plätze, die in diesem Platzplan zur Auswahl
      * angeboten werden. Achtung, nach dem Aufruf dieser Methode werden zunächst
@@ -138,68 +428,313 @@ class JPlatzplan extends JComponent
         assert anzahlReihen >= 0 : "Vorbedingung verletzt: anzahlReihen >= 0";
         assert anzahlSitzeProReihe >= 0 : "Vorbedingung verletzt: anzahlSitzeProReihe >= 0";
 
-        // Alle vorhandenen Buttons etc. entfernen
-        removeAll();
+        PlatzplanAufbauEreignis ereignis = new PlatzplanAufbauEreignis();
+        ereignis.begin();
+        _anzahlReihen = anzahlReihen;
+        _anzahlSitzeProReihe = anzahlSitzeProReihe;
+        _verkauftePlaetze = new PlatzMenge(anzahlReihen, anzahlSitzeProReihe);
+        _gedrueckterPlatz = null;
+        _fokusPlatz = anzahlReihen > 0 && anzahlSitzeProReihe > 0 ? Platz.get(
+                0, 0) : null;
+
+        // Die breiteste Beschriftung ist die der letzten Reihe
+        FontMetrics fm = getFontMetrics(getFont());
+        _beschriftungsbreite = anzahlReihen == 0 ? 0 : fm
+                .stringWidth(beschriftung(anzahlReihen - 1))
+                + 2 * RAND;
+
+        revalidate();
+        repaint();
+
+        // Nach der Änderung ist kein Platz ausgewählt
+        _ausgewaehltePlaetze = new PlatzMenge(anzahlReihen, anzahlSitzeProReihe);
+        informiereSelectionListener();
+        ereignis.beende(anzahlReihen, anzahlSitzeProReihe);
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        if (isPreferredSizeSet())
+        {
+            return super.getPreferredSize();
+        }
+        return new Dimension(_beschriftungsbreite + _anzahlSitzeProReihe
+                * ZELLE_BREITE, _anzahlReihen * ZELLE_HOEHE);
+    }
 
-        // Neue Buttons für Plätze erstellen
-        _buttons = new JPlatzButton[anzahlReihen][anzahlSitzeProReihe];
-        for (int reihe = 0; reihe < anzahlReihen; reihe++)
+    @Override
+    public Dimension getMinimumSize()
+    {
+        if (isMinimumSizeSet())
         {
-            JLabel label = new JLabel("Reihe " + (reihe + 1) + ":");
-            imGitterEinfuegen(label, 0, reihe);
-            for (int sitz = 0; sitz < anzahlSitzeProReihe; sitz++)
+            return super.getMinimumSize();
+        }
+        return getPreferredSize();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        // Diese Methode soll den Zustand von g nicht veraendern, deshalb wird
+        // hier eine Kopie erstellt, mit der dann gearbeitet wird.
+        Graphics graphics = g.create();
+        try
+        {
+            Rectangle clip = graphics.getClipBounds();
+            if (clip == null)
+            {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            graphics.setColor(getBackground());
+            graphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+            if (_anzahlReihen == 0 || _anzahlSitzeProReihe == 0)
             {
-                JPlatzButton button = new JPlatzButton(new Platz(reihe, sitz));
-                button.setMinimumSize(PLATZBUTTON_GROESSE);
-                button.setPreferredSize(PLATZBUTTON_GROESSE);
-                imGitterEinfuegen(button, sitz + 1, reihe);
-                button.addActionListener(_buttonListener);
-                _buttons[reihe][sitz] = button;
+                return;
+            }
+
+            // Nur die Reihen und Sitze zeichnen, die im Clip liegen
+            int x0 = gitterX();
+            int y0 = gitterY();
+            int ersteReihe = Math.max(0, (clip.y - y0) / ZELLE_HOEHE);
+            int letzteReihe = Math.min(_anzahlReihen - 1, (clip.y
+                    + clip.height - y0)
+                    / ZELLE_HOEHE);
+            int ersterSitz = Math.max(0, (clip.x - x0) / ZELLE_BREITE);
+            int letzterSitz = Math.min(_anzahlSitzeProReihe - 1, (clip.x
+                    + clip.width - x0)
+                    / ZELLE_BREITE);
+
+            FontMetrics fm = graphics.getFontMetrics();
+            for (int reihe = ersteReihe; reihe <= letzteReihe; reihe++)
+            {
+                int y = y0 + reihe * ZELLE_HOEHE;
+                if (clip.x < x0)
+                {
+                    graphics.setColor(getForeground());
+                    String text = beschriftung(reihe);
+                    graphics.drawString(text, x0 - _beschriftungsbreite
+                            + RAND, y
+                            + (ZELLE_HOEHE - fm.getHeight()) / 2
+                            + fm.getAscent());
+                }
+                for (int sitz = ersterSitz; sitz <= letzterSitz; sitz++)
+                {
+                    zeichnePlatz(graphics, fm, Platz.get(reihe, sitz), x0
+                            + sitz * ZELLE_BREITE + RAND, y + RAND);
+                }
             }
         }
-        revalidate();
-        repaint();
+        finally
+        {
+            graphics.dispose();
+        }
+    }
 
-        // Nach der Änderung ist kein Platz ausgewählt
-        _ausgewaehltePlaetze.clear();
-        informiereSelectionListener(_ausgewaehltePlaetze);
+    /**
+     * Zeichnet einen Platz mit Hintergrund, Rahmen und der Nummer des Sitzes.
+     */
+    private void zeichnePlatz(Graphics graphics, FontMetrics fm, Platz platz,
+            int x, int y)
+    {
+        int breite = PLATZBUTTON_GROESSE.width;
+        int hoehe = PLATZBUTTON_GROESSE.height;
+        boolean ausgewaehlt = _ausgewaehltePlaetze.contains(platz);
+        Border rahmen = ausgewaehlt || platz.equals(_gedrueckterPlatz) ? RAHMEN_GEDRUECKT
+                : RAHMEN_OBEN;
+
+        graphics.setColor(farbeFuer(platz, ausgewaehlt));
+        graphics.fillRect(x, y, breite, hoehe);
+        rahmen.paintBorder(this, graphics, x, y, breite, hoehe);
+        if (hasFocus() && platz.equals(_fokusPlatz))
+        {
+            // Die Markierung liegt im Rand um den Platz
+            graphics.setColor(FARBE_FOKUS);
+            graphics.drawRect(x - RAND, y - RAND, breite + 2 * RAND - 1, hoehe
+                    + 2 * RAND - 1);
+            graphics.drawRect(x - RAND + 1, y - RAND + 1, breite + 2 * RAND
+                    - 3, hoehe + 2 * RAND - 3);
+        }
+
+        graphics.setColor(Color.BLACK);
+        String text = Integer.toString(platz.getSitz());
+        graphics.drawString(text, x + (breite - fm.stringWidth(text)) / 2, y
+                + (hoehe - fm.getHeight()) / 2 + fm.getAscent());
     }
 
     /**
-     * Fügt ein GUI-Element in das Darstellungsgitter ein.
-     * 
-     * @param component Das GUI-Element, das eingefügt werden soll.
-     * @param gridx x-Position im Gitter.
-     * @param gridy y-Position im Gitter.
+     * Gibt die Farbe zurück, in der der Platz gezeichnet werden soll.
+     */
+    private Color farbeFuer(Platz platz, boolean ausgewaehlt)
+    {
+        if (ausgewaehlt)
+        {
+            return FARBE_AUSGEWAEHLT;
+        }
+        else if (_verkauftePlaetze.contains(platz))
+        {
+            return FARBE_VERKAUFT;
+        }
+        else
+        {
+            return FARBE_FREI;
+        }
+    }
+
+    /**
+     * Gibt die Beschriftung der angegebenen Reihe zurück.
+     */
+    private static String beschriftung(int reihe)
+    {
+        return "Reihe " + (reihe + 1) + ":";
+    }
+
+    /**
+     * Gibt die x-Koordinate zurück, an der das Gitter der Plätze beginnt. Ist
+     * die Komponente größer als nötig, wird der Plan zentriert.
+     */
+    private int gitterX()
+    {
+        return Math.max(0, (getWidth() - getPreferredSize().width) / 2)
+                + _beschriftungsbreite;
+    }
+
+    /**
+     * Gibt die y-Koordinate zurück, an der das Gitter der Plätze beginnt.
+     */
+    private int gitterY()
+    {
+        return Math.max(0, (getHeight() - getPreferredSize().height) / 2);
+    }
+
+    /**
+     * Gibt den Platz an der angegebenen Position zurück, oder null, falls dort
+     * kein Platz ist.
      */
-    private void imGitterEinfuegen(Component component, int gridx, int gridy)
+    private Platz platzBei(int x, int y)
     {
-        add(component, new GridBagConstraints(gridx, gridy, 1, 1, 1.0, 1.0,
-                GridBagConstraints.CENTER, GridBagConstraints.NONE, new Insets(
-                        2, 2, 2, 2), 0, 0));
+        int dx = x - gitterX();
+        int dy = y - gitterY();
+        if (dx < 0 || dy < 0)
+        {
+            return null;
+        }
+        int sitz = dx / ZELLE_BREITE;
+        int reihe = dy / ZELLE_HOEHE;
+        int innenX = dx % ZELLE_BREITE;
+        int innenY = dy % ZELLE_HOEHE;
+        if (sitz >= _anzahlSitzeProReihe || reihe >= _anzahlReihen
+                || innenX < RAND || innenX >= ZELLE_BREITE - RAND
+                || innenY < RAND || innenY >= ZELLE_HOEHE - RAND)
+        {
+            return null;
+        }
+        return Platz.get(reihe, sitz);
     }
 
     /**
-     * Gibt die Menge der ausgewählten Plätze zurück.
+     * Zeichnet nur die Zelle des angegebenen Platzes neu.
+     */
+    private void zeichnePlatzNeu(Platz platz)
+    {
+        repaint(gitterX() + platz.getSitz() * ZELLE_BREITE, gitterY()
+                + platz.getReihe() * ZELLE_HOEHE, ZELLE_BREITE, ZELLE_HOEHE);
+    }
+
+    /**
+     * Gibt eine nicht veränderbare Sicht auf die ausgewählten Plätze zurück.
+     * Sie wird nicht kopiert und zeigt spätere Änderungen der Auswahl; wer die
+     * Auswahl aufbewahren will, muss sie selbst kopieren.
      * 
      * @ensure result != null
      */
-    public Set<Platz> getAusgewaehltePlaetze()
+    public PlatzMenge getAusgewaehltePlaetze()
     {
-        return new HashSet<Platz>(_ausgewaehltePlaetze);
+        return _ausgewaehltePlaetze.nurLesbar();
     }
 
     /**
-     * Entfernt die Auswahl, sodass keine Plätze mehr ausgewählt sind.
+     * Wählt genau die angegebenen Plätze aus, etwa um eine Auswahl
+     * wiederherzustellen. Ändert sich die Auswahl dadurch, werden die
+     * Listener benachrichtigt.
+     * 
+     * @param plaetze die auszuwählenden Plätze.
+     * 
+     * @require plaetze != null
+     * @require hatAnzahlPlaetze(plaetze.getAnzahlReihen(),
+     *          plaetze.getAnzahlSitzeProReihe())
+     */
+    public void setAusgewaehltePlaetze(PlatzMenge plaetze)
+    {
+        assert plaetze != null : "Vorbedingung verletzt: plaetze != null";
+        assert hatAnzahlPlaetze(plaetze.getAnzahlReihen(),
+                plaetze.getAnzahlSitzeProReihe()) : "Vorbedingung verletzt: hatAnzahlPlaetze(...)";
+
+        if (plaetze.equals(_ausgewaehltePlaetze))
+        {
+            return;
+        }
+        for (Platz platz : _ausgewaehltePlaetze)
+        {
+            zeichnePlatzNeu(platz);
+        }
+        _ausgewaehltePlaetze = new PlatzMenge(plaetze);
+        for (Platz platz : _ausgewaehltePlaetze)
+        {
+            zeichnePlatzNeu(platz);
+        }
+        informiereSelectionListener();
+    }
+
+    /**
+     * Entfernt die Auswahl, sodass keine Plätze mehr ausgewählt sind. War
+     * etwas ausgewählt, werden die Listener benachrichtigt.
      */
     public void entferneAuswahl()
     {
+        if (_ausgewaehltePlaetze.isEmpty())
+        {
+            return;
+        }
         for (Platz platz : _ausgewaehltePlaetze)
         {
-            _buttons[platz.getReihe()][platz.getSitz()].setAusgewaehlt(false);
+            zeichnePlatzNeu(platz);
         }
         _ausgewaehltePlaetze.clear();
-        repaint();
+        informiereSelectionListener();
+    }
+
+    /**
+     * Zeigt genau die angegebenen Plätze als verkauft und alle anderen als
+     * frei an. Nur die Plätze, deren Zustand sich dabei ändert, werden über
+     * {@link #markierePlatzAlsVerkauft(Platz)} bzw.
+     * {@link #markierePlatzAlsFrei(Platz)} neu gezeichnet.
+     * 
+     * @param verkauftePlaetze die verkauften Plätze.
+     * 
+     * @require verkauftePlaetze != null
+     * @require hatAnzahlPlaetze(verkauftePlaetze.getAnzahlReihen(),
+     *          verkauftePlaetze.getAnzahlSitzeProReihe())
+     */
+    public void zeigeVerkauftePlaetze(PlatzMenge verkauftePlaetze)
+    {
+        assert verkauftePlaetze != null : "Vorbedingung verletzt: verkauftePlaetze != null";
+        assert hatAnzahlPlaetze(verkauftePlaetze.getAnzahlReihen(),
+                verkauftePlaetze.getAnzahlSitzeProReihe()) : "Vorbedingung verletzt: hatAnzahlPlaetze(...)";
+
+        // Die Differenzen werden wortweise berechnet
+        PlatzMenge neuVerkauft = new PlatzMenge(verkauftePlaetze);
+        neuVerkauft.removeAll(_verkauftePlaetze);
+        PlatzMenge neuFrei = new PlatzMenge(_verkauftePlaetze);
+        neuFrei.removeAll(verkauftePlaetze);
+        for (Platz platz : neuVerkauft)
+        {
+            markierePlatzAlsVerkauft(platz);
+        }
+        for (Platz platz : neuFrei)
+        {
+            markierePlatzAlsFrei(platz);
+        }
     }
 
     /**
@@ -212,8 +747,8 @@ class JPlatzplan extends JComponent
     public void markierePlatzAlsVerkauft(Platz platz)
     {
         assert platz != null : "Vorbedingung verletzt: platz != null";
-        _buttons[platz.getReihe()][platz.getSitz()].setVerkauft(true);
-        repaint();
+        _verkauftePlaetze.add(platz);
+        zeichnePlatzNeu(platz);
     }
 
     /**
@@ -226,8 +761,8 @@ class JPlatzplan extends JComponent
     public void markierePlatzAlsFrei(Platz platz)
     {
         assert platz != null : "Vorbedingung verletzt: platz != null";
-        _buttons[platz.getReihe()][platz.getSitz()].setVerkauft(false);
-        repaint();
+        _verkauftePlaetze.remove(platz);
+        zeichnePlatzNeu(platz);
     }
 
     private static final long serialVersionUID = 4269824971779004365L;
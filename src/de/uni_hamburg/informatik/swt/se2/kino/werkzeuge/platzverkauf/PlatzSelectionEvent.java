@@ -1,10 +1,8 @@
 package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf;
 
 import java.util.EventObject;
-import java.util.HashSet;
-import java.util.Set;
 
-import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
 
 /**
  * Event, das über eine Änderung bei der Auswahl von Plätzen informiert. Dieses
@@ -17,24 +15,35 @@ import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
  */
 class PlatzSelectionEvent extends EventObject
 {
-    private Set<Platz> _ausgewaehltePlaetze;
+    private final PlatzMenge _ausgewaehltePlaetze;
 
     /**
-     * Erstellt ein neues PlatzSelectionEvent.
+     * Erstellt ein neues PlatzSelectionEvent. Das Event übernimmt die Menge,
+     * ohne sie zu kopieren; sie muss eine Momentaufnahme sein, die nicht mehr
+     * verändert wird.
      * 
      * @param source Das Objekt, von dem das Ereignis ausgelöst wurde.
      * @param ausgewaehltePlaetze die Menge der ausgewählten Plätze.
+     * 
+     * @require ausgewaehltePlaetze != null
+     * @require ausgewaehltePlaetze.istNurLesbar()
      */
-    public PlatzSelectionEvent(Object source, Set<Platz> ausgewaehltePlaetze)
+    public PlatzSelectionEvent(Object source, PlatzMenge ausgewaehltePlaetze)
     {
         super(source);
-        _ausgewaehltePlaetze = new HashSet<Platz>(ausgewaehltePlaetze);
+        assert ausgewaehltePlaetze != null : "Vorbedingung verletzt: ausgewaehltePlaetze != null";
+        assert ausgewaehltePlaetze.istNurLesbar() : "Vorbedingung verletzt: ausgewaehltePlaetze.istNurLesbar()";
+
+        _ausgewaehltePlaetze = ausgewaehltePlaetze;
     }
 
     /**
-     * Gibt die Menge der nach diesem Ereignis ausgewählten Plätze zurück.
+     * Gibt die Menge der nach diesem Ereignis ausgewählten Plätze zurück. Alle
+     * Listener erhalten dieselbe, nicht veränderbare Menge.
+     * 
+     * @ensure result != null
      */
-    public Set<Platz> getAusgewaehltePlaetze()
+    public PlatzMenge getAusgewaehltePlaetze()
     {
         return _ausgewaehltePlaetze;
     }
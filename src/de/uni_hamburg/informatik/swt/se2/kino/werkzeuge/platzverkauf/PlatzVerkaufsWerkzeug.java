@@ -2,42 +2,92 @@ package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Observable;
-import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.swing.JPanel;
 
 import de.uni_hamburg.informatik.swt.se2.kino.fachwerte.Platz;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Histogramm;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Kinosaal;
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.PlatzMenge;
 import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+import de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.Hintergrundauftrag;
 
 /**
  * Mit diesem Werkzeug können Plätze verkauft und storniert werden. Es arbeitet
  * auf einer Vorstellung als Material. Mit ihm kann angezeigt werden, welche
  * Plätze schon verkauft und welche noch frei sind.
  * 
+ * Verkäufe und Stornierungen laufen in einem Executor, der beim Erzeugen
+ * angegeben wird. Bis sie erledigt sind, zeigt der Platzplan die Plätze schon
+ * als verkauft bzw. frei an und beide Buttons sind deaktiviert; scheitert der
+ * Vorgang, wird die tatsächliche Belegung angezeigt und die Auswahl
+ * wiederhergestellt.
+ * 
  * Dieses Werkzeug ist ein eingebettetes Subwerkzeug. Es kann nicht beobachtet
  * werden.
  * 
  * @author SE2-Team
  * @version SoSe 2012
  */
-public class PlatzVerkaufsWerkzeug extends Observable
+public class PlatzVerkaufsWerkzeug
 {
+    // Die Dauer aller Aktualisierungen des Platzplans in Nanosekunden, über
+    // alle Exemplare dieses Werkzeugs.
+    private static final Histogramm AKTUALISIERUNGSDAUER = new Histogramm();
+
     private PlatzVerkaufsWerkzeugUI _ui;
 
     // Die aktuelle Vorstellung, deren Plätze angezeigt werden. Kann null sein.
     private Vorstellung _vorstellung;
 
+    // Der Executor, in dem Verkäufe und Stornierungen laufen.
+    private final Executor _executor;
+
+    // Die Anzahl der Gründe, aus denen gerade weder verkauft noch storniert
+    // werden kann: laufende Vorgänge und Sperren durch das Kontextwerkzeug.
+    // Wird nur auf dem Event Dispatch Thread verwendet.
+    private int _sperren;
+
     /**
-     * Initialisiert das PlatzVerkaufsWerkzeug.
+     * Initialisiert das PlatzVerkaufsWerkzeug. Verkäufe und Stornierungen
+     * laufen direkt auf dem Event Dispatch Thread.
      */
     public PlatzVerkaufsWerkzeug()
     {
+        this(Hintergrundauftrag.DIREKT);
+    }
+
+    /**
+     * Initialisiert das PlatzVerkaufsWerkzeug. Verkäufe und Stornierungen
+     * laufen im angegebenen Executor.
+     * 
+     * @param executor der Executor für Verkäufe und Stornierungen.
+     * 
+     * @require executor != null
+     */
+    public PlatzVerkaufsWerkzeug(Executor executor)
+    {
+        assert executor != null : "Vorbedingung verletzt: executor != null";
+
+        _executor = executor;
         _ui = new PlatzVerkaufsWerkzeugUI();
         registriereUIAktionen();
-        // Am Anfang wird keine Vorstellung angezeigt:
+        // Am Anfang wird keine Vorstellung angezeigt und nichts ist
+        // ausgewählt:
         setVorstellung(null);
+        reagiereAufNeuePlatzAuswahl(_ui.getPlatzplan().getAusgewaehltePlaetze());
+    }
+
+    /**
+     * Gibt die Dauer aller bisherigen Aktualisierungen des Platzplans in
+     * Nanosekunden zurück.
+     * 
+     * @ensure result != null
+     */
+    public static Histogramm getAktualisierungsdauer()
+    {
+        return AKTUALISIERUNGSDAUER;
     }
 
     /**
@@ -92,17 +142,52 @@ public class PlatzVerkaufsWerkzeug extends Observable
      * 
      * @param plaetze die jetzt ausgewählten Plätze.
      */
-    private void reagiereAufNeuePlatzAuswahl(Set<Platz> plaetze)
+    private void reagiereAufNeuePlatzAuswahl(PlatzMenge plaetze)
     {
-        _ui.getVerkaufenButton().setEnabled(istVerkaufenMoeglich(plaetze));
-        _ui.getStornierenButton().setEnabled(istStornierenMoeglich(plaetze));
+        _ui.getVerkaufenButton().setEnabled(
+                !istGesperrt() && istVerkaufenMoeglich(plaetze));
+        _ui.getStornierenButton().setEnabled(
+                !istGesperrt() && istStornierenMoeglich(plaetze));
         aktualisierePreisanzeige(plaetze);
     }
 
+    /**
+     * Sperrt Verkauf und Stornierung, bis {@link #entsperre()} ebenso oft
+     * aufgerufen wurde, etwa während das Kontextwerkzeug einen neuen
+     * Tagesplan lädt. Die Buttons werden sofort deaktiviert.
+     */
+    public void sperre()
+    {
+        _sperren++;
+        reagiereAufNeuePlatzAuswahl(_ui.getPlatzplan().getAusgewaehltePlaetze());
+    }
+
+    /**
+     * Hebt eine Sperre durch {@link #sperre()} auf.
+     * 
+     * @require istGesperrt()
+     */
+    public void entsperre()
+    {
+        assert istGesperrt() : "Vorbedingung verletzt: istGesperrt()";
+
+        _sperren--;
+        reagiereAufNeuePlatzAuswahl(_ui.getPlatzplan().getAusgewaehltePlaetze());
+    }
+
+    /**
+     * Prüft, ob Verkauf und Stornierung gerade gesperrt sind, weil ein
+     * Vorgang läuft oder {@link #sperre()} aufgerufen wurde.
+     */
+    public boolean istGesperrt()
+    {
+        return _sperren > 0;
+    }
+
     /**
      * Aktualisiert den anzuzeigenden Gesamtpreis
      */
-    private void aktualisierePreisanzeige(Set<Platz> plaetze)
+    private void aktualisierePreisanzeige(PlatzMenge plaetze)
     {
 
         if (istVerkaufenMoeglich(plaetze))
@@ -119,7 +204,7 @@ public class PlatzVerkaufsWerkzeug extends Observable
     /**
      * Prüft, ob die angegebenen Plätze alle storniert werden können.
      */
-    private boolean istStornierenMoeglich(Set<Platz> plaetze)
+    private boolean istStornierenMoeglich(PlatzMenge plaetze)
     {
         return !plaetze.isEmpty() && _vorstellung.sindStornierbar(plaetze);
     }
@@ -127,7 +212,7 @@ public class PlatzVerkaufsWerkzeug extends Observable
     /**
      * Prüft, ob die angegebenen Plätze alle verkauft werden können.
      */
-    private boolean istVerkaufenMoeglich(Set<Platz> plaetze)
+    private boolean istVerkaufenMoeglich(PlatzMenge plaetze)
     {
         return !plaetze.isEmpty() && _vorstellung.sindVerkaufbar(plaetze);
     }
@@ -144,57 +229,155 @@ public class PlatzVerkaufsWerkzeug extends Observable
     }
 
     /**
-     * Aktualisiert den Platzplan basierend auf der ausgwählten Vorstellung.
+     * Aktualisiert den Platzplan basierend auf der ausgwählten Vorstellung. Der
+     * Platzplan wird nur neu aufgebaut, wenn sich die Abmessungen des
+     * Kinosaals ändern; sonst werden nur die Plätze neu gezeichnet, deren
+     * Zustand sich geändert hat. Eine bestehende Auswahl wird aufgehoben.
      */
     private void aktualisierePlatzplan()
     {
+        long anfang = System.nanoTime();
+        JPlatzplan platzplan = _ui.getPlatzplan();
+        int reihen = 0;
+        int sitze = 0;
         if (_vorstellung != null)
         {
             Kinosaal saal = _vorstellung.getKinosaal();
-            _ui.getPlatzplan().setAnzahlPlaetze(saal.getAnzahlReihen(),
-                    saal.getAnzahlSitzeProReihe());
+            reihen = saal.getAnzahlReihen();
+            sitze = saal.getAnzahlSitzeProReihe();
+        }
 
-            for (Platz platz : saal.getPlaetze())
-            {
-                if (_vorstellung.istPlatzVerkauft(platz))
-                {
-                    _ui.getPlatzplan().markierePlatzAlsVerkauft(platz);
-                }
-            }
+        if (platzplan.hatAnzahlPlaetze(reihen, sitze))
+        {
+            platzplan.entferneAuswahl();
         }
         else
         {
-            _ui.getPlatzplan().setAnzahlPlaetze(0, 0);
+            platzplan.setAnzahlPlaetze(reihen, sitze);
         }
+        if (_vorstellung != null)
+        {
+            platzplan.zeigeVerkauftePlaetze(_vorstellung.getVerkauftePlaetze());
+        }
+        AKTUALISIERUNGSDAUER.erfasse(System.nanoTime() - anfang);
     }
 
     /**
-     * Verkauft die ausgewählten Plaetze.
+     * Verkauft die ausgewählten Plaetze im Executor. Bis dahin werden sie
+     * bereits als verkauft angezeigt.
      */
-    private void verkaufePlaetze(Vorstellung vorstellung)
+    private void verkaufePlaetze(final Vorstellung vorstellung)
     {
-        Set<Platz> plaetze = _ui.getPlatzplan().getAusgewaehltePlaetze();
-        vorstellung.verkaufePlaetze(plaetze);
-        aktualisierePlatzplan();
-        
-        //Ueber aenderungen informieren
-        setChanged();
-        notifyObservers( this);
-        clearChanged();
+        final PlatzMenge plaetze = new PlatzMenge(_ui.getPlatzplan()
+            .getAusgewaehltePlaetze());
+        beginneVorgang(plaetze, true);
+        new Hintergrundauftrag<Platz>()
+        {
+            @Override
+            protected Platz arbeite()
+            {
+                return vorstellung.verkaufeFallsFrei(plaetze);
+            }
+
+            @Override
+            protected void erledigt(Platz konflikt)
+            {
+                beendeVorgang(vorstellung, plaetze, konflikt == null ? null
+                        : "Platz " + konflikt + " ist nicht mehr frei.");
+            }
+
+            @Override
+            protected void gescheitert(Throwable fehler)
+            {
+                beendeVorgang(vorstellung, plaetze,
+                        "Der Verkauf ist gescheitert.");
+                zeigeFehler(getUIPanel(), "Der Verkauf ist gescheitert.",
+                        fehler);
+            }
+        }.starte(_executor);
     }
 
     /**
-     * Storniert die ausgewählten Plaetze.
+     * Storniert die ausgewählten Plaetze im Executor. Bis dahin werden sie
+     * bereits als frei angezeigt.
      */
-    private void stornierePlaetze(Vorstellung vorstellung)
+    private void stornierePlaetze(final Vorstellung vorstellung)
     {
-        Set<Platz> plaetze = _ui.getPlatzplan().getAusgewaehltePlaetze();
-        vorstellung.stornierePlaetze(plaetze);
-        aktualisierePlatzplan();
-        
-        //Ueber aenderungen informieren
-        setChanged();
-        notifyObservers( this);
-        clearChanged();
+        final PlatzMenge plaetze = new PlatzMenge(_ui.getPlatzplan()
+            .getAusgewaehltePlaetze());
+        beginneVorgang(plaetze, false);
+        new Hintergrundauftrag<Platz>()
+        {
+            @Override
+            protected Platz arbeite()
+            {
+                return vorstellung.storniereFallsVerkauft(plaetze);
+            }
+
+            @Override
+            protected void erledigt(Platz konflikt)
+            {
+                beendeVorgang(vorstellung, plaetze, konflikt == null ? null
+                        : "Platz " + konflikt + " ist nicht mehr verkauft.");
+            }
+
+            @Override
+            protected void gescheitert(Throwable fehler)
+            {
+                beendeVorgang(vorstellung, plaetze,
+                        "Die Stornierung ist gescheitert.");
+                zeigeFehler(getUIPanel(), "Die Stornierung ist gescheitert.",
+                        fehler);
+            }
+        }.starte(_executor);
+    }
+
+    /**
+     * Sperrt Verkauf und Stornierung, hebt die Auswahl auf und zeigt die
+     * Plätze so an, als sei der Vorgang schon erledigt.
+     */
+    private void beginneVorgang(PlatzMenge plaetze, boolean verkauf)
+    {
+        sperre();
+        JPlatzplan platzplan = _ui.getPlatzplan();
+        platzplan.entferneAuswahl();
+        for (Platz platz : plaetze)
+        {
+            if (verkauf)
+            {
+                platzplan.markierePlatzAlsVerkauft(platz);
+            }
+            else
+            {
+                platzplan.markierePlatzAlsFrei(platz);
+            }
+        }
+    }
+
+    /**
+     * Schließt einen Vorgang ab: Die tatsächliche Belegung wird angezeigt und
+     * die Sperre aufgehoben. Ist der Vorgang gescheitert, wird die Auswahl
+     * wiederhergestellt und der Grund angezeigt. Wurde inzwischen eine andere
+     * Vorstellung gewählt, bleibt deren Anzeige unverändert.
+     * 
+     * @param fehlermeldung der Grund des Scheiterns oder <code>null</code>.
+     */
+    private void beendeVorgang(Vorstellung vorstellung, PlatzMenge plaetze,
+            String fehlermeldung)
+    {
+        boolean angezeigt = vorstellung == _vorstellung;
+        if (angezeigt)
+        {
+            aktualisierePlatzplan();
+            if (fehlermeldung != null)
+            {
+                _ui.getPlatzplan().setAusgewaehltePlaetze(plaetze);
+            }
+        }
+        entsperre();
+        if (angezeigt && fehlermeldung != null)
+        {
+            _ui.getPreisLabel().setText(fehlermeldung);
+        }
     }
 }
@@ -0,0 +1,42 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.platzverkauf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Ein Ereignis für den JDK Flight Recorder, das den Neuaufbau des Platzplans
+ * für einen Saal anderer Größe mit seiner Dauer festhält.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+@Name("de.uni_hamburg.informatik.swt.se2.kino.PlatzplanAufbau")
+@Label("Platzplan-Aufbau")
+@Category({ "Kino", "Oberfläche" })
+final class PlatzplanAufbauEreignis extends Event
+{
+    @Name("reihen")
+    @Label("Reihen")
+    int _reihen;
+
+    @Name("sitzeProReihe")
+    @Label("Sitze pro Reihe")
+    int _sitzeProReihe;
+
+    /**
+     * Beendet die Zeitmessung und zeichnet das Ereignis auf, falls es
+     * aufgezeichnet werden soll.
+     */
+    void beende(int reihen, int sitzeProReihe)
+    {
+        end();
+        if (shouldCommit())
+        {
+            _reihen = reihen;
+            _sitzeProReihe = sitzeProReihe;
+            commit();
+        }
+    }
+}
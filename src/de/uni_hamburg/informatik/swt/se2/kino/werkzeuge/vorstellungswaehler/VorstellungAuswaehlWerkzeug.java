@@ -1,7 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler;
 
 import java.util.List;
-import java.util.Observable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.JPanel;
 import javax.swing.event.ListSelectionEvent;
@@ -15,34 +15,91 @@ import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
  * aus einem Tagesplan auswählen.
  * 
  * Dieses Werkzeug ist ein eingebettetes Subwerkzeug. Es benachrichtigt seine
- * Beobachter, wenn sich die ausgewählte Vorstellung geändert hat.
+ * Listener, wenn sich die ausgewählte Vorstellung geändert hat, und zwar
+ * genau einmal pro Änderung: Zwischenstände beim Austauschen der Liste und
+ * Auswahlereignisse, nach denen dieselbe Vorstellung ausgewählt ist, werden
+ * nicht weitergegeben.
  */
-public class VorstellungAuswaehlWerkzeug extends Observable
+public class VorstellungAuswaehlWerkzeug
 {
     private VorstellungAuswaehlWerkzeugUI _ui;
 
     // Das Material dieses Werkzeugs
     private Tagesplan _tagesplan;
 
+    // Die Vorstellung, über deren Auswahl die Listener zuletzt informiert
+    // wurden.
+    private Vorstellung _gemeldeteVorstellung;
+
+    // Ist true, während die angezeigte Liste ausgetauscht wird.
+    private boolean _listeWirdAktualisiert;
+
+    private List<VorstellungAuswahlListener> _listener;
+
     /**
      * Initialisiert das Werkzeug.
      */
     public VorstellungAuswaehlWerkzeug()
     {
         _ui = new VorstellungAuswaehlWerkzeugUI();
+        _listener = new CopyOnWriteArrayList<VorstellungAuswahlListener>();
 
         registriereUIAktionen();
     }
 
     /**
      * Diese Methode wird aufgerufen, wenn eine Vorstellung ausgewaehlt wurde.
+     * Die Listener werden nur informiert, wenn jetzt eine andere Vorstellung
+     * ausgewählt ist als bei der letzten Benachrichtigung.
      */
     private void vorstellungWurdeAusgewaehlt()
     {
-        //Ueber aenderungen informieren
-        setChanged();
-        notifyObservers( this);
-        clearChanged();
+        if (_listeWirdAktualisiert)
+        {
+            return;
+        }
+        Vorstellung vorstellung = getAusgewaehlteVorstellung();
+        if (vorstellung != _gemeldeteVorstellung)
+        {
+            _gemeldeteVorstellung = vorstellung;
+            informiereListener(vorstellung);
+        }
+    }
+
+    /**
+     * Fügt einen Listener hinzu, der bei Änderungen der ausgewählten
+     * Vorstellung benachrichtigt wird.
+     * 
+     * @param listener der Listener.
+     */
+    public void addVorstellungAuswahlListener(
+            VorstellungAuswahlListener listener)
+    {
+        _listener.add(listener);
+    }
+
+    /**
+     * Entfernt einen Listener.
+     * 
+     * @param listener der Listener.
+     */
+    public void removeVorstellungAuswahlListener(
+            VorstellungAuswahlListener listener)
+    {
+        _listener.remove(listener);
+    }
+
+    /**
+     * Benachrichtigt die Listener über die neu ausgewählte Vorstellung.
+     */
+    private void informiereListener(Vorstellung vorstellung)
+    {
+        VorstellungAuswahlEvent event = new VorstellungAuswahlEvent(this,
+                vorstellung);
+        for (VorstellungAuswahlListener listener : _listener)
+        {
+            listener.vorstellungGeaendert(event);
+        }
     }
 
     /**
@@ -73,6 +130,18 @@ public class VorstellungAuswaehlWerkzeug extends Observable
         return result;
     }
 
+    /**
+     * Legt fest, ob eine Vorstellung ausgewählt werden kann. Ist die Auswahl
+     * nicht möglich, bleibt die Liste sichtbar, reagiert aber nicht auf die
+     * Benutzerin oder den Benutzer.
+     * 
+     * @param moeglich ob eine Vorstellung ausgewählt werden kann.
+     */
+    public void setAuswahlMoeglich(boolean moeglich)
+    {
+        _ui.getVorstellungAuswahlList().setEnabled(moeglich);
+    }
+
     /**
      * Setzt den Tagesplan, dessen Vorstellungen zur Auswahl angeboten werden.
      * 
@@ -88,7 +157,8 @@ public class VorstellungAuswaehlWerkzeug extends Observable
     }
 
     /**
-     * Aktualisiert die Liste der Vorstellungen.
+     * Aktualisiert die Liste der Vorstellungen und wählt die erste aus. Die
+     * Listener werden danach höchstens einmal benachrichtigt.
      */
     private void aktualisiereAngezeigteVorstellungsliste(
             List<Vorstellung> vorstellungen)
@@ -99,8 +169,17 @@ public class VorstellungAuswaehlWerkzeug extends Observable
         {
             varray[i] = new VorstellungFormatierer(vorstellungen.get(i));
         }
-        _ui.getVorstellungAuswahlList().setListData(varray);
-        _ui.getVorstellungAuswahlList().setSelectedIndex(0);
+        _listeWirdAktualisiert = true;
+        try
+        {
+            _ui.getVorstellungAuswahlList().setListData(varray);
+            _ui.getVorstellungAuswahlList().setSelectedIndex(0);
+        }
+        finally
+        {
+            _listeWirdAktualisiert = false;
+        }
+        vorstellungWurdeAusgewaehlt();
     }
 
     private void registriereUIAktionen()
@@ -0,0 +1,48 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler;
+
+import java.util.EventObject;
+
+import de.uni_hamburg.informatik.swt.se2.kino.materialien.Vorstellung;
+
+/**
+ * Event, das darüber informiert, dass im {@link VorstellungAuswaehlWerkzeug}
+ * eine andere Vorstellung ausgewählt wurde.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public class VorstellungAuswahlEvent extends EventObject
+{
+    private Vorstellung _vorstellung;
+
+    /**
+     * Erstellt ein neues VorstellungAuswahlEvent.
+     * 
+     * @param source Das Objekt, von dem das Ereignis ausgelöst wurde.
+     * @param vorstellung die jetzt ausgewählte Vorstellung, oder null, falls
+     *            keine ausgewählt ist.
+     */
+    public VorstellungAuswahlEvent(Object source, Vorstellung vorstellung)
+    {
+        super(source);
+        _vorstellung = vorstellung;
+    }
+
+    /**
+     * Gibt die nach diesem Ereignis ausgewählte Vorstellung zurück, oder
+     * <code>null</code>, falls keine ausgewählt ist.
+     */
+    public Vorstellung getVorstellung()
+    {
+        return _vorstellung;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "VorstellungAuswahlEvent[source=" + source + ", vorstellung="
+                + _vorstellung + "]";
+    }
+
+    private static final long serialVersionUID = 1L;
+}
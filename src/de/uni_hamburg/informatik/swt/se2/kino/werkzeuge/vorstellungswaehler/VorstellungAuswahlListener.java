@@ -0,0 +1,21 @@
+package de.uni_hamburg.informatik.swt.se2.kino.werkzeuge.vorstellungswaehler;
+
+import java.util.EventListener;
+
+/**
+ * Interface eines Listeners, der benachrichtigt wird, wenn im
+ * {@link VorstellungAuswaehlWerkzeug} eine andere Vorstellung ausgewählt
+ * wurde.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2012
+ */
+public interface VorstellungAuswahlListener extends EventListener
+{
+    /**
+     * Wird aufgerufen, wenn sich die ausgewählte Vorstellung geändert hat.
+     * 
+     * @param event das Event, das die Änderung beschreibt.
+     */
+    void vorstellungGeaendert(VorstellungAuswahlEvent event);
+}